@@ -0,0 +1,103 @@
+#!/bin/bash
+
+usage(){
+echo "
+Written by Brian Bushnell.
+Last modified October 18, 2026
+
+Description:  Creates a compact accession-to-taxid index from NCBI's
+accession2taxid files.  The index is memory-mapped rather than loaded,
+so it starts instantly and is shared by all processes on a node.
+Programs that accept accession= (such as taxserver.sh) will use it
+when given a file ending in .accidx; accession=auto prefers
+TAX_PATH/accession.accidx if present.
+
+Usage:  accessionindex.sh in=<files> out=<file> tree=<file>
+
+Parameters:
+in=auto         Comma-delimited accession2taxid files, optionally gzipped.
+                'auto' uses the default accession files in TAX_PATH.
+out=auto        Output index, ending in .accidx.
+                'auto' uses TAX_PATH/accession.accidx.
+tree=           Optional taxtree; if set, entries with taxids absent from
+                the tree are discarded.  'auto' uses the default tree.
+
+Accessions longer than 20 symbols are skipped.  Lookups are case-sensitive,
+as with the text files; '_' and '-' are treated as the same symbol.
+Older indexes that folded case are rejected on load and must be rebuilt.
+
+Java Parameters:
+-Xmx            This will set Java's memory usage, overriding autodetection.
+                -Xmx20g will specify 20 gigs of RAM.  The max is typically 85% of physical memory.
+-eoom           This flag will cause the process to exit if an out-of-memory
+                exception occurs.  Requires Java 8u92+.
+-da             Disable assertions.
+
+Please contact Brian Bushnell at bbushnell@lbl.gov if you encounter any problems.
+"
+}
+
+#This block allows symlinked shellscripts to correctly set classpath.
+pushd . > /dev/null
+DIR="${BASH_SOURCE[0]}"
+while [ -h "$DIR" ]; do
+  cd "$(dirname "$DIR")"
+  DIR="$(readlink "$(basename "$DIR")")"
+done
+cd "$(dirname "$DIR")"
+DIR="$(pwd)/"
+popd > /dev/null
+
+#DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )/"
+CP="$DIR""current/"
+NATIVELIBDIR="$DIR""jni/"
+
+z="-Xmx2g"
+z2="-Xms2g"
+EA="-ea"
+EOOM=""
+set=0
+
+if [ -z "$1" ] || [[ $1 == -h ]] || [[ $1 == --help ]]; then
+	usage
+	exit
+fi
+
+calcXmx () {
+	source "$DIR""/calcmem.sh"
+	parseXmx "$@"
+	if [[ $set == 1 ]]; then
+		return
+	fi
+	freeRam 2000m 84
+	z="-Xmx${RAM}m"
+	z2="-Xms${RAM}m"
+}
+calcXmx "$@"
+
+
+accessionindex() {
+	if [[ $SHIFTER_RUNTIME == 1 ]]; then
+		#Ignore NERSC_HOST
+		shifter=1
+	elif [[ $NERSC_HOST == genepool ]]; then
+		module unload oracle-jdk
+		module load oracle-jdk/1.8_144_64bit
+		module load pigz
+	elif [[ $NERSC_HOST == denovo ]]; then
+		module unload java
+		module load java/1.8.0_144
+		module load pigz
+	elif [[ $NERSC_HOST == cori ]]; then
+		module use /global/common/software/m342/nersc-builds/denovo/Modules/jgi
+		module use /global/common/software/m342/nersc-builds/denovo/Modules/usg
+		module unload java
+		module load java/1.8.0_144
+		module load pigz
+	fi
+	local CMD="java $EA $EOOM $z $z2 -cp $CP tax.AccessionIndex $@"
+	echo $CMD >&2
+	eval $CMD
+}
+
+accessionindex "$@"
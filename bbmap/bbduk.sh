@@ -154,6 +154,15 @@ prealloc=f          Preallocate memory in table.  Allows faster table loading
                     and more efficient memory usage, for a large reference.
 monitor=f           Kill this process if it crashes.  monitor=600,0.01 would 
                     kill after 600 seconds under 1% usage.
+freeze=f            After loading, convert kmer tables to a compact read-only
+                    form for faster, smaller lookups.  Freezing temporarily
+                    needs extra memory.  A number enables it and sets the
+                    load factor; default 0.7, lower is faster but larger.
+refcache=<dir>      Cache reference kmer tables in this directory, keyed by
+                    reference checksums and settings, and reload them on
+                    later runs instead of rehashing the reference.
+recyclereads=f      Reuse the base and quality arrays of written reads for
+                    newly parsed reads, reducing garbage collection.
 minrskip=1          (mns) Force minimal skip interval when indexing reference 
                     kmers.  1 means use all, 2 means use every other kmer, etc.
 maxrskip=1          (mxs) Restrict maximal skip interval when indexing 
@@ -37,6 +37,11 @@ usemodulo=f             Throw away ~80% of kmers based on remainder modulo a
                         Should be enabled both when building the index AND 
                         when mapping.
 rebuild=f               Force a rebuild of the index (ref= should be set).
+rawindex=t              Write the index and reference as uncompressed raw files,
+                        which load much faster via memory-mapping.  Indexes
+                        in the older gzipped format can still be read, and
+                        are used instead of raw files older than them.
+convertindex=f          Write a raw copy of an older gzipped index on load.
 
 Input Parameters:
 build=1                 Designate index to use.  Corresponds to the number 
@@ -74,6 +74,8 @@ Processing Parameters:
 usejni=f             (jni) Do overlapping in C code, which is faster.  Requires
                      compiling the C code; details are in /jni/README.txt.
                      However, the jni path is currently disabled.
+swar=t               Compare 8 bases per operation in Java when overlapping
+                     without qualities.  Results are identical to swar=f.
 merge=t              Create merged reads.  If set to false, you can still 
                      generate an insert histogram.
 ecco=f               Error-correct the overlapping part, but don't merge.
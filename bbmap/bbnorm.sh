@@ -47,6 +47,7 @@ prefilter=f         True is slower, but generally more accurate; filters out low
 prehashes=2         Number of hashes for prefilter.
 prefilterbits=2     (pbits) Bits per cell in prefilter.
 prefiltersize=0.35  Fraction of memory to allocate to prefilter.
+blockedbloom=f      Place all of a kmer's cells in one cache line, for the prefilter and main table.  Faster, with a slightly higher false-positive rate.
 buildpasses=1       More passes can sometimes increase accuracy by iteratively removing low-depth kmers
 minq=6              Ignore kmers containing bases with quality below this
 minprob=0.5         Ignore kmers with overall probability of correctness below this
@@ -64,6 +65,8 @@ percentile=54.0     (dp) Read depth is by default inferred from the 54th percent
 uselowerdepth=t     (uld) For pairs, use the depth of the lower read as the depth proxy.
 deterministic=t     (dr) Generate random numbers deterministically to ensure identical output between multiple runs.  May decrease speed with a huge number of threads.
 passes=2            (p) 1 pass is the basic mode.  2 passes (default) allows greater accuracy, error detection, better contol of output depth.
+reusetable=f        (reuse) Keep the count table between passes, removing the kmers of tossed reads instead of recounting.
+                    Saves rereading the input for counting.  Requires k<32 and no ecc1, trimming, histograms, or extra files on the first pass.
 
 Error detection parameters:
 hdp=90.0            (highdepthpercentile) Position in sorted kmer depth array used as proxy of a read's high kmer depth.
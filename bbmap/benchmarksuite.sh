@@ -0,0 +1,93 @@
+#!/bin/bash
+
+usage(){
+echo "
+Written by Brian Bushnell
+Last modified October 18, 2026
+
+Description:  Microbenchmarks for kmer tables, Bloom filters, fastq parsing,
+read overlap, reverse-complementing, Tadpole error-correction, and BBDuk
+kmer-trimming, using synthetic data.  Reports the median time per operation.
+Results can be saved and used as a baseline for later runs, to tell whether
+a change helps or hurts.
+
+Usage:  benchmarksuite.sh out=results.tsv
+        benchmarksuite.sh baseline=results.tsv
+
+From the source tree, 'ant benchmark-baseline' records a baseline in
+benchmark_baseline.tsv and 'ant benchmark' compares against it.  Extra
+parameters can be passed with -Dbenchmark.args="trials=9 bench=kca_read".
+
+Parameters:
+bench=all           Comma-delimited list of benchmarks to run.  Options:
+                    hash_increment, hash_getvalue, kca_increment, kca_read,
+                    fastq_parse, bbmerge_overlap, read_rcomp, tadpole_ecc,
+                    bbduk_ktrim.
+reads=200k          Number of synthetic reads.
+length=150          Read length.
+genome=2m           Size of the random genome reads are drawn from.
+kmers=2m            Number of random kmers for the table benchmarks.
+k=31                Kmer length for the table benchmarks and Tadpole.
+warmup=3            Untimed trials before measuring.
+trials=5            Timed trials; the median is reported.
+seed=1              Random seed for synthetic data.
+out=<file>          Write results to this tsv file.
+baseline=<file>     Compare results to a file previously written with out=.
+tolerance=0.05      Changes smaller than this fraction are reported as same.
+
+Java Parameters:
+-Xmx            This will set Java's memory usage, overriding autodetection.
+                -Xmx20g will specify 20 gigs of RAM, and -Xmx200m will
+                specify 200 megs. The max is typically 85% of physical memory.
+-eoom           This flag will cause the process to exit if an out-of-memory
+                exception occurs.  Requires Java 8u92+.
+-da             Disable assertions.
+
+Please contact Brian Bushnell at bbushnell@lbl.gov if you encounter any problems.
+"
+}
+
+#This block allows symlinked shellscripts to correctly set classpath.
+pushd . > /dev/null
+DIR="${BASH_SOURCE[0]}"
+while [ -h "$DIR" ]; do
+  cd "$(dirname "$DIR")"
+  DIR="$(readlink "$(basename "$DIR")")"
+done
+cd "$(dirname "$DIR")"
+DIR="$(pwd)/"
+popd > /dev/null
+
+#DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )/"
+CP="$DIR""current/"
+
+z="-Xmx4g"
+z2="-Xms4g"
+EA="-da"
+EOOM=""
+set=0
+
+if [[ $1 == -h ]] || [[ $1 == --help ]]; then
+	usage
+	exit
+fi
+
+calcXmx () {
+	source "$DIR""/calcmem.sh"
+	parseXmx "$@"
+	if [[ $set == 1 ]]; then
+		return
+	fi
+	freeRam 4000m 84
+	z="-Xmx${RAM}m"
+	z2="-Xms${RAM}m"
+}
+calcXmx "$@"
+
+benchmarksuite() {
+	local CMD="java $EA $EOOM $z $z2 -cp $CP jgi.BenchmarkSuite $@"
+	echo $CMD >&2
+	eval $CMD
+}
+
+benchmarksuite "$@"
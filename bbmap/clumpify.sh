@@ -66,6 +66,9 @@ quantize=f          Bin the quality scores, like NextSeq.  This greatly
 Temp file parameters:
 compresstemp=auto   (ct) Gzip temporary files.  By default temp files will be
                     compressed if the output file is compressed.
+spill=t             Write temp files in a binary format with 2-bit packed bases,
+                    instead of fastq.  Much faster than compressed temp files
+                    and smaller than raw ones.  Ignored if compresstemp=t.
 deletetemp=t        Delete temporary files.
 deleteinput=f       Delete input upon successful completion.
 usetmpdir=f         Use tmpdir for temp files.
@@ -237,6 +237,10 @@ public abstract class AbstractMapper {
 				ERROR_ON_NO_OUTPUT=Tools.parseBoolean(b);
 			}else if(a.equals("log")){
 				RefToIndex.LOG=Tools.parseBoolean(b);
+			}else if(a.equals("rawindex")){
+				Block.RAW=ChromosomeArray.RAW=Tools.parseBoolean(b);
+			}else if(a.equals("convertindex")){
+				Block.CONVERT_LEGACY=Tools.parseBoolean(b);
 			}else if(a.equals("sitesonly") || a.equals("outputsitesonly")){
 				outputSitesOnly=Tools.parseBoolean(b);
 				outstream.println("Set outputSitesOnly to "+outputSitesOnly);
@@ -2,8 +2,10 @@ package align2;
 
 import java.io.File;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
 
 import fileIO.LoadThread;
+import fileIO.RawArrays;
 import fileIO.ReadWrite;
 import shared.KillSwitch;
 
@@ -72,6 +74,15 @@ public class Block implements Serializable{
 	}
 	
 	public boolean write(String fname, boolean overwrite){
+		if(RAW){
+			File f=new File(rawName(fname));
+			if(f.exists() && !overwrite){
+				assert(false) : "Tried to overwrite file "+f.getAbsolutePath();
+				return false;
+			}
+			writeRaw(rawName(fname));
+			return true;
+		}
 		String fname2=fname+"2.gz";
 		{
 			File f=new File(fname);
@@ -123,7 +134,65 @@ public class Block implements Serializable{
 		}
 	}
 	
+	/** True if either the raw or the legacy form of this block exists. */
+	public static boolean exists(String fname){
+		return new File(rawName(fname)).exists() || (new File(fname).exists() && new File(fname+"2.gz").exists());
+	}
+	
+	/** Reads the raw form if present and not older than the legacy form, otherwise the legacy form. */
 	public static Block read(String fname){
+		final String raw=rawName(fname);
+		final File rawFile=new File(raw), legacy=new File(fname), legacy2=new File(fname+"2.gz");
+		final boolean useRaw=rawFile.exists() && (!legacy.exists() ||
+				(rawFile.lastModified()>=legacy.lastModified() && rawFile.lastModified()>=legacy2.lastModified()));
+		if(useRaw){return readRaw(raw);}
+		Block r=readLegacy(fname);
+		if(CONVERT_LEGACY){
+			try {
+				r.writeRaw(raw);
+			} catch (Throwable e) {
+				System.err.println("Warning: Could not write "+raw+": "+e);
+			}
+		}
+		return r;
+	}
+	
+	/** Name of the raw file for a block */
+	public static String rawName(String fname){
+		return fname+".raw";
+	}
+	
+	/** 
+	 * Writes an uncompressed little-endian file: magic, version, numSites, numStarts, starts, sites.
+	 * Written to a temp file and renamed, so concurrent readers never see a partial block.
+	 */
+	public void writeRaw(String raw){
+		final String tmp=raw+".tmp";
+		FileChannel fc=RawArrays.openWrite(tmp);
+		RawArrays.writeInts(fc, new int[] {RAW_MAGIC, RAW_VERSION, numSites, numStarts});
+		RawArrays.writeInts(fc, starts);
+		RawArrays.writeInts(fc, sites);
+		RawArrays.close(fc, tmp, raw);
+	}
+	
+	/** Maps a raw block file and copies it into heap arrays. */
+	public static Block readRaw(String raw){
+		FileChannel fc=RawArrays.openRead(raw);
+		final int[] header=new int[4];
+		long pos=RawArrays.readInts(fc, 0, header);
+		if(header[0]!=RAW_MAGIC || header[1]!=RAW_VERSION){
+			RawArrays.close(fc);
+			throw new RuntimeException("Unrecognized index file "+raw+"; please regenerate the index.");
+		}
+		final int[] b=new int[header[3]+1], a=new int[header[2]];
+		pos=RawArrays.readInts(fc, pos, b);
+		pos=RawArrays.readInts(fc, pos, a);
+		RawArrays.close(fc);
+		return new Block(a, b);
+	}
+	
+	/** Reads the gzipped serialized arrays written by older versions. */
+	private static Block readLegacy(String fname){
 		String fname2=fname+"2.gz";
 		
 		final int[] a, b;
@@ -165,6 +234,13 @@ public class Block implements Serializable{
 	public final int[] starts;
 
 	private static boolean allowSubprocess=false;
+	/** Write indexes in the raw format */
+	public static boolean RAW=true;
+	/** Write a raw copy of legacy indexes when they are loaded */
+	public static boolean CONVERT_LEGACY=false;
+	/** "BBI1" */
+	private static final int RAW_MAGIC=0x31494242;
+	private static final int RAW_VERSION=1;
 	private static final boolean compress=true;
 	private static final boolean copyOnWrite=false;
 	
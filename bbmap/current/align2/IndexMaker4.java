@@ -136,7 +136,7 @@ public class IndexMaker4 {
 				String fname=fname(minChrom, maxChrom, KEYLEN, CHROMBITS);
 				File f=new File(fname);
 
-				if(f.exists() && new File(fname+"2.gz").exists()){
+				if(Block.exists(fname)){
 					Block x=Block.read(fname);
 					if(matrix!=null){
 						for(int i=baseChrom(minChrom); i<=maxChrom; i++){
@@ -34,8 +34,7 @@ abstract class AbstractExploreThread extends ShaveObject implements Runnable {
 
 		//The number is lower than expected.  65k for 600k reads with errors.  Most are bubbles, but 40% should be dead ends, or 240k.
 
-		while(processNextTable(myKmer, myKmer2)){}
-		while(processNextVictims(myKmer, myKmer2)){}
+		while(processNextUnit(myKmer, myKmer2)){}
 		
 		for(int i=0; i<removeMatrixT.length; i++){
 			for(int j=0; j<removeMatrixT.length; j++){
@@ -46,11 +45,8 @@ abstract class AbstractExploreThread extends ShaveObject implements Runnable {
 		}
 	}
 
-	boolean processNextTable(){return processNextTable(myKmer, myKmer2);}
-	abstract boolean processNextTable(final Kmer kmer, Kmer temp);
-
-	boolean processNextVictims(){return processNextVictims(myKmer, myKmer);}
-	abstract boolean processNextVictims(final Kmer kmer, Kmer temp);
+	/** Explores the next range of table or victim cells from the scheduler; returns false when done. */
+	abstract boolean processNextUnit(final Kmer kmer, Kmer temp);
 
 	/*--------------------------------------------------------------*/
 
@@ -0,0 +1,176 @@
+package assemble;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import kmer.AbstractKmerTableSet;
+import kmer.HashArray;
+import shared.Tools;
+import ukmer.HashArrayU;
+
+/**
+ * Hands out ranges of table cells to threads, so a few large or dense ways
+ * don't leave most threads idle at the end of a phase.
+ * Each thread has a deque of units, dealt round-robin; it takes from the front of its own,
+ * and steals from the back of the others' when it runs out.
+ * Victim forests are split into units too, and dealt after the tables.
+ * Busy time is the time between a thread's calls to next().
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class CellScheduler {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public static CellScheduler make(AbstractKmerTableSet tables, int threads, int passes){
+		final int ways=tables.ways();
+		final int[] tableLengths=new int[ways], forestLengths=new int[ways];
+		for(int i=0; i<ways; i++){
+			final Object o=tables.getTable(i);
+			if(o instanceof HashArray){
+				final HashArray table=(HashArray)o;
+				tableLengths[i]=table.arrayLength();
+				forestLengths[i]=table.victims().arrayLength();
+			}else if(o instanceof HashArrayU){
+				final HashArrayU table=(HashArrayU)o;
+				tableLengths[i]=table.arrayLength();
+				forestLengths[i]=table.victims().arrayLength();
+			}else{
+				throw new RuntimeException("Unsupported table type "+(o==null ? null : o.getClass()));
+			}
+		}
+		return new CellScheduler(tableLengths, forestLengths, threads, passes);
+	}
+
+	/**
+	 * @param tableLengths Cells in each table
+	 * @param forestLengths Cells in each table's victim forest
+	 * @param threads_ Threads that will call next(), with ids 0 to threads-1
+	 * @param passes Number of times the cells will be processed
+	 */
+	@SuppressWarnings("unchecked")
+	public CellScheduler(int[] tableLengths, int[] forestLengths, int threads_, int passes){
+		threads=threads_;
+		deques=new ConcurrentLinkedDeque[passes][threads];
+		for(int p=0; p<passes; p++){
+			for(int t=0; t<threads; t++){deques[p][t]=new ConcurrentLinkedDeque<Unit>();}
+			int t=0;
+			t=deal(deques[p], tableLengths, false, t);
+			t=deal(deques[p], forestLengths, true, t);
+		}
+		busy=new long[threads];
+		units=new long[threads];
+		stolen=new long[threads];
+		lastTime=new long[threads];
+		finishTime=new long[threads];
+		startTime=System.nanoTime();
+	}
+
+	private int deal(ConcurrentLinkedDeque<Unit>[] dq, int[] lengths, boolean victims, int t){
+		for(int table=0; table<lengths.length; table++){
+			final int len=lengths[table];
+			for(int start=0; start<len; start+=UNIT_LENGTH){
+				dq[t].add(new Unit(table, start, (int)Tools.min(len, start+(long)UNIT_LENGTH), victims));
+				t=(t+1)%threads;
+				unitCount++;
+			}
+		}
+		return t;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Returns the next unit for this thread in this pass, stealing if necessary,
+	 * or null when the pass has no more work.
+	 */
+	public Unit next(final int tid, final int pass){
+		final long now=System.nanoTime();
+		if(lastTime[tid]>0){busy[tid]+=(now-lastTime[tid]);}
+
+		final ConcurrentLinkedDeque<Unit>[] dq=deques[pass];
+		Unit u=dq[tid].pollFirst();
+		for(int i=1; u==null && i<threads; i++){
+			u=dq[(tid+i)%threads].pollLast();
+			if(u!=null){stolen[tid]++;}
+		}
+
+		if(u==null){
+			lastTime[tid]=0;
+			finishTime[tid]=now;
+		}else{
+			lastTime[tid]=System.nanoTime();
+			units[tid]++;
+		}
+		return u;
+	}
+
+	/**
+	 * Summarizes thread busy time relative to the elapsed time of the slowest thread.
+	 * Call only after the threads have been joined.
+	 */
+	public String utilization(){
+		long sum=0, min=Long.MAX_VALUE, max=0, end=startTime, stole=0;
+		for(int t=0; t<threads; t++){
+			sum+=busy[t];
+			min=Tools.min(min, busy[t]);
+			max=Tools.max(max, busy[t]);
+			end=Tools.max(end, finishTime[t]);
+			stole+=stolen[t];
+		}
+		final double util=sum*100.0/Tools.max(1, threads*(end-startTime));
+		return String.format(Locale.ROOT, "Thread utilization:         \t%.2f%% \t(busy %.3f-%.3fs; %d units, %d stolen)",
+				util, min*1e-9, max*1e-9, unitCount, stole);
+	}
+
+	/** Busy seconds and units processed, per thread */
+	public String busyTimes(){
+		StringBuilder sb=new StringBuilder();
+		for(int t=0; t<threads; t++){
+			sb.append(t==0 ? "" : ", ").append(String.format(Locale.ROOT, "%.3f (%d)", busy[t]*1e-9, units[t]));
+		}
+		return sb.toString();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** A range of cells in one table, or in its victim forest. */
+	public static final class Unit {
+
+		Unit(int table_, int start_, int stop_, boolean victims_){
+			table=table_;
+			start=start_;
+			stop=stop_;
+			victims=victims_;
+		}
+
+		public final int table;
+		/** Cell range, exclusive of stop */
+		public final int start, stop;
+		/** True for the victim forest */
+		public final boolean victims;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final int threads;
+	private final ConcurrentLinkedDeque<Unit>[][] deques;
+	private long unitCount=0;
+
+	/** Written only by the owning thread */
+	private final long[] busy, units, stolen, lastTime, finishTime;
+	private final long startTime;
+
+	/** Cells per unit */
+	public static int UNIT_LENGTH=1<<16;
+
+}
@@ -4,7 +4,6 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import dna.AminoAcid;
@@ -205,13 +204,6 @@ public class KmerCompressor {
 		
 		assert(FastaReadInputStream.settingsOK());
 
-		nextTable=new AtomicInteger[1];
-		nextVictims=new AtomicInteger[1];
-		for(int i=0; i<1; i++){
-			nextTable[i]=new AtomicInteger(0);
-			nextVictims[i]=new AtomicInteger(0);
-		}
-
 		if(!Tools.testOutputFiles(overwrite, append, false, outContigs)){
 			throw new RuntimeException("\nCan't write to some output files; overwrite="+overwrite+"\n");
 		}
@@ -227,6 +219,9 @@ public class KmerCompressor {
 		}
 		
 		tables=new KmerTableSet(args, bytesPerKmer);
+		if(tables.tableType==AbstractKmerTable.ARRAYOH){
+			throw new RuntimeException("offheap=t is not supported by KmerCompressor; contig building requires on-heap tables.");
+		}
 		k2=tables.k2;
 	}
 
@@ -316,6 +311,7 @@ public class KmerCompressor {
 		allContigs=new ArrayList<Contig>();
 
 		tables.initializeOwnership();
+		scheduler=CellScheduler.make(tables, BUILD_THREADS, 1);
 		
 		/* Create ProcessThreads */
 		ArrayList<AbstractBuildThread> alpt=new ArrayList<AbstractBuildThread>(BUILD_THREADS);
@@ -344,6 +340,7 @@ public class KmerCompressor {
 			lowqReads+=pt.lowqReadsT;
 			lowqBases+=pt.lowqBasesT;
 		}
+		if(showStats){outstream.println(scheduler.utilization());}
 		
 		if(outContigs!=null){
 			FileFormat ff=FileFormat.testOutput(outContigs, FileFormat.FA, 0, 0, true, overwrite, append, false);
@@ -418,32 +415,25 @@ public class KmerCompressor {
 			//Build from kmers
 			
 			//Final pass
-			while(processNextTable(nextTable[0])){}
-			while(processNextVictims(nextVictims[0])){}
-		}
-		
-		private boolean processNextTable(AtomicInteger aint){
-			final int tnum=aint.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArray1D table=tables.getTable(tnum);
-			if(verbose && id==0){System.err.println("Processing table "+tnum+", size "+table.size());}
-			final int max=table.arrayLength();
-			for(int cell=0; cell<max; cell++){
-				int x=processCell(table, cell);
-			}
-			return true;
-		}
-		
-		private boolean processNextVictims(AtomicInteger aint){
-			final int tnum=aint.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArray1D table=tables.getTable(tnum);
-			final HashForest forest=table.victims();
-			if(verbose && id==0){System.err.println("Processing forest "+tnum+", size "+forest.size());}
-			final int max=forest.arrayLength();
-			for(int cell=0; cell<max; cell++){
-				KmerNode kn=forest.getNode(cell);
-				int x=traverseKmerNode(kn);
+			while(processNextUnit()){}
+		}
+		
+		private boolean processNextUnit(){
+			final CellScheduler.Unit unit=scheduler.next(id, 0);
+			if(unit==null){return false;}
+			final HashArray1D table=tables.getTable(unit.table);
+			if(unit.victims){
+				final HashForest forest=table.victims();
+				if(verbose && id==0){System.err.println("Processing forest "+unit.table+", cells "+unit.start+"-"+unit.stop);}
+				for(int cell=unit.start; cell<unit.stop; cell++){
+					KmerNode kn=forest.getNode(cell);
+					int x=traverseKmerNode(kn);
+				}
+			}else{
+				if(verbose && id==0){System.err.println("Processing table "+unit.table+", cells "+unit.start+"-"+unit.stop);}
+				for(int cell=unit.start; cell<unit.stop; cell++){
+					int x=processCell(table, cell);
+				}
 			}
 			return true;
 		}
@@ -933,11 +923,8 @@ public class KmerCompressor {
 	/** For numbering contigs */
 	final AtomicLong contigNum=new AtomicLong(0);
 	
-	/** For controlling access to tables for contig-building */
-	final AtomicInteger nextTable[];
-	
-	/** For controlling access to victim buffers for contig-building */
-	final AtomicInteger nextVictims[];
+	/** Hands out table and victim cells for contig-building */
+	CellScheduler scheduler;
 	
 	final int fuse;
 	
@@ -93,8 +93,7 @@ public abstract class Shaver extends ShaveObject {
 		removeMatrix=new long[8][8];
 		
 		{
-			nextTable.set(0);
-			nextVictims.set(0);
+			scheduler=CellScheduler.make(tables(), threads, 1);
 			
 			/* Create Explorethreads */
 			ArrayList<AbstractExploreThread> alpt=new ArrayList<AbstractExploreThread>(threads);
@@ -134,13 +133,13 @@ public abstract class Shaver extends ShaveObject {
 			outstream.println("Found "+bubblesFoundTemp+" bubbles.");
 			
 			outstream.println("Search time: "+t);
+			outstream.println(scheduler.utilization());
 		}
 
 		{
 			t.start();
 			
 			nextTable.set(0);
-			nextVictims.set(0);
 			
 			/* Create Shavethreads */
 			ArrayList<AbstractShaveThread> alpt=new ArrayList<AbstractShaveThread>(threads);
@@ -219,10 +218,10 @@ public abstract class Shaver extends ShaveObject {
 	private long[][] countMatrix;
 	private long[][] removeMatrix;
 	
-	/** For controlling access to tables */
+	/** For controlling access to tables during removal */
 	final AtomicInteger nextTable=new AtomicInteger(0);
 	
-	/** For controlling access to victim buffers */
-	final AtomicInteger nextVictims=new AtomicInteger(0);
+	/** Hands out table and victim cells for exploration */
+	CellScheduler scheduler;
 	
 }
@@ -415,46 +415,46 @@ public class Shaver1 extends Shaver {
 		}
 		
 		@Override
-		boolean processNextTable(Kmer kmer, Kmer temp){
-			final int tnum=nextTable.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArray1D table=tables.getTable(tnum);
-			final int max=table.arrayLength();
+		boolean processNextUnit(Kmer kmer, Kmer temp){
+			final CellScheduler.Unit unit=scheduler.next(id, 0);
+			if(unit==null){return false;}
+			final HashArray1D table=tables.getTable(unit.table);
+			if(unit.victims){
+				processVictims(table.victims(), unit.start, unit.stop);
+			}else{
+				processTable(table, unit.start, unit.stop);
+			}
+			return true;
+		}
+		
+		private void processTable(final HashArray1D table, final int min, final int max){
 			if(startFromHighCounts){
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					int x=processCell_high(table, cell);
 					deadEndsFoundT+=x;
 				}
 			}else{
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					int x=processCell_low(table, cell);
 					deadEndsFoundT+=x;
 				}
 			}
-			return true;
 		}
 		
-		@Override
-		boolean processNextVictims(Kmer kmer, Kmer temp){
-			final int tnum=nextVictims.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArray1D table=tables.getTable(tnum);
-			final HashForest forest=table.victims();
-			final int max=forest.arrayLength();
+		private void processVictims(final HashForest forest, final int min, final int max){
 			if(startFromHighCounts){
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					KmerNode kn=forest.getNode(cell);
 					int x=traverseKmerNode_high(kn);
 					deadEndsFoundT+=x;
 				}
 			}else{
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					KmerNode kn=forest.getNode(cell);
 					int x=traverseKmerNode_low(kn);
 					deadEndsFoundT+=x;
 				}
 			}
-			return true;
 		}
 
 		
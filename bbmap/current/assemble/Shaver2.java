@@ -316,19 +316,26 @@ public class Shaver2 extends Shaver {
 		}
 		
 		@Override
-		boolean processNextTable(final Kmer kmer, Kmer temp){
-			final int tnum=nextTable.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArrayU1D table=tables.getTable(tnum);
+		boolean processNextUnit(final Kmer kmer, Kmer temp){
+			final CellScheduler.Unit unit=scheduler.next(id, 0);
+			if(unit==null){return false;}
+			final HashArrayU1D table=tables.getTable(unit.table);
+			if(unit.victims){
+				processVictims(table.victims(), unit.start, unit.stop, kmer, temp);
+			}else{
+				processTable(table, unit.start, unit.stop, kmer, temp);
+			}
+			return true;
+		}
+		
+		private void processTable(final HashArrayU1D table, final int min, final int max, final Kmer kmer, Kmer temp){
 			final int[] counts=table.values();
-			final int max=counts.length;
-//			final int max=table.arrayLength();
 			if(startFromHighCounts){
-//				for(int cell=0; cell<max; cell++){
+//				for(int cell=min; cell<max; cell++){
 //					int x=processCell_high(table, cell, kmer, temp);
 //					deadEndsFoundT+=x;
 //				}
-				for(int cell=0; cell<max; cell++){//Not noticeably faster
+				for(int cell=min; cell<max; cell++){//Not noticeably faster
 					final int count=counts[cell];
 					if(count>maxCount){
 						int x=processCell_high(table, cell, kmer, temp, count);
@@ -336,35 +343,27 @@ public class Shaver2 extends Shaver {
 					}
 				}
 			}else{
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					int x=processCell_low(table, cell, kmer, temp);
 					deadEndsFoundT+=x;
 				}
 			}
-			return true;
 		}
 		
-		@Override
-		boolean processNextVictims(final Kmer kmer, Kmer temp){
-			final int tnum=nextVictims.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArrayU1D table=tables.getTable(tnum);
-			final HashForestU forest=table.victims();
-			final int max=forest.arrayLength();
+		private void processVictims(final HashForestU forest, final int min, final int max, final Kmer kmer, Kmer temp){
 			if(startFromHighCounts){
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					KmerNodeU kn=forest.getNode(cell);
 					int x=traverseKmerNodeU_high(kn, kmer, temp);
 					deadEndsFoundT+=x;
 				}
 			}else{
-				for(int cell=0; cell<max; cell++){
+				for(int cell=min; cell<max; cell++){
 					KmerNodeU kn=forest.getNode(cell);
 					int x=traverseKmerNodeU_low(kn, kmer, temp);
 					deadEndsFoundT+=x;
 				}
 			}
-			return true;
 		}
 		
 		private int traverseKmerNodeU_high(KmerNodeU kn, Kmer kmer, Kmer temp){
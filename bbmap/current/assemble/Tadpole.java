@@ -315,6 +315,8 @@ public abstract class Tadpole extends ShaveObject{
 				AbstractKmerTableSet.MASK_CORE=Kmer.MASK_CORE=Tools.parseBoolean(b);
 			}else if(a.equals("fillfast") || a.equals("fastfill")){
 				AbstractKmerTableSet.FAST_FILL=Tools.parseBoolean(b);
+			}else if(a.equals("workunit") || a.equals("unitlength")){
+				CellScheduler.UNIT_LENGTH=Tools.max(1, (int)Tools.parseKMG(b));
 			}
 			
 			//Shaver
@@ -651,13 +653,6 @@ public abstract class Tadpole extends ShaveObject{
 			}
 		}
 
-		nextTable=new AtomicInteger[contigPasses];
-		nextVictims=new AtomicInteger[contigPasses];
-		for(int i=0; i<contigPasses; i++){
-			nextTable[i]=new AtomicInteger(0);
-			nextVictims[i]=new AtomicInteger(0);
-		}
-
 		if(!Tools.testOutputFiles(overwrite, append, false, outKmers, outHist)){
 			throw new RuntimeException("\nCan't write to some output files; overwrite="+overwrite+"\n");
 		}
@@ -912,6 +907,11 @@ public abstract class Tadpole extends ShaveObject{
 	}
 	
 	abstract long shave(boolean shave, boolean rinse);
+	
+	/** True if this run builds, extends, shaves, or rinses, which requires HashArray1D tables */
+	protected final boolean needsArrayTables(){
+		return (processingMode!=correctMode && processingMode!=discardMode) || removeDeadEnds || removeBubbles;
+	}
 	abstract void initializeOwnership();
 	
 	/**
@@ -990,6 +990,8 @@ public abstract class Tadpole extends ShaveObject{
 	}
 	
 	void runBuildThreads(int mode, ConcurrentReadInputStream[] crisa){
+		scheduler=(crisa==null || crisa.length==0 ? CellScheduler.make(tables(), THREADS, contigPasses) : null);
+		
 		/* Create ProcessThreads */
 		ArrayList<AbstractBuildThread> alpt=new ArrayList<AbstractBuildThread>(THREADS);
 		for(int i=0; i<THREADS; i++){alpt.add(makeBuildThread(i, mode, crisa));}
@@ -1020,6 +1022,10 @@ public abstract class Tadpole extends ShaveObject{
 			lowqReads+=pt.lowqReadsT;
 			lowqBases+=pt.lowqBasesT;
 		}
+		if(scheduler!=null){
+			outstream.println(scheduler.utilization());
+			if(verbose){outstream.println("Busy seconds per thread: "+scheduler.busyTimes());}
+		}
 	}
 	
 	void processContigs(){
@@ -2335,11 +2341,8 @@ public abstract class Tadpole extends ShaveObject{
 	int contigPasses=16;
 	double contigPassMult=1.7;
 	
-	/** For controlling access to tables for contig-building */
-	final AtomicInteger nextTable[];
-	
-	/** For controlling access to victim buffers for contig-building */
-	final AtomicInteger nextVictims[];
+	/** Hands out table and victim cells for contig-building, one deque per pass */
+	CellScheduler scheduler;
 	
 	/*--------------------------------------------------------------*/
 	/*----------------         Static Fields        ----------------*/
@@ -68,6 +68,10 @@ public class Tadpole1 extends Tadpole {
 		}
 		
 		tables=new KmerTableSet(args, bytesPerKmer);
+		if(tables.tableType==AbstractKmerTable.ARRAYOH && needsArrayTables()){
+			throw new RuntimeException("offheap=t only supports correct and discard modes without shave or rinse;\n"
+					+ "contig building, extension, shaving, and rinsing require on-heap tables.");
+		}
 		k=tables.k;
 		k2=tables.k2;
 		
@@ -173,14 +177,12 @@ public class Tadpole1 extends Tadpole {
 						outstream.print(comma+minCountSeedCurrent);
 						comma=", ";
 					}
-					while(processNextTable(nextTable[i])){}
-					while(processNextVictims(nextVictims[i])){}
+					while(processNextUnit(i)){}
 				}
 				//Final pass
 				minCountSeedCurrent=minCountSeed;
 				if(id==0){outstream.println(comma+minCountSeedCurrent);}
-				while(processNextTable(nextTable[0])){}
-				while(processNextVictims(nextVictims[0])){}
+				while(processNextUnit(0)){}
 			}else{
 				//Extend reads
 				for(ConcurrentReadInputStream cris : crisa){
@@ -194,28 +196,22 @@ public class Tadpole1 extends Tadpole {
 			}
 		}
 		
-		private boolean processNextTable(AtomicInteger aint){
-			final int tnum=aint.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArray1D table=tables.getTable(tnum);
-			if(verbose && id==0){outstream.println("Processing table "+tnum+", size "+table.size());}
-			final int max=table.arrayLength();
-			for(int cell=0; cell<max; cell++){
-				int x=processCell(table, cell);
-			}
-			return true;
-		}
-		
-		private boolean processNextVictims(AtomicInteger aint){
-			final int tnum=aint.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArray1D table=tables.getTable(tnum);
-			final HashForest forest=table.victims();
-			if(verbose && id==0){outstream.println("Processing forest "+tnum+", size "+forest.size());}
-			final int max=forest.arrayLength();
-			for(int cell=0; cell<max; cell++){
-				KmerNode kn=forest.getNode(cell);
-				int x=traverseKmerNode(kn);
+		private boolean processNextUnit(int pass){
+			final CellScheduler.Unit unit=scheduler.next(id, pass);
+			if(unit==null){return false;}
+			final HashArray1D table=tables.getTable(unit.table);
+			if(unit.victims){
+				final HashForest forest=table.victims();
+				if(verbose && id==0){outstream.println("Processing forest "+unit.table+", cells "+unit.start+"-"+unit.stop);}
+				for(int cell=unit.start; cell<unit.stop; cell++){
+					KmerNode kn=forest.getNode(cell);
+					int x=traverseKmerNode(kn);
+				}
+			}else{
+				if(verbose && id==0){outstream.println("Processing table "+unit.table+", cells "+unit.start+"-"+unit.stop);}
+				for(int cell=unit.start; cell<unit.stop; cell++){
+					int x=processCell(table, cell);
+				}
 			}
 			return true;
 		}
@@ -170,14 +170,12 @@ public class Tadpole2 extends Tadpole {
 						outstream.print(comma+minCountSeedCurrent);
 						comma=", ";
 					}
-					while(processNextTable(nextTable[i])){}
-					while(processNextVictims(nextVictims[i])){}
+					while(processNextUnit(i)){}
 				}
 				//Final pass
 				minCountSeedCurrent=minCountSeed;
 				if(id==0){outstream.println(comma+minCountSeedCurrent);}
-				while(processNextTable(nextTable[0])){}
-				while(processNextVictims(nextVictims[0])){}
+				while(processNextUnit(0)){}
 			}else{
 				//Extend reads
 				for(ConcurrentReadInputStream cris : crisa){
@@ -191,29 +189,23 @@ public class Tadpole2 extends Tadpole {
 			}
 		}
 		
-		private boolean processNextTable(AtomicInteger aint){
-			final int tnum=aint.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArrayU1D table=tables.getTable(tnum);
-			final int max=table.arrayLength();
-			if(verbose && id==0){outstream.println("Processing table "+tnum+", size "+table.size()+", length "+max);}
-			for(int cell=0; cell<max; cell++){
-				if(verbose && id==0){outstream.println("Processing cell "+cell);}
-				int x=processCell(table, cell, myKmer);
-			}
-			return true;
-		}
-		
-		private boolean processNextVictims(AtomicInteger aint){
-			final int tnum=aint.getAndAdd(1);
-			if(tnum>=tables.ways){return false;}
-			final HashArrayU1D table=tables.getTable(tnum);
-			final HashForestU forest=table.victims();
-			if(verbose && id==0){outstream.println("Processing forest "+tnum+", size "+forest.size());}
-			final int max=forest.arrayLength();
-			for(int cell=0; cell<max; cell++){
-				KmerNodeU kn=forest.getNode(cell);
-				int x=traverseKmerNodeU(kn);
+		private boolean processNextUnit(int pass){
+			final CellScheduler.Unit unit=scheduler.next(id, pass);
+			if(unit==null){return false;}
+			final HashArrayU1D table=tables.getTable(unit.table);
+			if(unit.victims){
+				final HashForestU forest=table.victims();
+				if(verbose && id==0){outstream.println("Processing forest "+unit.table+", cells "+unit.start+"-"+unit.stop);}
+				for(int cell=unit.start; cell<unit.stop; cell++){
+					KmerNodeU kn=forest.getNode(cell);
+					int x=traverseKmerNodeU(kn);
+				}
+			}else{
+				if(verbose && id==0){outstream.println("Processing table "+unit.table+", cells "+unit.start+"-"+unit.stop);}
+				for(int cell=unit.start; cell<unit.stop; cell++){
+					if(verbose && id==0){outstream.println("Processing cell "+cell);}
+					int x=processCell(table, cell, myKmer);
+				}
 			}
 			return true;
 		}
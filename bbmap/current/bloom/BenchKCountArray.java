@@ -0,0 +1,147 @@
+package bloom;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+import shared.Shared;
+import shared.Timer;
+import shared.Tools;
+
+/**
+ * Compares KCountArray7MTA and KCountArrayBlocked on the same random keys.
+ * Reports multithreaded increment and read speed, and the false-positive rate,
+ * measured as the fraction of never-added keys reading at least 1 and at least minCount.
+ * Usage: java bloom.BenchKCountArray cells=1g bits=2 hashes=2 keys=300m threads=auto mincount=2
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BenchKCountArray {
+
+	public static void main(String[] args){
+		long cells=1L<<30;
+		int bits=2;
+		int hashes=2;
+		long keys=cells/4;
+		int threads=Shared.threads();
+		int minCount=2;
+		int rounds=2;
+
+		for(String arg : args){
+			String[] split=arg.split("=");
+			String a=split[0].toLowerCase();
+			String b=split.length>1 ? split[1] : null;
+
+			if(a.equals("cells")){
+				cells=Tools.parseKMG(b);
+			}else if(a.equals("bits") || a.equals("cbits")){
+				bits=Integer.parseInt(b);
+			}else if(a.equals("hashes")){
+				hashes=Integer.parseInt(b);
+			}else if(a.equals("keys")){
+				keys=Tools.parseKMG(b);
+			}else if(a.equals("t") || a.equals("threads")){
+				Shared.setThreads(b);
+				threads=Shared.threads();
+			}else if(a.equals("mincount")){
+				minCount=Integer.parseInt(b);
+			}else if(a.equals("rounds")){
+				rounds=Integer.parseInt(b);
+			}else{
+				throw new RuntimeException("Unknown parameter "+arg);
+			}
+		}
+
+		System.err.println("cells="+cells+", bits="+bits+", hashes="+hashes+", keys="+keys+", threads="+threads);
+		for(int r=0; r<rounds; r++){
+			run(new KCountArray7MTA(cells, bits, 0, hashes, null, 0), keys, threads, minCount);
+			run(new KCountArrayBlocked(cells, bits, 0, hashes, null, 0), keys, threads, minCount);
+		}
+	}
+
+	private static void run(KCountArray kca, long keys, int threads, int minCount){
+		System.gc();
+		Timer t=new Timer();
+		runThreads(kca, keys, threads, MODE_INCREMENT, minCount);
+		t.stop();
+		final long incrementTime=t.elapsed;
+
+		t.start();
+		final long[] present=runThreads(kca, keys, threads, MODE_READ, minCount);
+		t.stop();
+		final long readTime=t.elapsed;
+
+		final long[] absent=runThreads(kca, keys, threads, MODE_READ_ABSENT, minCount);
+		final double fpr1=absent[0]/(double)keys, fprMin=absent[1]/(double)keys;
+		assert(present[0]==keys) : "False negatives: "+(keys-present[0]);
+		kca.shutdown();
+
+		System.err.println(String.format(Locale.ROOT, "%-20s increment %8.2f Mkeys/s\tread %8.2f Mkeys/s\tFPR(>=1) %.5f\tFPR(>=%d) %.5f\tused %.4f",
+				kca.getClass().getSimpleName(), keys*1000.0/incrementTime, keys*1000.0/readTime, fpr1, minCount, fprMin, kca.usedFraction()));
+	}
+
+	/** Returns {keys read with count>=1, keys read with count>=minCount}. */
+	private static long[] runThreads(KCountArray kca, long keys, int threads, int mode, int minCount){
+		ArrayList<BenchThread> list=new ArrayList<BenchThread>(threads);
+		for(int i=0; i<threads; i++){
+			list.add(new BenchThread(kca, keys*i/threads, keys*(i+1)/threads, mode, minCount));
+		}
+		for(BenchThread bt : list){bt.start();}
+		long[] sum=new long[2];
+		for(BenchThread bt : list){
+			while(bt.getState()!=Thread.State.TERMINATED){
+				try {
+					bt.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			sum[0]+=bt.found1;
+			sum[1]+=bt.found2;
+		}
+		return sum;
+	}
+
+	/** Generates key i deterministically; absent keys use a different seed. */
+	private static long makeKey(long i, boolean absent){
+		long x=i*0x9E3779B97F4A7C15L+(absent ? 0x632BE59BD9B4E019L : 0);
+		x^=(x>>>31);
+		x*=0xBF58476D1CE4E5B9L;
+		x^=(x>>>29);
+		return x&Long.MAX_VALUE;
+	}
+
+	private static class BenchThread extends Thread {
+
+		BenchThread(KCountArray kca_, long start_, long stop_, int mode_, int minCount_){
+			kca=kca_;
+			start=start_;
+			stop=stop_;
+			mode=mode_;
+			minCount=minCount_;
+		}
+
+		@Override
+		public void run(){
+			if(mode==MODE_INCREMENT){
+				for(long i=start; i<stop; i++){kca.increment(makeKey(i, false));}
+			}else{
+				final boolean absent=(mode==MODE_READ_ABSENT);
+				for(long i=start; i<stop; i++){
+					int x=kca.read(makeKey(i, absent));
+					if(x>=1){found1++;}
+					if(x>=minCount){found2++;}
+				}
+			}
+		}
+
+		final KCountArray kca;
+		final long start, stop;
+		final int mode;
+		final int minCount;
+		long found1=0, found2=0;
+	}
+
+	private static final int MODE_INCREMENT=0, MODE_READ=1, MODE_READ_ABSENT=2;
+
+}
@@ -59,7 +59,11 @@ public abstract class KCountArray implements Serializable {
 //			}else{
 //				kca=new KCountArray8MT(cells_, cbits_, gap_, hashes_, prefilter); //Like 7MT but uses prefilter
 //			}
-			kca=new KCountArray7MTA(cells_, cbits_, gap_, hashes_, prefilter, prefilterLimit_); //Like 4MT but uses primes
+			if(BLOCKED){
+				kca=new KCountArrayBlocked(cells_, cbits_, gap_, hashes_, prefilter, prefilterLimit_); //Like 7MTA but all hashes hit one cache line
+			}else{
+				kca=new KCountArray7MTA(cells_, cbits_, gap_, hashes_, prefilter, prefilterLimit_); //Like 4MT but uses primes
+			}
 
 //			if(prefilter==null){
 //				kca=new KCountArray9MT(cells_, cbits_, gap_, hashes_); //Like 7MT but uses canonical kmers
@@ -110,7 +114,8 @@ public abstract class KCountArray implements Serializable {
 		gap=gap_;
 		assert(cbits_<=32);
 		assert(Integer.bitCount(cbits_)==1);
-		assert(Long.bitCount(cells_)==1) || this.getClass()==KCountArray7MT.class || this.getClass()==KCountArray7MTA.class || this.getClass()==KCountArray8MT.class;
+		assert(Long.bitCount(cells_)==1) || this.getClass()==KCountArray7MT.class || this.getClass()==KCountArray7MTA.class || this.getClass()==KCountArray8MT.class
+			|| this.getClass()==KCountArrayBlocked.class;
 
 		numArrays=arrays_;
 		assert(Integer.bitCount(numArrays)==1) : numArrays+", "+cells_+", "+cbits_;
@@ -435,6 +440,9 @@ public abstract class KCountArray implements Serializable {
 	/** Any necessary shutdown steps. */
 	public void shutdown(){}
 	
+	/** Discards cached statistics such as cellsUsed, after counts were decremented. */
+	public void resetStatistics(){}
+	
 	public final long cells;
 	public final int cellBits;
 	/** Originally this was different than valueMask in the case that valueMask was negative, but now they are the same. */
@@ -456,6 +464,8 @@ public abstract class KCountArray implements Serializable {
 //	protected static final int arrayMask=numArrays-1;
 	
 	public static boolean verbose=false;
+	/** Use KCountArrayBlocked instead of KCountArray7MTA in makeNew */
+	public static boolean BLOCKED=false;
 	
 	private static final int calcMinArrays(){
 		int x=Tools.max(Shared.threads(), 2);
@@ -282,7 +282,13 @@ public final class KCountArray7MTA extends KCountArray {
 	public final void decrement(final long rawKey){
 		if(verbose){System.err.println("\n*** Decrementing raw key "+rawKey+" ***");}
 		
-		assert(prefilter!=null);
+		if(prefilter!=null){
+			//Counts below the limit, or not yet carried past it, live in the prefilter
+			if(prefilter.read(rawKey)<prefilterLimit || read(rawKey)<1){
+				prefilter.decrement(rawKey);
+				return;
+			}
+		}
 		
 		long key2=rawKey;
 		for(int i=0; i<hashes; i++){
@@ -635,6 +641,7 @@ public final class KCountArray7MTA extends KCountArray {
 		do{
 			word=array.get(index);
 			value=((word>>>cellShift)&valueMask);
+			if(value>=maxValue){return value;} //Saturated cells no longer know their count
 			value=max(value-1, 0);
 			word2=(value<<cellShift)|(word&~((valueMask)<<cellShift));
 		}while(word!=word2 && !array.compareAndSet(index, word, word2));
@@ -653,6 +660,12 @@ public final class KCountArray7MTA extends KCountArray {
 		return cellsUsed;
 	}
 	
+	@Override
+	public synchronized void resetStatistics(){
+		cellsUsed=-1;
+		if(prefilter!=null){prefilter.resetStatistics();}
+	}
+	
 	@Override
 	public KCountArray prefilter(){
 		return prefilter;
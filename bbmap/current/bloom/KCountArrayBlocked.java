@@ -0,0 +1,466 @@
+package bloom;
+
+import java.lang.Thread.State;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import shared.Primes;
+import shared.Tools;
+import structures.ByteBuilder;
+
+/**
+ * Blocked variant of KCountArray7MTA.
+ * Each key hashes to a single 64-byte block of 16 words, and all of its
+ * cells are chosen within that block, so a lookup touches one block
+ * instead of one cache line per hash function.
+ * Cells within a block are picked by double hashing with an odd stride,
+ * so a key's cells are always distinct.
+ * Uses atomic integers for concurrency control, and allows an optional prefilter.
+ *
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class KCountArrayBlocked extends KCountArray {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = -3409164318372845163L;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public KCountArrayBlocked(long cells_, int bits_, int gap_, int hashes_, KCountArray prefilter_, int prefilterLimit_){
+		super(getBlockedCells(cells_, bits_), bits_, gap_, getDesiredArrays(cells_, bits_));
+		cellsPerBlock=BLOCK_WORDS*cellsPerWord;
+		blockCellMask=cellsPerBlock-1;
+		blocksPerArray=cells/numArrays/cellsPerBlock;
+		wordsPerArray=(int)(blocksPerArray*BLOCK_WORDS);
+		hashes=hashes_;
+		prefilter=prefilter_;
+		prefilterLimit=(prefilter==null ? 0 : Tools.min(prefilter.maxValue, prefilterLimit_));
+
+		synchronized(KCountArrayBlocked.class){
+			Random randy=new Random(counter^SEEDMASK);
+			counter+=7;
+			seed1=randy.nextLong();
+			seed2=randy.nextLong();
+		}
+
+		matrix=allocMatrix(numArrays, wordsPerArray);
+
+		assert(hashes>0 && hashes<=cellsPerBlock) : hashes+", "+cellsPerBlock;
+	}
+
+	private static int getDesiredArrays(long desiredCells, int bits){
+		long words=Tools.max((desiredCells*bits+31)/32, minArrays*BLOCK_WORDS);
+		int arrays=minArrays;
+		while(words/arrays>=Integer.MAX_VALUE-BLOCK_WORDS){
+			arrays*=2;
+		}
+		return arrays;
+	}
+
+	/** Rounds cells down so that each array holds a prime number of whole blocks. */
+	private static long getBlockedCells(long desiredCells, int bits){
+		final int arrays=getDesiredArrays(desiredCells, bits);
+		final int cellsPerBlock=BLOCK_WORDS*(32/bits);
+		final long blocks=Tools.max(2, (desiredCells+arrays-1)/arrays/cellsPerBlock);
+		final long blocks2=(blocks<=2 ? blocks : Primes.primeAtMost(blocks));
+		return blocks2*cellsPerBlock*arrays;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Reading            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public final int read(final long rawKey){
+		if(prefilter!=null){
+			int pre=prefilter.read(rawKey);
+			if(pre<prefilterLimit){return pre;}
+		}
+		return readHashed(hash(rawKey, 0));
+	}
+
+	@Override
+	public final int read(final long[] rawKeys){
+		if(prefilter!=null){
+			int pre=prefilter.read(rawKeys);
+			if(pre<prefilterLimit){return pre;}
+		}
+		return readHashed(hash(rawKeys));
+	}
+
+	@Override
+	public final int readLeft(final long key, final int k, boolean makeCanonical){
+		assert(k<=32);
+		final long key2=key>>>2;
+		final int shift=2*(k-1);
+		final long akey=key2|(0L<<shift);
+		final long ckey=key2|(1L<<shift);
+		final long gkey=key2|(2L<<shift);
+		final long tkey=key2|(3L<<shift);
+		final int a=read(makeCanonical ? makeCanonical2(akey, k) : akey);
+		final int c=read(makeCanonical ? makeCanonical2(ckey, k) : ckey);
+		final int g=read(makeCanonical ? makeCanonical2(gkey, k) : gkey);
+		final int t=read(makeCanonical ? makeCanonical2(tkey, k) : tkey);
+		return a+c+g+t;
+	}
+
+	@Override
+	public final int readRight(final long key, final int k, boolean makeCanonical){
+		assert(k<=32);
+		final long mask=(k>=32 ? -1L : ~((-1L)<<(2*k)));
+		final long key2=(key<<2)&mask;
+		final long akey=key2|0L;
+		final long ckey=key2|1L;
+		final long gkey=key2|2L;
+		final long tkey=key2|3L;
+		final int a=read(makeCanonical ? makeCanonical2(akey, k) : akey);
+		final int c=read(makeCanonical ? makeCanonical2(ckey, k) : ckey);
+		final int g=read(makeCanonical ? makeCanonical2(gkey, k) : gkey);
+		final int t=read(makeCanonical ? makeCanonical2(tkey, k) : tkey);
+		return a+c+g+t;
+	}
+
+	@Override
+	public final int[] readAllLeft(final long key, final int k, boolean makeCanonical, int[] rvec){
+		assert(k<=32);
+		if(rvec==null){rvec=new int[4];}
+		final long key2=key>>>2;
+		final int shift=2*(k-1);
+		final long akey=key2|(0L<<shift);
+		final long ckey=key2|(1L<<shift);
+		final long gkey=key2|(2L<<shift);
+		final long tkey=key2|(3L<<shift);
+		rvec[0]=read(makeCanonical ? makeCanonical2(akey, k) : akey);
+		rvec[1]=read(makeCanonical ? makeCanonical2(ckey, k) : ckey);
+		rvec[2]=read(makeCanonical ? makeCanonical2(gkey, k) : gkey);
+		rvec[3]=read(makeCanonical ? makeCanonical2(tkey, k) : tkey);
+		return rvec;
+	}
+
+	@Override
+	public final int[] readAllRight(final long key, final int k, boolean makeCanonical, int[] rvec){
+		assert(k<=32);
+		if(rvec==null){rvec=new int[4];}
+		final long mask=(k>=32 ? -1L : ~((-1L)<<(2*k)));
+		final long key2=(key<<2)&mask;
+		final long akey=key2|0L;
+		final long ckey=key2|1L;
+		final long gkey=key2|2L;
+		final long tkey=key2|3L;
+		rvec[0]=read(makeCanonical ? makeCanonical2(akey, k) : akey);
+		rvec[1]=read(makeCanonical ? makeCanonical2(ckey, k) : ckey);
+		rvec[2]=read(makeCanonical ? makeCanonical2(gkey, k) : gkey);
+		rvec[3]=read(makeCanonical ? makeCanonical2(tkey, k) : tkey);
+		return rvec;
+	}
+
+	/** Returns the min count of the key's cells. */
+	private int readHashed(final long h1){
+		final AtomicIntegerArray array=matrix[(int)(h1&arrayMask)];
+		final int base=blockStart(h1);
+		final long h2=mix(h1^seed2);
+		final int step=stride(h2);
+		int cell=(int)(h2&blockCellMask);
+		int min=maxValue;
+		for(int i=0; i<hashes && min>0; i++){
+			final int word=array.get(base+(cell>>>indexShift));
+			min=min(min, (word>>>(cellBits*(cell&cellMask)))&valueMask);
+			cell=(cell+step)&blockCellMask;
+		}
+		return min;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Writing            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public final void write(final long key, int value){
+		throw new RuntimeException("Not allowed for this class.");
+	}
+
+	@Override
+	public final void increment(long[] keys){
+		for(int i=0; i<keys.length; i++){
+			increment(keys[i]);
+		}
+	}
+
+	@Override
+	public final void increment(final long rawKey){
+		if(prefilter!=null){
+			int x=prefilter.read(rawKey);
+			if(x<prefilterLimit){return;}
+		}
+		addHashed(hash(rawKey, 0), 1);
+	}
+
+	@Override
+	public final void decrement(final long rawKey){
+		if(prefilter!=null){
+			if(prefilter.read(rawKey)<prefilterLimit || read(rawKey)<1){
+				prefilter.decrement(rawKey);
+				return;
+			}
+		}
+		addHashed(hash(rawKey, 0), -1);
+	}
+
+	@Override
+	public int incrementAndReturn(long key, int incr){
+		throw new RuntimeException("Operation not supported.");
+	}
+
+	@Override
+	public int incrementAndReturnUnincremented(final long rawKey, final int incr){
+		if(prefilter!=null){
+			int x=prefilter.read(rawKey);
+			if(x<prefilterLimit){return x;}
+		}
+		assert(incr>=0);
+		return addHashed(hash(rawKey, 0), incr);
+	}
+
+	@Override
+	public int incrementAndReturnUnincremented(final long[] rawKeys, final int incr){
+		if(prefilter!=null){
+			int x=prefilter.read(rawKeys);
+			if(x<prefilterLimit){return x;}
+		}
+		assert(incr>=0);
+		return addHashed(hash(rawKeys), incr);
+	}
+
+	/**
+	 * Adds incr to each of the key's cells, saturating at 0 and maxValue.
+	 * Saturated cells are never decremented, since their true count is unknown.
+	 * @return The min of the original counts
+	 */
+	private int addHashed(final long h1, final int incr){
+		final AtomicIntegerArray array=matrix[(int)(h1&arrayMask)];
+		final int base=blockStart(h1);
+		final long h2=mix(h1^seed2);
+		final int step=stride(h2);
+		int cell=(int)(h2&blockCellMask);
+		int min=maxValue;
+		for(int i=0; i<hashes; i++){
+			final int index=base+(cell>>>indexShift);
+			final int cellShift=cellBits*(cell&cellMask);
+			int value, word, word2;
+			do{
+				word=array.get(index);
+				value=((word>>>cellShift)&valueMask);
+				final int value2=(incr<0 && value>=maxValue ? value : max(0, min(value+incr, maxValue)));
+				word2=(value2<<cellShift)|(word&~((valueMask)<<cellShift));
+			}while(word!=word2 && !array.compareAndSet(index, word, word2));
+			min=min(min, value);
+			cell=(cell+step)&blockCellMask;
+		}
+		return min;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Hashing            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Selects the block; the low arrayBits choose the array. */
+	@Override
+	final long hash(long key, int row){
+		return mix(key^seed1);
+	}
+
+	private long hash(final long[] keys){
+		long h=seed1;
+		for(long key : keys){h=mix(h^key);}
+		return h;
+	}
+
+	/** Index of the first word of the block. */
+	private int blockStart(long h1){
+		return (int)(((h1>>>arrayBits)%blocksPerArray)*BLOCK_WORDS);
+	}
+
+	/** Odd, so that successive cells are distinct within a power-of-2 block. */
+	private int stride(long h2){
+		return ((int)(h2>>>32)&blockCellMask)|1;
+	}
+
+	/** 64-bit finalizer from MurmurHash3. */
+	private static long mix(long x){
+		x^=(x>>>33);
+		x*=0xff51afd7ed558ccdL;
+		x^=(x>>>33);
+		x*=0xc4ceb9fe1a85ec53L;
+		x^=(x>>>33);
+		return x;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Summary Methods       ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public long[] transformToFrequency(){
+		return transformToFrequency(matrix);
+	}
+
+	@Override
+	public ByteBuilder toContentsString(){
+		ByteBuilder sb=new ByteBuilder();
+		sb.append('[');
+		String comma="";
+		for(AtomicIntegerArray array : matrix){
+			for(int i=0; i<array.length(); i++){
+				int word=array.get(i);
+				for(int j=0; j<cellsPerWord; j++){
+					int x=word&valueMask;
+					sb.append(comma);
+					sb.append(x);
+					word>>>=cellBits;
+					comma=", ";
+				}
+			}
+		}
+		sb.append(']');
+		return sb;
+	}
+
+	@Override
+	public double usedFraction(){return cellsUsed()/(double)cells;}
+
+	@Override
+	public double usedFraction(int mindepth){return cellsUsed(mindepth)/(double)cells;}
+
+	@Override
+	public long cellsUsed(int mindepth){
+		ArrayList<CountUsedThread> list=new ArrayList<CountUsedThread>(matrix.length);
+		for(AtomicIntegerArray aia : matrix){
+			CountUsedThread ctt=new CountUsedThread(aia, mindepth);
+			ctt.start();
+			list.add(ctt);
+		}
+		long x=0;
+		for(CountUsedThread ctt : list){
+			while(ctt.getState()!=State.TERMINATED){
+				try {
+					ctt.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			x+=ctt.count;
+		}
+		return x;
+	}
+
+	public long cellsUsed(){
+		if(cellsUsed<0){
+			synchronized(this){
+				if(cellsUsed<0){
+					cellsUsed=cellsUsed(1);
+				}
+			}
+		}
+		return cellsUsed;
+	}
+
+	private class CountUsedThread extends Thread{
+		public CountUsedThread(AtomicIntegerArray a_, int mindepth_){
+			array=a_;
+			mindepth=mindepth_;
+		}
+		@Override
+		public void run(){
+			long temp=0;
+			for(int i=0, max=array.length(); i<max; i++){
+				int word=array.get(i);
+				for(; word!=0; word=(cellBits==32 ? 0 : word>>>cellBits)){
+					int x=word&valueMask;
+					if(x>=mindepth){temp++;}
+				}
+			}
+			count=temp;
+		}
+		private final AtomicIntegerArray array;
+		private final int mindepth;
+		public long count;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Other Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void initialize(){}
+
+	@Override
+	public void shutdown(){
+		if(finished){return;}
+		synchronized(this){
+			if(finished){return;}
+			cellsUsed=-1;
+			cellsUsed();
+			finished=true;
+		}
+	}
+
+	@Override
+	public synchronized void resetStatistics(){
+		cellsUsed=-1;
+		if(prefilter!=null){prefilter.resetStatistics();}
+	}
+
+	@Override
+	public KCountArray prefilter(){
+		return prefilter;
+	}
+
+	@Override
+	public void purgeFilter(){
+		prefilter=null;
+	}
+
+	public static synchronized void setSeed(long seed){
+		if(seed>=0){SEEDMASK=seed;}
+		else{
+			Random randy=new Random();
+			SEEDMASK=randy.nextLong();
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private boolean finished=false;
+
+	private long cellsUsed=-1;
+	private final AtomicIntegerArray[] matrix;
+	private final int hashes;
+	private final int cellsPerBlock;
+	private final int blockCellMask;
+	private final long blocksPerArray;
+	private final int wordsPerArray;
+	private final int prefilterLimit;
+	private final long seed1, seed2;
+
+	private KCountArray prefilter;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Words per block; 16 ints is one 64-byte cache line */
+	static final int BLOCK_WORDS=16;
+
+	private static long counter=0;
+	private static long SEEDMASK=0;
+
+}
@@ -94,6 +94,8 @@ public class Clumpify {
 				useTmpdir=Tools.parseBoolean(b);
 			}else if(a.equals("ecco")){
 				ecco=Tools.parseBoolean(b);
+			}else if(a.equals("spill") || a.equals("spilltemp")){
+				spill=Tools.parseBoolean(b);
 			}else if(a.equals("compresstemp") || a.equals("ct")){
 				if(b!=null && b.equalsIgnoreCase("auto")){forceCompressTemp=forceRawTemp=false;}
 				else{
@@ -214,6 +216,9 @@ public class Clumpify {
 		autoSetGroups(gString);
 		
 		if((in2!=null || out2!=null) && groups>1){FASTQ.FORCE_INTERLEAVED=true;} //Fix for crash with twin fasta files
+		
+		//Only KmerSort3 reads spill files; explicitly compressed temp files are kept as requested
+		spill=(spill && V3 && !forceCompressTemp);
 	}
 	
 	
@@ -251,7 +256,7 @@ public class Clumpify {
 				if(/*passes>1 &&*/ (V2 || V3)){
 //					System.err.println("Running pass with fileMem="+fileMem);
 //					out=(pass==passes ? out1 : getTempFname("clumpify_p"+(pass+1)+"_temp%_"));
-					temp=getTempFname("clumpify_p"+(pass+1)+"_temp%_");
+					temp=getTempFname("clumpify_p"+(pass+1)+"_temp%_", spill);
 					if(pass==passes){
 						fileMem=runOnePass_v2(args, pass, pin1, pin2, out1, out2, fileMem);
 					}else{
@@ -362,10 +367,10 @@ public class Clumpify {
 			addName=false;
 		}
 		
-		String temp=getTempFname("clumpify_p"+pass+"_temp%_");
+		String temp=getTempFname("clumpify_p"+pass+"_temp%_", spill);
 		
 //		String temp2=temp.replace("%", "FINAL");
-		String namesorted=temp.replace("%", "namesorted_%");
+		String namesorted=getTempFname("clumpify_p"+pass+"_temp%_").replace("%", "namesorted_%");
 		final boolean externalSort=(pass==passes && (repair || namesort));
 		
 		if(pass==1){
@@ -487,6 +492,18 @@ public class Clumpify {
 		outstream.println("Set groups to "+groups);
 	}
 	
+	/**
+	 * @param spill Use the SpillFile format instead of fastq
+	 */
+	private String getTempFname(String core, boolean spill){
+		String temp=getTempFname(core);
+		if(!spill){return temp;}
+		if(ReadWrite.compressionType(temp)!=null){temp=temp.substring(0, temp.lastIndexOf('.'));}
+		final int dot=temp.lastIndexOf('.');
+		if(dot>temp.lastIndexOf('/')){temp=temp.substring(0, dot);}
+		return temp+SpillFile.EXTENSION;
+	}
+	
 	private String getTempFname(String core){
 //		outstream.println(core);
 		String temp;
@@ -570,6 +587,8 @@ public class Clumpify {
 	private boolean useSharedHeader=false;
 	private boolean forceCompressTemp=false;
 	private boolean forceRawTemp=false;
+	/** Write temp files in the binary SpillFile format */
+	private boolean spill=true;
 	private boolean overwrite=true;
 
 	private boolean unpair=false;
@@ -65,6 +65,38 @@ public class KmerComparator implements Comparator<Read> {
 		for(Read r : list){hash(r, table, minCount, setObject);}
 	}
 	
+	/**
+	 * Finishes ReadKeys restored from a SpillFile, and hashes any read without one.
+	 * The keys must have been made with the same hash settings; see sameHash().
+	 */
+	public void restore(ArrayList<Read> list, KCountArray table, int minCount){
+		for(Read r : list){
+			if(r.obj==null){
+				hash(r, table, minCount, true);
+			}else{
+				finishKey(r);
+				if(Clump.containment && r.mate!=null){
+					if(r.mate.obj==null){hash_inner(r.mate, table, minCount, true);}
+					else{finishKey(r.mate);}
+				}
+			}
+		}
+	}
+	
+	/** Applies the end of fillMax to a restored key. */
+	private void finishKey(Read r){
+		final ReadKey key=(ReadKey)r.obj;
+		if(key.kmerMinusStrand && rcompReads){
+			key.flip(r, k);
+		}
+		if(addName){r.id+=" "+key;}
+	}
+	
+	/** True if keys made by a comparator with these settings are valid for this one. */
+	public boolean sameHash(int k_, long seed_, int border_, int hashes_){
+		return k==k_ && seed==seed_ && border==border_ && hashes==hashes_ && !mergeFirst;
+	}
+	
 	public long hash(Read r1, KCountArray table, int minCount, boolean setObject){
 		long x=hash_inner(r1, table, minCount, setObject);
 		if(Clump.containment && r1.mate!=null){hash_inner(r1.mate, table, minCount, setObject);}
@@ -243,8 +243,10 @@ public class KmerSort3 extends KmerSort {
 		if(groups>1 && in1.contains("%") && (splitInput || !new File(in1).exists())){
 			ffin1=new FileFormat[groups];
 			ffin2=new FileFormat[groups];
+			final boolean spill=SpillFile.isSpill(in1);
+			assert(!spill || in2==null) : "Spill files hold mates together.";
 			for(int i=0; i<groups; i++){
-				ffin1[i]=FileFormat.testInput(in1.replaceFirst("%", ""+i), FileFormat.FASTQ, extin, true, true);
+				ffin1[i]=FileFormat.testInput(in1.replaceFirst("%", ""+i), FileFormat.FASTQ, (spill ? "fq" : extin), true, !spill);
 				ffin2[i]=in2==null ? null : FileFormat.testInput(in2.replaceFirst("%", ""+i), FileFormat.FASTQ, extin, true, true);
 			}
 		}else{
@@ -260,7 +262,7 @@ public class KmerSort3 extends KmerSort {
 		for(FileFormat ff : ffin1){
 			long x=new File(ff.name()).length();
 			sizeSum+=x;
-			if(ff.compressed()){x*=40;}else{x*=8;}
+			if(ff.compressed()){x*=40;}else if(SpillFile.isSpill(ff.name())){x*=24;}else{x*=8;}
 			expectedMemSum+=x;
 		}
 		for(FileFormat ff : ffin2){
@@ -298,7 +300,12 @@ public class KmerSort3 extends KmerSort {
 
 			assert(!out1.equalsIgnoreCase(in1) && !out1.equalsIgnoreCase(in1)) : "Input file and output file have same name.";
 			
-			rosa[i]=ConcurrentReadOutputStream.getStream(ffout1[i], ffout2[i], null, null, buff, null, false);
+			if(SpillFile.isSpill(ffout1[i].name())){
+				assert(ffout2[i]==null) : "Spill files hold mates together.";
+				rosa[i]=new SpillOutputStream(ffout1[i].name(), null, 0);
+			}else{
+				rosa[i]=ConcurrentReadOutputStream.getStream(ffout1[i], ffout2[i], null, null, buff, null, false);
+			}
 			rosa[i].start();
 		}
 		
@@ -607,7 +614,13 @@ public class KmerSort3 extends KmerSort {
 			
 //			assert(false) : ffin1[group]+", "+FASTQ.FORCE_INTERLEAVED+", "+FASTQ.TEST_INTERLEAVED;
 			
-			final ConcurrentReadInputStream cris=ConcurrentReadInputStream.getReadInputStream(maxReads, false, ffin1[group], ffin2[group], null, null);
+			final ConcurrentReadInputStream cris;
+			if(SpillFile.isSpill(ffin1[group].name())){
+				//Stored keys are discarded by ecco, so don't restore them
+				cris=new SpillInputStream(ffin1[group].name(), (ecco ? null : kc), minCount);
+			}else{
+				cris=ConcurrentReadInputStream.getReadInputStream(maxReads, false, ffin1[group], ffin2[group], null, null);
+			}
 			cris.start();
 			
 			//Check for file size imbalance
@@ -745,6 +758,7 @@ public class KmerSort3 extends KmerSort {
 			public void run(){
 				ListNum<Read> ln=cris.nextList();
 				final boolean paired=cris.paired();
+				final boolean restore=(cris instanceof SpillInputStream && ((SpillInputStream)cris).hasKeys());
 				ArrayList<Read> reads=(ln!=null ? ln.list : null);
 				
 				while(ln!=null && reads!=null && reads.size()>0){//ln!=null prevents a compiler potential null access warning
@@ -797,7 +811,8 @@ public class KmerSort3 extends KmerSort {
 						}
 					}
 					
-					kcT.hash(hashList, table, minCount, true);
+					if(restore){kcT.restore(hashList, table, minCount);}
+					else{kcT.hash(hashList, table, minCount, true);}
 					storage.addAll(hashList);
 					cris.returnList(ln);
 					ln=cris.nextList();
@@ -290,6 +290,10 @@ public class KmerSplit {
 			outstream.println("Writing interleaved.");
 		}
 
+		if(verbose){outstream.println("Making comparator.");}
+		KmerComparator kc=new KmerComparator(k, false, false);
+		if(verbose){outstream.println("Seed: "+kc.seed);}
+
 		final ConcurrentReadOutputStream ros[]=new ConcurrentReadOutputStream[groups];
 		try {
 			for(int i=0; i<groups; i++){
@@ -297,7 +301,11 @@ public class KmerSplit {
 
 				assert(!out1.equalsIgnoreCase(in1) && !out1.equalsIgnoreCase(in1)) : "Input file and output file have same name.";
 				
-				ros[i]=ConcurrentReadOutputStream.getStream(ffout[i], null, null, null, buff, null, false);
+				if(SpillFile.isSpill(outArray[i])){
+					ros[i]=new SpillOutputStream(outArray[i], kc, minCount);
+				}else{
+					ros[i]=ConcurrentReadOutputStream.getStream(ffout[i], null, null, null, buff, null, false);
+				}
 				ros[i].start();
 			}
 		} catch (OutOfMemoryError e) {
@@ -308,7 +316,7 @@ public class KmerSplit {
 		basesProcessed=0;
 		
 		//Process the read stream
-		processInner(cris, ros);
+		processInner(cris, ros, kc);
 		
 		errorState|=ReadStats.writeAll();
 		
@@ -323,11 +331,7 @@ public class KmerSplit {
 	}
 	
 	/** Collect and sort the reads */
-	void processInner(final ConcurrentReadInputStream cris, final ConcurrentReadOutputStream[] ros){
-		if(verbose){outstream.println("Making comparator.");}
-		KmerComparator kc=new KmerComparator(k, false, false);
-		if(verbose){outstream.println("Seed: "+kc.seed);}
-		
+	void processInner(final ConcurrentReadInputStream cris, final ConcurrentReadOutputStream[] ros, final KmerComparator kc){
 		if(verbose){outstream.println("Splitting reads.");}
 		splitReads(cris, ros, kc);
 		lastMemProcessed=memProcessed;
@@ -0,0 +1,266 @@
+package clump;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import dna.AminoAcid;
+import stream.Read;
+
+/**
+ * Binary format for Clumpify's temp files, replacing gzipped fastq between passes.
+ * Bases are packed 2 bits each, with other symbols stored as exceptions;
+ * qualities are packed 4 bits each through a per-read codebook whenever a read
+ * has 16 or fewer distinct values, which is always true after quantization.
+ * The ReadKey from KmerComparator.fillMax is stored too, so reads need not be rehashed.
+ * <br>
+ * Layout, little-endian: a header of {MAGIC, VERSION, k, hashes, border, minCount, seed},
+ * then blocks of {byte length, read count, records}, one block per list written.
+ * A record is a read followed by its mate, if any.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class SpillFile {
+
+	/** True if this file name uses the spill format. */
+	public static boolean isSpill(String fname){
+		return fname!=null && fname.endsWith(EXTENSION);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Encoding           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Encodes a list as one block.
+	 * @param keys Store ReadKeys attached to reads
+	 * @return Buffer ready to be written
+	 */
+	static ByteBuffer encode(ArrayList<Read> list, boolean keys){
+		long bound=BLOCK_HEADER;
+		for(Read r : list){bound+=bound(r)+bound(r.mate);}
+		assert(bound<Integer.MAX_VALUE) : "Block too big: "+bound;
+		final ByteBuffer bb=ByteBuffer.allocate((int)bound).order(ByteOrder.LITTLE_ENDIAN);
+		bb.putInt(0);
+		bb.putInt(list.size());
+		final byte[] map=new byte[128];
+		for(Read r : list){
+			encode(r, r.mate!=null, keys, bb, map);
+			if(r.mate!=null){encode(r.mate, false, keys, bb, map);}
+		}
+		bb.putInt(0, bb.position()-BLOCK_HEADER);
+		bb.flip();
+		return bb;
+	}
+
+	/** Upper bound of a read's encoded length */
+	private static long bound(Read r){
+		if(r==null){return 0;}
+		final int len=r.length();
+		return 32+(r.id==null ? 0 : 3L*r.id.length())+len+4+len/4+(len/8+1)*5+17+len;
+	}
+
+	private static void encode(Read r, boolean mate, boolean keys, ByteBuffer bb, byte[] map){
+		final byte[] bases=r.bases, quals=r.quality;
+		assert(bases!=null) : "Reads without bases can't be spilled: "+r.id;
+		final int len=bases.length;
+		final ReadKey key=(keys && r.obj!=null ? (ReadKey)r.obj : null);
+		assert(key==null || !key.flipped) : "Keys must be stored before flipping.";
+
+		int exceptions=0;
+		for(byte b : bases){
+			if(CODES[b&0x7F]<0 || b<0){exceptions++;}
+		}
+		final boolean raw=(exceptions>len/8);
+
+		int distinct=0;
+		if(quals!=null){
+			for(int i=0; i<map.length; i++){map[i]=-1;}
+			for(int i=0; i<len && distinct<=16; i++){
+				final byte q=quals[i];
+				if(q<0){distinct=17;}
+				else if(map[q]<0){map[q]=(byte)distinct; distinct++;}
+			}
+		}
+		final boolean packQ=(quals!=null && distinct<=16);
+
+		int flags=0;
+		if(mate){flags|=MATE;}
+		if(r.pairnum()==1){flags|=PAIRNUM;}
+		if(quals!=null){flags|=QUALS;}
+		if(packQ){flags|=PACKED_QUALS;}
+		if(raw){flags|=RAW_BASES;}
+		if(key!=null){flags|=KEY;}
+		if(key!=null && key.kmerMinusStrand){flags|=MINUS;}
+		bb.put((byte)flags);
+		bb.putLong(r.numericID);
+
+		if(r.id==null){bb.putInt(-1);}
+		else{
+			final byte[] id=r.id.getBytes(StandardCharsets.UTF_8);
+			bb.putInt(id.length);
+			bb.put(id);
+		}
+
+		bb.putInt(len);
+		if(raw){
+			bb.put(bases);
+		}else{
+			for(int i=0; i<len; i+=4){
+				int x=0;
+				for(int j=0; j<4; j++){
+					final int pos=i+j;
+					final int code=(pos<len && bases[pos]>=0 ? CODES[bases[pos]] : 0);
+					x|=(Math.max(code, 0)<<(2*j));
+				}
+				bb.put((byte)x);
+			}
+			bb.putInt(exceptions);
+			for(int i=0; i<len && exceptions>0; i++){
+				final byte b=bases[i];
+				if(b<0 || CODES[b]<0){
+					bb.putInt(i);
+					bb.put(b);
+				}
+			}
+		}
+
+		if(packQ){
+			bb.put((byte)distinct);
+			for(int q=0; q<map.length; q++){
+				if(map[q]>=0){bb.put((byte)q);}
+			}
+			//Codebook is written in ascending order, so renumber to match
+			for(int q=0, n=0; q<map.length; q++){
+				if(map[q]>=0){map[q]=(byte)n; n++;}
+			}
+			for(int i=0; i<len; i+=2){
+				final int a=map[quals[i]], b=(i+1<len ? map[quals[i+1]] : 0);
+				bb.put((byte)(a|(b<<4)));
+			}
+		}else if(quals!=null){
+			bb.put(quals);
+		}
+
+		if(key!=null){
+			bb.putLong(key.kmer);
+			bb.putInt(key.position);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Decoding           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Decodes a block, without its length and count.
+	 * @param keys Attach stored ReadKeys to reads
+	 */
+	static ArrayList<Read> decode(byte[] block, int count, boolean keys){
+		final ByteBuffer bb=ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+		final ArrayList<Read> list=new ArrayList<Read>(count);
+		final byte[] book=new byte[16];
+		for(int i=0; i<count; i++){
+			final Read r=decode(bb, keys, book);
+			if(r.mate!=null){r.mate.mate=r;}
+			list.add(r);
+		}
+		assert(!bb.hasRemaining()) : bb.remaining()+" bytes left in block.";
+		return list;
+	}
+
+	private static Read decode(ByteBuffer bb, boolean keys, byte[] book){
+		final int flags=bb.get();
+		final long numericID=bb.getLong();
+
+		String id=null;
+		{
+			final int idLen=bb.getInt();
+			if(idLen>=0){
+				id=new String(bb.array(), bb.arrayOffset()+bb.position(), idLen, StandardCharsets.UTF_8);
+				bb.position(bb.position()+idLen);
+			}
+		}
+
+		final int len=bb.getInt();
+		final byte[] bases=new byte[len];
+		if((flags&RAW_BASES)!=0){
+			bb.get(bases);
+		}else{
+			for(int i=0; i<len; i+=4){
+				final int x=bb.get();
+				for(int j=0; j<4 && i+j<len; j++){
+					bases[i+j]=AminoAcid.numberToBase[(x>>(2*j))&3];
+				}
+			}
+			final int exceptions=bb.getInt();
+			for(int i=0; i<exceptions; i++){
+				final int pos=bb.getInt();
+				bases[pos]=bb.get();
+			}
+		}
+
+		byte[] quals=null;
+		if((flags&PACKED_QUALS)!=0){
+			quals=new byte[len];
+			final int distinct=bb.get();
+			bb.get(book, 0, distinct);
+			for(int i=0; i<len; i+=2){
+				final int x=bb.get();
+				quals[i]=book[x&0xF];
+				if(i+1<len){quals[i+1]=book[(x>>4)&0xF];}
+			}
+		}else if((flags&QUALS)!=0){
+			quals=new byte[len];
+			bb.get(quals);
+		}
+
+		final Read r=new Read(bases, quals, id, numericID);
+		r.setPairnum((flags&PAIRNUM)!=0 ? 1 : 0);
+
+		if((flags&KEY)!=0){
+			final long kmer=bb.getLong();
+			final int position=bb.getInt();
+			if(keys){
+				ReadKey key=ReadKey.makeKey(r, true);
+				key.set(kmer, position, (flags&MINUS)!=0);
+			}
+		}
+
+		if((flags&MATE)!=0){
+			r.mate=decode(bb, keys, book);
+		}
+		return r;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public static final String EXTENSION=".spill";
+
+	static final int MAGIC=0x4C505343;
+	static final int VERSION=1;
+	/** Bytes in the file header */
+	static final int HEADER=32;
+	/** Bytes before each block's records */
+	static final int BLOCK_HEADER=8;
+
+	private static final int MATE=1, PAIRNUM=2, QUALS=4, PACKED_QUALS=8, RAW_BASES=16, KEY=32, MINUS=64;
+
+	/** 2-bit codes for uppercase ACGT only; everything else, including lowercase, is an exception */
+	private static final byte[] CODES=makeCodes();
+
+	private static byte[] makeCodes(){
+		final byte[] codes=new byte[128];
+		for(int i=0; i<codes.length; i++){codes[i]=-1;}
+		codes['A']=0;
+		codes['C']=1;
+		codes['G']=2;
+		codes['T']=3;
+		return codes;
+	}
+
+}
@@ -0,0 +1,197 @@
+package clump;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import stream.ConcurrentReadInputStream;
+import stream.Read;
+import structures.ListNum;
+
+/**
+ * Reads a SpillFile.
+ * Blocks are read under a lock but decoded by the calling thread,
+ * so several threads calling nextList() decode in parallel.
+ * Read limits are not supported; they apply when the file is written.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class SpillInputStream extends ConcurrentReadInputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param fname_ Input file
+	 * @param kc Comparator that will sort the reads; stored ReadKeys are attached
+	 * only if it hashes the same way as the comparator that made them.  May be null.
+	 * @param minCount Pivot count threshold that will be used when hashing
+	 */
+	public SpillInputStream(String fname_, KmerComparator kc, int minCount){
+		fname=fname_;
+		try {
+			fc=new RandomAccessFile(fname, "r").getChannel();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		buffer.limit(0);
+		fill(SpillFile.HEADER);
+		final int magic=buffer.getInt(), version=buffer.getInt();
+		if(magic!=SpillFile.MAGIC || version!=SpillFile.VERSION){
+			throw new RuntimeException(fname+" is not a spill file, or is from a different version.");
+		}
+		final int k=buffer.getInt(), hashes=buffer.getInt(), border=buffer.getInt(), minCount0=buffer.getInt();
+		final long seed=buffer.getLong();
+		keys=(kc!=null && k>0 && minCount==minCount0 && kc.sameHash(k, seed, border, hashes));
+		//Pairing is the mate flag of the first record
+		paired=(fill(SpillFile.BLOCK_HEADER+1) && (buffer.get(buffer.position()+SpillFile.BLOCK_HEADER)&1)==1);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public ListNum<Read> nextList(){
+		byte[] block;
+		int count;
+		long id;
+		synchronized(this){
+			block=(finished ? null : nextBlock());
+			count=blockCount;
+			id=listnum++;
+		}
+		if(block==null){return new ListNum<Read>(new ArrayList<Read>(0), id);}
+		final ArrayList<Read> list=SpillFile.decode(block, count, keys);
+		synchronized(this){
+			for(Read r : list){
+				readsIn+=r.pairCount();
+				basesIn+=r.pairLength();
+			}
+		}
+		return new ListNum<Read>(list, id);
+	}
+
+	/** Reads the next block's records, or returns null at end of file. */
+	private byte[] nextBlock(){
+		if(!fill(SpillFile.BLOCK_HEADER)){
+			finished=true;
+			return null;
+		}
+		final int len=buffer.getInt();
+		blockCount=buffer.getInt();
+		final byte[] block=new byte[len];
+		for(int i=0; i<len; ){
+			if(!buffer.hasRemaining() && !fill(1)){
+				throw new RuntimeException("Truncated spill file "+fname);
+			}
+			final int x=Math.min(len-i, buffer.remaining());
+			buffer.get(block, i, x);
+			i+=x;
+		}
+		return block;
+	}
+
+	/** Ensures at least len bytes are buffered; returns false at end of file. */
+	private boolean fill(int len){
+		if(buffer.remaining()>=len){return true;}
+		buffer.compact();
+		try {
+			while(buffer.position()<len){
+				if(fc.read(buffer)<0){break;}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			errorState=true;
+		}
+		buffer.flip();
+		if(buffer.remaining()>=len){return true;}
+		if(buffer.hasRemaining()){
+			errorState=true;
+			throw new RuntimeException("Truncated spill file "+fname);
+		}
+		return false;
+	}
+
+	@Override
+	public void returnList(long listNumber, boolean poison){}
+
+	@Override
+	public void run(){}
+
+	@Override
+	public synchronized void shutdown(){
+		finished=true;
+	}
+
+	@Override
+	public synchronized void restart(){
+		throw new RuntimeException("A spill file can't be restarted.");
+	}
+
+	@Override
+	public synchronized void close(){
+		if(closed){return;}
+		closed=finished=true;
+		try {
+			fc.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+			errorState=true;
+		}
+	}
+
+	@Override
+	public boolean paired(){return paired;}
+
+	@Override
+	public Object[] producers(){return new Object[0];}
+
+	@Override
+	public boolean errorState(){return errorState;}
+
+	@Override
+	public void setSampleRate(float rate, long seed){
+		assert(rate>=1) : "Sampling is not supported by spill files.";
+	}
+
+	@Override
+	public long basesIn(){return basesIn;}
+
+	@Override
+	public long readsIn(){return readsIn;}
+
+	@Override
+	public boolean verbose(){return false;}
+
+	/** True if reads carry stored ReadKeys, to be finished with KmerComparator.restore() */
+	public boolean hasKeys(){return keys;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final String fname;
+	private final FileChannel fc;
+	private final ByteBuffer buffer=ByteBuffer.allocateDirect(BUFLEN).order(ByteOrder.LITTLE_ENDIAN);
+	/** Attach stored ReadKeys */
+	private final boolean keys;
+
+	private final boolean paired;
+	private int blockCount=0;
+	private boolean finished=false;
+	private boolean closed=false;
+	private boolean errorState=false;
+
+	private long listnum=0;
+	private long readsIn=0;
+	private long basesIn=0;
+
+	private static final int BUFLEN=1<<22;
+
+}
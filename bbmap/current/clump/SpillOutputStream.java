@@ -0,0 +1,161 @@
+package clump;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import stream.ConcurrentReadOutputStream;
+import stream.Read;
+import stream.ReadStreamWriter;
+
+/**
+ * Writes reads to a SpillFile.
+ * Lists are encoded by the calling thread and appended to a shared buffer,
+ * so several threads can write to the same file; output order is not preserved.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class SpillOutputStream extends ConcurrentReadOutputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param fname_ Output file
+	 * @param kc Comparator that made the ReadKeys to store; null to skip keys
+	 * @param minCount Pivot count threshold used when hashing
+	 */
+	public SpillOutputStream(String fname_, KmerComparator kc, int minCount){
+		super(null, null);
+		fname=fname_;
+		keys=(kc!=null);
+		try {
+			File f=new File(fname);
+			if(f.exists()){f.delete();}
+			fc=new RandomAccessFile(f, "rw").getChannel();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		buffer.putInt(SpillFile.MAGIC);
+		buffer.putInt(SpillFile.VERSION);
+		buffer.putInt(keys ? kc.k : 0);
+		buffer.putInt(keys ? kc.hashes : 0);
+		buffer.putInt(keys ? kc.border : 0);
+		buffer.putInt(minCount);
+		buffer.putLong(keys ? kc.seed : 0);
+		assert(buffer.position()==SpillFile.HEADER);
+	}
+
+	@Override
+	public synchronized void start(){
+		started=true;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Outer Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void add(ArrayList<Read> list, long listnum){
+		assert(started) : "Stream was not started.";
+		if(list==null || list.isEmpty()){return;}
+		final ByteBuffer bb=SpillFile.encode(list, keys);
+		long reads=0, bases=0;
+		for(Read r : list){
+			reads+=r.pairCount();
+			bases+=r.pairLength();
+		}
+		synchronized(this){
+			assert(!closed) : "Stream was already closed.";
+			readsWritten+=reads;
+			basesWritten+=bases;
+			if(bb.remaining()>buffer.remaining()){flush();}
+			if(bb.remaining()>buffer.capacity()){write(bb);}
+			else{buffer.put(bb);}
+		}
+	}
+
+	private void flush(){
+		buffer.flip();
+		write(buffer);
+		buffer.clear();
+	}
+
+	private void write(ByteBuffer bb){
+		try {
+			while(bb.hasRemaining()){fc.write(bb);}
+		} catch (IOException e) {
+			e.printStackTrace();
+			errorState=true;
+			bb.position(bb.limit());
+		}
+	}
+
+	@Override
+	public synchronized void close(){
+		if(closed){return;}
+		closed=true;
+		flush();
+		try {
+			fc.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+			errorState=true;
+		}
+		finishedSuccessfully=!errorState;
+	}
+
+	@Override
+	public void join(){}
+
+	@Override
+	public void resetNextListID(){}
+
+	@Override
+	public String fname(){return fname;}
+
+	@Override
+	public boolean errorState(){return errorState;}
+
+	@Override
+	public boolean finishedSuccessfully(){return finishedSuccessfully;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Getters            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public long basesWritten(){return basesWritten;}
+
+	@Override
+	public long readsWritten(){return readsWritten;}
+
+	@Override
+	public ReadStreamWriter getRS1(){return null;}
+
+	@Override
+	public ReadStreamWriter getRS2(){return null;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------             Fields           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final String fname;
+	private final FileChannel fc;
+	/** Store ReadKeys */
+	private final boolean keys;
+	private final ByteBuffer buffer=ByteBuffer.allocateDirect(BUFLEN).order(ByteOrder.LITTLE_ENDIAN);
+	private boolean closed=false;
+
+	private long readsWritten=0;
+	private long basesWritten=0;
+
+	private static final int BUFLEN=1<<22;
+
+}
@@ -280,7 +280,7 @@ public class ChromArrayMaker {
 			}else if(overwrite){
 				for(File g : f.listFiles()){
 					String s=g.getName();
-					if(g.isFile() && (s.endsWith(".int2d") || s.endsWith(".block") || s.endsWith(".block2.gz") || s.endsWith(".blockB") || s.endsWith(".blockB2.gz"))){
+					if(g.isFile() && (s.endsWith(".int2d") || s.endsWith(".block") || s.endsWith(".block2.gz") || s.endsWith(".blockB") || s.endsWith(".blockB2.gz") || s.endsWith(".raw"))){
 						System.err.println("Deleting "+s);
 						g.delete();
 					}
@@ -364,8 +364,8 @@ public class ChromArrayMaker {
 			
 			if(writeChroms){
 				String x=outRoot+"chr"+chrom+Data.chromExtension();
-				if(new File(x).exists() && !overwrite){throw new RuntimeException("Tried to overwrite existing file "+x+", but overwrite=false.");}
-				ReadWrite.writeObjectInThread(ca, x, false);
+				if(ChromosomeArray.exists(x) && !overwrite){throw new RuntimeException("Tried to overwrite existing file "+x+", but overwrite=false.");}
+				ca.write(x);
 				System.err.println("Writing chunk "+chrom);
 			}
 			chrom++;
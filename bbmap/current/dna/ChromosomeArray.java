@@ -1,9 +1,12 @@
 package dna;
+import java.io.File;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Locale;
 
+import fileIO.RawArrays;
 import fileIO.ReadWrite;
 import jgi.AssemblyStats2;
 import shared.KillSwitch;
@@ -63,13 +66,58 @@ public class ChromosomeArray implements Serializable {
 	public static ChromosomeArray read(String fname){
 		
 //		if(fname.endsWith(".chrom") || fname.endsWith(".chrom.gz")){}
-		ChromosomeArray ca=ReadWrite.read(ChromosomeArray.class, fname, false);
+		final File raw=new File(rawName(fname)), legacy=new File(fname);
+		final boolean useRaw=raw.exists() && (!legacy.exists() || raw.lastModified()>=legacy.lastModified());
+		ChromosomeArray ca=(useRaw ? readRaw(raw.getPath()) : ReadWrite.read(ChromosomeArray.class, fname, false));
 		if(CHANGE_UNDEFINED_TO_N_ON_READ){
 			ca.changeUndefinedToN();
 		}
 		return ca;
 	}
 	
+	/** True if either the raw or the legacy form of this file exists. */
+	public static boolean exists(String fname){
+		return new File(fname).exists() || new File(rawName(fname)).exists();
+	}
+	
+	/** Name of the raw file for a chrom file; chr1.chrom.gz becomes chr1.chrom.raw */
+	public static String rawName(String fname){
+		return (fname.endsWith(".gz") ? fname.substring(0, fname.length()-3) : fname)+".raw";
+	}
+	
+	/** Writes the raw form if RAW is set, otherwise writes the legacy form in a new thread. */
+	public void write(String fname){
+		if(RAW){writeRaw(rawName(fname));}
+		else{ReadWrite.writeObjectInThread(this, fname, false);}
+	}
+	
+	/** 
+	 * Writes an uncompressed file: magic, version, chromosome, strand, minIndex, maxIndex, length, bases.
+	 * Written to a temp file and renamed, so concurrent readers never see a partial file.
+	 */
+	public void writeRaw(String raw){
+		final String tmp=raw+".tmp";
+		FileChannel fc=RawArrays.openWrite(tmp);
+		RawArrays.writeInts(fc, new int[] {RAW_MAGIC, RAW_VERSION, chromosome, strand, minIndex, maxIndex, array.length});
+		RawArrays.writeBytes(fc, array, 0, array.length);
+		RawArrays.close(fc, tmp, raw);
+	}
+	
+	/** Maps a raw chrom file and copies it into a heap array. */
+	public static ChromosomeArray readRaw(String raw){
+		FileChannel fc=RawArrays.openRead(raw);
+		final int[] header=new int[7];
+		long pos=RawArrays.readInts(fc, 0, header);
+		if(header[0]!=RAW_MAGIC || header[1]!=RAW_VERSION){
+			RawArrays.close(fc);
+			throw new RuntimeException("Unrecognized chrom file "+raw+"; please regenerate the reference.");
+		}
+		final byte[] bases=KillSwitch.allocByte1D(header[6]);
+		RawArrays.readBytes(fc, pos, bases);
+		RawArrays.close(fc);
+		return new ChromosomeArray(header[2], (byte)header[3], bases, header[4], header[5]);
+	}
+	
 	public void changeUndefinedToN(){
 		for(int i=0; i<array.length; i++){
 //			array[i]=AminoAcid.numberToBase[AminoAcid.baseToNumberACGTother[array[i]]];
@@ -105,6 +153,14 @@ public class ChromosomeArray implements Serializable {
 		maxIndex=max;
 	}
 	
+	private ChromosomeArray(int chrom, byte strnd, byte[] array_, int min, int max){
+		chromosome=chrom;
+		strand=strnd;
+		array=array_;
+		minIndex=min;
+		maxIndex=max;
+	}
+	
 	
 	public void set(int loc, int val){
 		
@@ -420,6 +476,11 @@ public class ChromosomeArray implements Serializable {
 	public int minIndex=Integer.MAX_VALUE;
 	
 	public static boolean CHANGE_UNDEFINED_TO_N_ON_READ=false;
+	/** Write chrom files in the raw format */
+	public static boolean RAW=true;
+	/** "BBC1" */
+	private static final int RAW_MAGIC=0x31434242;
+	private static final int RAW_VERSION=1;
 	public static boolean CHANGE_U_TO_T=true;
 	public static boolean CHANGE_DEGENERATE_TO_N=true;
 	
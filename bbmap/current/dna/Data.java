@@ -280,7 +280,7 @@ public class Data {
 		
 		String fname=chromFname(chrom, GENOME_BUILD);
 		sysout.println("Loading "+fname);
-		chromosomePlusMatrix[chrom]=ReadWrite.read(ChromosomeArray.class, fname, false);
+		chromosomePlusMatrix[chrom]=ChromosomeArray.read(fname);
 		assert(chromosomePlusMatrix[chrom].chromosome==chrom);
 	}
 	
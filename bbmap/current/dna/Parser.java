@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 
+import bloom.KCountArray;
 import jgi.BBMerge;
 import jgi.CalcTrueQuality;
 import kmer.AbstractKmerTable;
@@ -18,6 +19,7 @@ import stream.FASTQ;
 import stream.FastaReadInputStream;
 import stream.KillSwitch;
 import stream.Read;
+import stream.ReadPool;
 import stream.ReadStreamByteWriter;
 import stream.ReadStreamWriter;
 import stream.SamLine;
@@ -455,6 +457,12 @@ public class Parser {
 		}else if(a.equals("bf2")){
 			ByteFile.FORCE_MODE_BF2=Tools.parseBoolean(b);
 			ByteFile.FORCE_MODE_BF1=!ByteFile.FORCE_MODE_BF2;
+		}else if(a.equals("bf3") || a.equals("mmap")){
+			ByteFile.FORCE_MODE_BF3=Tools.parseBoolean(b);
+		}else if(a.equals("blockedbloom") || a.equals("blockedfilter")){
+			KCountArray.BLOCKED=Tools.parseBoolean(b);
+		}else if(a.equals("recyclereads") || a.equals("recycle")){
+			ReadPool.RECYCLE=Tools.parseBoolean(b);
 		}else if(a.equals("usejni") || a.equals("jni")){
 			Shared.USE_JNI=Tools.parseBoolean(b);
 		}else if(a.equals("usempi") || a.equals("mpi")){
@@ -669,6 +677,17 @@ public class Parser {
 			ReadWrite.ALLOW_ZIPLEVEL_CHANGE=Tools.parseBoolean(b);
 		}else if(a.equals("usegzip") || a.equals("gzip")){
 			ReadWrite.USE_GZIP=Tools.parseBoolean(b);
+		}else if(a.equals("javabgzf") || a.equals("bgzf")){
+			ReadWrite.USE_JAVA_BGZF=Tools.parseBoolean(b);
+		}else if(a.equals("preferbgzf")){
+			ReadWrite.PREFER_JAVA_BGZF=Tools.parseBoolean(b);
+		}else if(a.equals("nativebam")){
+			if(b!=null && b.equalsIgnoreCase("auto")){
+				ReadWrite.USE_NATIVE_BAM=true;
+				ReadWrite.PREFER_NATIVE_BAM=false;
+			}else{
+				ReadWrite.USE_NATIVE_BAM=ReadWrite.PREFER_NATIVE_BAM=Tools.parseBoolean(b);
+			}
 		}else if(a.equals("forcepigz")){
 			ReadWrite.FORCE_PIGZ=Tools.parseBoolean(b);
 		}else if(a.equals("usepigz") || a.equals("pigz")){
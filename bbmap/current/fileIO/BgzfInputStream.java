@@ -0,0 +1,302 @@
+package fileIO;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import shared.Tools;
+
+/**
+ * Multithreaded gzip decompression in pure Java, for BGZF files.
+ * BGZF blocks record their own compressed size, so blocks can be read sequentially
+ * without decompressing them; worker threads then inflate them in parallel.
+ * Ordinary gzip files don't carry block sizes and must use GZIPInputStream;
+ * use isBgzf() to tell them apart.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BgzfInputStream extends InputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param in_ Compressed BGZF data
+	 * @param threads_ Number of decompression threads
+	 */
+	public BgzfInputStream(InputStream in_, int threads_){
+		in=in_;
+		threads=Tools.max(1, threads_);
+		maxPending=threads*3;
+		jobs=new ArrayBlockingQueue<Block>(maxPending+threads+1);
+		workers=new Worker[threads];
+		for(int i=0; i<threads; i++){
+			workers[i]=new Worker();
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Tests whether the stream starts with a BGZF block, without consuming anything.
+	 * @param is A stream supporting mark and reset
+	 */
+	public static boolean isBgzf(InputStream is) throws IOException {
+		assert(is.markSupported());
+		final byte[] header=new byte[BgzfOutputStream.HEADER.length];
+		is.mark(header.length);
+		int len=0;
+		for(int r=0; len<header.length && r>=0; len+=r){
+			r=is.read(header, len, header.length-len);
+			if(r<0){break;}
+		}
+		is.reset();
+		return len==header.length && isBgzfHeader(header);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Outer Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public int read() throws IOException {
+		if(!fill()){return -1;}
+		final int b=current.out[currentPos]&0xFF;
+		currentPos++;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len<1){return 0;}
+		if(!fill()){return -1;}
+		final int x=Tools.min(len, current.outLen-currentPos);
+		System.arraycopy(current.out, currentPos, b, off, x);
+		currentPos+=x;
+		return x;
+	}
+
+	@Override
+	public int available(){
+		return current==null ? 0 : current.outLen-currentPos;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed){return;}
+		closed=true;
+		try {
+			in.close();
+		} finally {
+			jobs.clear();
+			for(int i=0; i<threads; i++){put(POISON);}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Inner Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Makes sure current has unread bytes.  Returns false at end of stream. */
+	private boolean fill() throws IOException {
+		while(current==null || currentPos>=current.outLen){
+			while(!eof && pending.size()<maxPending){
+				final Block blk=readBlock();
+				if(blk==null){
+					eof=true;
+				}else{
+					pending.add(blk);
+					put(blk);
+				}
+			}
+			if(pending.isEmpty()){
+				current=null;
+				return false;
+			}
+			current=pending.poll();
+			current.waitUntilDone();
+			if(current.error!=null){throw new IOException(current.error);}
+			currentPos=0;
+		}
+		return true;
+	}
+
+	/** Reads one compressed block without inflating it.  Returns null at end of stream. */
+	private Block readBlock() throws IOException {
+		final byte[] header=new byte[BgzfOutputStream.HEADER.length];
+		final int len=readFully(header, 0, header.length);
+		if(len==0){return null;}
+		if(len<header.length){throw new EOFException("Truncated BGZF block header.");}
+		if(!isBgzfHeader(header)){
+			throw new IOException("Not a BGZF block; ordinary gzip must be read with GZIPInputStream.");
+		}
+		final int xlen=(header[10]&0xFF)|((header[11]&0xFF)<<8);
+		final int blockLen=((header[16]&0xFF)|((header[17]&0xFF)<<8))+1;
+		final int remaining=blockLen-12-xlen;
+		if(xlen<6 || remaining<8){throw new IOException("Malformed BGZF block.");}
+
+		//Skip any extra subfields after BC
+		final byte[] skip=new byte[xlen-6];
+		if(readFully(skip, 0, skip.length)<skip.length){throw new EOFException("Truncated BGZF block.");}
+
+		final byte[] data=new byte[remaining];
+		if(readFully(data, 0, remaining)<remaining){throw new EOFException("Truncated BGZF block.");}
+		return new Block(data);
+	}
+
+	private int readFully(byte[] b, int off, int len) throws IOException {
+		int total=0;
+		while(total<len){
+			final int r=in.read(b, off+total, len-total);
+			if(r<0){break;}
+			total+=r;
+		}
+		return total;
+	}
+
+	private void put(Block blk){
+		while(true){
+			try {
+				jobs.put(blk);
+				return;
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static boolean isBgzfHeader(byte[] h){
+		return h[0]==31 && h[1]==(byte)139 && h[2]==8 && (h[3]&4)!=0 && h[12]==66 && h[13]==67 && h[14]==2 && h[15]==0;
+	}
+
+	private static int readInt(byte[] array, int pos){
+		return (array[pos]&0xFF)|((array[pos+1]&0xFF)<<8)|((array[pos+2]&0xFF)<<16)|((array[pos+3]&0xFF)<<24);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** One block: deflated data plus CRC and length, and the inflated result. */
+	private static class Block {
+
+		Block(byte[] in_){
+			in=in_;
+		}
+
+		synchronized void setDone(){
+			done=true;
+			notifyAll();
+		}
+
+		synchronized void waitUntilDone(){
+			while(!done){
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		final byte[] in;
+		byte[] out;
+		int outLen;
+		String error=null;
+		private boolean done=false;
+	}
+
+	private class Worker extends Thread {
+
+		Worker(){
+			setDaemon(true);
+		}
+
+		@Override
+		public void run(){
+			for(Block blk=take(); blk!=POISON; blk=take()){
+				inflate(blk);
+				blk.setDone();
+			}
+			inflater.end();
+		}
+
+		private Block take(){
+			Block blk=null;
+			while(blk==null){
+				try {
+					blk=jobs.take();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			return blk;
+		}
+
+		private void inflate(Block blk){
+			final byte[] data=blk.in;
+			final int cLen=data.length-8;
+			final int expectedCrc=readInt(data, cLen);
+			final int size=readInt(data, cLen+4);
+			if(size<0 || size>BgzfOutputStream.MAX_BLOCK){
+				blk.error="Malformed BGZF block size: "+size;
+				return;
+			}
+			final byte[] out=new byte[size];
+			inflater.reset();
+			inflater.setInput(data, 0, cLen);
+			try {
+				int len=0;
+				while(len<size && !inflater.finished()){
+					final int r=inflater.inflate(out, len, size-len);
+					if(r==0 && (inflater.needsInput() || inflater.needsDictionary())){break;}
+					len+=r;
+				}
+				if(len!=size){
+					blk.error="BGZF block inflated to "+len+" bytes; expected "+size;
+					return;
+				}
+			} catch (DataFormatException e) {
+				blk.error="Corrupt BGZF block: "+e.getMessage();
+				return;
+			}
+			crc.reset();
+			crc.update(out, 0, size);
+			if((int)crc.getValue()!=expectedCrc){
+				blk.error="BGZF block CRC mismatch.";
+				return;
+			}
+			blk.out=out;
+			blk.outLen=size;
+		}
+
+		private final Inflater inflater=new Inflater(true);
+		private final CRC32 crc=new CRC32();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final InputStream in;
+	private final int threads;
+	private final int maxPending;
+	private final Worker[] workers;
+	private final ArrayBlockingQueue<Block> jobs;
+	/** Blocks in file order, inflated or not */
+	private final ArrayDeque<Block> pending=new ArrayDeque<Block>();
+
+	private Block current=null;
+	private int currentPos=0;
+	private boolean eof=false;
+	private boolean closed=false;
+
+	private static final Block POISON=new Block(null);
+
+}
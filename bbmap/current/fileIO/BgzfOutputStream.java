@@ -0,0 +1,278 @@
+package fileIO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import shared.Tools;
+
+/**
+ * Multithreaded gzip compression in pure Java.
+ * Output is split into independent blocks of up to 64KB in BGZF format,
+ * which worker threads compress in parallel; blocks are written in order.
+ * The result is a standard multi-member gzip file, readable by gunzip,
+ * and also by BgzfInputStream in parallel.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BgzfOutputStream extends OutputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param out_ Destination for compressed data
+	 * @param level Compression level, 0-9
+	 * @param threads_ Number of compression threads
+	 */
+	public BgzfOutputStream(OutputStream out_, int level, int threads_){
+		out=out_;
+		threads=Tools.max(1, threads_);
+		maxPending=threads*3;
+		buffer=new byte[MAX_INPUT];
+		jobs=new ArrayBlockingQueue<Block>(maxPending+threads+1);
+		workers=new Worker[threads];
+		for(int i=0; i<threads; i++){
+			workers[i]=new Worker(Tools.mid(0, level, 9));
+			workers[i].start();
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Outer Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void write(int b) throws IOException {
+		buffer[bufferLen]=(byte)b;
+		bufferLen++;
+		if(bufferLen>=MAX_INPUT){submit();}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while(len>0){
+			final int x=Tools.min(len, MAX_INPUT-bufferLen);
+			System.arraycopy(b, off, buffer, bufferLen, x);
+			bufferLen+=x;
+			off+=x;
+			len-=x;
+			if(bufferLen>=MAX_INPUT){submit();}
+		}
+	}
+
+	/** Writes finished blocks only; like GZIPOutputStream, buffered data stays pending until the block fills. */
+	@Override
+	public void flush() throws IOException {
+		while(!pending.isEmpty() && pending.peek().isDone()){writeHead();}
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed){return;}
+		closed=true;
+		try {
+			if(bufferLen>0){submit();}
+			while(!pending.isEmpty()){writeHead();}
+			out.write(EOF_BLOCK);
+			out.close();
+		} finally {
+			for(int i=0; i<threads; i++){put(POISON);}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Inner Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Sends the buffer for compression and starts a new one. */
+	private void submit() throws IOException {
+		if(closed && bufferLen==0){return;}
+		final Block blk=new Block(buffer, bufferLen);
+		pending.add(blk);
+		put(blk);
+		buffer=(free.isEmpty() ? new byte[MAX_INPUT] : free.poll());
+		bufferLen=0;
+		while(pending.size()>=maxPending){writeHead();}
+	}
+
+	/** Waits for the oldest block and writes it. */
+	private void writeHead() throws IOException {
+		final Block blk=pending.poll();
+		blk.waitUntilDone();
+		out.write(blk.out, 0, blk.outLen);
+		free.add(blk.in);
+	}
+
+	private void put(Block blk){
+		while(true){
+			try {
+				jobs.put(blk);
+				return;
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** One unit of work: uncompressed input and its complete BGZF block. */
+	private static class Block {
+
+		Block(byte[] in_, int inLen_){
+			in=in_;
+			inLen=inLen_;
+		}
+
+		synchronized void setDone(){
+			done=true;
+			notifyAll();
+		}
+
+		synchronized boolean isDone(){return done;}
+
+		synchronized void waitUntilDone(){
+			while(!done){
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		final byte[] in;
+		final int inLen;
+		byte[] out;
+		int outLen;
+		private boolean done=false;
+	}
+
+	private class Worker extends Thread {
+
+		Worker(int level){
+			deflater=new Deflater(level, true);
+			setDaemon(true);
+		}
+
+		@Override
+		public void run(){
+			for(Block blk=take(); blk!=POISON; blk=take()){
+				compress(blk);
+				blk.setDone();
+			}
+			deflater.end();
+			store.end();
+		}
+
+		private Block take(){
+			Block blk=null;
+			while(blk==null){
+				try {
+					blk=jobs.take();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			return blk;
+		}
+
+		/** Builds the whole block: header, deflated data, CRC and length. */
+		private void compress(Block blk){
+			final byte[] dest=new byte[MAX_BLOCK];
+			int cLen=deflate(deflater, blk, dest);
+			if(cLen<0){cLen=deflate(store, blk, dest);}//Incompressible; stored data always fits
+			assert(cLen>=0) : blk.inLen;
+
+			System.arraycopy(HEADER, 0, dest, 0, HEADER.length);
+			final int blockLen=HEADER.length+cLen+8;
+			writeShort(dest, 16, blockLen-1);
+
+			crc.reset();
+			crc.update(blk.in, 0, blk.inLen);
+			int pos=HEADER.length+cLen;
+			writeInt(dest, pos, (int)crc.getValue());
+			writeInt(dest, pos+4, blk.inLen);
+			blk.out=dest;
+			blk.outLen=blockLen;
+		}
+
+		/** Returns the compressed length, or -1 if it would not fit in one block. */
+		private int deflate(Deflater d, Block blk, byte[] dest){
+			d.reset();
+			d.setInput(blk.in, 0, blk.inLen);
+			d.finish();
+			final int limit=MAX_BLOCK-HEADER.length-8;
+			int len=0;
+			while(!d.finished() && len<limit){
+				len+=d.deflate(dest, HEADER.length+len, limit-len);
+			}
+			return d.finished() ? len : -1;
+		}
+
+		private final Deflater deflater;
+		private final Deflater store=new Deflater(Deflater.NO_COMPRESSION, true);
+		private final CRC32 crc=new CRC32();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	static void writeShort(byte[] array, int pos, int x){
+		array[pos]=(byte)x;
+		array[pos+1]=(byte)(x>>>8);
+	}
+
+	static void writeInt(byte[] array, int pos, int x){
+		array[pos]=(byte)x;
+		array[pos+1]=(byte)(x>>>8);
+		array[pos+2]=(byte)(x>>>16);
+		array[pos+3]=(byte)(x>>>24);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final OutputStream out;
+	private final int threads;
+	private final int maxPending;
+	private final Worker[] workers;
+	private final ArrayBlockingQueue<Block> jobs;
+	/** Blocks in write order, compressed or not */
+	private final ArrayDeque<Block> pending=new ArrayDeque<Block>();
+	/** Input arrays of written blocks, for reuse */
+	private final ArrayDeque<byte[]> free=new ArrayDeque<byte[]>();
+
+	private byte[] buffer;
+	private int bufferLen=0;
+	private boolean closed=false;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Maximum size of a compressed block, including header and footer */
+	static final int MAX_BLOCK=65536;
+	/** Uncompressed bytes per block; small enough that a stored block still fits */
+	static final int MAX_INPUT=65280;
+
+	/** Gzip header with the BGZF extra field; the block size is filled in at bytes 16-17 */
+	static final byte[] HEADER={31, (byte)139, 8, 4, 0, 0, 0, 0, 0, (byte)255, 6, 0, 66, 67, 2, 0, 0, 0};
+
+	/** Empty block marking the end of a BGZF file */
+	static final byte[] EOF_BLOCK={31, (byte)139, 8, 4, 0, 0, 0, 0, 0, (byte)255, 6, 0, 66, 67, 2, 0, 27, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+	private static final Block POISON=new Block(null, 0);
+
+}
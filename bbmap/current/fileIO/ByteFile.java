@@ -31,11 +31,11 @@ public abstract class ByteFile {
 	public static final ByteFile makeByteFile(FileFormat ff, int type){
 		if(type==1){return new ByteFile1(ff);}
 		if(type==2){return new ByteFile2(ff);}
+		if((type==3 || FORCE_MODE_BF3) && ByteFile3.canMap(ff)){return new ByteFile3(ff);}
 		if(!Shared.LOW_MEMORY && (FORCE_MODE_BF2 || (!FORCE_MODE_BF1 && Shared.threads()>4/* && (ReadWrite.isCompressed(fname) || ReadWrite.isSam(fname))*/))){
 //			if(allowSubprocess && ((ReadWrite.USE_UNPIGZ || ReadWrite.USE_GUNZIP) && (fname.endsWith(".gz") || fname.endsWith(".gzip")))){}
 			return new ByteFile2(ff);
 		}
-//		if(FORCE_MODE_BF3){return new QuickFile(ff);}
 		return new ByteFile1(ff);
 	}
 	
@@ -125,6 +125,7 @@ public abstract class ByteFile {
 
 	public static boolean FORCE_MODE_BF1=!(Data.GENEPOOL || Data.DENOVO || Data.CORI || Data.WINDOWS);
 	public static boolean FORCE_MODE_BF2=false;
+	/** Memory-map uncompressed files; see ByteFile3 */
 	public static boolean FORCE_MODE_BF3=false;
 	
 	protected final static byte slashr='\r', slashn='\n', carrot='>', plus='+', at='@';//, tab='\t';
@@ -8,6 +8,7 @@ import shared.KillSwitch;
 import shared.Shared;
 import shared.Timer;
 import shared.Tools;
+import stream.ReadPool;
 
 
 /**
@@ -171,7 +172,12 @@ public final class ByteFile1 extends ByteFile {
 			return blankLine;
 		}
 		
-		byte[] line=KillSwitch.copyOfRange(buffer, bstart, limit);
+		byte[] line=(ReadPool.RECYCLE ? ReadPool.take(limit-bstart) : null);
+		if(line!=null){
+			System.arraycopy(buffer, bstart, line, 0, limit-bstart);
+		}else{
+			line=KillSwitch.copyOfRange(buffer, bstart, limit);
+		}
 //		byte[] line=Arrays.copyOfRange(buffer, bstart, limit);
 //		byte[] line=new String(buffer, bstart, limit-bstart).getBytes();
 //		byte[] line=new byte[limit-bstart];
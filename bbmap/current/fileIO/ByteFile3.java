@@ -0,0 +1,411 @@
+package fileIO;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import shared.Shared;
+import shared.Timer;
+import shared.Tools;
+import stream.ReadPool;
+
+
+/**
+ * Reads an uncompressed file through memory-mapped chunks instead of an InputStream.
+ * The file is divided into chunks, and each chunk is extended to the next record start
+ * (the next fastq record for fastq files; the next line otherwise), so chunks tile the file exactly.
+ * Several worker threads map and split chunks in parallel; lines are copied once,
+ * straight from the mapped pages into the arrays handed to the caller,
+ * and are returned in file order.
+ * Drop-in compatible with ByteFile1, but only for regular uncompressed files.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class ByteFile3 extends ByteFile {
+
+
+	public static void main(String[] args){
+		ByteFile3 tf=new ByteFile3(FileFormat.testInput(args[0], FileFormat.TEXT, null, false, false));
+		long first=0, last=100;
+		boolean speedtest=false;
+		if(args.length>1){
+			if(args[1].equalsIgnoreCase("speedtest")){
+				speedtest=true;
+				first=0;
+				last=Long.MAX_VALUE;
+			}else{
+				first=Integer.parseInt(args[1]);
+				last=first+100;
+			}
+		}
+		if(args.length>2){
+			last=Integer.parseInt(args[2]);
+		}
+		speedtest(tf, first, last, !speedtest);
+
+		tf.close();
+		tf.reset();
+		tf.close();
+	}
+
+	private static void speedtest(ByteFile3 tf, long first, long last, boolean reprint){
+		Timer t=new Timer();
+		long lines=0;
+		long bytes=0;
+		for(long i=0; i<first; i++){tf.nextLine();}
+		if(reprint){
+			for(long i=first; i<last; i++){
+				byte[] s=tf.nextLine();
+				if(s==null){break;}
+
+				lines++;
+				bytes+=s.length;
+				System.out.println(new String(s));
+			}
+
+			System.err.println("\n");
+			System.err.println("Lines: "+lines);
+			System.err.println("Bytes: "+bytes);
+		}else{
+			for(long i=first; i<last; i++){
+				byte[] s=tf.nextLine();
+				if(s==null){break;}
+				lines++;
+				bytes+=s.length;
+			}
+		}
+		t.stop();
+
+		if(!reprint){
+			System.err.println(Tools.timeLinesBytesProcessed(t, lines, bytes, 8));
+		}
+	}
+
+	/** True if this file can be memory-mapped: a regular, uncompressed file on disk. */
+	public static boolean canMap(FileFormat ff){
+		if(ff==null || !ff.file() || ff.stdio() || ff.compressed() || !ff.raw()){return false;}
+		String name=ff.name();
+		if(name==null || name.startsWith("jar:")){return false;}
+		File f=new File(name);
+		return f.isFile() && f.canRead();
+	}
+
+	public ByteFile3(FileFormat ff){
+		super(ff);
+		if(verbose){System.err.println("ByteFile3("+ff+")");}
+		assert(canMap(ff)) : "Can't memory-map "+ff.name();
+		fastqMode=ff.fastq();
+		open();
+	}
+
+	@Override
+	public final void reset(){
+		close();
+		open();
+		superReset();
+	}
+
+	@Override
+	public synchronized final boolean close(){
+		if(verbose){System.err.println("ByteFile3("+name()+").close()");}
+		if(workers!=null){
+			shutdown=true;
+			for(Worker w : workers){
+				while(w.getState()!=Thread.State.TERMINATED){
+					try {
+						w.join();
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+					}
+				}
+				errorState|=w.errorState;
+			}
+			workers=null;
+		}
+		if(channel!=null){
+			try {
+				channel.close();
+				raf.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+				errorState=true;
+			}
+			channel=null;
+			raf=null;
+		}
+		open=false;
+		currentList=null;
+		currentLoc=0;
+		pushBack=null;
+		return errorState;
+	}
+
+	@Override
+	public final byte[] nextLine(){
+		if(pushBack!=null){
+			byte[] temp=pushBack;
+			pushBack=null;
+			return temp;
+		}
+
+		while(currentList==null || currentLoc>=currentList.length){
+			if(!getBuffer()){return null;}
+		}
+		byte[] r=currentList[currentLoc];
+		currentLoc++;
+		lineNum++;
+		return r;
+	}
+
+	/** Fetches the next chunk's lines, in chunk order.  Returns false at end of file. */
+	private boolean getBuffer(){
+		currentList=null;
+		currentLoc=0;
+		if(!open){return false;}
+		final Worker w=workers[(int)(nextChunk%workers.length)];
+		byte[][] list=null;
+		while(list==null){
+			try {
+				list=w.queue.take();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		if(list==poison){
+			if(verbose){System.err.println("ByteFile3("+name()+") reached end after "+nextChunk+" chunks.");}
+			open=false;
+			return false;
+		}
+		nextChunk++;
+		currentList=list;
+		return true;
+	}
+
+	private final synchronized void open(){
+		if(open){
+			throw new RuntimeException("Attempt to open already-opened ByteFile3 "+name());
+		}
+		try {
+			raf=new RandomAccessFile(name(), "r");
+			channel=raf.getChannel();
+			fileLen=channel.size();
+		} catch (IOException e) {
+			throw new RuntimeException("Can't open "+name(), e);
+		}
+		open=true;
+		shutdown=false;
+		nextChunk=0;
+		lineNum=-1;
+
+		final int threads=Tools.mid(1, Shared.threads(), MAX_THREADS);
+		workers=new Worker[threads];
+		for(int i=0; i<threads; i++){workers[i]=new Worker(i, threads);}
+		for(Worker w : workers){w.start();}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Chunk Boundaries      ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Finds the first record start at or after position pos.
+	 * @param bb Buffer mapped at file offset base
+	 * @param base File offset of bb's first byte
+	 * @param pos File offset to search from; must be greater than base
+	 * @return Absolute file offset, fileLen at end of file, or -1 if bb ends before the answer is known
+	 */
+	private long findRecordStart(MappedByteBuffer bb, long base, long pos){
+		if(pos>=fileLen){return fileLen;}
+		final int limit=bb.limit();
+		final boolean eof=(base+limit>=fileLen);
+		int i=(int)(pos-base);
+		assert(i>0) : base+", "+pos;
+
+		//Advance to the first line start at or after pos
+		while(i<=limit && bb.get(i-1)!=slashn){
+			i++;
+			if(i>limit){return eof ? fileLen : -1;}
+		}
+		if(!fastqMode){return base+i;}
+
+		//A fastq header starts with '@' and is followed two lines later by a line starting with '+'.
+		//A quality line can start with '@', but then the line two later is bases, not '+'.
+		while(i<limit){
+			if(bb.get(i)==at){
+				int j=nextLineStart(bb, i);
+				if(j>=0){j=nextLineStart(bb, j);}
+				if(j<0 || j>=limit){return eof ? fileLen : -1;}
+				if(bb.get(j)==plus){return base+i;}
+			}
+			i=nextLineStart(bb, i);
+			if(i<0){return eof ? fileLen : -1;}
+		}
+		return eof ? fileLen : -1;
+	}
+
+	/** Returns the position after the next newline, or -1 if there is none in bb. */
+	private static int nextLineStart(MappedByteBuffer bb, int i){
+		final int limit=bb.limit();
+		while(i<limit && bb.get(i)!=slashn){i++;}
+		return i<limit ? i+1 : -1;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Processes chunks tid, tid+threads, tid+2*threads... and queues their lines in that order. */
+	private class Worker extends Thread {
+
+		Worker(int tid_, int threads_){
+			tid=tid_;
+			threads=threads_;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run(){
+			try {
+				for(long chunk=tid; !shutdown; chunk+=threads){
+					long nominal=chunk*CHUNK_LEN;
+					if(nominal>=fileLen){break;}
+					byte[][] lines=processChunk(nominal, Tools.min(fileLen, nominal+CHUNK_LEN));
+					if(!put(lines==null ? emptyList : lines)){break;}//Every chunk must be queued to keep the order
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				errorState=true;
+			}
+			put(poison);
+		}
+
+		/**
+		 * Maps a chunk plus enough lookahead to find both of its record boundaries,
+		 * then splits it into lines.
+		 * @return The lines, or null if the chunk contains no record start
+		 */
+		private byte[][] processChunk(final long nominalStart, final long nominalStop) throws IOException {
+			final long mapStart=(nominalStart>0 ? nominalStart-1 : 0);
+			long lookahead=LOOKAHEAD;
+			for(;;){
+				final long mapStop=Tools.min(fileLen, nominalStop+lookahead);
+				assert(mapStop-mapStart<Integer.MAX_VALUE) : "Record too long to map: "+(mapStop-mapStart);
+				final MappedByteBuffer bb=channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapStop-mapStart);
+				final long start=(nominalStart==0 ? 0 : findRecordStart(bb, mapStart, nominalStart));
+				final long stop=(start<0 ? -1 : findRecordStart(bb, mapStart, Tools.max(start+1, nominalStop)));
+				if(start>=0 && stop>=0){
+					if(start>=nominalStop || start>=stop){return null;}
+					return toLines(bb, (int)(start-mapStart), (int)(stop-mapStart));
+				}
+				assert(mapStop<fileLen);
+				lookahead*=2;
+			}
+		}
+
+		/** Copies each line in bb[start, stop) directly into its own array. */
+		private byte[][] toLines(final MappedByteBuffer bb, final int start, final int stop){
+			int count=0;
+			for(int i=start; i<stop; i++){
+				if(bb.get(i)==slashn){count++;}
+			}
+			if(bb.get(stop-1)!=slashn){count++;}//Final line of the file has no newline
+
+			final byte[][] lines=new byte[count][];
+			for(int i=start, line=0; line<count; line++){
+				int nl=i;
+				while(nl<stop && bb.get(nl)!=slashn){nl++;}
+				final int limit=(nl>i && bb.get(nl-1)==slashr) ? nl-1 : nl;
+				if(limit==i){
+					lines[line]=blankLine;
+				}else{
+					final byte[] s=(ReadPool.RECYCLE ? ReadPool.get(limit-i) : new byte[limit-i]);
+					bb.position(i);
+					bb.get(s);
+					lines[line]=s;
+				}
+				i=nl+1;
+			}
+			return lines;
+		}
+
+		/** Returns false if the file was closed before the list could be queued. */
+		private boolean put(byte[][] list){
+			while(true){
+				try {
+					if(queue.offer(list, 100, TimeUnit.MILLISECONDS)){return true;}
+					if(shutdown){return false;}
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		final int tid;
+		final int threads;
+		final ArrayBlockingQueue<byte[][]> queue=new ArrayBlockingQueue<byte[][]>(QUEUE_LEN);
+		boolean errorState=false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Other Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public boolean isOpen(){
+		if(currentList!=null && currentLoc<currentList.length){return true;}
+		return open;
+	}
+
+	@Override
+	public final void pushBack(byte[] line){
+		assert(pushBack==null);
+		pushBack=line;
+	}
+
+	/** There is no underlying InputStream. */
+	@Override
+	public final InputStream is(){return null;}
+
+	@Override
+	public final long lineNum(){return lineNum;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final boolean fastqMode;
+
+	private RandomAccessFile raf=null;
+	private FileChannel channel=null;
+	private long fileLen=0;
+
+	private Worker[] workers=null;
+	private volatile boolean shutdown=false;
+	private boolean open=false;
+	private long nextChunk=0;
+
+	private byte[][] currentList=null;
+	private int currentLoc=0;
+	private byte[] pushBack=null;
+	private long lineNum=-1;
+
+	private boolean errorState=false;
+
+	private static final byte[][] poison=new byte[0][];
+	private static final byte[][] emptyList=new byte[0][];
+	private static final byte[] blankLine=new byte[0];
+
+	public static boolean verbose=false;
+	/** Nominal bytes per chunk */
+	public static long CHUNK_LEN=1<<20;
+	/** Initial bytes mapped past a chunk's end to find its final record boundary; doubled as needed */
+	public static long LOOKAHEAD=1<<16;
+	public static int MAX_THREADS=6;
+	private static final int QUEUE_LEN=2;
+
+}
@@ -82,7 +82,7 @@ public class ByteStreamWriter extends Thread {
 					"and is read-only.");
 		if(append && !(ff.raw() || ff.gzip())){throw new RuntimeException("Can't append to compressed files.");}
 		
-		if(!BAM || !(Data.SAMTOOLS() /*|| Data.SAMBAMBA()*/) /*|| !Data.SH()*/){
+		if(!BAM || ReadWrite.PREFER_NATIVE_BAM || !(Data.SAMTOOLS() /*|| Data.SAMBAMBA()*/) /*|| !Data.SH()*/){
 			outstream=ReadWrite.getOutputStream(fname, append, true, allowSubprocess);
 		}else{
 			if(Data.SAMTOOLS()){
@@ -0,0 +1,161 @@
+package fileIO;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes primitive arrays as raw little-endian files.
+ * Reading maps the file with FileChannel.map and bulk-copies into the heap,
+ * so there is no decompression or deserialization.  Each process still holds
+ * its own heap copy; only the file's page cache is shared, which makes a
+ * second load fast but does not reduce memory.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class RawArrays {
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Writing            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Opens a temp file for writing; finish with close(fc, tmp, fname). */
+	public static FileChannel openWrite(String tmp){
+		try {
+			File f=new File(tmp);
+			if(f.exists()){f.delete();}
+			return new RandomAccessFile(f, "rw").getChannel();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** Closes the channel and atomically renames tmp to fname, so readers never see a partial file. */
+	public static void close(FileChannel fc, String tmp, String fname){
+		try {
+			fc.force(false);
+			fc.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		File f=new File(fname);
+		if(f.exists()){f.delete();}
+		if(!new File(tmp).renameTo(f)){throw new RuntimeException("Failed to rename "+tmp+" to "+fname);}
+	}
+
+	public static void writeInts(FileChannel fc, int[] array){writeInts(fc, array, 0, array.length);}
+
+	public static void writeInts(FileChannel fc, int[] array, int from, int to){
+		final ByteBuffer bb=ByteBuffer.allocateDirect(BUFLEN).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			for(int i=from; i<to; ){
+				final int len=Math.min(to-i, BUFLEN/4);
+				bb.clear();
+				bb.asIntBuffer().put(array, i, len);
+				bb.limit(len*4);
+				while(bb.hasRemaining()){fc.write(bb);}
+				i+=len;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static void writeLongs(FileChannel fc, long[] array, int from, int to){
+		final ByteBuffer bb=ByteBuffer.allocateDirect(BUFLEN).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			for(int i=from; i<to; ){
+				final int len=Math.min(to-i, BUFLEN/8);
+				bb.clear();
+				bb.asLongBuffer().put(array, i, len);
+				bb.limit(len*8);
+				while(bb.hasRemaining()){fc.write(bb);}
+				i+=len;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static void writeBytes(FileChannel fc, byte[] array, int from, int to){
+		try {
+			final ByteBuffer bb=ByteBuffer.wrap(array, from, to-from);
+			while(bb.hasRemaining()){fc.write(bb);}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Reading            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public static FileChannel openRead(String fname){
+		try {
+			return new RandomAccessFile(fname, "r").getChannel();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static void close(FileChannel fc){
+		try {
+			fc.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Fills array with ints from the file starting at byte pos.
+	 * @return Position after the last int read
+	 */
+	public static long readInts(FileChannel fc, long pos, int[] array){
+		try {
+			for(int i=0; i<array.length; ){
+				final int len=Math.min(array.length-i, MAPLEN/4);
+				final MappedByteBuffer mbb=fc.map(FileChannel.MapMode.READ_ONLY, pos, len*4L);
+				mbb.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(array, i, len);
+				i+=len;
+				pos+=len*4L;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return pos;
+	}
+
+	/**
+	 * Fills array with bytes from the file starting at byte pos.
+	 * @return Position after the last byte read
+	 */
+	public static long readBytes(FileChannel fc, long pos, byte[] array){
+		try {
+			for(int i=0; i<array.length; ){
+				final int len=Math.min(array.length-i, MAPLEN);
+				final MappedByteBuffer mbb=fc.map(FileChannel.MapMode.READ_ONLY, pos, len);
+				mbb.get(array, i, len);
+				i+=len;
+				pos+=len;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return pos;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Write buffer size */
+	private static final int BUFLEN=1<<20;
+	/** Largest region mapped at once; a MappedByteBuffer is limited to 2GB */
+	private static final int MAPLEN=1<<30;
+
+}
@@ -33,6 +33,8 @@ import dna.Data;
 import shared.KillSwitch;
 import shared.Shared;
 import shared.Tools;
+import stream.BamInputStream;
+import stream.BamOutputStream;
 import stream.ConcurrentReadOutputStream;
 import stream.ConcurrentReadStreamInterface;
 import stream.MultiCros;
@@ -372,6 +374,7 @@ public class ReadWrite {
 		boolean dsrced=fname.endsWith(".dsrc");
 		boolean fqz=USE_FQZ && fname.endsWith(".fqz");
 		boolean alapy=USE_ALAPY && fname.endsWith(".ac");
+		boolean bam=fname.endsWith(".bam") && nativeBamOutput();
 		
 //		assert(false) : fname;
 		
@@ -380,6 +383,9 @@ public class ReadWrite {
 		if(gzipped){
 //			assert(!append);
 			return getGZipOutputStream(fname, append, allowSubprocess);
+		}else if(bam){
+			assert(!append) : "Append is not allowed for bam files.";
+			return getBamOutputStream(fname, append);
 		}else if(zipped){
 			assert(!append) : "Append is not allowed for zip archives.";
 			return getZipOutputStream(fname, buffered, allowSubprocess);
@@ -528,11 +534,13 @@ public class ReadWrite {
 //		assert(false) : ReadWrite.ZIPLEVEL+", "+Shared.threads()+", "+MAX_ZIP_THREADS+", "+ZIP_THREAD_MULT+", "+allowSubprocess+", "+USE_PIGZ+", "+Data.PIGZ();
 		
 		if(USE_BGZIP && Data.BGZIP()){return getBgzipStream(fname, append);}
+		if(PREFER_JAVA_BGZF && USE_JAVA_BGZF && !RAWMODE && Shared.threads()>=2){return getJavaBgzfStream(fname, append);}
 		
 		if(FORCE_PIGZ || (allowSubprocess && Shared.threads()>=2)){
 			if(USE_PIGZ && Data.PIGZ()/* && (Data.SH() /*|| fname.equals("stdout") || fname.startsWith("stdout."))*/){return getPigzStream(fname, append);}
 			if(USE_GZIP && Data.GZIP()/* && (Data.SH() /*|| fname.equals("stdout") || fname.startsWith("stdout."))*/){return getGzipStream(fname, append);}
 		}
+		if(USE_JAVA_BGZF && !RAWMODE && Shared.threads()>=2){return getJavaBgzfStream(fname, append);}
 		
 		final OutputStream raw=getRawOutputStream(fname, append, false);
 		if(RAWMODE){return raw;}
@@ -583,6 +591,26 @@ public class ReadWrite {
 		return out;
 	}
 	
+	/** Multithreaded in-process gzip, in BGZF format; no external binaries needed. */
+	public static OutputStream getJavaBgzfStream(String fname, boolean append){
+		if(verbose){System.err.println("getJavaBgzfStream("+fname+")");}
+		final OutputStream raw=getRawOutputStream(fname, append, false);
+		return new BgzfOutputStream(raw, Tools.min(ZIPLEVEL, 9), javaZipThreads());
+	}
+	
+	/** Converts sam text to BAM in-process; no samtools needed. */
+	public static OutputStream getBamOutputStream(String fname, boolean append){
+		if(verbose){System.err.println("getBamOutputStream("+fname+")");}
+		final OutputStream raw=getRawOutputStream(fname, append, false);
+		return new BamOutputStream(raw, Tools.min(ZIPLEVEL, 9), javaZipThreads());
+	}
+	
+	/** Thread count for the in-process BGZF codec, following the pigz thread settings. */
+	public static int javaZipThreads(){
+		int threads=Tools.min(MAX_ZIP_THREADS, Tools.max((int)((Shared.threads()+1)*ZIP_THREAD_MULT), 1));
+		return Tools.max(1, Tools.min(Shared.threads(), threads));
+	}
+	
 	public static OutputStream getFqzStream(String fname){
 		if(verbose){System.err.println("getFqzStream("+fname+")");}
 		String command="fqz_comp -s"+Tools.mid(1, ZIPLEVEL, 8)+"+"; //9 gives bad compression
@@ -823,7 +851,8 @@ public class ReadWrite {
 		boolean zipped=fname.endsWith(".zip");
 		boolean bzipped=PROCESS_BZ2 && fname.endsWith(".bz2");
 		boolean dsrced=fname.endsWith(".dsrc");
-		boolean bam=fname.endsWith(".bam") && (SAMBAMBA() || Data.SAMTOOLS());
+		boolean nativeBam=fname.endsWith(".bam") && nativeBamInput();
+		boolean bam=fname.endsWith(".bam") && !nativeBam && (SAMBAMBA() || Data.SAMTOOLS());
 		boolean fqz=fname.endsWith(".fqz");
 		boolean alapy=fname.endsWith(".ac");
 		
@@ -834,6 +863,7 @@ public class ReadWrite {
 			if(gzipped){return getGZipInputStream(fname, allowSubprocess, false);}
 			if(bzipped){return getBZipInputStream(fname, allowSubprocess);}
 			if(dsrced){return getDsrcInputStream(fname);}
+			if(nativeBam){return getBamInputStream(fname);}
 			if(bam){
 				if(SAMBAMBA()){
 					String command="sambamba view -h";
@@ -884,6 +914,12 @@ public class ReadWrite {
 		return getRawInputStream(fname, buffer);
 	}
 	
+	/** Decodes BAM to sam text in-process, like "samtools view -h". */
+	public static InputStream getBamInputStream(String fname){
+		if(verbose){System.err.println("getBamInputStream("+fname+")");}
+		return new BamInputStream(getRawInputStream(fname, true), javaZipThreads(), SAMTOOLS_IGNORE_FLAG);
+	}
+	
 	public static InputStream getRawInputStream(String fname, boolean buffer){
 		if(verbose){System.err.println("getRawInputStream("+fname+", "+buffer+")");}
 		
@@ -1005,6 +1041,11 @@ public class ReadWrite {
 //		assert(!fname.contains("latest")) : fname+", "+TaxTree.TAX_PATH;
 //		assert(!ReadWrite.USE_UNPIGZ) : ReadWrite.USE_UNPIGZ;
 		
+		if(USE_JAVA_BGZF && Shared.threads()>=2 && isBgzfFile(fname)){
+			//Inflates in parallel, so it's faster than unpigz, which can only decompress with one thread
+			return new BgzfInputStream(getRawInputStream(fname, true), javaZipThreads());
+		}
+		
 		if(allowSubprocess && Shared.threads()>2){
 			if(!fname.startsWith("jar:")){
 				if(verbose){System.err.println("Fetching gzip input stream: "+fname+", "+allowSubprocess+", "+USE_UNPIGZ+", "+Data.PIGZ());}
@@ -1027,6 +1068,20 @@ public class ReadWrite {
 		return in;
 	}
 	
+	/** True if fname is a regular file starting with a BGZF block. */
+	private static boolean isBgzfFile(String fname){
+		if(fname==null || fname.startsWith("jar:") || !new File(fname).isFile()){return false;}
+		boolean b=false;
+		try {
+			BufferedInputStream bis=new BufferedInputStream(new FileInputStream(fname), 64);
+			b=BgzfInputStream.isBgzf(bis);
+			bis.close();
+		} catch (IOException e) {
+			if(verbose){e.printStackTrace();}
+		}
+		return b;
+	}
+	
 	public static InputStream getGunzipStream(String fname){
 		if(verbose){System.err.println("getGunzipStream("+fname+")");}
 		return getInputStreamFromProcess(fname, "gzip -c -d", false, true, true);
@@ -1784,6 +1839,10 @@ public class ReadWrite {
 
 	public static boolean USE_GZIP=false;
 	public static boolean USE_BGZIP=false;
+	/** Use the in-process BGZF codec instead of single-threaded java.util.zip, and to read BGZF files */
+	public static boolean USE_JAVA_BGZF=true;
+	/** Use the in-process BGZF codec for writing even when pigz is available */
+	public static boolean PREFER_JAVA_BGZF=false;
 	public static boolean USE_PIGZ=false;
 	public static boolean USE_GUNZIP=false;
 	public static boolean USE_UNPIGZ=false;
@@ -1795,6 +1854,21 @@ public class ReadWrite {
 	public static boolean USE_ALAPY=true;
 	public static boolean USE_SAMBAMBA=true;
 	public static boolean SAMBAMBA(){return USE_SAMBAMBA && Data.SAMBAMBA();}
+	/** 
+	 * Read BAM in-process when samtools and sambamba are unavailable,
+	 * and write it in-process when samtools is unavailable, since output never uses sambamba
+	 */
+	public static boolean USE_NATIVE_BAM=true;
+	/** Read and write BAM in-process even when samtools or sambamba are available */
+	public static boolean PREFER_NATIVE_BAM=false;
+	/** True if BAM input should be decoded in-process rather than by a subprocess. */
+	public static boolean nativeBamInput(){
+		return PREFER_NATIVE_BAM || (USE_NATIVE_BAM && !SAMBAMBA() && !Data.SAMTOOLS());
+	}
+	/** True if BAM output should be encoded in-process; the stream writers otherwise pipe to samtools. */
+	public static boolean nativeBamOutput(){
+		return PREFER_NATIVE_BAM || (USE_NATIVE_BAM && !Data.SAMTOOLS());
+	}
 
 //	public static boolean SAMTOOLS_IGNORE_UNMAPPED_INPUT=false;
 	public static int SAMTOOLS_IGNORE_FLAG=0;
@@ -51,7 +51,7 @@ public class TextStreamWriter extends Thread {
 		assert(ff.canWrite()) : "File "+fname+" exists and overwrite=="+overwrite;
 		if(append && !(ff.raw() || ff.gzip())){throw new RuntimeException("Can't append to compressed files.");}
 		
-		if(!BAM || !Data.SAMTOOLS() || !Data.SH()){
+		if(!BAM || ReadWrite.PREFER_NATIVE_BAM || !Data.SAMTOOLS() || !Data.SH()){
 			myOutstream=ReadWrite.getOutputStream(fname, append, true, allowSubprocess);
 			if(verbose){System.err.println("Created output stream for "+fname+", "+append+", "+true+", "+allowSubprocess);}
 		}else{
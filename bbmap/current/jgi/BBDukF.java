@@ -13,6 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLongArray;
 
 import kmer.AbstractKmerTable;
+import kmer.FrozenKmerTable;
 import shared.ReadStats;
 import shared.Shared;
 import shared.Timer;
@@ -24,6 +25,7 @@ import stream.FastaReadInputStream;
 import stream.ConcurrentReadOutputStream;
 import stream.KillSwitch;
 import stream.Read;
+import stream.ReadPool;
 import stream.SamLine;
 import structures.IntList;
 import structures.ListNum;
@@ -87,6 +89,19 @@ public class BBDukF {
 	 * @param args Command line arguments
 	 */
 	public BBDukF(String[] args){
+		this(args, null, null);
+	}
+	
+	/**
+	 * Constructor for use inside a pipeline.
+	 * Reads come from pipeIn instead of in1/in2, and retained reads go to pipeOut instead of out1/out2.
+	 * @param args Command line arguments
+	 * @param pipeIn Optional in-memory input stream
+	 * @param pipeOut Optional in-memory output stream
+	 */
+	public BBDukF(String[] args, ConcurrentReadInputStream pipeIn_, ConcurrentReadOutputStream pipeOut_){
+		pipeIn=pipeIn_;
+		pipeOut=pipeOut_;
 		for(String s : args){if(s.contains("standardout") || s.contains("stdout")){outstream=System.err;}}
 		System.err.println("Executing "+getClass().getName()+" "+Arrays.toString(args)+"\n");
 		System.err.println("BBDuk version "+Shared.BBMAP_VERSION_STRING);
@@ -109,7 +124,7 @@ public class BBDukF {
 		boolean addTrimmedToBad_=true;
 		boolean rcomp_=true;
 		boolean forbidNs_=false;
-		boolean useForest_=false, useTable_=false, useArray_=true, prealloc_=false;
+		boolean useForest_=false, useTable_=false, useArray_=true, useOffHeap_=false, prealloc_=false;
 		int k_=27, kbig_=-1;
 		int mink_=-1;
 		int ways_=-1; //Currently disabled
@@ -223,6 +238,16 @@ public class BBDukF {
 				outrqc=b;
 			}else if(a.equals("ref")){
 				ref=(b==null) ? null : (new File(b).exists() ? new String[] {b} : b.split(","));
+			}else if(a.equals("refcache") || a.equals("kmercache")){
+				refCacheDir=b;
+			}else if(a.equals("freeze") || a.equals("freezetables")){
+				if(b==null || b.length()<1 || Character.isLetter(b.charAt(0))){
+					freezeTables=Tools.parseBoolean(b);
+				}else{
+					FrozenKmerTable.LOAD_FACTOR=Float.parseFloat(b);
+					freezeTables=(FrozenKmerTable.LOAD_FACTOR>0);
+					assert(FrozenKmerTable.LOAD_FACTOR<=1) : "freeze load factor must be at most 1: "+b;
+				}
 			}else if(a.equals("literal")){
 				literal=(b==null) ? null : b.split(",");
 //				assert(false) : b+", "+Arrays.toString(literal);
@@ -235,6 +260,9 @@ public class BBDukF {
 			}else if(a.equals("array")){
 				useArray_=Tools.parseBoolean(b);
 				if(useArray_){useTable_=useForest_=false;}
+			}else if(a.equals("offheap")){
+				useOffHeap_=Tools.parseBoolean(b);
+				if(useOffHeap_){useTable_=useForest_=false;}
 			}else if(a.equals("ways")){
 				ways_=Integer.parseInt(b);
 			}else if(a.equals("ordered") || a.equals("ord")){
@@ -524,6 +552,7 @@ public class BBDukF {
 		useForest=useForest_;
 		useTable=useTable_;
 		useArray=useArray_;
+		useOffHeap=useOffHeap_;
 		hammingDistance=Tools.max(editDistance, hammingDistance);
 		hammingDistance2=Tools.max(editDistance2, hammingDistance2);
 		minSkip=Tools.max(1, Tools.min(minSkip, maxSkip));
@@ -674,10 +703,12 @@ public class BBDukF {
 		
 		assert(FastaReadInputStream.settingsOK());
 		
-		if(in1==null){
+		if(in1==null && pipeIn==null){
 			printOptions();
 			throw new RuntimeException("Error - at least one input file is required.");
 		}
+		assert(pipeIn==null || in1==null) : "Input may come from a file or a pipe, but not both.";
+		assert(pipeOut==null || out1==null) : "Output may go to a file or a pipe, but not both.";
 		
 		if(in1!=null && in1.contains("#") && !new File(in1).exists()){
 			int pound=in1.lastIndexOf('#');
@@ -729,7 +760,7 @@ public class BBDukF {
 			FASTQ.FORCE_INTERLEAVED=FASTQ.TEST_INTERLEAVED=true;
 		}
 
-		if(!setOut){
+		if(!setOut && pipeOut==null){
 			System.err.println("No output stream specified.  To write to stdout, please specify 'out=stdout.fq' or similar.");
 //			out1="stdout";
 //			outstream=System.err;
@@ -780,8 +811,24 @@ public class BBDukF {
 		}
 		
 		//Initialize tables
-		final int tableType=(useForest ? AbstractKmerTable.FOREST1D : useTable ? AbstractKmerTable.TABLE : useArray ? AbstractKmerTable.ARRAY1D : 0);
-		keySets=AbstractKmerTable.preallocate(WAYS, tableType, initialSize, (!prealloc_ || preallocFraction<1));
+		final int tableType=(useForest ? AbstractKmerTable.FOREST1D : useTable ? AbstractKmerTable.TABLE : 
+			useOffHeap ? AbstractKmerTable.ARRAYOH : useArray ? AbstractKmerTable.ARRAY1D : 0);
+		if(refCacheDir!=null && (ref!=null || literal!=null) && tableType==AbstractKmerTable.ARRAY1D){
+			refCache=new RefKmerCache(refCacheDir, ref==null ? null : Arrays.asList(ref), literal, cacheSettings());
+			if(!refCache.valid){outstream.println("Warning: Reference kmers can't be cached for stdin.");}
+		}else{
+			if(refCacheDir!=null && tableType!=AbstractKmerTable.ARRAY1D){
+				outstream.println("Warning: refcache requires the default array table type; ignoring.");
+			}
+			refCache=null;
+		}
+		//Checked once, since the tables are only preallocated when the cache will not be used
+		refCached=(refCache!=null && refCache.exists());
+		if(refCached){
+			keySets=new AbstractKmerTable[WAYS];//Filled from the cache in process2
+		}else{
+			keySets=AbstractKmerTable.preallocate(WAYS, tableType, initialSize, (!prealloc_ || preallocFraction<1));
+		}
 		
 		//Initialize entropy
 		calcEntropy=(entropyCutoff>0);
@@ -899,7 +946,8 @@ public class BBDukF {
 			FastaReadInputStream.SPLIT_READS=false;
 			FastaReadInputStream.MIN_READ_LEN=1;
 			
-			storedKmers=spawnLoadThreads();
+			storedKmers=(refCache==null ? spawnLoadThreads() : loadCachedRef());
+			if(freezeTables){freeze();}
 			
 			FASTQ.TEST_INTERLEAVED=oldTI;
 			FASTQ.FORCE_INTERLEAVED=oldFI;
@@ -1229,7 +1277,8 @@ public class BBDukF {
 		return sb.toString();
 	}
 	
-	private void addToRqcMap(){
+	/** Records this run's stats in RQC_MAP.  Pipelines call this after their stages finish, in stage order. */
+	public void addToRqcMap(){
 		putRqc("inputReads", readsIn, false);
 		putRqc("inputBases", basesIn, false);
 		if(qtrimLeft || qtrimRight){
@@ -1341,6 +1390,46 @@ public class BBDukF {
 	/*--------------------------------------------------------------*/
 	
 
+	/**
+	 * Loads reference kmers from the cache if it was present at construction; otherwise fills the tables and saves them.
+	 * @return Number of kmers stored.
+	 */
+	private long loadCachedRef(){
+		if(refCached){
+			final long[] stats=refCache.load(keySets, k, rcomp, -1L, THREADS, scaffoldNames, refScafCounts, scaffoldLengths);
+			refKmers=stats[1];
+			refBases=stats[2];
+			refReads=stats[3];
+			scaffoldReadCounts=new AtomicLongArray(scaffoldNames.size());
+			scaffoldBaseCounts=new AtomicLongArray(scaffoldNames.size());
+			return stats[0];
+		}
+		final long added=spawnLoadThreads();
+		refCache.save(keySets, k, rcomp, scaffoldNames, refScafCounts, added, refKmers, refBases, refReads, scaffoldLengths);
+		return added;
+	}
+	
+	/** Replaces the loaded tables with compact read-only copies for the query phase. */
+	private void freeze(){
+		Timer t=new Timer();
+		final int frozen=FrozenKmerTable.freeze(keySets, THREADS);
+		t.stop();
+		if(DISPLAY_PROGRESS && frozen>0){
+			long bytes=0;
+			for(AbstractKmerTable set : keySets){
+				if(set instanceof FrozenKmerTable){bytes+=((FrozenKmerTable)set).bytesUsed();}
+			}
+			outstream.println("Froze "+frozen+" tables ("+(bytes>>20)+" MB); time: \t"+t);
+		}
+	}
+	
+	/** Every setting that changes which reference kmers are stored, or their values. */
+	private String cacheSettings(){
+		return "bbduk,k="+k+",mink="+mink+",hdist="+hammingDistance+",hdist2="+hammingDistance2+",edist="+editDistance+
+				",edist2="+editDistance2+",rcomp="+rcomp+",maskmiddle="+maskMiddle+",middlemask="+middleMask+",shortkmers="+useShortKmers+
+				",minskip="+minSkip+",maxskip="+maxSkip+",speed="+speed+",ways="+WAYS+",replicate="+REPLICATE_AMBIGUOUS;
+	}
+	
 	/**
 	 * Fills tables with kmers from references, using multiple LoadThread.
 	 * @return Number of kmers stored.
@@ -1525,7 +1614,13 @@ public class BBDukF {
 		/* Create read input stream */
 		final ConcurrentReadInputStream cris;
 		final boolean paired;
-		{
+		if(pipeIn!=null){
+			cris=pipeIn;
+			cris.setSampleRate(samplerate, sampleseed);
+			if(!cris.started()){cris.start();}
+			paired=cris.paired();
+			outstream.println("Input is being processed as "+(paired ? "paired" : "unpaired"));
+		}else{
 			FileFormat ff1=FileFormat.testInput(in1, FileFormat.FASTQ, null, true, true);
 			FileFormat ff2=FileFormat.testInput(in2, FileFormat.FASTQ, null, true, true);
 			cris=ConcurrentReadInputStream.getReadInputStream(maxReads, ff1.samOrBam(), ff1, ff2, qfin1, qfin2);
@@ -1537,7 +1632,10 @@ public class BBDukF {
 		
 		/* Create read output streams */
 		final ConcurrentReadOutputStream ros, rosb, ross;
-		if(out1!=null){
+		if(pipeOut!=null){
+			ros=pipeOut;
+			ros.start();
+		}else if(out1!=null){
 			final int buff=(!ORDERED ? 12 : Tools.max(32, 2*Shared.threads()));
 			FileFormat ff1=FileFormat.testOutput(out1, FileFormat.FASTQ, null, true, overwrite, append, ORDERED);
 			FileFormat ff2=FileFormat.testOutput(out2, FileFormat.FASTQ, null, true, overwrite, append, ORDERED);
@@ -2457,10 +2555,12 @@ public class BBDukF {
 						if(!r1.discarded() && (r2==null || r2.discarded())){
 							Read clone=r1.clone();
 							clone.mate=null;
+							if(ReadPool.RECYCLE){ReadPool.detach(clone);}
 							single.add(clone);
 						}else if(r2!=null && r1.discarded() && !r2.discarded()){
 							Read clone=r2.clone();
 							clone.mate=null;
+							if(ReadPool.RECYCLE){ReadPool.detach(clone);}
 							single.add(clone);
 						}
 					}
@@ -2525,27 +2625,118 @@ public class BBDukF {
 		private final int getValue(final long kmer, final long rkmer, final long lengthMask, final int qPos, final int len, final int qHDist, final AbstractKmerTable[] sets){
 			assert(lengthMask==0 || (kmer<lengthMask && rkmer<lengthMask)) : lengthMask+", "+kmer+", "+rkmer;
 			int id=getValue(kmer, rkmer, lengthMask, qPos, sets);
-			if(id<1 && qHDist>0){
+			if(id<1 && qHDist>0){id=getNeighborValue(kmer, lengthMask, qPos, len, qHDist, sets);}
+			return id;
+		}
+		
+		/**
+		 * Searches for kmers within qHDist substitutions of this one, in the same order as a
+		 * substitution-by-substitution search.  The last level is looked up as one batch.
+		 * @return Value of the first match, or -1
+		 */
+		private final int getNeighborValue(final long kmer, final long lengthMask, final int qPos, final int len, final int qHDist, final AbstractKmerTable[] sets){
+			if(qSkip>1 && (qPos%qSkip!=0)){return -1;}
+			if(qHDist>1){
 				final int qHDist2=qHDist-1;
-				
-				//Sub
+				int id=-1;
 				for(int j=0; j<4 && id<1; j++){
 					for(int i=0; i<len && id<1; i++){
 						final long temp=(kmer&clearMasks[i])|setMasks[j][i];
-//						System.err.println(i+", "+j+", "+setMasks[j][i]+", "+qHDist);
 						if(temp!=kmer){
 							long rtemp=AminoAcid.reverseComplementBinaryFast(temp, len);
-//							assert(lengthMask==0 || (temp<lengthMask && rtemp<lengthMask)) : lengthMask+", "+temp+", "+rtemp+", "+kmer+", "+rkmer+
-//							"\n"+len+", "+Long.numberOfTrailingZeros(lengthMask)+"\n"+
-//									Long.toBinaryString(lengthMask|0x8000000000000000L)+"\n"+
-//											Long.toBinaryString(temp|0x8000000000000000L)+"\n"+
-//													Long.toBinaryString(rtemp|0x8000000000000000L);
 							id=getValue(temp, rtemp, lengthMask, qPos, len, qHDist2, sets);
 						}
 					}
 				}
+				return id;
+			}
+			
+			int count=0;
+			for(int j=0; j<4; j++){
+				for(int i=0; i<len; i++){
+					final long temp=(kmer&clearMasks[i])|setMasks[j][i];
+					if(temp!=kmer){
+						final long rtemp=AminoAcid.reverseComplementBinaryFast(temp, len);
+						final long key=toKey(temp, rtemp, lengthMask);
+						if(noAccel || ((key/WAYS)&15)>=speed){
+							neighborKeys[count]=key;
+							count++;
+						}
+					}
+				}
 			}
-			return id;
+			AbstractKmerTable.getValues(sets, neighborKeys, neighborCells, neighborValues, count);
+			for(int i=0; i<count; i++){
+				if(neighborValues[i]>0){return neighborValues[i];}
+			}
+			return -1;
+		}
+		
+		/**
+		 * Looks up every full-length kmer in bases[start, stop) in one batch, so the table
+		 * probes are issued back to back instead of between scanning steps.
+		 * Only exact matches are looked up; misses are retried within qHammingDistance
+		 * by kmerValue, when the scan reaches them, so callers can still exit early.
+		 * @return Array in which element i is the exact value of the kmer ending at i, or -1.
+		 */
+		private final int[] lookupKmers(final byte[] bases, final int start, final int stop, final AbstractKmerTable[] sets){
+			if(kmerIds.length<bases.length){
+				final int len2=bases.length+16;
+				kmerIds=new int[len2];
+				batchKeys=new long[len2];
+				batchCells=new int[len2];
+				batchValues=new int[len2];
+				batchPos=new int[len2];
+			}
+			final int[] ids=kmerIds;
+			final int minlen=k-1;
+			final int minlen2=(maskMiddle ? k/2 : k);
+			final int shift=2*k;
+			final int shift2=shift-2;
+			final long mask=~((-1L)<<shift);
+			final long kmask=lengthMasks[k];
+			long kmer=0;
+			long rkmer=0;
+			int len=0;
+			int keys=0;
+			
+			for(int i=start; i<stop; i++){
+				byte b=bases[i];
+				long x=Dedupe.baseToNumber[b];
+				long x2=Dedupe.baseToComplementNumber[b];
+				kmer=((kmer<<2)|x)&mask;
+				rkmer=(rkmer>>>2)|(x2<<shift2);
+				if(b=='N' && forbidNs){len=0;}else{len++;}
+				ids[i]=-1;
+				if(len>=minlen2 && i>=minlen && (qSkip<2 || i%qSkip==0)){
+					final long key=toKey(kmer, rkmer, kmask);
+					if(noAccel || ((key/WAYS)&15)>=speed){
+						batchKeys[keys]=key;
+						batchPos[keys]=i;
+						keys++;
+					}
+				}
+			}
+			
+			AbstractKmerTable.getValues(sets, batchKeys, batchCells, batchValues, keys);
+			for(int c=0; c<keys; c++){ids[batchPos[c]]=batchValues[c];}
+			return ids;
+		}
+		
+		/**
+		 * Value of the kmer ending at i, from the exact matches found by lookupKmers.
+		 * On a miss, searches within qHammingDistance now rather than in the batch.
+		 */
+		private final int kmerValue(final int[] ids, final int i, final long kmer, final long kmask, final AbstractKmerTable[] sets){
+			final int id=ids[i];
+			if(id>0 || qHammingDistance<1){return id;}
+			return getNeighborValue(kmer, kmask, i, k, qHammingDistance, sets);
+		}
+		
+		/** Canonical value stored in the table for this kmer. */
+		private final long toKey(final long kmer, final long rkmer, final long lengthMask){
+			final long max=(rcomp ? Tools.max(kmer, rkmer) : kmer);
+			return (max&middleMask)|lengthMask;
 		}
 		
 		/**
@@ -2561,8 +2752,7 @@ public class BBDukF {
 			assert(lengthMask==0 || (kmer<lengthMask && rkmer<lengthMask)) : lengthMask+", "+kmer+", "+rkmer;
 			if(qSkip>1 && (qPos%qSkip!=0)){return -1;}
 			
-			final long max=(rcomp ? Tools.max(kmer, rkmer) : kmer);
-			final long key=(max&middleMask)|lengthMask;
+			final long key=toKey(kmer, rkmer, lengthMask);
 			if(noAccel || ((key/WAYS)&15)>=speed){
 				if(verbose){System.err.println("Testing key "+key);}
 				AbstractKmerTable set=sets[(int)(key%WAYS)];
@@ -2596,6 +2786,7 @@ public class BBDukF {
 			
 			final int start=(restrictRight<1 ? 0 : Tools.max(0, bases.length-restrictRight));
 			final int stop=(restrictLeft<1 ? bases.length : Tools.min(bases.length, restrictLeft));
+			final int[] ids=lookupKmers(bases, start, stop, sets);
 			
 			/* Loop through the bases, maintaining a forward and reverse kmer via bitshifts */
 			for(int i=start; i<stop; i++){
@@ -2607,7 +2798,7 @@ public class BBDukF {
 				if(b=='N' && forbidNs){len=0;}else{len++;}
 				if(verbose){System.err.println("Scanning6 i="+i+", kmer="+kmer+", rkmer="+rkmer+", bases="+new String(bases, Tools.max(0, i-k2), Tools.min(i+1, k)));}
 				if(len>=minlen2 && i>=minlen){
-					final int id=getValue(kmer, rkmer, kmask, i, k, qHammingDistance, sets);
+					final int id=kmerValue(ids, i, kmer, kmask, sets);
 					if(verbose){System.err.println("Testing kmer "+kmer+"; id="+id);}
 					if(id>0){
 						if(verbose){System.err.println("Found = "+(found+1)+"/"+maxBadKmers);}
@@ -2658,6 +2849,7 @@ public class BBDukF {
 			
 			final int start=(restrictRight<1 ? 0 : Tools.max(0, bases.length-restrictRight));
 			final int stop=(restrictLeft<1 ? bases.length : Tools.min(bases.length, restrictLeft));
+			final int[] ids=lookupKmers(bases, start, stop, sets);
 			
 			/* Loop through the bases, maintaining a forward and reverse kmer via bitshifts */
 			for(int i=start; i<stop; i++){
@@ -2669,7 +2861,7 @@ public class BBDukF {
 				if(b=='N' && forbidNs){len=0;}else{len++;}
 				if(verbose){System.err.println("Scanning6 i="+i+", kmer="+kmer+", rkmer="+rkmer+", bases="+new String(bases, Tools.max(0, i-k2), Tools.min(i+1, k)));}
 				if(len>=minlen2 && i>=minlen){
-					final int id=getValue(kmer, rkmer, kmask, i, k, qHammingDistance, sets);
+					final int id=kmerValue(ids, i, kmer, kmask, sets);
 					if(verbose){System.err.println("Testing kmer "+kmer+"; id="+id);}
 					if(id>0){
 						
@@ -2724,6 +2916,7 @@ public class BBDukF {
 			
 			final int start=(restrictRight<1 ? 0 : Tools.max(0, bases.length-restrictRight));
 			final int stop=(restrictLeft<1 ? bases.length : Tools.min(bases.length, restrictLeft));
+			final int[] ids=lookupKmers(bases, start, stop, sets);
 			
 			/* Loop through the bases, maintaining a forward and reverse kmer via bitshifts */
 			for(int i=start; i<stop; i++){
@@ -2735,7 +2928,7 @@ public class BBDukF {
 				if(b=='N' && forbidNs){len=0;}else{len++;}
 				if(verbose){System.err.println("Scanning6 i="+i+", kmer="+kmer+", rkmer="+rkmer+", bases="+new String(bases, Tools.max(0, i-k2), Tools.min(i+1, k)));}
 				if(len>=minlen2 && i>=minlen){
-					final int id=getValue(kmer, rkmer, kmask, i, k, qHammingDistance, sets);
+					final int id=kmerValue(ids, i, kmer, kmask, sets);
 					if(id>0){
 						countArray[id]++;
 						if(countArray[id]==1){idList.add(id);}
@@ -2804,6 +2997,7 @@ public class BBDukF {
 			
 			final int start=(restrictRight<1 ? 0 : Tools.max(0, bases.length-restrictRight));
 			final int stop=(restrictLeft<1 ? bases.length : Tools.min(bases.length, restrictLeft));
+			final int[] ids=lookupKmers(bases, start, stop, sets);
 
 			/* Loop through the bases, maintaining a forward and reverse kmer via bitshifts */
 			for(int i=start; i<stop; i++){
@@ -2815,7 +3009,7 @@ public class BBDukF {
 				if(b=='N' && forbidNs){len=0;}else{len++;}
 				if(verbose){System.err.println("Scanning7 i="+i+", kmer="+kmer+", rkmer="+rkmer+", bases="+new String(bases, Tools.max(0, i-k2), Tools.min(i+1, k)));}
 				if(len>=minlen2 && i>=minlen){
-					id=getValue(kmer, rkmer, kmask, i, k, qHammingDistance, sets);
+					id=kmerValue(ids, i, kmer, kmask, sets);
 					if(verbose){System.err.println("Testing kmer "+kmer+"; id="+id);}
 					if(id>0){
 						lastId=id;
@@ -2899,6 +3093,7 @@ public class BBDukF {
 			
 			final int start=(restrictRight<1 ? 0 : Tools.max(0, bases.length-restrictRight));
 			final int stop=(restrictLeft<1 ? bases.length : Tools.min(bases.length, restrictLeft));
+			final int[] ids=lookupKmers(bases, start, stop, sets);
 			
 			//Scan for normal kmers
 			for(int i=start; i<stop; i++){
@@ -2910,7 +3105,7 @@ public class BBDukF {
 				if(b=='N' && forbidNs){len=0;}else{len++;}
 				if(verbose){System.err.println("Scanning3 i="+i+", kmer="+kmer+", rkmer="+rkmer+", len="+len+", bases="+new String(bases, Tools.max(0, i-k2), Tools.min(i+1, k)));}
 				if(len>=minlen2 && i>=minlen){
-					final int id=getValue(kmer, rkmer, kmask, i, k, qHammingDistance, sets);
+					final int id=kmerValue(ids, i, kmer, kmask, sets);
 					if(id>0){
 						if(id0<0){id0=id;}
 						minLoc=Tools.min(minLoc, i-k+1);
@@ -3069,6 +3264,7 @@ public class BBDukF {
 			
 			final int start=(restrictRight<1 ? 0 : Tools.max(0, bases.length-restrictRight));
 			final int stop=(restrictLeft<1 ? bases.length : Tools.min(bases.length, restrictLeft));
+			final int[] ids=lookupKmers(bases, start, stop, sets);
 			
 			//Scan for normal kmers
 			for(int i=start; i<stop; i++){
@@ -3083,7 +3279,7 @@ public class BBDukF {
 				if(i>=minlen){
 					final int id;
 					if(len>=minlen2){ 
-						id=getValue(kmer, rkmer, kmask, i, k, qHammingDistance, sets);
+						id=kmerValue(ids, i, kmer, kmask, sets);
 					}else{
 						id=-1;
 					}
@@ -3417,6 +3613,13 @@ public class BBDukF {
 		private final int[] overlapVector;
 		private final int[] countArray;
 		
+		/** Scratch space for batched kmer lookups, grown to the read length */
+		private int[] kmerIds=new int[0], batchCells=new int[0], batchValues=new int[0], batchPos=new int[0];
+		private long[] batchKeys=new long[0];
+		/** Scratch space for batched Hamming-distance lookups */
+		private final long[] neighborKeys=new long[4*32];
+		private final int[] neighborCells=new int[4*32], neighborValues=new int[4*32];
+		
 		private final IntList idList;
 		private final IntList countList;
 		
@@ -3527,9 +3730,21 @@ public class BBDukF {
 	private String[] ref=null;
 	/** Array of literal strings from which to load kmers */
 	private String[] literal=null;
+	/** Directory for cached reference kmer tables */
+	private String refCacheDir=null;
+	/** Cache entry for this reference and settings, or null */
+	private final RefKmerCache refCache;
+	/** True if the cache entry existed at construction, so the tables were left empty for it */
+	private final boolean refCached;
+	/** Convert the tables to FrozenKmerTables once the reference is loaded */
+	private boolean freezeTables=false;
 
 	/** Input reads */
 	private String in1=null, in2=null;
+	/** In-memory input, used in place of in1/in2 when running as a pipeline stage */
+	private final ConcurrentReadInputStream pipeIn;
+	/** In-memory output, used in place of out1/out2 when running as a pipeline stage */
+	private final ConcurrentReadOutputStream pipeOut;
 	/** Input qual files */
 	private String qfin1=null, qfin2=null;
 	/** Output qual files */
@@ -3691,6 +3906,8 @@ public class BBDukF {
 	private final boolean useTable;
 	/** Use HashArray data structure (default) */
 	private final boolean useArray;	
+	/** Use HashArrayOffHeap data structure, stored outside the Java heap */
+	private final boolean useOffHeap;
 	
 	/** Normal kmer length */
 	private final int k;
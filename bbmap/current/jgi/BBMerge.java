@@ -300,6 +300,20 @@ public class BBMerge {
 	}
 	
 	public BBMerge(String[] args){
+		this(args, null, null);
+	}
+	
+	/**
+	 * Constructor for use inside a pipeline.
+	 * Reads come from pipeIn instead of in1/in2, and mergable reads go to pipeOut instead of out1/out2.
+	 * Kmer-based modes that must read the input twice are not supported with pipeIn.
+	 * @param args Command line arguments
+	 * @param pipeIn_ Optional in-memory input stream
+	 * @param pipeOut_ Optional in-memory output stream
+	 */
+	public BBMerge(String[] args, ConcurrentReadInputStream pipeIn_, ConcurrentReadOutputStream pipeOut_){
+		pipeIn=pipeIn_;
+		pipeOut=pipeOut_;
 		
 		{//Preparse block for help, config files, and outstream
 			PreParser pp=new PreParser(args, getClass(), true);
@@ -387,6 +401,8 @@ public class BBMerge {
 						extra.add(s);
 					}
 				}
+			}else if(a.equals("swar") || a.equals("wordcompare")){
+				BBMergeOverlapper.USE_SWAR=Tools.parseBoolean(b);
 			}else if(a.equals("useratio") || a.equals("ratio") || a.equals("ratiomode")){
 				useRatioMode=Tools.parseBoolean(b);
 			}else if(a.equals("useflatmode") || a.equals("flatmode") || a.equals("usenormalmode") || a.equals("normalmode")){
@@ -774,6 +790,12 @@ public class BBMerge {
 			outb1=outb1.replaceFirst("#", "1");
 		}
 		
+		assert(pipeIn==null || in1==null) : "Input may come from a file or a pipe, but not both.";
+		assert(pipeOut==null || out1==null) : "Output may go to a file or a pipe, but not both.";
+		if(pipeIn!=null && (extendRight1>0 || extendRight2>0 || useKFilter || eccTadpole || forceExactKmerCounts || eccBloom || testMerge)){
+			throw new RuntimeException("Kmer-based operations need to read the input twice, so they can't be used with an in-memory input stream.");
+		}
+		
 		if(extendRight1>0 || extendRight2>0 || useKFilter || eccTadpole || forceExactKmerCounts){
 			
 			final long mem=Shared.memAvailable();
@@ -844,7 +866,9 @@ public class BBMerge {
 			throw new RuntimeException("\nSome file names were specified multiple times.\n");
 		}
 		
-		if(in2!=null){
+		if(pipeIn!=null){
+			//Pairing is carried by the reads themselves; leave the global flags for other pipeline stages
+		}else if(in2!=null){
 			assert(!in1.equalsIgnoreCase(in2));
 			FASTQ.TEST_INTERLEAVED=false;
 			FASTQ.FORCE_INTERLEAVED=false;
@@ -1088,7 +1112,10 @@ public class BBMerge {
 		ConcurrentReadOutputStream rosbad=null;
 		ConcurrentReadOutputStream rosinsert=null;
 		
-		if(out1!=null){
+		if(pipeOut!=null){
+			rosgood=pipeOut;
+			rosgood.start();
+		}else if(out1!=null){
 			if(join==true){
 				if(out2==null){outstream.println("Writing mergable reads merged.");}
 				else{
@@ -1139,7 +1166,10 @@ public class BBMerge {
 		}
 		
 		final ConcurrentReadInputStream cris;
-		{
+		if(pipeIn!=null){
+			cris=pipeIn;
+			if(!cris.started()){cris.start();}
+		}else{
 			FileFormat ff1=FileFormat.testInput(in1, FileFormat.FASTQ, null, true, true);
 			FileFormat ff2=FileFormat.testInput(in2, FileFormat.FASTQ, null, true, true);
 			cris=ConcurrentReadInputStream.getReadInputStream(maxReads, true, ff1, ff2);
@@ -2682,6 +2712,11 @@ public class BBMerge {
 	private String in1;
 	private String in2;
 	
+	/** In-memory input, used in place of in1/in2 when running as a pipeline stage */
+	private final ConcurrentReadInputStream pipeIn;
+	/** In-memory output, used in place of out1/out2 when running as a pipeline stage */
+	private final ConcurrentReadOutputStream pipeOut;
+	
 	private ArrayList<String> extra=new ArrayList<String>();
 
 	private String out1=null;
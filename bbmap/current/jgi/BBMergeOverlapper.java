@@ -289,8 +289,9 @@ public final class BBMergeOverlapper {
 		final int alen=abases.length, blen=bbases.length;
 		final int minLength=Tools.min(alen, blen);
 		
+		final OverlapWords ow=(USE_SWAR ? OverlapWords.load(abases, bbases, gIncr, bIncr) : null);
 		{
-			float x=findBestRatio(a, b, minOverlap0, minOverlap, minInsert, maxRatio, offset, gIncr, bIncr);
+			float x=findBestRatio(a, b, minOverlap0, minOverlap, minInsert, maxRatio, offset, gIncr, bIncr, ow);
 			if(verbose){
 				System.err.println(x+", "+maxRatio+", "+Arrays.toString(rvector));
 			}
@@ -336,17 +337,24 @@ public final class BBMergeOverlapper {
 			int badInt=0;
 
 			final int imax=istart+overlapLength;
-			for(int i=istart, j=jstart; i<imax && bad<=badlimit; i++, j++){
-				assert(i>=0 && i<alen && j>=0 && j<blen) : "\njstart="+jstart+", j="+j+
-				", istart="+istart+", i="+i+" \n"+"insert="+insert+", overlap="+overlapLength+", a.length="+a.length()+
-				", b.length="+b.length()+", bad="+bad+", badlimit="+badlimit+", good="+good;
-				final byte ca=abases[i], cb=bbases[j];
-				
-				if(ca==cb){
-					if(ca!=N){good+=gIncr;}
-				}else{
-					bad+=bIncr;
-					badInt++;
+			if(ow!=null){
+				final long counts=ow.count(istart, jstart, overlapLength, badlimit);
+				badInt=(int)counts;
+				good=ow.goodScore[(int)(counts>>>32)];
+				bad=ow.badScore[badInt];
+			}else{
+				for(int i=istart, j=jstart; i<imax && bad<=badlimit; i++, j++){
+					assert(i>=0 && i<alen && j>=0 && j<blen) : "\njstart="+jstart+", j="+j+
+					", istart="+istart+", i="+i+" \n"+"insert="+insert+", overlap="+overlapLength+", a.length="+a.length()+
+					", b.length="+b.length()+", bad="+bad+", badlimit="+badlimit+", good="+good;
+					final byte ca=abases[i], cb=bbases[j];
+
+					if(ca==cb){
+						if(ca!=N){good+=gIncr;}
+					}else{
+						bad+=bIncr;
+						badInt++;
+					}
 				}
 			}
 			
@@ -504,6 +512,14 @@ public final class BBMergeOverlapper {
 	
 	protected static final float findBestRatio(Read a, Read b,
 			final int minOverlap0, final int minOverlap, final int minInsert, final float maxRatio, final float offset, final float gIncr, final float bIncr) {
+		return findBestRatio(a, b, minOverlap0, minOverlap, minInsert, maxRatio, offset, gIncr, bIncr,
+				USE_SWAR ? OverlapWords.load(a.bases, b.bases, gIncr, bIncr) : null);
+	}
+	
+	/** @param ow Packed words for a and b, or null to use the scalar loop */
+	private static final float findBestRatio(Read a, Read b,
+			final int minOverlap0, final int minOverlap, final int minInsert, final float maxRatio, final float offset, final float gIncr, final float bIncr,
+			final OverlapWords ow) {
 		final byte[] abases=a.bases, bbases=b.bases;
 		final int alen=abases.length, blen=bbases.length;
 		
@@ -527,15 +543,21 @@ public final class BBMergeOverlapper {
 			float good=0, bad=0;
 			
 			final int imax=istart+overlapLength;
-			for(int i=istart, j=jstart; i<imax && bad<=badlimit; i++, j++){
-				assert(i>=0 && i<alen && j>=0 && j<blen) : "\njstart="+jstart+", j="+j+
-				", istart="+istart+", i="+i+" \n"+"insert="+insert+", overlap="+overlapLength+", a.length="+a.length()+
-				", b.length="+b.length()+", bad="+bad+", badlimit="+badlimit+", good="+good;
-				final byte ca=abases[i], cb=bbases[j];
-				
-				if(ca==cb){
-					if(ca!=N){good+=gIncr;}
-				}else{bad+=bIncr;}
+			if(ow!=null){
+				final long counts=ow.count(istart, jstart, overlapLength, badlimit);
+				good=ow.goodScore[(int)(counts>>>32)];
+				bad=ow.badScore[(int)counts];
+			}else{
+				for(int i=istart, j=jstart; i<imax && bad<=badlimit; i++, j++){
+					assert(i>=0 && i<alen && j>=0 && j<blen) : "\njstart="+jstart+", j="+j+
+					", istart="+istart+", i="+i+" \n"+"insert="+insert+", overlap="+overlapLength+", a.length="+a.length()+
+					", b.length="+b.length()+", bad="+bad+", badlimit="+badlimit+", good="+good;
+					final byte ca=abases[i], cb=bbases[j];
+
+					if(ca==cb){
+						if(ca!=N){good+=gIncr;}
+					}else{bad+=bIncr;}
+				}
 			}
 
 			if(bad<=badlimit){
@@ -950,6 +972,9 @@ public final class BBMergeOverlapper {
 	
 	private static ThreadLocal<short[]> localKmerCounts=new ThreadLocal<short[]>();
 	
+	/** Compare 8 bases per operation in the quality-free ratio overlap; results are identical */
+	protected static boolean USE_SWAR=true;
+	
 	private static final int BAD_MULT=6;
 	private static final int GOOD_MULT_1=8;
 	private static final int GOOD_MULT_2=400;
@@ -0,0 +1,553 @@
+package jgi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+import assemble.Tadpole;
+import bloom.KCountArray7MTA;
+import dna.AminoAcid;
+import fileIO.TextFile;
+import kmer.HashArray1D;
+import shared.Primes;
+import shared.Shared;
+import shared.Timer;
+import shared.Tools;
+import stream.ConcurrentPipeReadInputStream;
+import stream.ConcurrentPipeReadOutputStream;
+import stream.FASTQ;
+import stream.Read;
+
+/**
+ * Microbenchmarks for kmer-table, parsing and overlap hot paths, on synthetic data.
+ * Each benchmark is warmed up, then timed over several trials; the median time per operation is reported.
+ * Results can be saved with out= and later compared against with baseline=, to see whether a change helps or hurts.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BenchmarkSuite {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public static void main(String[] args){
+		Timer t=new Timer();
+		BenchmarkSuite x=new BenchmarkSuite(args);
+		x.process();
+		t.stop();
+		outstream.println("Total time: \t"+t);
+	}
+
+	public BenchmarkSuite(String[] args){
+		for(String arg : args){
+			String[] split=arg.split("=");
+			String a=split[0].toLowerCase();
+			String b=split.length>1 ? split[1] : null;
+
+			if(a.equals("bench") || a.equals("benchmarks")){
+				include=(b==null || b.equals("all") ? null : new ArrayList<String>(Arrays.asList(b.toLowerCase().split(","))));
+			}else if(a.equals("reads")){
+				numReads=(int)Tools.parseKMG(b);
+			}else if(a.equals("length") || a.equals("len")){
+				readLen=Integer.parseInt(b);
+			}else if(a.equals("genome") || a.equals("genomesize")){
+				genomeSize=(int)Tools.parseKMG(b);
+			}else if(a.equals("kmers")){
+				numKmers=(int)Tools.parseKMG(b);
+			}else if(a.equals("k")){
+				k=Integer.parseInt(b);
+			}else if(a.equals("warmup")){
+				warmup=Integer.parseInt(b);
+			}else if(a.equals("trials")){
+				trials=Integer.parseInt(b);
+			}else if(a.equals("seed")){
+				seed=Long.parseLong(b);
+			}else if(a.equals("out")){
+				out=b;
+			}else if(a.equals("baseline")){
+				baseline=b;
+			}else if(a.equals("tolerance")){
+				tolerance=Double.parseDouble(b);
+			}else if(a.equals("t") || a.equals("threads")){
+				Shared.setThreads(b);
+			}else{
+				throw new RuntimeException("Unknown parameter "+arg);
+			}
+		}
+		assert(k>0 && k<=31) : "k must be 1-31.";
+		assert(readLen>k+ADAPTER.length()) : "Reads are too short.";
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public void process(){
+		makeData();
+
+		ArrayList<Bench> list=new ArrayList<Bench>();
+		list.add(new HashIncrementBench());
+		list.add(new HashGetBench());
+		list.add(new KcaIncrementBench());
+		list.add(new KcaReadBench());
+		list.add(new FastqParseBench());
+		list.add(new OverlapBench());
+		list.add(new RcompBench());
+		list.add(new TadpoleEccBench());
+		list.add(new KtrimBench());
+
+		final HashMap<String, Double> base=(baseline==null ? null : loadBaseline(baseline));
+		final ArrayList<String> results=new ArrayList<String>();
+		for(Bench b : list){
+			if(include!=null && !include.contains(b.name)){continue;}
+			final double ns=run(b);
+			String line=String.format(Locale.ROOT, "%s\t%.3f", b.name, ns);
+			results.add(line);
+			if(base!=null && base.containsKey(b.name)){
+				final double old=base.get(b.name), ratio=ns/old;
+				final String verdict=(ratio>1+tolerance ? "SLOWER" : ratio<1-tolerance ? "FASTER" : "same");
+				line=String.format(Locale.ROOT, "%-16s %12.3f ns/op\tbaseline %12.3f\t%+6.1f%%\t%s", b.name, ns, old, 100*(ratio-1), verdict);
+			}else{
+				line=String.format(Locale.ROOT, "%-16s %12.3f ns/op", b.name, ns);
+			}
+			outstream.println(line);
+		}
+		outstream.println("Checksum: \t"+checksum);
+
+		if(out!=null){
+			try {
+				PrintStream ps=new PrintStream(new FileOutputStream(out));
+				ps.println("#benchmark\tns/op");
+				for(String s : results){ps.println(s);}
+				ps.close();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/** Runs warmup and timed trials.  Returns the median nanoseconds per operation. */
+	private double run(Bench b){
+		System.gc();
+		b.setup();
+		final double[] times=new double[trials];
+		for(int i=-warmup; i<trials; i++){
+			b.prepare();
+			final long start=System.nanoTime();
+			checksum+=b.run();
+			final long elapsed=System.nanoTime()-start;
+			if(i>=0){times[i]=elapsed/(double)b.ops();}
+		}
+		b.cleanup();
+		Arrays.sort(times);
+		return times[trials/2];
+	}
+
+	private static HashMap<String, Double> loadBaseline(String fname){
+		HashMap<String, Double> map=new HashMap<String, Double>();
+		TextFile tf=new TextFile(fname);
+		for(String line=tf.nextLine(); line!=null; line=tf.nextLine()){
+			if(line.startsWith("#") || line.length()<1){continue;}
+			String[] split=line.split("\t");
+			map.put(split[0], Double.parseDouble(split[1]));
+		}
+		tf.close();
+		return map;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Synthetic Data        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Makes a random genome, reads from it with substitution errors, and random kmers. */
+	private void makeData(){
+		final Random randy=new Random(seed);
+		genome=randomBases(genomeSize, randy);
+		reads=new ArrayList<Read>(numReads);
+		for(int i=0; i<numReads; i++){
+			final int start=randy.nextInt(genomeSize-readLen);
+			final byte[] bases=Arrays.copyOfRange(genome, start, start+readLen);
+			for(int j=0; j<bases.length; j++){
+				if(randy.nextFloat()<ERROR_RATE){bases[j]=AminoAcid.numberToBase[(AminoAcid.baseToNumber[bases[j]]+1+randy.nextInt(3))&3];}
+			}
+			final byte[] quals=new byte[readLen];
+			Arrays.fill(quals, (byte)30);
+			final Read r=new Read(bases, quals, "r"+i, i);
+			if(randy.nextBoolean()){r.reverseComplement();}
+			reads.add(r);
+		}
+
+		kmers=new long[numKmers];
+		final long mask=~((-1L)<<(2*k));
+		for(int i=0; i<kmers.length; i++){kmers[i]=randy.nextLong()&mask;}
+	}
+
+	private static byte[] randomBases(int len, Random randy){
+		final byte[] bases=new byte[len];
+		for(int i=0; i<len; i++){bases[i]=AminoAcid.numberToBase[randy.nextInt(4)];}
+		return bases;
+	}
+
+	/** Returns deep copies of the reads, since ktrim and ecc modify them. */
+	private ArrayList<Read> copyReads(){
+		ArrayList<Read> list=new ArrayList<Read>(reads.size());
+		for(Read r : reads){list.add(r.copy());}
+		return list;
+	}
+
+	private static File writeTemp(String prefix, String suffix, ArrayList<String> lines){
+		try {
+			File f=File.createTempFile(prefix, suffix, Shared.tmpdir()==null ? null : new File(Shared.tmpdir()));
+			f.deleteOnExit();
+			PrintStream ps=new PrintStream(new FileOutputStream(f));
+			for(String s : lines){ps.println(s);}
+			ps.close();
+			return f;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------          Benchmarks          ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private abstract class Bench {
+		Bench(String name_){name=name_;}
+		/** Called once before warmup. */
+		void setup(){}
+		/** Called before each trial; not timed. */
+		void prepare(){}
+		/** One timed trial.  Returns a checksum so the work can't be optimized away. */
+		abstract long run();
+		/** Operations per trial. */
+		abstract long ops();
+		void cleanup(){}
+		final String name;
+	}
+
+	/** HashArray1D.increment on a presized table, emptied before each trial so every trial inserts the same kmers. */
+	private class HashIncrementBench extends Bench {
+		HashIncrementBench(){super("hash_increment");}
+		@Override
+		void prepare(){
+			table=null;
+			table=new HashArray1D((int)Primes.primeAtLeast((long)(kmers.length*1.4)), -1L, false);
+		}
+		@Override
+		long run(){
+			long sum=0;
+			for(long kmer : kmers){sum+=table.increment(kmer, 1);}
+			return sum;
+		}
+		@Override
+		long ops(){return kmers.length;}
+		@Override
+		void cleanup(){table=null;}
+		HashArray1D table;
+	}
+
+	/** HashArray1D.getValue, half hits and half misses. */
+	private class HashGetBench extends Bench {
+		HashGetBench(){super("hash_getvalue");}
+		@Override
+		void setup(){
+			table=new HashArray1D((int)Primes.primeAtLeast((long)(kmers.length*1.4)), -1L, false);
+			for(int i=0; i<kmers.length; i+=2){table.increment(kmers[i], 1);}
+		}
+		@Override
+		long run(){
+			long sum=0;
+			for(long kmer : kmers){sum+=table.getValue(kmer);}
+			return sum;
+		}
+		@Override
+		long ops(){return kmers.length;}
+		@Override
+		void cleanup(){table=null;}
+		HashArray1D table;
+	}
+
+	/** KCountArray7MTA.increment, 2-bit cells and 2 hashes as in a prefilter. */
+	private class KcaIncrementBench extends Bench {
+		KcaIncrementBench(){super("kca_increment");}
+		@Override
+		void setup(){kca=new KCountArray7MTA(kmers.length*8L, 2, 0, 2, null, 0);}
+		@Override
+		long run(){
+			for(long kmer : kmers){kca.increment(kmer);}
+			return kca.read(kmers[0]);
+		}
+		@Override
+		long ops(){return kmers.length;}
+		@Override
+		void cleanup(){kca=null;}
+		KCountArray7MTA kca;
+	}
+
+	/** KCountArray7MTA.read, half present. */
+	private class KcaReadBench extends Bench {
+		KcaReadBench(){super("kca_read");}
+		@Override
+		void setup(){
+			kca=new KCountArray7MTA(kmers.length*8L, 2, 0, 2, null, 0);
+			for(int i=0; i<kmers.length; i+=2){kca.increment(kmers[i]);}
+		}
+		@Override
+		long run(){
+			long sum=0;
+			for(long kmer : kmers){sum+=kca.read(kmer);}
+			return sum;
+		}
+		@Override
+		long ops(){return kmers.length;}
+		@Override
+		void cleanup(){kca=null;}
+		KCountArray7MTA kca;
+	}
+
+	/** FASTQ.quadToRead_fast on in-memory fastq records. */
+	private class FastqParseBench extends Bench {
+		FastqParseBench(){super("fastq_parse");}
+		@Override
+		void setup(){
+			quads=new byte[reads.size()][][];
+			final byte[] plus=new byte[] {'+'};
+			for(int i=0; i<quads.length; i++){
+				final Read r=reads.get(i);
+				final byte[] quals=new byte[r.quality.length];
+				for(int j=0; j<quals.length; j++){quals[j]=(byte)(r.quality[j]+FASTQ.ASCII_OFFSET);}
+				quads[i]=new byte[][] {("@"+r.id).getBytes(), r.bases.clone(), plus, quals};
+			}
+		}
+		@Override
+		long run(){
+			long sum=0;
+			for(int i=0; i<quads.length; i++){
+				final byte[][] quad=quads[i];
+				//The parser may modify the arrays in place, so it gets copies
+				final byte[][] copy=new byte[][] {quad[0], quad[1].clone(), quad[2], quad[3].clone()};
+				sum+=FASTQ.quadToRead_fast(copy, null, i, 0).length();
+			}
+			return sum;
+		}
+		@Override
+		long ops(){return quads.length;}
+		@Override
+		void cleanup(){quads=null;}
+		byte[][][] quads;
+	}
+
+	/** BBMergeOverlapper.mateByOverlapRatioJava on pairs with a range of insert sizes. */
+	private class OverlapBench extends Bench {
+		OverlapBench(){super("bbmerge_overlap");}
+		@Override
+		void setup(){
+			final Random randy=new Random(seed+1);
+			pairs=new Read[Tools.min(reads.size(), 100000)*2];
+			for(int i=0; i<pairs.length; i+=2){
+				final int insert=readLen/2+randy.nextInt(readLen*2);
+				final int start=randy.nextInt(genomeSize-insert);
+				final byte[] frag=Arrays.copyOfRange(genome, start, start+insert);
+				final byte[] b1=Arrays.copyOf(frag, readLen), b2=new byte[readLen];
+				for(int j=0; j<readLen; j++){
+					final int pos=insert-readLen+j;
+					b2[j]=(pos>=0 ? frag[pos] : (byte)'N');
+					if(b1[j]=='\0'){b1[j]='N';}
+				}
+				final byte[] q=new byte[readLen];
+				Arrays.fill(q, (byte)30);
+				pairs[i]=new Read(b1, q, i);
+				pairs[i+1]=new Read(b2, q.clone(), i);
+			}
+		}
+		@Override
+		long run(){
+			long sum=0;
+			final int[] rvector=new int[5];
+			for(int i=0; i<pairs.length; i+=2){
+				sum+=BBMergeOverlapper.mateByOverlapRatioJava(pairs[i], pairs[i+1], rvector, 5, 8, 20, 35,
+						BBMerge.MAX_RATIO, BBMerge.MIN_SECOND_RATIO, BBMerge.RATIO_MARGIN, BBMerge.RATIO_OFFSET, 0.95f, 0.95f);
+			}
+			return sum;
+		}
+		@Override
+		long ops(){return pairs.length/2;}
+		@Override
+		void cleanup(){pairs=null;}
+		Read[] pairs;
+	}
+
+	/** Read.reverseComplement. */
+	private class RcompBench extends Bench {
+		RcompBench(){super("read_rcomp");}
+		@Override
+		long run(){
+			long sum=0;
+			for(Read r : reads){
+				r.reverseComplement();
+				sum+=r.bases[0];
+			}
+			return sum;
+		}
+		@Override
+		long ops(){return reads.size();}
+	}
+
+	/** Tadpole.errorCorrect, with kmers loaded from the reads themselves. */
+	private class TadpoleEccBench extends Bench {
+		TadpoleEccBench(){super("tadpole_ecc");}
+		@Override
+		void setup(){
+			ArrayList<String> lines=new ArrayList<String>(reads.size()*2);
+			for(Read r : reads){
+				lines.add(">"+r.id);
+				lines.add(new String(r.bases));
+			}
+			final File f=writeTemp("bench_ecc", ".fa", lines);
+			tad=Tadpole.makeTadpole(new String[] {"in="+f.getAbsolutePath(), "k="+k, "ecc", "prefilter=f"}, true);
+			tad.loadKmers(new Timer());
+		}
+		@Override
+		void prepare(){copies=copyReads();}
+		@Override
+		long run(){
+			long sum=0;
+			for(Read r : copies){sum+=tad.errorCorrect(r);}
+			return sum;
+		}
+		@Override
+		long ops(){return reads.size();}
+		@Override
+		void cleanup(){
+			tad.clearData();
+			tad=null;
+			copies=null;
+		}
+		Tadpole tad;
+		ArrayList<Read> copies;
+	}
+
+	/**
+	 * BBDukF right-trimming by adapter kmers, reading from an in-memory pipe; half the reads contain adapter.
+	 * Each trial gets a new instance and pipe.  The reference kmers go through a temporary refcache,
+	 * so after the first warmup trial they are read back from the cache instead of rehashed;
+	 * for this small reference that load is negligible next to processing the reads.
+	 */
+	private class KtrimBench extends Bench {
+		KtrimBench(){super("bbduk_ktrim");}
+		@Override
+		void setup(){
+			ArrayList<String> lines=new ArrayList<String>();
+			lines.add(">adapter");
+			lines.add(ADAPTER);
+			ref=writeTemp("bench_adapter", ".fa", lines);
+			try {
+				cacheDir=File.createTempFile("bench_refcache", "", Shared.tmpdir()==null ? null : new File(Shared.tmpdir()));
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			cacheDir.delete();
+			cacheDir.mkdirs();
+		}
+		@Override
+		void prepare(){
+			final ArrayList<Read> list=copyReads();
+			final byte[] adapter=ADAPTER.getBytes();
+			final Random randy=new Random(seed+2);
+			for(int i=0; i<list.size(); i+=2){
+				final byte[] bases=list.get(i).bases;
+				final int start=randy.nextInt(bases.length-adapter.length);
+				System.arraycopy(adapter, 0, bases, start, adapter.length);
+			}
+			lists=new ArrayList<ArrayList<Read>>();
+			for(int i=0; i<list.size(); i+=Shared.bufferLen()){
+				lists.add(new ArrayList<Read>(list.subList(i, Tools.min(list.size(), i+Shared.bufferLen()))));
+			}
+			pipe=ConcurrentPipeReadInputStream.makePipe(8, false);
+			duk=new BBDukF(new String[] {"ref="+ref.getAbsolutePath(), "ktrim=r", "k=23", "mink=11", "hdist=1",
+					"refcache="+cacheDir.getAbsolutePath()}, pipe, null);
+		}
+		@Override
+		long run(){
+			final ConcurrentPipeReadOutputStream source=pipe.source;
+			Thread producer=new Thread(){
+				@Override
+				public void run(){
+					source.start();
+					for(int i=0; i<lists.size(); i++){source.add(lists.get(i), i);}
+					source.close();
+				}
+			};
+			producer.start();
+			duk.process();
+			while(producer.getState()!=Thread.State.TERMINATED){
+				try {
+					producer.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			return duk.basesOut;
+		}
+		@Override
+		long ops(){return reads.size();}
+		@Override
+		void cleanup(){
+			duk=null;
+			lists=null;
+			final File[] files=cacheDir.listFiles();
+			if(files!=null){
+				for(File f : files){f.delete();}
+			}
+			cacheDir.delete();
+		}
+		File ref, cacheDir;
+		ConcurrentPipeReadInputStream pipe;
+		BBDukF duk;
+		ArrayList<ArrayList<Read>> lists;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Benchmarks to run; null means all */
+	private ArrayList<String> include=null;
+	private int numReads=200000;
+	private int readLen=150;
+	private int genomeSize=2000000;
+	private int numKmers=2000000;
+	private int k=31;
+	private int warmup=3;
+	private int trials=5;
+	private long seed=1;
+	private String out=null;
+	private String baseline=null;
+	/** Relative change in time considered significant when comparing to a baseline */
+	private double tolerance=0.05;
+
+	private byte[] genome;
+	private ArrayList<Read> reads;
+	private long[] kmers;
+	/** Sum of benchmark results; printed so it can't be eliminated */
+	private long checksum=0;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private static final float ERROR_RATE=0.005f;
+	/** Truseq adapter */
+	private static final String ADAPTER="AGATCGGAAGAGCACACGTCTGAACTCCAGTCAC";
+	private static PrintStream outstream=System.err;
+
+}
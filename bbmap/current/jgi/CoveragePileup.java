@@ -27,6 +27,8 @@ import shared.Tools;
 import stream.Read;
 import stream.SamLine;
 import stream.SamLineStreamer;
+import stream.SamLineView;
+import stream.SamViewStreamer;
 import stream.ScaffoldCoordinates;
 import stream.SiteScore;
 import structures.ByteBuilder;
@@ -109,6 +111,8 @@ public class CoveragePileup {
 				}else{
 					useStreamer=Tools.parseBoolean(b);
 				}
+			}else if(a.equals("lazy") || a.equals("views")){
+				useViews=Tools.parseBoolean(b);
 			}else if(a.equals("minq") || a.equals("minmapq")){
 				minMapq=Integer.parseInt(b);
 			}else if(a.equals("outsam")){
@@ -305,6 +309,8 @@ public class CoveragePileup {
 	public void clear(){
 		list=null;
 		table=null;
+		lastScaf=null;
+		lastScafName=null;
 		pairTable=null;
 		
 		program=null;
@@ -428,6 +434,10 @@ public class CoveragePileup {
 	}
 	
 	private void processViaStreamer(ByteStreamWriter tsw){
+		if(viewsAllowed()){
+			processViaViewStreamer(tsw);
+			return;
+		}
 		SamLineStreamer ss=new SamLineStreamer(in1, streamerThreads, false);
 		ss.start();
 		ByteBuilder bb=new ByteBuilder(33000);
@@ -451,6 +461,29 @@ public class CoveragePileup {
 		}
 	}
 	
+	private void processViaViewStreamer(ByteStreamWriter tsw){
+		SamViewStreamer ss=new SamViewStreamer(in1, streamerThreads, false, null);
+		ss.start();
+		ByteBuilder bb=new ByteBuilder(33000);
+		for(ListNum<SamLineView> ln=ss.nextViews(); ln!=null && ln.size()>0; ln=ss.nextViews()){
+			for(SamLineView sv : ln.list){
+				if(tsw!=null){
+					bb.append(sv.line());
+					bb.nl();
+					if(bb.length>=16384){
+						tsw.print(bb);
+						bb.clear();
+					}
+				}
+				processSamLine(sv);
+			}
+		}
+		if(tsw!=null){
+			if(bb.length>0){tsw.print(bb);}
+			tsw.poison();
+		}
+	}
+	
 	private void processViaByteFile(ByteFile tf, ByteStreamWriter tsw){
 		for(byte[] line=tf.nextLine(); line!=null && readsProcessed<maxReads; line=tf.nextLine()){
 			if(tsw!=null){tsw.println(line);}
@@ -893,6 +926,8 @@ public class CoveragePileup {
 					refBases+=scaf.length;
 				}
 			}
+		}else if(viewsAllowed()){
+			return processSamLine(view.set(line));
 		}else{
 			SamLine sl=new SamLine(line);
 			return processSamLine(sl);
@@ -900,6 +935,51 @@ public class CoveragePileup {
 		return false;
 	}
 	
+	/** True if lines can be processed as SamLineViews; they lack match strings and can't be paired. */
+	private boolean viewsAllowed(){
+		return useViews && !PHYSICAL_COVERAGE && (INCLUDE_DELETIONS || START_ONLY || STOP_ONLY);
+	}
+	
+	/**
+	 * Equivalent to processSamLine(SamLine) in non-physical mode with deletions counted,
+	 * but only decodes the fields it needs.
+	 */
+	public boolean processSamLine(SamLineView sv){
+		readsProcessed++;
+		basesProcessed+=sv.length();
+		if(sv.duplicate() && !INCLUDE_DUPLICATES){return false;}
+		int kmers=0;
+		double cKmers=0;
+		if(k>0){
+			final byte[] quals=sv.qual();
+			kmers=Tools.countKmers(sv.seq(), k);
+			cKmers=(quals==null ? kmers : Tools.countCorrectKmers(quals, k));
+		}
+		kmersProcessed+=kmers;
+		correctKmers+=cKmers;
+		if(sv.mapped() && (USE_SECONDARY || sv.primary()) && sv.mapq>=minMapq){
+			final int length=sv.length();
+			final int start=sv.start(INCLUDE_SOFT_CLIP, false);
+			final int stop=sv.stop(start, INCLUDE_SOFT_CLIP, false);
+			final byte[] seq=(COUNT_GC ? sv.seq() : null);
+			mappedKmers+=kmers;
+			
+			//Input is usually sorted, so the last scaffold usually matches without making a String
+			Scaffold scaf=lastScaf;
+			if(scaf==null || !sv.rnameEquals(lastScafName)){
+				final String name=sv.rnameS();
+				scaf=table.get(name);
+				if(scaf==null){
+					return addCoverage(name, seq, null, start, stop, length, sv.strand(), sv.hasMate() ? 1 : 2, sv.properPair(), null);
+				}
+				lastScaf=scaf;
+				lastScafName=name.getBytes();
+			}
+			return addCoverage(scaf, seq, null, start, stop, length, sv.strand(), sv.hasMate() ? 1 : 2, sv.properPair(), null);
+		}
+		return false;
+	}
+	
 	public boolean processSamLine(SamLine sl){
 		readsProcessed++;
 		basesProcessed+=sl.length();
@@ -1890,6 +1970,11 @@ public class CoveragePileup {
 	private ArrayList<Scaffold> list;
 	/** Maps names to scaffolds */
 	private HashMap<String, Scaffold> table;
+	/** Most recent scaffold found by name, for SamLineViews */
+	private Scaffold lastScaf;
+	private byte[] lastScafName;
+	/** Reused for lines from a ByteFile */
+	private final SamLineView view=new SamLineView();
 	/** Converts BBMap index coordinates to scaffold coordinates */
 	private final ScaffoldCoordinates coords=new ScaffoldCoordinates(), coords2=new ScaffoldCoordinates();
 	
@@ -1960,6 +2045,8 @@ public class CoveragePileup {
 	public boolean bits32=false;
 	public int minMapq=0;
 	public boolean useStreamer=true;
+	/** Process sam lines as SamLineViews when possible, instead of fully parsing them */
+	public boolean useViews=true;
 	public int streamerThreads=2;
 	
 	/** Don't print coverage info for scaffolds shorter than this */
@@ -7,7 +7,6 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Locale;
@@ -44,7 +43,9 @@ import stream.FastaReadInputStream;
 import stream.FastqReadInputStream;
 import stream.Read;
 import structures.ListNum;
+import structures.LongList;
 import structures.LongM;
+import structures.LongMultiMap;
 
 /**
  * @author Brian Bushnell
@@ -410,9 +411,9 @@ public final class Dedupe {
 //			"storeName="+storeName+", DISPLAY_PROGRESS="+DISPLAY_PROGRESS+", removeCycles="+removeCycles;
 		if(absorbContainment || findOverlaps){
 //			assert(false);
-			affixMaps=new HashMap[numAffixMaps];
+			affixMaps=new LongMultiMap[numAffixMaps];
 			for(int i=0; i<numAffixMaps; i++){
-				affixMaps[i]=new HashMap<LongM, ArrayList<Unit>>(4000000);
+				affixMaps[i]=new LongMultiMap<Unit>(4000000);
 			}
 			if(affixMaps.length>0){affixMap1=affixMaps[0];}
 			if(affixMaps.length>1){affixMap2=affixMaps[1];}
@@ -612,11 +613,11 @@ public final class Dedupe {
 	
 	private void processContainments(Timer t){
 		ArrayList<Read> list=new ArrayList<Read>((int)addedToMain);
-		for(ArrayList<Unit> alu : codeMap.values()){
-			for(Unit u : alu){
-				assert(u.r.mate==null) : "Containments are not currently supported with paired reads.";
-				if(u.valid() && u.r.pairnum()==0){list.add(u.r);}
-			}
+		for(int i=0, lim=codeMap.limit(); i<lim; i++){
+			final Unit u=codeMap.value(i);
+			if(u==null){continue;}
+			assert(u.r.mate==null) : "Containments are not currently supported with paired reads.";
+			if(u.valid() && u.r.pairnum()==0){list.add(u.r);}
 		}
 
 		//	if(minLengthPercent>0){
@@ -693,18 +694,18 @@ public final class Dedupe {
 	private void findOverlaps(Timer t){
 		
 		ArrayList<Read> list=new ArrayList<Read>((int)addedToMain);
-		for(ArrayList<Unit> alu : codeMap.values()){
-			for(Unit u : alu){
-				if(u.valid() && u.r.pairnum()==0){
-					u.unitID=list.size();
-					list.add(u.r);
-					if(u.r.mate!=null){
-						Unit u2=(Unit)u.r.mate.obj;
-						u2.unitID=u.unitID;
-					}
-				}else{
-					u.unitID=Integer.MAX_VALUE;
+		for(int i=0, lim=codeMap.limit(); i<lim; i++){
+			final Unit u=codeMap.value(i);
+			if(u==null){continue;}
+			if(u.valid() && u.r.pairnum()==0){
+				u.unitID=list.size();
+				list.add(u.r);
+				if(u.r.mate!=null){
+					Unit u2=(Unit)u.r.mate.obj;
+					u2.unitID=u.unitID;
 				}
+			}else{
+				u.unitID=Integer.MAX_VALUE;
 			}
 		}
 		
@@ -1262,7 +1263,6 @@ public final class Dedupe {
 	}
 	
 	private long removeInvalid(ArrayList<Read> list){
-		final LongM keym=new LongM();
 		long removedC=0, removedP=0, removedS=0, invalid=0;
 		
 		for(int j=0, lim=list.size(); j<lim; j++){
@@ -1274,90 +1274,22 @@ public final class Dedupe {
 				invalid++;
 				
 				if(codeMap!=null && !codeMap.isEmpty()){
-					Long key=u.code1;
-					ArrayList<Unit> alu=codeMap.get(key);
-					if(alu!=null){
-						int valid=0;
-						for(int i=alu.size()-1; i>=0; i--){
-							Unit u2=alu.get(i);
-							if(u2==null || !u2.valid()){
-								alu.remove(i);
-								removedC++;
-							}
-							else{valid++;}
-						}
-						if(valid==0){codeMap.remove(key);}
-					}
+					removedC+=removeInvalid(codeMap, u.code1);
 				}
 				
 				if(affixMap1!=null && !affixMap1.isEmpty()){
-					{
-						keym.set(u.prefix1);
-						ArrayList<Unit> alu=affixMap1.get(keym);
-						if(alu!=null){
-							int valid=0;
-							for(int i=alu.size()-1; i>=0; i--){
-								Unit u2=alu.get(i);
-								if(u2==null || !u2.valid()){
-									alu.remove(i);
-									removedP++;
-								}
-								else{valid++;}
-							}
-							if(valid==0){affixMap1.remove(keym);}
-						}
-					}
+					removedP+=removeInvalid(affixMap1, u.prefix1);
 					if(storeSuffix){
-						keym.set(u.suffix1);
-						ArrayList<Unit> alu=affixMap1.get(keym);
-						if(alu!=null){
-							int valid=0;
-							for(int i=alu.size()-1; i>=0; i--){
-								Unit u2=alu.get(i);
-								if(u2==null || !u2.valid()){
-									alu.remove(i);
-									removedS++;
-								}
-								else{valid++;}
-							}
-							if(valid==0){affixMap1.remove(keym);}
-						}
+						removedS+=removeInvalid(affixMap1, u.suffix1);
 					}
 				}
 				if(affixMap2!=null && !affixMap2.isEmpty()){
 					if(u.prefix2!=-1){
-						keym.set(u.prefix2);
-						ArrayList<Unit> alu=affixMap2.get(keym);
-						if(alu!=null){
-							int valid=0;
-							for(int i=alu.size()-1; i>=0; i--){
-								Unit u2=alu.get(i);
-								if(u2==null || !u2.valid()){
-									alu.remove(i);
-									removedP++;
-								}
-								else{valid++;}
-							}
-							if(valid==0){affixMap2.remove(keym);}
-						}
+						removedP+=removeInvalid(affixMap2, u.prefix2);
 					}
 					if(storeSuffix && u.suffix2!=-1){
-						keym.set(u.suffix2);
-						ArrayList<Unit> alu=affixMap2.get(keym);
-						if(alu!=null){
-							int valid=0;
-							for(int i=alu.size()-1; i>=0; i--){
-								Unit u2=alu.get(i);
-								if(u2==null || !u2.valid()){
-									alu.remove(i);
-									removedS++;
-								}
-								else{valid++;}
-							}
-							if(valid==0){affixMap2.remove(keym);}
-						}
+						removedS+=removeInvalid(affixMap2, u.suffix2);
 					}
-					
 				}
 				
 				list.set(j, null);
@@ -1373,17 +1305,24 @@ public final class Dedupe {
 		return invalid;
 	}
 	
+	/** Removes invalid units stored under this key; returns the number removed. */
+	private static int removeInvalid(LongMultiMap<Unit> map, long key){
+		for(int e=map.first(key); e>=0; e=map.next(e)){
+			final Unit u2=map.value(e);
+			if(u2!=null && !u2.valid()){map.clearValue(e);}
+		}
+		return map.compact(key);
+	}
+	
 	
-	private static ArrayList<Read> addToArray(HashMap<Long, ArrayList<Unit>> codeMap, boolean sort, boolean clear, long outNum){
+	private static ArrayList<Read> addToArray(LongMultiMap<Unit> codeMap, boolean sort, boolean clear, long outNum){
 		assert(outNum<=Integer.MAX_VALUE);
 		if(verbose){System.err.println("Making list.");}
 		ArrayList<Read> list=new ArrayList<Read>((int)outNum);
 		if(verbose){System.err.println("Adding.");}
-		for(ArrayList<Unit> alu : codeMap.values()){
-			for(Unit u : alu){
-				if(u.valid() && u.r.pairnum()==0){list.add(u.r);}
-			}
-			if(clear){alu.clear();}
+		for(int i=0, lim=codeMap.limit(); i<lim; i++){
+			final Unit u=codeMap.value(i);
+			if(u!=null && u.valid() && u.r.pairnum()==0){list.add(u.r);}
 		}
 		if(clear){codeMap.clear();}
 		
@@ -3052,8 +2991,6 @@ public final class Dedupe {
 //			System.err.println("Thread finished; last name = "+lastName);
 			
 			codeMapT=null;
-			localConflictList=null;
-			sharedConflictList=null;
 		}
 		
 		/** Return true if this read was a member of this subset. */
@@ -3076,10 +3013,10 @@ public final class Dedupe {
 					//Check for subset membership
 					final boolean inSet=u.inSet();
 					if(inSet){
-						final Long codeL=code;
-						ArrayList<Unit> list=codeMap.get(codeL);
+						assert(codeMap.containsKey(code));
 						boolean found=false;
-						for(Unit u0 : list){
+						for(int e=codeMap.first(code); e>=0; e=codeMap.next(e)){
+							final Unit u0=codeMap.value(e);
 							//Replace with existing read
 							if(u0.equals(u) && u0.r.numericID==r1.numericID){
 								r1=u0.r;
@@ -3088,7 +3025,6 @@ public final class Dedupe {
 								break;
 							}
 						}
-						assert(list!=null);
 						if(!found){
 							return false;
 						}
@@ -3250,9 +3186,10 @@ public final class Dedupe {
 				if(len>=k){
 					key.set(Tools.max(kmer, rkmer)); //Canonical
 					for(int am=0; am<affixMaps.length; am++){
-						ArrayList<Unit> list=affixMaps[am].get(key);
-						if(list!=null){
-							for(Unit u2 : list){
+						final LongMultiMap<Unit> map=affixMaps[am];
+						for(int e=map.first(key.value()); e>=0; e=map.next(e)){
+							final Unit u2=map.value(e);
+							if(u2!=null){
 								if(u!=u2 && !u.equals(u2)){
 									if(u2.valid()){
 										hits++;
@@ -3328,9 +3265,10 @@ public final class Dedupe {
 				if(len>=k){
 					key.set(Tools.max(kmer, rkmer)); //Canonical key
 					for(int am=0; am<affixMaps.length; am++){
-						ArrayList<Unit> list=affixMaps[am].get(key);
-						if(list!=null){//found a key collision
-							for(Unit u2 : list){
+						final LongMultiMap<Unit> map=affixMaps[am];
+						for(int e=map.first(key.value()); e>=0; e=map.next(e)){//found a key collision
+							final Unit u2=map.value(e);
+							if(u2!=null){
 								if(quit){break;}//too many edges
 								int u1cluster=-1, u2cluster=-2;
 								if(preventTransitiveOverlaps && u!=u2){
@@ -3472,80 +3410,88 @@ public final class Dedupe {
 			long novelReads=0, novelKeys=0;
 			long collisionReads=0;
 			long mergedReads=0;
-
-			assert(localConflictList.isEmpty());
-			assert(sharedConflictList.isEmpty());
+			long conflicts=0;
 			
+			//Novel keys are added in one pass; conflicting keys are deferred so they can be compared without the lock
 			synchronized(codeMap){
 				for(Long key : codeMapT.keySet()){
-					if(codeMap.containsKey(key)){
-						localConflictList.add(codeMapT.get(key));
-						sharedConflictList.add(codeMap.get(key));
-					}else{
-						ArrayList<Unit> list=codeMapT.get(key);
-						codeMap.put(key, list);
-						addedList.addAll(list);
-						novelReads+=list.size();
+					final long code=key;
+					final ArrayList<Unit> listT=codeMapT.get(key);
+					if(!codeMap.containsKey(code)){
+						for(Unit u : listT){
+							codeMap.add(code, u);
+							addedList.add(u);
+						}
+						novelReads+=listT.size();
 						novelKeys++;
+					}else{
+						conflictCodes.add(code);
 					}
 				}
 			}
+			conflicts=conflictCodes.size();
 			
-			if(verbose){System.err.println("Novel reads = "+novelReads+", conflicts = "+localConflictList.size());}
-			
-			for(int i=0; i<localConflictList.size(); i++){
-				ArrayList<Unit> listT=localConflictList.get(i);
-				ArrayList<Unit> list=sharedConflictList.get(i);
-				synchronized(list){
-					for(Unit u : listT){
-						if(verbose){System.err.println("Processing novel unit "+u.name());}
-						boolean match=false;
-						if(findMatchesT){
-							for(Unit u2 : list){
-								if(pairedEqualsRC(u, u2)){
-									//								if(verbose){System.err.println("Matches "+new String(r2.bases, 0, Tools.min(40, r2.length())));}
-									u2.absorbMatch(u);
-									if(UNIQUE_ONLY){
-										synchronized(u2){
-											if(u2.valid()){
-												mergedReads++;
-												baseMatchesT+=u2.length();
-												u2.setValid(false);
-												addDupe(u2.r);
-											}
-										}
-									}
-									match=true;
-									break;
-								}
+			//The lock is held only to copy a key's units and to insert; comparisons use the copy.
+			//If another thread added units to the key since the copy, those are compared before inserting.
+			for(int i=0; i<conflictCodes.size(); i++){
+				final long code=conflictCodes.get(i);
+				final ArrayList<Unit> listT=codeMapT.get(code);
+				candidates.clear();
+				int head;
+				synchronized(codeMap){head=copyUnits(code, -1);}
+				for(Unit u : listT){
+					if(verbose){System.err.println("Processing novel unit "+u.name());}
+					int checked=0;
+					Unit u2=null;
+					boolean added=false;
+					while(!added){
+						u2=(findMatchesT ? findMatch(u, checked) : null);
+						if(u2!=null){break;}
+						checked=candidates.size();
+						synchronized(codeMap){
+							if(codeMap.first(code)==head){
+								head=codeMap.add(code, u);
+								added=true;
+							}else{
+								head=copyUnits(code, head);
 							}
 						}
-						if(match){
-							addDupe(u.r);
-							mergedReads++;
-							baseMatchesT+=u.length();
-							if(verbose){System.err.println("matchesT="+matchesT+", baseMatchesT="+baseMatchesT);}
-						}else{
-							collisionReads++;
-							if(verbose){System.err.println("False collision; count = "+collisionReads);}
-							list.add(u);
-							addedList.add(u);
+					}
+					if(u2!=null){
+						synchronized(u2){
+							u2.absorbMatch(u);
+							if(UNIQUE_ONLY && u2.valid()){
+								mergedReads++;
+								baseMatchesT+=u2.length();
+								u2.setValid(false);
+								addDupe(u2.r);
+							}
 						}
+						addDupe(u.r);
+						mergedReads++;
+						baseMatchesT+=u.length();
+						if(verbose){System.err.println("matchesT="+matchesT+", baseMatchesT="+baseMatchesT);}
+					}else{
+						collisionReads++;
+						if(verbose){System.err.println("False collision; count = "+collisionReads);}
+						candidates.add(u);
+						addedList.add(u);
 					}
 				}
 			}
+			conflictCodes.clear();
+			candidates.clear();
+			
+			if(verbose){System.err.println("Novel reads = "+novelReads+", conflicts = "+conflicts);}
 			matchesT+=mergedReads;
 			collisionsT+=collisionReads;
 			if(verbose){System.err.println("Done Merging.");}
 			if(verbose){System.err.println("mapT.size="+codeMapT.size()+", basesStoredT="+basesStoredT);}
 			
 			codeMapT.clear();
-			localConflictList.clear();
-			sharedConflictList.clear();
 			
 			if(!addedList.isEmpty()){
 				if(addToAffixMapT){
-					final LongM p=new LongM(-1, true);
 					assert(affixMap1!=null || affixMap2!=null);
 					if(affixMap1!=null && !ignoreAffix1){//Allows you to not use am1
 						synchronized(affixMap1){
@@ -3553,33 +3499,11 @@ public final class Dedupe {
 								if(verbose){System.err.println("Processing affixes for "+u.name());}
 								if(u.prefix1!=-1 || u.prefix1!=u.suffix1){
 									if(verbose){System.err.println("Using prefix "+u.prefix1);}
-									p.set(u.prefix1);
-									ArrayList<Unit> alu=affixMap1.get(p);
-									if(alu==null){
-										if(verbose){System.err.println("Made new alu for "+p);}
-										alu=new ArrayList<Unit>(2);
-										affixMap1.put(p.iCopy(), alu);
-									}
-									if(alu.size()<maxAffixCopies){
-										if(verbose){System.err.println("Added "+u.name());}
-										alu.add(u);
-									}
-									if(verbose){System.err.println(affixMap1.get(p));}
+									addAffix(affixMap1, u.prefix1, u);
 								}
 								if(storeSuffix && u.prefix1!=u.suffix1){
 									if(verbose){System.err.println("Using suffix "+u.suffix1);}
-									p.set(u.suffix1);
-									ArrayList<Unit> alu=affixMap1.get(p);
-									if(alu==null){
-										if(verbose){System.err.println("Made new alu for "+p);}
-										alu=new ArrayList<Unit>(2);
-										affixMap1.put(p.iCopy(), alu);
-									}
-									if(alu.size()<maxAffixCopies){
-										if(verbose){System.err.println("Added "+u.name());}
-										alu.add(u);
-									}
-									if(verbose){System.err.println(affixMap1.get(p));}
+									addAffix(affixMap1, u.suffix1, u);
 								}
 							}
 						}
@@ -3588,22 +3512,10 @@ public final class Dedupe {
 						synchronized(affixMap2){
 							for(Unit u : addedList){
 								if(u.prefix2!=-1 || u.prefix2!=u.suffix2){
-									p.set(u.prefix2);
-									ArrayList<Unit> alu=affixMap2.get(p);
-									if(alu==null){
-										alu=new ArrayList<Unit>(2);
-										affixMap2.put(p.iCopy(), alu);
-									}
-									if(alu.size()<maxAffixCopies){alu.add(u);}
+									addAffix(affixMap2, u.prefix2, u);
 								}
 								if(storeSuffix && u.prefix2!=u.suffix2){
-									p.set(u.suffix2);
-									ArrayList<Unit> alu=affixMap2.get(p);
-									if(alu==null){
-										alu=new ArrayList<Unit>(2);
-										affixMap2.put(p.iCopy(), alu);
-									}
-									if(alu.size()<maxAffixCopies){alu.add(u);}
+									addAffix(affixMap2, u.suffix2, u);
 								}
 							}
 						}
@@ -3616,6 +3528,38 @@ public final class Dedupe {
 			return collisionReads+novelReads;
 		}
 		
+		/**
+		 * Copies the units stored for this key into candidates, newest first, stopping at entry stop.
+		 * Must be called while holding the codeMap lock.
+		 * @return The key's current first entry
+		 */
+		private int copyUnits(long code, int stop){
+			final int head=codeMap.first(code);
+			for(int e=head; e>=0 && e!=stop; e=codeMap.next(e)){
+				final Unit u2=codeMap.value(e);
+				if(u2!=null){candidates.add(u2);}
+			}
+			return head;
+		}
+		
+		/** Returns the first candidate from index start onward that matches u, or null. */
+		private Unit findMatch(Unit u, int start){
+			for(int i=start, lim=candidates.size(); i<lim; i++){
+				final Unit u2=candidates.get(i);
+				synchronized(u2){
+					if(pairedEqualsRC(u, u2)){return u2;}
+				}
+			}
+			return null;
+		}
+		
+		private void addAffix(LongMultiMap<Unit> map, long key, Unit u){
+			if(map.count(key)<maxAffixCopies){
+				if(verbose){System.err.println("Added "+u.name());}
+				map.add(key, u);
+			}
+		}
+		
 		private int getTid(){
 			synchronized(HashThread.class){
 				int x=tcount;
@@ -3626,8 +3570,10 @@ public final class Dedupe {
 		
 		private LinkedHashMap<Long, ArrayList<Unit>> codeMapT=new LinkedHashMap<Long, ArrayList<Unit>>(threadMaxReadsToBuffer*8);
 		private ArrayList<Unit> addedList=new ArrayList<Unit>(threadMaxReadsToBuffer);
-		private ArrayList<ArrayList<Unit>> localConflictList=new ArrayList<ArrayList<Unit>>(threadMaxReadsToBuffer);
-		private ArrayList<ArrayList<Unit>> sharedConflictList=new ArrayList<ArrayList<Unit>>(threadMaxReadsToBuffer);
+		/** Keys already in codeMap when merging, resolved outside the lock */
+		private LongList conflictCodes=new LongList();
+		/** Units stored under the key being merged, copied out of codeMap */
+		private ArrayList<Unit> candidates=new ArrayList<Unit>();
 		
 		long matchesT=0;
 		long baseMatchesT=0;
@@ -5706,10 +5652,10 @@ public final class Dedupe {
 	
 	private static int tcount=0;
 	
-	private LinkedHashMap<Long, ArrayList<Unit>> codeMap=new LinkedHashMap<Long, ArrayList<Unit>>(4000000);
-	private HashMap<LongM, ArrayList<Unit>> affixMap1=null;
-	private HashMap<LongM, ArrayList<Unit>> affixMap2=null;
-	private HashMap<LongM, ArrayList<Unit>>[] affixMaps=null;
+	private LongMultiMap<Unit> codeMap=new LongMultiMap<Unit>(4000000);
+	private LongMultiMap<Unit> affixMap1=null;
+	private LongMultiMap<Unit> affixMap2=null;
+	private LongMultiMap<Unit>[] affixMaps=null;
 	private ArrayDeque<ArrayList<Unit>> clusterQueue=null;
 	private ArrayList<ArrayList<Unit>> processedClusters=null;
 	private AtomicIntegerArray clusterNumbers=null;
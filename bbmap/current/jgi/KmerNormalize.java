@@ -241,6 +241,8 @@ public class KmerNormalize {
 				passes=2;
 			}else if(a.equals("buildpasses")){
 				buildpasses=Integer.parseInt(b);
+			}else if(a.equals("reusetable") || a.equals("reuse")){
+				REUSE_TABLE=Tools.parseBoolean(b);
 			}else if(a.equals("printcoverage")){
 				assert(false) : "This is not the program you are looking for.  Try KmerCoverage.  Move along.";
 			}else if(a.equals("threads") || a.equals("t")){
@@ -519,6 +521,15 @@ public class KmerNormalize {
 		
 		if(cbits>16 && passes>1){cbits=16;}
 		
+		//The table can only carry over if every pass counts the same kmers from the same reads
+		final boolean reuseTable=(REUSE_TABLE && passes>1 && k<=31 && gap==0 && !Shared.AMINO_IN && !countup && tablereads<0 &&
+				buildpasses<2 && !KmerCountAbstract.KEEP_DUPLICATE_KMERS && maxReads<0 &&
+				(cbits1<1 || cbits1==cbits) && !USE_ECC1 && !TRIM_LEFT && !TRIM_RIGHT && extra==null &&
+				khistFile==null && rhistFile==null && peakFile==null);
+		if(REUSE_TABLE && passes>1 && !reuseTable){
+			outstream.println("Table reuse is disabled for this combination of flags; the table will be rebuilt each pass.");
+		}
+		
 		maxDepth=Tools.max(maxDepth, targetDepthF);
 		assert(targetDepthF>0);
 		
@@ -591,6 +602,7 @@ public class KmerNormalize {
 					CORRECT_ERRORS_THIS_PASS=USE_ECC1;
 					TRIM_LEFT_THIS_PASS=(pass==1 && TRIM_LEFT);
 					TRIM_RIGHT_THIS_PASS=(pass==1 && TRIM_RIGHT);
+					UNCOUNT_THIS_PASS=reuseTable;
 					bases+=runPass(auto, memory, (cbits1<1 ? cbits : cbits1), cells, precbits, precells, buildpasses, hashes, prehashes, k,
 							maxReads, tablereads, minq, buildStepsize,
 							(pass==1 ? in1 : lastTemp1), (pass==1 ? in2 : lastTemp2),
@@ -632,6 +644,7 @@ public class KmerNormalize {
 					CORRECT_ERRORS_THIS_PASS=USE_ECC1;
 					TRIM_LEFT_THIS_PASS=(pass==1 && TRIM_LEFT);
 					TRIM_RIGHT_THIS_PASS=(pass==1 && TRIM_RIGHT);
+					UNCOUNT_THIS_PASS=reuseTable;
 					bases+=runPass(auto, memory, (cbits1<1 ? cbits : cbits1), cells, precbits, precells, buildpasses, hashes, prehashes, k,
 							maxReads, tablereads, minq, buildStepsize,
 							(pass==1 ? in1 : lastTemp1), (pass==1 ? in2 : lastTemp2),
@@ -666,6 +679,7 @@ public class KmerNormalize {
 					CORRECT_ERRORS_THIS_PASS=USE_ECC1;
 					TRIM_LEFT_THIS_PASS=(pass==1 && TRIM_LEFT);
 					TRIM_RIGHT_THIS_PASS=(pass==1 && TRIM_RIGHT);
+					UNCOUNT_THIS_PASS=reuseTable;
 					bases+=runPass(auto, memory, (cbits1<1 ? cbits : cbits1), cells, precbits, precells, buildpasses, hashes, prehashes, k,
 							maxReads, tablereads, minq, buildStepsize,
 							(pass==1 ? in1 : lastTemp1), (pass==1 ? in2 : lastTemp2),
@@ -688,6 +702,7 @@ public class KmerNormalize {
 			CORRECT_ERRORS_THIS_PASS=USE_ECCF;
 			TRIM_LEFT_THIS_PASS=false;
 			TRIM_RIGHT_THIS_PASS=false;
+			UNCOUNT_THIS_PASS=false;
 			bases+=runPass(auto, memory, cbits, cells, precbits, precells, buildpasses, hashes, prehashes, k,
 					maxReads, tablereads, minq, buildStepsize,
 					lastTemp1, lastTemp2,
@@ -976,23 +991,33 @@ public class KmerNormalize {
 		KCountArray kca;
 		KCountArray prefilterArray=null;
 //		outstream.println();
-		if(prefilter){
-			prefilterArray=KmerCount7MTA.makeKca(in1, in2, extra, k, pcbits, 0, precells, prehashes, minq, true, eccByOverlap, false,
-					tablereads, 1, buildStepsize, 1, 1, null, 0, Shared.AMINO_IN);
-			outstream.println("Made prefilter:   \t"+prefilterArray.toShortString(prehashes));
-			double uf=prefilterArray.usedFraction();
-			if(uf>0.6){
-				outstream.println("Warning:  This table is "+(uf>0.995 ? "totally" : uf>0.99 ? "crazy" : uf>0.95 ? "incredibly" : uf>0.9 ? "extremely" : uf>0.8 ? "very" :
-					uf>0.7 ? "fairly" : "somewhat")+" full, which may reduce accuracy for kmers of depth under 3.  Ideal load is under 60% used." +
-						"\nFor better accuracy, run on a node with more memory; quality-trim or error-correct reads; " +
-						"or increase the values of the minprob flag to reduce spurious kmers.");
-			}
-		}
-		kca=KmerCount7MTA.makeKca(in1, in2, extra, k, cbits, 0, cells, hashes, minq, true, eccByOverlap, false,
-				tablereads, buildpasses, buildStepsize, 2, 2, prefilterArray, (prefilterArray==null ? 0 : prefilterArray.maxValue), Shared.AMINO_IN);
-		ht.stop();
-		
-		outstream.println("Made hash table:  \t"+kca.toShortString(hashes));
+		if(reusableTable!=null){
+			kca=reusableTable;
+			reusableTable=null;
+			kca.resetStatistics();
+			prefilterArray=kca.prefilter();
+			ht.stop();
+			outstream.println("Reused hash table:\t"+kca.toShortString(hashes));
+		}else{
+			if(prefilter){
+				prefilterArray=KmerCount7MTA.makeKca(in1, in2, extra, k, pcbits, 0, precells, prehashes, minq, true, eccByOverlap, false,
+						tablereads, 1, buildStepsize, 1, 1, null, 0, Shared.AMINO_IN);
+				outstream.println("Made prefilter:   \t"+prefilterArray.toShortString(prehashes));
+				double uf=prefilterArray.usedFraction();
+				if(uf>0.6){
+					outstream.println("Warning:  This table is "+(uf>0.995 ? "totally" : uf>0.99 ? "crazy" : uf>0.95 ? "incredibly" : uf>0.9 ? "extremely" : uf>0.8 ? "very" :
+						uf>0.7 ? "fairly" : "somewhat")+" full, which may reduce accuracy for kmers of depth under 3.  Ideal load is under 60% used." +
+							"\nFor better accuracy, run on a node with more memory; quality-trim or error-correct reads; " +
+							"or increase the values of the minprob flag to reduce spurious kmers.");
+				}
+			}
+			kca=KmerCount7MTA.makeKca(in1, in2, extra, k, cbits, 0, cells, hashes, minq, true, eccByOverlap, false,
+					tablereads, buildpasses, buildStepsize, 2, 2, prefilterArray, (prefilterArray==null ? 0 : prefilterArray.maxValue), Shared.AMINO_IN);
+			ht.stop();
+		
+			outstream.println("Made hash table:  \t"+kca.toShortString(hashes));
+		}
+		TABLE_MINQ=minq;
 		double uf=kca.usedFraction();
 		if(uf>0.6){
 			outstream.println("Warning:  This table is "+(uf>0.995 ? "totally" : uf>0.99 ? "crazy" : uf>0.95 ? "incredibly" : uf>0.9 ? "extremely" : uf>0.8 ? "very" :
@@ -1104,6 +1129,9 @@ public class KmerNormalize {
 		
 		if(ANALYZE_TOPOLOGY){printTopology();}
 		
+		//Tossed reads were removed as they were processed, so the table now describes the kept reads
+		if(UNCOUNT_THIS_PASS){reusableTable=kca;}
+		
 		t.stop();
 //		outstream.println("\nTotal time:      \t\t"+t+"   \t"+String.format(Locale.ROOT, "%.2f", bases*1000000.0/(t.elapsed))+" kb/sec");
 		return bases;
@@ -2761,6 +2789,73 @@ public class KmerNormalize {
 		return out;
 	}
 	
+	/**
+	 * Removes a tossed pair's kmers from the table, so the next pass can reuse it.
+	 * Uses the same quality filter and per-pair deduplication as KmerCount7MTA.
+	 * @return The kmer buffer, possibly reallocated
+	 */
+	private static long[] uncount(final Read r1, final Read r2, final KCountArray kca, final int k, long[] buffer){
+		final int len1=(r1==null || r1.bases==null ? 0 : Tools.max(0, r1.length()-k+1));
+		final int len2=(r2==null || r2.bases==null ? 0 : Tools.max(0, r2.length()-k+1));
+		final int len=len1+len2;
+		if(len<1){return buffer;}
+		if(buffer==null || buffer.length<len){buffer=new long[len];}
+		Arrays.fill(buffer, 0, len, -1);
+		if(len1>0){fillCountedKmers(r1, k, buffer, 0);}
+		if(len2>0){fillCountedKmers(r2, k, buffer, len1);}
+		
+		Arrays.sort(buffer, 0, len);
+		long prev=-1;
+		for(int i=0; i<len; i++){
+			final long kmer=buffer[i];
+			if(kmer!=prev){
+				kca.decrement(kmer);
+				prev=kmer;
+			}
+		}
+		return buffer;
+	}
+	
+	/** Fills canonical kmers that passed the table's quality filter; others are left at -1. */
+	private static void fillCountedKmers(final Read r, final int k, final long[] array, final int start){
+		final byte[] bases=r.bases;
+		final byte[] quals=r.quality;
+		final int shift=2*k;
+		final int shift2=shift-2;
+		final long mask=(shift>63 ? -1L : ~((-1L)<<shift));
+		final float minProb=KmerCountAbstract.minProb;
+		long kmer=0, rkmer=0;
+		int len=0;
+		float prob=1;
+		
+		for(int i=0; i<bases.length; i++){
+			final byte b=bases[i];
+			final long x=AminoAcid.baseToNumber[b];
+			final long x2=AminoAcid.baseToComplementNumber[b];
+			final byte q;
+			if(quals==null){
+				q=50;
+			}else{
+				q=quals[i];
+				prob=prob*align2.QualityTools.PROB_CORRECT[q];
+				if(len>k){prob=prob*align2.QualityTools.PROB_CORRECT_INVERSE[quals[i-k]];}
+			}
+			
+			if(x<0 || q<TABLE_MINQ){
+				len=0;
+				kmer=rkmer=0;
+				prob=1;
+			}else{
+				kmer=((kmer<<2)|x)&mask;
+				rkmer=(rkmer>>>2)|(x2<<shift2);
+				len++;
+				if(len>=k && prob>=minProb){
+					array[start+i-k+1]=Tools.max(kmer, rkmer);
+				}
+			}
+		}
+	}
+	
 	/** Returns {depth1, depth2, errors1, errors2} */
 	public static int[] parseDepth(String s, int[] array){
 		if(s==null || !s.startsWith("id=")){return null;}
@@ -2829,6 +2924,7 @@ public class KmerNormalize {
 			
 			int[] cov1=null, cov2=null;
 			long[] kmers1=null, kmers2=null;
+			long[] uncountBuffer=null;
 			
 			while(ln!=null && reads!=null && reads.size()>0){//ln!=null prevents a compiler potential null access warning
 				for(int rnum=0; rnum<reads.size(); rnum++){
@@ -3035,6 +3131,7 @@ public class KmerNormalize {
 					
 					if(toss){
 						if(tossList!=null){tossList.add(r1);}
+						if(UNCOUNT_THIS_PASS){uncountBuffer=uncount(r1, r2, kca, k, uncountBuffer);}
 						readsTossed+=readcount;
 						basesTossed+=basecount;
 					}else{
@@ -3586,6 +3683,15 @@ public class KmerNormalize {
 	
 	private static double prefilterFraction=0.35;
 	
+	/** Carry the table between passes, removing tossed reads' kmers instead of recounting the kept reads */
+	public static boolean REUSE_TABLE=false;
+	/** Remove tossed reads' kmers from the table as they are tossed, on this pass */
+	private static boolean UNCOUNT_THIS_PASS=false;
+	/** Table left by the previous pass, for the next pass */
+	private static KCountArray reusableTable=null;
+	/** Base quality threshold used when building the current table */
+	private static int TABLE_MINQ=0;
+	
 	private static int LOW_BIN_DEPTH=10;
 	private static int HIGH_BIN_DEPTH=80;
 	
@@ -0,0 +1,126 @@
+package jgi;
+
+/**
+ * Word-parallel (SWAR) match counting for BBMerge's quality-free ratio overlap.
+ * Each read is packed into sliding 8-byte windows, so any two positions can be
+ * compared 8 bases at a time with one xor, regardless of alignment.
+ * Scores are taken from tables of repeated float additions, so they are
+ * bit-identical to the scalar loop.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+final class OverlapWords {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Returns this thread's instance, loaded with these reads. */
+	static OverlapWords load(final byte[] abases, final byte[] bbases, final float gIncr, final float bIncr){
+		OverlapWords ow=local.get();
+		if(ow==null){
+			ow=new OverlapWords();
+			local.set(ow);
+		}
+		ow.set(abases, bbases, gIncr, bIncr);
+		return ow;
+	}
+
+	private void set(final byte[] abases, final byte[] bbases, final float gIncr, final float bIncr){
+		final int alen=abases.length, blen=bbases.length;
+		if(wa.length<alen){
+			wa=new long[alen+16];
+			na=new long[alen+16];
+		}
+		if(wb.length<blen){wb=new long[blen+16];}
+		fill(abases, wa, na);
+		fill(bbases, wb, null);
+
+		final int max=Math.max(alen, blen)+1;
+		if(gIncr!=gIncr_ || goodScore.length<max){
+			goodScore=incrementTable(gIncr, max+16);
+			gIncr_=gIncr;
+		}
+		if(bIncr!=bIncr_ || badScore.length<max){
+			badScore=incrementTable(bIncr, max+16);
+			bIncr_=bIncr;
+		}
+	}
+
+	/** words[i] holds bases i through i+7, with bases[i] in the low byte. */
+	private static void fill(final byte[] bases, final long[] words, final long[] nwords){
+		long w=0, n=0;
+		for(int i=bases.length-1; i>=0; i--){
+			final byte b=bases[i];
+			w=(w<<8)|(b&0xFFL);
+			words[i]=w;
+			if(nwords!=null){
+				n=(n<<8)|(b=='N' ? 1L : 0L);
+				nwords[i]=n;
+			}
+		}
+	}
+
+	/** table[x] is incr added to 0 x times, exactly as the scalar loop accumulates it. */
+	private static float[] incrementTable(final float incr, final int len){
+		final float[] table=new float[len];
+		float sum=0;
+		for(int i=1; i<len; i++){
+			sum+=incr;
+			table[i]=sum;
+		}
+		return table;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Compares len bases of a starting at i with b starting at j.
+	 * Stops early once the bad score exceeds badlimit.
+	 * @return (non-N matches)<<32 | mismatches
+	 */
+	long count(int i, int j, final int len, final float badlimit){
+		final long[] wa=this.wa, na=this.na, wb=this.wb;
+		final float[] badScore=this.badScore;
+		final int imax=i+len;
+		int good=0, bad=0;
+		for(; i+8<=imax && badScore[bad]<=badlimit; i+=8, j+=8){
+			final long diff=nonzeroBytes(wa[i]^wb[j]);
+			final int mismatches=Long.bitCount(diff);
+			bad+=mismatches;
+			good+=8-mismatches-Long.bitCount(~diff&na[i]&LOW_BITS);
+		}
+		if(i<imax && badScore[bad]<=badlimit){
+			final long mask=LOW_BITS>>>(8*(8-(imax-i)));
+			final long diff=nonzeroBytes(wa[i]^wb[j])&mask;
+			final int mismatches=Long.bitCount(diff);
+			bad+=mismatches;
+			good+=(imax-i)-mismatches-Long.bitCount(~diff&na[i]&mask);
+		}
+		return (((long)good)<<32)|bad;
+	}
+
+	/** Sets the low bit of each byte that is nonzero, and clears all other bits. */
+	private static long nonzeroBytes(long x){
+		x|=(x>>>4);
+		x|=(x>>>2);
+		x|=(x>>>1);
+		return x&LOW_BITS;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private long[] wa=new long[0], na=new long[0], wb=new long[0];
+	/** Score after x good or bad bases */
+	float[] goodScore=new float[0], badScore=new float[0];
+	private float gIncr_=Float.NaN, bIncr_=Float.NaN;
+
+	private static final long LOW_BITS=0x0101010101010101L;
+	private static final ThreadLocal<OverlapWords> local=new ThreadLocal<OverlapWords>();
+
+}
@@ -0,0 +1,392 @@
+package jgi;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+import assemble.Tadpole;
+import dna.Data;
+import fileIO.FileFormat;
+import fileIO.ReadWrite;
+import shared.Parser;
+import shared.PreParser;
+import shared.ReadStats;
+import shared.Shared;
+import shared.Timer;
+import shared.Tools;
+import stream.ConcurrentPipeReadInputStream;
+import stream.ConcurrentReadInputStream;
+import stream.ConcurrentReadOutputStream;
+import stream.FASTQ;
+import stream.Read;
+import structures.ListNum;
+
+/**
+ * Runs adapter-trimming, artifact filtering, and overlap-based error correction
+ * in a single JVM, passing reads between stages as in-memory lists.
+ * This replaces the bbduk.sh | bbduk.sh | bbmerge.sh | tadpole.sh chain,
+ * which parses, formats, and compresses the full dataset once per stage.
+ *
+ * Stages:
+ * 1) BBDuk ktrim (adapters)
+ * 2) BBDuk kfilter (artifacts and phiX)
+ * 3) BBMerge ecco mix (paired reads only)
+ * 4) Tadpole ecc, which must read its input more than once, so it gets a single uncompressed temp file
+ *
+ * Arguments prefixed with trim., filter., merge., or ecc. are passed to that stage with the prefix removed.
+ *
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class PreprocessPipeline {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Code entrance from the command line.
+	 * @param args Command line arguments
+	 */
+	public static void main(String[] args){
+		Timer t=new Timer();
+		PreprocessPipeline x=new PreprocessPipeline(args);
+		x.process(t);
+		Shared.closeStream(x.outstream);
+	}
+
+	/**
+	 * Constructor.
+	 * @param args Command line arguments
+	 */
+	public PreprocessPipeline(String[] args){
+
+		{//Preparse block for help, config files, and outstream
+			PreParser pp=new PreParser(args, getClass(), false);
+			args=pp.args;
+			outstream=pp.outstream;
+		}
+
+		ReadWrite.USE_PIGZ=ReadWrite.USE_UNPIGZ=true;
+		ReadWrite.MAX_ZIP_THREADS=Shared.threads();
+		ReadWrite.ZIPLEVEL=2;
+
+		Parser parser=new Parser();
+		for(int i=0; i<args.length; i++){
+			String arg=args[i];
+			String[] split=arg.split("=");
+			String a=split[0].toLowerCase();
+			String b=split.length>1 ? split[1] : null;
+			if(b!=null && b.equalsIgnoreCase("null")){b=null;}
+
+			if(a.startsWith("trim.")){
+				trimArgs.add(arg.substring(5));
+			}else if(a.startsWith("filter.")){
+				filterArgs.add(arg.substring(7));
+			}else if(a.startsWith("merge.")){
+				mergeArgs.add(arg.substring(6));
+			}else if(a.startsWith("ecc.")){
+				eccArgs.add(arg.substring(4));
+			}else if(a.equals("adapters") || a.equals("adapterref")){
+				adapterRef=b;
+			}else if(a.equals("artifacts") || a.equals("filterref")){
+				filterRef=b;
+			}else if(a.equals("trimq")){
+				trimq=b;
+			}else if(a.equals("k")){
+				k=Integer.parseInt(b);
+			}else if(a.equals("mink")){
+				mink=Integer.parseInt(b);
+			}else if(a.equals("hdist")){
+				hdist=Integer.parseInt(b);
+			}else if(a.equals("merge")){
+				doMerge=Tools.parseBoolean(b);
+			}else if(a.equals("ecc") || a.equals("tadpole")){
+				doEcc=Tools.parseBoolean(b);
+			}else if(a.equals("tmpdir")){
+				tmpDir=b;
+			}else if(a.equals("pipelen") || a.equals("pipebuffers")){
+				pipeBuffers=Integer.parseInt(b);
+			}else if(a.equals("ordered")){
+				ordered=Tools.parseBoolean(b);
+			}else if(a.equals("verbose")){
+				verbose=Tools.parseBoolean(b);
+			}else if(parser.parse(arg, a, b)){
+				//do nothing
+			}else{
+				outstream.println("Unknown parameter "+args[i]);
+				assert(false) : "Unknown parameter "+args[i];
+			}
+		}
+
+		{//Process parser fields
+			Parser.processQuality();
+			overwrite=ReadStats.overwrite=parser.overwrite;
+			append=ReadStats.append=parser.append;
+			in1=parser.in1;
+			in2=parser.in2;
+			out1=parser.out1;
+			out2=parser.out2;
+		}
+
+		if(in1!=null && in2==null && in1.indexOf('#')>-1 && !new File(in1).exists()){
+			in2=in1.replace("#", "2");
+			in1=in1.replace("#", "1");
+		}
+		if(out1!=null && out2==null && out1.indexOf('#')>-1){
+			out2=out1.replace("#", "2");
+			out1=out1.replace("#", "1");
+		}
+		if(in1==null){throw new RuntimeException("Error - at least one input file is required.");}
+		if(out1==null && out2!=null){throw new RuntimeException("Error - cannot define out2 without defining out1.");}
+
+		if(in2!=null){
+			FASTQ.TEST_INTERLEAVED=FASTQ.FORCE_INTERLEAVED=false;
+		}else if(!parser.setInterleaved && out2!=null){
+			FASTQ.TEST_INTERLEAVED=FASTQ.FORCE_INTERLEAVED=true;
+		}
+
+		in1=Tools.fixExtension(in1);
+		in2=Tools.fixExtension(in2);
+
+		if(adapterRef==null){adapterRef=Data.findPath("?adapters.fa");}
+		if(filterRef==null){filterRef=Data.findPath("?sequencing_artifacts.fa.gz")+","+Data.findPath("?phix174_ill.ref.fa.gz");}
+		if(tmpDir==null){tmpDir=Shared.tmpdir();}
+		if(tmpDir!=null && tmpDir.length()>0 && !tmpDir.endsWith("/")){tmpDir+="/";}
+
+		if(!Tools.testOutputFiles(overwrite, append, false, out1, out2)){
+			throw new RuntimeException("\n\noverwrite="+overwrite+"; Can't write to output files "+out1+", "+out2+"\n");
+		}
+		if(!Tools.testInputFiles(false, true, in1, in2)){
+			throw new RuntimeException("\nCan't read some input files.\n");
+		}
+		if(!Tools.testForDuplicateFiles(true, in1, in2, out1, out2)){
+			throw new RuntimeException("\nSome file names were specified multiple times.\n");
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Run all stages, then Tadpole if requested. */
+	void process(Timer t){
+
+		//Reads are parsed exactly once, here
+		final ConcurrentReadInputStream cris;
+		{
+			FileFormat ff1=FileFormat.testInput(in1, FileFormat.FASTQ, null, true, true);
+			FileFormat ff2=FileFormat.testInput(in2, FileFormat.FASTQ, null, true, true);
+			cris=ConcurrentReadInputStream.getReadInputStream(-1L, false, ff1, ff2);
+			cris.start();
+		}
+		final boolean paired=cris.paired();
+		outstream.println("Input is being processed as "+(paired ? "paired" : "unpaired"));
+		final boolean merge=doMerge && paired;
+		if(doMerge && !paired){outstream.println("Skipping BBMerge because the reads are not paired.");}
+
+		//Pipeline output is written once, either as final output or as Tadpole's input
+		final String tmpOut=(doEcc ? tmpDir+"preprocess_"+System.nanoTime()+".fq" : null);
+		final ConcurrentReadOutputStream ros;
+		{
+			final int buff=Tools.max(16, 2*Shared.threads());
+			final String o1=(doEcc ? tmpOut : out1), o2=(doEcc ? null : out2);
+			if(o1!=null){
+				FileFormat ff1=FileFormat.testOutput(o1, FileFormat.FASTQ, null, true, overwrite || doEcc, append && !doEcc, ordered);
+				FileFormat ff2=FileFormat.testOutput(o2, FileFormat.FASTQ, null, true, overwrite, append, ordered);
+				ros=ConcurrentReadOutputStream.getStream(ff1, ff2, null, null, buff, null, false);
+			}else{
+				ros=null;
+			}
+		}
+
+		final ConcurrentPipeReadInputStream pipe1=ConcurrentPipeReadInputStream.makePipe(pipeBuffers, ordered);
+		final ConcurrentPipeReadInputStream pipe2=(merge ? ConcurrentPipeReadInputStream.makePipe(pipeBuffers, ordered) : null);
+
+		final BBDukF trimmer=new BBDukF(trimArgs(), cris, pipe1.source);
+		final BBDukF filter=new BBDukF(filterArgs(), pipe1, (merge ? pipe2.source : ros));
+		final BBMerge merger=(merge ? new BBMerge(mergeArgs(), pipe2, ros) : null);
+
+		ArrayList<StageThread> stages=new ArrayList<StageThread>(3);
+		stages.add(new StageThread("ktrim", trimmer, null, cris, pipe1.source));
+		stages.add(new StageThread("filter", filter, null, pipe1, (merge ? pipe2.source : ros)));
+		if(merger!=null){stages.add(new StageThread("merge", null, merger, pipe2, ros));}
+		for(StageThread st : stages){st.start();}
+		for(StageThread st : stages){
+			while(st.getState()!=Thread.State.TERMINATED){
+				try {
+					st.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			errorState|=!st.success;
+		}
+
+		readsIn=trimmer.readsIn;
+		basesIn=trimmer.basesIn;
+		readsOut=(ros==null ? filter.readsOut : ros.readsWritten());
+		basesOut=(ros==null ? filter.basesOut : ros.basesWritten());
+		errorState|=trimmer.errorState|filter.errorState|(merger!=null && BBMerge.errorState);
+
+		if(doEcc && !errorState){
+			outstream.println("\nRunning Tadpole on "+tmpOut);
+			Timer t2=new Timer();
+			Tadpole tad=Tadpole.makeTadpole(eccArgs(tmpOut, paired), true);
+			tad.process(t2);
+			new File(tmpOut).delete();
+		}
+
+		t.stop();
+		outstream.println();
+		outstream.println(Tools.timeReadsBasesProcessed(t, readsIn, basesIn, 8));
+		outstream.println("Reads Out:          \t"+readsOut+" reads \t"+basesOut+" bases");
+
+		if(errorState){
+			throw new RuntimeException(getClass().getName()+" terminated in an error state; the output may be corrupt.");
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Stage Arguments       ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private String[] trimArgs(){
+		ArrayList<String> list=new ArrayList<String>();
+		list.add("ktrim=r");
+		list.add("k="+k);
+		list.add("mink="+mink);
+		list.add("hdist="+hdist);
+		list.add("tpe");
+		list.add("tbo");
+		list.add("ftm=5");
+		list.add("qtrim=r");
+		list.add("trimq="+trimq);
+		list.add("ref="+adapterRef);
+		list.add("ordered="+ordered);
+		list.addAll(trimArgs);
+		return list.toArray(new String[0]);
+	}
+
+	private String[] filterArgs(){
+		ArrayList<String> list=new ArrayList<String>();
+		list.add("k="+k);
+		list.add("hdist="+hdist);
+		list.add("ref="+filterRef);
+		list.add("ordered="+ordered);
+		list.addAll(filterArgs);
+		return list.toArray(new String[0]);
+	}
+
+	private String[] mergeArgs(){
+		ArrayList<String> list=new ArrayList<String>();
+		list.add("ecco");
+		list.add("mix");
+		list.add("adapters=default");
+		list.add("ordered="+ordered);
+		list.addAll(mergeArgs);
+		return list.toArray(new String[0]);
+	}
+
+	private String[] eccArgs(String in, boolean paired){
+		ArrayList<String> list=new ArrayList<String>();
+		list.add("in="+in);
+		if(paired){list.add("interleaved=t");}
+		if(out1!=null){list.add("out="+out1);}
+		if(out2!=null){list.add("out2="+out2);}
+		list.add("ecc");
+		list.add("prealloc");
+		list.add("prefilter=2");
+		list.add("tossjunk");
+		list.add("overwrite="+overwrite);
+		list.add("ordered="+ordered);
+		list.addAll(eccArgs);
+		return list.toArray(new String[0]);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Runs one BBDuk or BBMerge stage.
+	 * If the stage fails, it closes its output and drains its input, so its neighbors can finish.
+	 */
+	private class StageThread extends Thread {
+
+		StageThread(String name_, BBDukF duk_, BBMerge merger_, ConcurrentReadInputStream in_, ConcurrentReadOutputStream out_){
+			super(name_);
+			duk=duk_;
+			merger=merger_;
+			in=in_;
+			out=out_;
+		}
+
+		@Override
+		public void run(){
+			try {
+				if(duk!=null){duk.process();}
+				else{merger.process();}
+				success=true;
+			} catch (Throwable e) {
+				e.printStackTrace();
+				outstream.println("Stage "+getName()+" failed.");
+				if(out!=null){out.close();}
+				if(in instanceof ConcurrentPipeReadInputStream){
+					for(ListNum<Read> ln=in.nextList(); ln!=null && ln.size()>0; ln=in.nextList()){}
+				}else{
+					in.shutdown();
+				}
+			}
+		}
+
+		private final BBDukF duk;
+		private final BBMerge merger;
+		private final ConcurrentReadInputStream in;
+		private final ConcurrentReadOutputStream out;
+		/** Set if the stage finished without throwing */
+		boolean success=false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private String in1=null, in2=null;
+	private String out1=null, out2=null;
+
+	private String adapterRef=null;
+	private String filterRef=null;
+	private String tmpDir=null;
+
+	private String trimq="10";
+	private int k=23;
+	private int mink=7;
+	private int hdist=1;
+
+	private boolean doMerge=true;
+	private boolean doEcc=false;
+	/** Lists buffered between adjacent stages */
+	private int pipeBuffers=Tools.max(8, Shared.threads());
+
+	private final ArrayList<String> trimArgs=new ArrayList<String>();
+	private final ArrayList<String> filterArgs=new ArrayList<String>();
+	private final ArrayList<String> mergeArgs=new ArrayList<String>();
+	private final ArrayList<String> eccArgs=new ArrayList<String>();
+
+	private long readsIn=0, basesIn=0;
+	private long readsOut=0, basesOut=0;
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Final Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private PrintStream outstream=System.err;
+	public static boolean verbose=false;
+	public boolean errorState=false;
+	private boolean overwrite=true;
+	private boolean append=false;
+	private boolean ordered=false;
+
+}
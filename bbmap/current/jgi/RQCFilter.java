@@ -8,6 +8,7 @@ import java.util.TimeZone;
 
 import dna.Data;
 import dna.Parser;
+import stream.ConcurrentPipeReadInputStream;
 import stream.FASTQ;
 import tax.FilterByTaxa;
 import tax.GiToNcbi;
@@ -342,6 +343,10 @@ public class RQCFilter {
 				commonMicrobesBuild=Integer.parseInt(b);
 			}else if(a.equals("ordered")){
 				ordered=Tools.parseBoolean(b);
+			}else if(a.equals("pipeline")){
+				pipelineFlag=Tools.parseBoolean(b);
+			}else if(a.equals("pipebuffers") || a.equals("pipelen")){
+				pipeBuffers=Integer.parseInt(b);
 			}else if(a.equals("clump") || a.equals("clumpify")){
 				doClump=Tools.parseBoolean(b);
 			}else{
@@ -610,6 +615,19 @@ public class RQCFilter {
 				FASTQ.DETECT_QUALITY=false;
 			}
 			
+			//Consecutive BBDuk steps can run as one pipeline; the last one starts it
+			{
+				final int dukSteps=(doTrim ? 1 : 0)+(doFilter ? 2 : 0)+(riboFlag ? 1 : 0);
+				if(pipelineFlag && dukSteps>1){
+					if(reproduceName!=null){
+						System.err.println("Not using a pipeline, since piped steps can't be written to the reproduce file.");
+					}else{
+						dukPipeline=new ArrayList<DukStage>(dukSteps);
+						dukPipelineLength=dukSteps;
+					}
+				}
+			}
+			
 			//Adapter trimming
 			if(doTrim){
 				step++;
@@ -1133,22 +1151,9 @@ public class RQCFilter {
 			writeReproduceFile(reproduceName, "bbduk.sh", dukargs);
 		}
 		
-		{//Run BBDuk
-			BBDukF duk=new BBDukF(dukargs);
-			try {
-				duk.process();
-				System.err.println(format("Adapter Sequence Removed:", duk.readsIn, duk.readsOut, duk.basesIn, duk.basesOut));
-				log("#Remaining:\t"+duk.readsOut+" reads\t"+duk.basesOut+" bases", true, false);
-			} catch (Exception e) {
-				e.printStackTrace();
-				log("failed", true);
-				System.exit(1);
-			}
-		}
+		runDuk("ktrim", dukargs, "Adapter Sequence Removed:");
 		
 		//Optionally append files to file list here
-		
-		log("ktrim finish", true);
 	}
 	
 	/**
@@ -1263,22 +1268,9 @@ public class RQCFilter {
 			writeReproduceFile(reproduceName, "bbduk.sh", dukargs);
 		}
 		
-		{//Run BBDuk
-			BBDukF duk=new BBDukF(dukargs);
-			try {
-				duk.process();
-				System.err.println(format("Synthetic Contam Sequence Removed:", duk.readsIn, duk.readsOut, duk.basesIn, duk.basesOut));
-				log("#Remaining:\t"+duk.readsOut+" reads\t"+duk.basesOut+" bases", true, false);
-			} catch (Exception e) {
-				e.printStackTrace();
-				log("failed", true);
-				System.exit(1);
-			}
-		}
+		runDuk("filter", dukargs, "Synthetic Contam Sequence Removed:");
 		
 		//Optionally append files to file list here
-		
-		log("filter finish", true);
 	}
 	
 	/**
@@ -1343,22 +1335,9 @@ public class RQCFilter {
 			writeReproduceFile(reproduceName, "bbduk.sh", dukargs);
 		}
 		
-		{//Run BBDuk
-			BBDukF duk=new BBDukF(dukargs);
-			try {
-				duk.process();
-				System.err.println(format("Short Synthetic Contam Sequence Removed:", duk.readsIn, duk.readsOut, duk.basesIn, duk.basesOut));
-				log("#Remaining:\t"+duk.readsOut+" reads\t"+duk.basesOut+" bases", true, false);
-			} catch (Exception e) {
-				e.printStackTrace();
-				log("failed", true);
-				System.exit(1);
-			}
-		}
+		runDuk("short filter", dukargs, "Short Synthetic Contam Sequence Removed:");
 		
 		//Optionally append files to file list here
-		
-		log("short filter finish", true);
 	}
 	
 	/**
@@ -1414,11 +1393,28 @@ public class RQCFilter {
 			writeReproduceFile(reproduceName, "bbduk.sh", dukargs);
 		}
 		
+		runDuk("filter ribo", dukargs, "Ribosomal Sequence Removed:");
+		
+		//Optionally append files to file list here
+	}
+	
+	/**
+	 * Runs a BBDuk stage and reports its results, or adds it to the current pipeline.
+	 * @param name Stage name for the log
+	 * @param dukargs BBDuk arguments
+	 * @param label Prefix for the removal summary
+	 */
+	private void runDuk(String name, String[] dukargs, String label){
+		if(dukPipeline!=null){
+			addPipelineStage(name, dukargs, label);
+			return;
+		}
+		
 		{//Run BBDuk
 			BBDukF duk=new BBDukF(dukargs);
 			try {
 				duk.process();
-				System.err.println(format("Ribosomal Sequence Removed:", duk.readsIn, duk.readsOut, duk.basesIn, duk.basesOut));
+				System.err.println(format(label, duk.readsIn, duk.readsOut, duk.basesIn, duk.basesOut));
 				log("#Remaining:\t"+duk.readsOut+" reads\t"+duk.basesOut+" bases", true, false);
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -1426,10 +1422,85 @@ public class RQCFilter {
 				System.exit(1);
 			}
 		}
+		log(name+" finish", true);
+	}
+	
+	/**
+	 * Creates a BBDuk stage connected to the previous one by a pipe.
+	 * Only the first stage reads files and only the last writes reads; outm files are unchanged.
+	 * The stages run once the last one is added.
+	 */
+	private void addPipelineStage(String name, String[] dukargs, String label){
+		final int idx=dukPipeline.size();
+		final boolean first=(idx==0), last=(idx==dukPipelineLength-1);
+		
+		ArrayList<String> argList=new ArrayList<String>(dukargs.length);
+		boolean rqc=false;
+		for(String s : dukargs){
+			if(s.equals("rqc=hashmap")){
+				rqc=true;//Stages would finish in arbitrary order, so stats are added after they all finish
+			}else if(!first && (s.startsWith("in1=") || s.startsWith("in2="))){
+				//Reads come from the previous stage
+			}else if(!last && (s.startsWith("out1=") || s.startsWith("out2="))){
+				//Reads go to the next stage
+			}else{
+				argList.add(s);
+			}
+		}
 		
-		//Optionally append files to file list here
+		final ConcurrentPipeReadInputStream pipeIn=nextPipe;
+		nextPipe=(last ? null : ConcurrentPipeReadInputStream.makePipe(pipeBuffers, ordered));
+		final BBDukF duk=new BBDukF(argList.toArray(new String[0]), pipeIn, (nextPipe==null ? null : nextPipe.source));
+		if(first){//Later steps change these before the first stage would open its input
+			pipeForceInterleaved=FASTQ.FORCE_INTERLEAVED;
+			pipeTestInterleaved=FASTQ.TEST_INTERLEAVED;
+			pipeAsciiOffset=FASTQ.ASCII_OFFSET;
+			pipeDetectQuality=FASTQ.DETECT_QUALITY;
+		}
+		dukPipeline.add(new DukStage(name, label, duk, rqc));
+		if(last){runPipeline();}
+	}
+	
+	/** Runs the piped BBDuk stages concurrently, then reports them in order. */
+	private void runPipeline(){
+		final ArrayList<DukStage> stages=dukPipeline;
+		dukPipeline=null;
+		log("pipeline start", true);
+		
+		final boolean force=FASTQ.FORCE_INTERLEAVED, test=FASTQ.TEST_INTERLEAVED;
+		final byte offset=FASTQ.ASCII_OFFSET;
+		final boolean detect=FASTQ.DETECT_QUALITY;
+		FASTQ.FORCE_INTERLEAVED=pipeForceInterleaved;
+		FASTQ.TEST_INTERLEAVED=pipeTestInterleaved;
+		FASTQ.ASCII_OFFSET=pipeAsciiOffset;
+		FASTQ.DETECT_QUALITY=pipeDetectQuality;
+		for(DukStage st : stages){st.start();}
+		for(DukStage st : stages){
+			while(st.getState()!=Thread.State.TERMINATED){
+				try {
+					st.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		FASTQ.FORCE_INTERLEAVED=force;
+		FASTQ.TEST_INTERLEAVED=test;
+		FASTQ.ASCII_OFFSET=offset;
+		FASTQ.DETECT_QUALITY=detect;
 		
-		log("filter ribo finish", true);
+		for(int i=0; i<deferredPrefixes.size(); i++){delete(deferredPrefixes.get(i), deferredNames.get(i));}
+		deferredPrefixes.clear();
+		deferredNames.clear();
+		
+		for(DukStage st : stages){
+			final BBDukF duk=st.duk;
+			if(st.rqc){duk.addToRqcMap();}
+			System.err.println(format(st.label, duk.readsIn, duk.readsOut, duk.basesIn, duk.basesOut));
+			log("#Remaining:\t"+duk.readsOut+" reads\t"+duk.basesOut+" bases", true, false);
+			log(st.getName()+" finish", true);
+		}
+		log("pipeline finish", true);
 	}
 	
 	private String toPercent(long numerator, long denominator){
@@ -2212,6 +2283,11 @@ public class RQCFilter {
 	 */
 	private void delete(String prefix, String...names){
 		if(!deleteTemp){return;}
+		if(dukPipeline!=null){//Piped stages have not read their input yet
+			deferredPrefixes.add(prefix);
+			deferredNames.add(names);
+			return;
+		}
 		log("delete temp files start", true);
 		if(names!=null){
 			final String pre=(prefix==null ? "" : (tmpDir==null ? outDir : tmpDir)+prefix);
@@ -2360,6 +2436,38 @@ public class RQCFilter {
 		throw new RuntimeException("Unknown library type "+s);
 	}
 	
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+	
+	/** Runs one piped BBDuk stage.  A failed stage would stall its neighbors, so the process exits. */
+	private class DukStage extends Thread {
+		
+		DukStage(String name_, String label_, BBDukF duk_, boolean rqc_){
+			super(name_);
+			label=label_;
+			duk=duk_;
+			rqc=rqc_;
+		}
+		
+		@Override
+		public void run(){
+			try {
+				duk.process();
+			} catch (Throwable e) {
+				e.printStackTrace();
+				log("failed", true);
+				System.exit(1);
+			}
+		}
+		
+		/** Prefix for the removal summary */
+		final String label;
+		final BBDukF duk;
+		/** Add this stage's stats to the RQC map */
+		final boolean rqc;
+	}
+	
 	/*--------------------------------------------------------------*/
 	/*----------------            Fields            ----------------*/
 	/*--------------------------------------------------------------*/
@@ -2562,6 +2670,27 @@ public class RQCFilter {
 	
 	private boolean ordered=false;
 	
+	/**
+	 * Run consecutive BBDuk steps concurrently, connected by in-memory pipes instead of temp files.
+	 * Every piped stage is built before any of them runs, so all of their references
+	 * (up to four: adapters, synthetic contaminants, short contaminants, and ribo) are loaded at once, and each stage
+	 * starts a full set of processing threads.  Peak memory is the sum of the stages' tables.
+	 */
+	private boolean pipelineFlag=false;
+	/** Read lists buffered between piped stages */
+	private int pipeBuffers=Tools.max(8, Shared.threads());
+	/** Stages added so far; non-null only while a pipeline is being built */
+	private ArrayList<DukStage> dukPipeline=null;
+	private int dukPipelineLength=0;
+	/** Input end of the pipe to the next stage */
+	private ConcurrentPipeReadInputStream nextPipe=null;
+	/** Interleaving and quality flags in effect when the first piped stage was made */
+	private boolean pipeForceInterleaved, pipeTestInterleaved, pipeDetectQuality;
+	private byte pipeAsciiOffset;
+	/** Temp files to delete once the pipeline has run */
+	private final ArrayList<String> deferredPrefixes=new ArrayList<String>();
+	private final ArrayList<String[]> deferredNames=new ArrayList<String[]>();
+	
 	/*--------------------------------------------------------------*/
 	/*----------------        Separated Reads       ----------------*/
 	/*--------------------------------------------------------------*/
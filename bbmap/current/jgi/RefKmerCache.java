@@ -0,0 +1,247 @@
+package jgi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+import kmer.AbstractKmerTable;
+import kmer.HashArray;
+import kmer.KmerTableSnapshot;
+import shared.Timer;
+import structures.IntList;
+
+/**
+ * On-disk cache of reference kmer tables for BBDuk and Seal.
+ * The finished tables are saved as a KmerTableSnapshot, and the scaffold names, per-scaffold
+ * lists such as lengths, and reference statistics go in a small metadata file next to it.
+ * Entries are keyed by the checksums of the reference files and literals, plus every
+ * setting that changes which kmers are stored, so a cache directory can be shared across
+ * references and settings.  Later runs with the same key memory-map the tables instead of
+ * hashing and mutating the reference.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class RefKmerCache {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param dir Cache directory; created if needed
+	 * @param refs Reference files; stdin can't be cached
+	 * @param literals Literal sequences, or null
+	 * @param settings Every option that affects which kmers and values are stored
+	 */
+	public RefKmerCache(String dir, Collection<String> refs, String[] literals, String settings){
+		checksums=new long[refs==null ? 0 : refs.size()];
+		boolean ok=true;
+		int i=0;
+		if(refs!=null){
+			for(String ref : refs){
+				final File f=new File(ref);
+				if(!f.isFile()){ok=false;}
+				else{checksums[i]=checksum(f);}
+				i++;
+			}
+		}
+		final StringBuilder sb=new StringBuilder(settings);
+		if(literals!=null){
+			for(String s : literals){sb.append(",lit=").append(s);}
+		}
+		key=sb.toString();
+		valid=ok;
+
+		final CRC32 crc=new CRC32();
+		crc.update(key.getBytes());
+		for(long x : checksums){
+			for(int j=0; j<64; j+=8){crc.update((int)(x>>>j));}
+		}
+		final String prefix=dir+"/refkmers_"+Long.toHexString(crc.getValue())+"_"+Integer.toHexString(key.hashCode());
+		tableFile=prefix+".tables";
+		metaFile=prefix+".meta";
+		if(valid){new File(dir).mkdirs();}
+	}
+
+	/** CRC32 of the file's raw bytes. */
+	private static long checksum(File f){
+		final CRC32 crc=new CRC32();
+		final byte[] buffer=new byte[1<<16];
+		try {
+			final InputStream is=new FileInputStream(f);
+			for(int len=is.read(buffer); len>0; len=is.read(buffer)){crc.update(buffer, 0, len);}
+			is.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Failed reading "+f, e);
+		}
+		return (crc.getValue()<<32)|(f.length()&0xFFFFFFFFL);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** True if a complete entry exists for these references and settings. */
+	public boolean exists(){
+		if(!valid || !new File(tableFile).isFile() || !new File(metaFile).isFile()){return false;}
+		try {
+			final DataInputStream dis=new DataInputStream(new BufferedInputStream(new FileInputStream(metaFile)));
+			final boolean match=readKey(dis);
+			dis.close();
+			return match;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Loads the cached tables and metadata.
+	 * @param tables Filled with the loaded tables; must have the cached number of ways
+	 * @param names Replaced with the cached scaffold names
+	 * @param refScafCounts Filled with scaffolds per reference
+	 * @param lists Replaced with the cached lists, in the order they were saved
+	 * @return {storedKmers, refKmers, refBases, refReads}
+	 */
+	public long[] load(AbstractKmerTable[] tables, int k, boolean rcomp, long coreMask, int threads,
+			ArrayList<String> names, int[] refScafCounts, IntList...lists){
+		Timer t=new Timer();
+		final long[] stats=new long[4];
+		try {
+			final DataInputStream dis=new DataInputStream(new BufferedInputStream(new FileInputStream(metaFile)));
+			if(!readKey(dis)){throw new RuntimeException("Reference cache entry "+metaFile+" does not match.");}
+			for(int i=0; i<stats.length; i++){stats[i]=dis.readLong();}
+			final int refs=dis.readInt();
+			assert(refs==refScafCounts.length) : refs+", "+refScafCounts.length;
+			for(int i=0; i<refs; i++){refScafCounts[i]=dis.readInt();}
+			names.clear();
+			final int scafs=dis.readInt();
+			for(int i=0; i<scafs; i++){names.add(readString(dis));}
+			final int numLists=dis.readInt();
+			assert(numLists==lists.length) : numLists+", "+lists.length;
+			for(IntList list : lists){
+				list.clear();
+				final int len=dis.readInt();
+				for(int i=0; i<len; i++){list.add(dis.readInt());}
+			}
+			dis.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Failed reading reference cache entry "+metaFile, e);
+		}
+
+		final HashArray[] loaded=KmerTableSnapshot.read(tableFile, k, rcomp, coreMask, threads);
+		if(loaded.length!=tables.length){
+			throw new RuntimeException("Reference cache entry "+tableFile+" has "+loaded.length+" ways, not "+tables.length);
+		}
+		for(int i=0; i<tables.length; i++){tables[i]=loaded[i];}
+		t.stop();
+		System.err.println("Loaded "+stats[0]+" cached reference kmers from "+tableFile+"; time: \t"+t);
+		return stats;
+	}
+
+	/**
+	 * Saves the tables and metadata.  Files are written under temporary names and renamed,
+	 * so concurrent runs never see a partial entry.
+	 */
+	public void save(AbstractKmerTable[] tables, int k, boolean rcomp, ArrayList<String> names, int[] refScafCounts,
+			long storedKmers, long refKmers, long refBases, long refReads, IntList...lists){
+		if(!valid){return;}
+		Timer t=new Timer();
+		final String suffix="."+System.nanoTime()+".tmp";
+		final File tables2=new File(tableFile+suffix), meta2=new File(metaFile+suffix);
+		KmerTableSnapshot.write(tables, k, rcomp, tables2.getPath());
+		try {
+			final DataOutputStream dos=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(meta2)));
+			dos.writeLong(MAGIC);
+			dos.writeInt(VERSION);
+			writeString(key, dos);
+			dos.writeInt(checksums.length);
+			for(long x : checksums){dos.writeLong(x);}
+			dos.writeLong(storedKmers);
+			dos.writeLong(refKmers);
+			dos.writeLong(refBases);
+			dos.writeLong(refReads);
+			dos.writeInt(refScafCounts.length);
+			for(int x : refScafCounts){dos.writeInt(x);}
+			dos.writeInt(names.size());
+			for(String s : names){writeString(s, dos);}
+			dos.writeInt(lists.length);
+			for(IntList list : lists){
+				dos.writeInt(list.size());
+				for(int i=0; i<list.size(); i++){dos.writeInt(list.get(i));}
+			}
+			dos.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Failed writing reference cache entry "+metaFile, e);
+		}
+		//The meta file is renamed last, since exists() requires it
+		if(!tables2.renameTo(new File(tableFile)) || !meta2.renameTo(new File(metaFile))){
+			tables2.delete();
+			meta2.delete();
+			System.err.println("Warning: Could not save reference cache entry "+metaFile);
+			return;
+		}
+		t.stop();
+		System.err.println("Saved reference kmers to "+tableFile+"; time: \t"+t);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Reads the header and key; returns true if they match this cache's. */
+	private boolean readKey(DataInputStream dis) throws IOException {
+		if(dis.readLong()!=MAGIC || dis.readInt()!=VERSION){return false;}
+		if(!key.equals(readString(dis))){return false;}
+		final long[] checksums2=new long[dis.readInt()];
+		for(int i=0; i<checksums2.length; i++){checksums2[i]=dis.readLong();}
+		return Arrays.equals(checksums, checksums2);
+	}
+
+	private static void writeString(String s, DataOutputStream dos) throws IOException {
+		if(s==null){
+			dos.writeInt(-1);
+		}else{
+			final byte[] b=s.getBytes();
+			dos.writeInt(b.length);
+			dos.write(b);
+		}
+	}
+
+	private static String readString(DataInputStream dis) throws IOException {
+		final int len=dis.readInt();
+		if(len<0){return null;}
+		final byte[] b=new byte[len];
+		dis.readFully(b);
+		return new String(b);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Settings and literals */
+	private final String key;
+	/** Checksum and length of each reference file */
+	private final long[] checksums;
+	/** False if some reference can't be checksummed, e.g. stdin */
+	public final boolean valid;
+
+	public final String tableFile;
+	public final String metaFile;
+
+	/** "BBREFKMC" */
+	private static final long MAGIC=0x434D4B4645524242L;
+	private static final int VERSION=1;
+
+}
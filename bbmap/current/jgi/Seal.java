@@ -188,6 +188,8 @@ public class Seal {
 				ref.clear();
 				String[] b2=(b==null) ? null : (new File(b).exists() ? new String[] {b} : b.split(","));
 				for(String b3 : b2){ref.add(b3);}
+			}else if(a.equals("refcache") || a.equals("kmercache")){
+				refCacheDir=b;
 			}else if(a.equals("literal")){
 				literal=(b==null) ? null : b.split(",");
 //				assert(false) : b+", "+Arrays.toString(literal);
@@ -443,6 +445,9 @@ public class Seal {
 		
 		/* Set final variables; post-process and validate argument combinations */
 		
+		if(refCacheDir!=null && tableType_==AbstractKmerTable.ARRAYHF){
+			tableType_=AbstractKmerTable.ARRAYH;//Same behavior; this one can be saved to the cache
+		}
 		tableType=tableType_;
 		hammingDistance=Tools.max(editDistance, hammingDistance);
 		refSkip=Tools.max(0, refSkip);
@@ -597,9 +602,24 @@ public class Seal {
 		}
 		
 		//Initialize tables
-		ScheduleMaker scheduleMaker=new ScheduleMaker(WAYS, 14, prealloc_, (prealloc_ ? preallocFraction : 0.9));
-		int[] schedule=scheduleMaker.makeSchedule();
-		keySets=AbstractKmerTable.preallocate(WAYS, tableType, schedule, -1L);
+		if(refCacheDir!=null && (tableType==AbstractKmerTable.ARRAY1D || tableType==AbstractKmerTable.ARRAYH) && !storeRefBases){
+			refCache=new RefKmerCache(refCacheDir, ref, literal, cacheSettings());
+			if(!refCache.valid){outstream.println("Warning: Reference kmers can't be cached for stdin.");}
+		}else{
+			if(refCacheDir!=null){
+				outstream.println("Warning: refcache requires the array1 or hybrid table type, and is incompatible with refbases; ignoring.");
+			}
+			refCache=null;
+		}
+		//Checked once, since the tables are only preallocated when the cache will not be used
+		refCached=(refCache!=null && refCache.exists());
+		if(refCached){
+			keySets=new AbstractKmerTable[WAYS];//Filled from the cache in process2
+		}else{
+			ScheduleMaker scheduleMaker=new ScheduleMaker(WAYS, 14, prealloc_, (prealloc_ ? preallocFraction : 0.9));
+			int[] schedule=scheduleMaker.makeSchedule();
+			keySets=AbstractKmerTable.preallocate(WAYS, tableType, schedule, -1L);
+		}
 	}
 	
 	
@@ -673,7 +693,7 @@ public class Seal {
 			FastaReadInputStream.SPLIT_READS=false;
 			FastaReadInputStream.MIN_READ_LEN=1;
 			
-			storedKmers=spawnLoadThreads();
+			storedKmers=(refCache==null ? spawnLoadThreads() : loadCachedRef());
 			
 			FASTQ.TEST_INTERLEAVED=oldTI;
 			FASTQ.FORCE_INTERLEAVED=oldFI;
@@ -1142,6 +1162,33 @@ public class Seal {
 		tree.percolateUp();
 	}
 	
+	/**
+	 * Loads reference kmers from the cache if it was present at construction; otherwise fills the tables and saves them.
+	 * @return Number of kmers stored.
+	 */
+	private long loadCachedRef(){
+		if(refCached){
+			final long[] stats=refCache.load(keySets, k, rcomp, -1L, THREADS, scaffoldNames, refScafCounts, scaffoldLengths, scaffoldKmers);
+			refKmers=stats[1];
+			refBases=stats[2];
+			refReads=stats[3];
+			scaffoldReadCounts=new AtomicLongArray(scaffoldNames.size());
+			scaffoldFragCounts=new AtomicLongArray(scaffoldNames.size());
+			scaffoldBaseCounts=new AtomicLongArray(scaffoldNames.size());
+			return stats[0];
+		}
+		final long added=spawnLoadThreads();
+		refCache.save(keySets, k, rcomp, scaffoldNames, refScafCounts, added, refKmers, refBases, refReads, scaffoldLengths, scaffoldKmers);
+		return added;
+	}
+	
+	/** Every setting that changes which reference kmers are stored, or their values. */
+	private String cacheSettings(){
+		return "seal,k="+k+",hdist="+hammingDistance+",edist="+editDistance+",rcomp="+rcomp+",maskmiddle="+maskMiddle+
+				",middlemask="+middleMask+",rskip="+refSkip+",speed="+speed+",ways="+WAYS+",replicate="+REPLICATE_AMBIGUOUS+
+				",refnames="+useRefNames+",tabletype="+tableType;
+	}
+	
 	/**
 	 * Fills tables with kmers from references, using multiple LoadThread.
 	 * @return Number of kmers stored.
@@ -2810,6 +2857,12 @@ public class Seal {
 	private ArrayList<String> ref=new ArrayList<String>();
 	/** Array of literal strings from which to load kmers */
 	private String[] literal=null;
+	/** Directory for cached reference kmer tables */
+	private String refCacheDir=null;
+	/** Cache entry for this reference and settings, or null */
+	private final RefKmerCache refCache;
+	/** True if the cache entry existed at construction, so the tables were left empty for it */
+	private final boolean refCached;
 	/** Taxonomic tree */
 	private TaxTree tree;
 	
@@ -53,6 +53,36 @@ public abstract class AbstractKmerTable {
 	 */
 	public abstract int getValue(long kmer);
 	
+	/**
+	 * Fetch the value associated with a kmer, starting the search at startCell(kmer).
+	 * Tables that have no cells ignore startCell.
+	 */
+	public int getValue(long kmer, int startCell){return getValue(kmer);}
+	
+	/** First cell searched for this kmer; 0 for tables that have no cells. */
+	public int startCell(long kmer){return 0;}
+	
+	/**
+	 * Fetch the values of many kmers at once.  Every start cell is computed before any is probed,
+	 * so the probes are issued back to back and their cache misses overlap.
+	 * @param tables Tables by way; kmer x is in tables[x%tables.length]
+	 * @param kmers Kmers to look up
+	 * @param cells Scratch space, at least count long
+	 * @param values Filled with values; -1 means not present
+	 * @param count Number of kmers
+	 */
+	public static final void getValues(final AbstractKmerTable[] tables, final long[] kmers, final int[] cells, final int[] values, final int count){
+		final int ways=tables.length;
+		for(int i=0; i<count; i++){
+			final long kmer=kmers[i];
+			cells[i]=tables[(int)(kmer%ways)].startCell(kmer);
+		}
+		for(int i=0; i<count; i++){
+			final long kmer=kmers[i];
+			values[i]=tables[(int)(kmer%ways)].getValue(kmer, cells[i]);
+		}
+	}
+	
 	/**
 	 * Fetch the values associated with a kmer.
 	 * @param kmer
@@ -137,6 +167,9 @@ public abstract class AbstractKmerTable {
 		throw new RuntimeException("Unimplemented.");
 	}
 	
+	/** True if concurrent access needs no external locking */
+	boolean lockFree(){return false;}
+	
 	/*--------------------------------------------------------------*/
 	/*---------------       Allocation Methods      ----------------*/
 	/*--------------------------------------------------------------*/
@@ -472,6 +505,10 @@ public abstract class AbstractKmerTable {
 				}else if(type==ARRAYHF){
 					akt=new HashArrayHybridFast(schedule, mask);
 //					akt=new HashArrayHybrid(size, -1, mask, growable);//TODO: Set maxSize
+				}else if(type==ARRAYLF){
+					akt=new HashArrayLockFree(schedule, mask);
+				}else if(type==ARRAYOH){
+					akt=new HashArrayOffHeap(schedule, mask);
 				}else{
 					throw new RuntimeException("Must use forest, table, or array data structure. Type="+type);
 				}
@@ -504,7 +541,7 @@ public abstract class AbstractKmerTable {
 	public static final boolean verbose=false;
 	public static final boolean TESTMODE=false; //123 SLOW!
 	
-	public static final int UNKNOWN=0, ARRAY1D=1, FOREST1D=2, TABLE=3, NODE1D=4, ARRAY2D=5, FOREST2D=6, TABLE2D=7, NODE2D=8, ARRAYH=9, ARRAYHF=10;
+	public static final int UNKNOWN=0, ARRAY1D=1, FOREST1D=2, TABLE=3, NODE1D=4, ARRAY2D=5, FOREST2D=6, TABLE2D=7, NODE2D=8, ARRAYH=9, ARRAYHF=10, ARRAYLF=11, ARRAYOH=12;
 	
 	public static final int NOT_PRESENT=-1, HASH_COLLISION=-2;
 	public static final int NO_OWNER=-1;
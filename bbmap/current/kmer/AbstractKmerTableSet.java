@@ -57,7 +57,11 @@ public abstract class AbstractKmerTableSet {
 			}else if(a.equals("onepass")){
 			}else if(a.equals("passes")){
 			}else if(a.equals("rcomp")){
+			}else if(a.equals("pairtables")){
 			}else if(a.equals("filtermemory") || a.equals("prefiltermemory") || a.equals("filtermem")){
+			}else if(a.equals("tabletype") || a.equals("lockfree") || a.equals("offheap") || a.equals("offheapmem") || a.equals("offheapmemory")){
+			}else if(a.equals("tablein") || a.equals("tableout")){
+			}else if(a.equals("diskbins") || a.equals("bintemp") || a.equals("binmincount") || a.equals("binmlen")){
 			}else{
 				return false;
 			}
@@ -93,6 +97,14 @@ public abstract class AbstractKmerTableSet {
 		
 		/* Start phase timer */
 		Timer t=new Timer();
+		
+		/* Reload a saved table instead of counting */
+		if(tableIn!=null){
+			assert(!allocated);
+			long added=loadSnapshot(tableIn);
+			allocated=true;
+			return added;
+		}
 
 //		if(DISPLAY_PROGRESS){
 //			outstream.println("Before loading:");
@@ -128,6 +140,8 @@ public abstract class AbstractKmerTableSet {
 		
 		/* Fill tables with kmers */
 		long added=loadKmers();
+		finishLoading();
+		if(tableOut!=null){writeSnapshot(tableOut);}
 		
 		/* Clear prefilter; no longer needed */
 		prefilterArray=null;
@@ -281,6 +295,7 @@ public abstract class AbstractKmerTableSet {
 			}
 			kmersLoaded+=loadKmers(a, b);
 		}
+		kmersLoaded+=countBins();
 		Read.VALIDATE_IN_CONSTRUCTOR=vic;
 		return kmersLoaded;
 	}
@@ -439,6 +454,10 @@ public abstract class AbstractKmerTableSet {
 
 	/** Input reads for kmers */
 	public ArrayList<String> in1=new ArrayList<String>(), in2=new ArrayList<String>();
+	/** Binary table snapshot to load instead of counting kmers */
+	public String tableIn=null;
+	/** Write a binary table snapshot here after counting */
+	public String tableOut=null;
 	
 	/** Extra files for use as kmers */
 	public ArrayList<String> extra=new ArrayList<String>();
@@ -485,6 +504,18 @@ public abstract class AbstractKmerTableSet {
 	/*--------------------------------------------------------------*/
 	
 	protected abstract void allocateTables();
+	/** Called once all kmers are loaded, before the tables are used */
+	protected void finishLoading(){}
+	/** Counts kmers spilled to disk bins while loading, if any.  Returns the number of kmers added. */
+	protected long countBins(){return 0;}
+	/** Loads tables from a snapshot made by writeSnapshot.  Returns the number of kmers loaded. */
+	protected long loadSnapshot(String fname){
+		throw new RuntimeException(getClass().getSimpleName()+" does not support table snapshots.");
+	}
+	/** Saves the loaded tables to a binary snapshot. */
+	protected void writeSnapshot(String fname){
+		throw new RuntimeException(getClass().getSimpleName()+" does not support table snapshots.");
+	}
 	protected boolean allocated=false;
 
 	/** Print messages to this stream */
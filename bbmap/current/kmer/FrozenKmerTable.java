@@ -0,0 +1,421 @@
+package kmer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fileIO.ByteStreamWriter;
+import fileIO.TextStreamWriter;
+import shared.Shared;
+import shared.Tools;
+import structures.ByteBuilder;
+import structures.SuperLongList;
+
+/**
+ * Compact read-only kmer table, built from a finished HashArray1D, HashArrayOffHeap or HashForest.
+ * Kmers are stored as invertible hashes in an ordered linear-probing array: each hash sits at
+ * or just after its ideal cell, and hashes increase along the array, so a lookup scans
+ * forward from the ideal cell until it reaches a hash at least as large as the query.
+ * Empty cells hold Long.MAX_VALUE, which also ends the scan, so there are no victims,
+ * ownership arrays or bucket indices, and the probe loop has a single comparison.
+ * Values are stored as chars when they all fit in 16 bits.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class FrozenKmerTable extends AbstractKmerTable {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Replaces tables[idx] with a frozen copy of it.
+	 * The source is released as soon as its contents are extracted, and each intermediate array
+	 * as soon as it is consumed, so the extra memory stays near that of one copy of the kmers.
+	 * Off-heap sources are freed.
+	 */
+	private FrozenKmerTable(final AbstractKmerTable[] tables, final int idx){
+		long[] rawKeys;
+		int[] rawValues;
+		int size=0;
+		{
+			AbstractKmerTable table=tables[idx];
+			assert(supported(table)) : table;
+			ArrayList<KmerNode> nodes;
+			if(table instanceof HashArray1D){
+				final HashArray1D ha=(HashArray1D)table;
+				final long[] array=ha.array();
+				final int[] vals=ha.values();
+				nodes=ha.victims().toList();
+				rawKeys=new long[(int)ha.size()+nodes.size()];
+				rawValues=new int[rawKeys.length];
+				for(int cell=0; cell<array.length; cell++){
+					if(array[cell]!=NOT_PRESENT){
+						rawKeys[size]=array[cell];
+						rawValues[size]=vals[cell];
+						size++;
+					}
+				}
+			}else if(table instanceof HashArrayOffHeap){
+				final HashArrayOffHeap ha=(HashArrayOffHeap)table;
+				nodes=ha.victims().toList();
+				rawKeys=new long[(int)ha.size()+nodes.size()];
+				rawValues=new int[rawKeys.length];
+				for(int cell=0, max=ha.arrayLength(); cell<max; cell++){
+					final long kmer=ha.getKmer(cell);
+					if(kmer!=NOT_PRESENT){
+						rawKeys[size]=kmer;
+						rawValues[size]=ha.readCellValue(cell);
+						size++;
+					}
+				}
+			}else{
+				nodes=((HashForest)table).toList();
+				rawKeys=new long[nodes.size()];
+				rawValues=new int[rawKeys.length];
+			}
+			for(KmerNode n : nodes){
+				rawKeys[size]=n.pivot;
+				rawValues[size]=n.value();
+				size++;
+			}
+			assert(size==rawKeys.length) : size+", "+rawKeys.length;
+			nodes=null;
+			tables[idx]=null;
+			if(table instanceof HashArrayOffHeap){((HashArrayOffHeap)table).free();}
+			table=null;
+		}
+		cells=(int)Tools.min(Integer.MAX_VALUE-64, (long)(size/LOAD_FACTOR)+1);
+
+		//Counting sort by ideal cell; cells are monotonic in the hash
+		int[] counts=new int[cells+1];
+		int maxValue=0, minValue=0;
+		for(int i=0; i<size; i++){
+			assert(rawKeys[i]>=0) : rawKeys[i];
+			final long h=rawKeys[i]=hash(rawKeys[i]);
+			counts[idealCell(h)+1]++;
+			maxValue=Tools.max(maxValue, rawValues[i]);
+			minValue=Tools.min(minValue, rawValues[i]);
+		}
+		for(int i=0; i<cells; i++){counts[i+1]+=counts[i];}
+		final int n=size;
+		long[] sortedKeys=new long[n];
+		int[] sortedValues=new int[n];
+		for(int i=0; i<n; i++){
+			final int p=counts[idealCell(rawKeys[i])]++;
+			sortedKeys[p]=rawKeys[i];
+			sortedValues[p]=rawValues[i];
+		}
+		rawKeys=null;
+		rawValues=null;
+		counts=null;
+
+		//Sort hashes sharing an ideal cell; these groups average under one element
+		for(int i=1; i<n; i++){
+			final long h=sortedKeys[i];
+			final int v=sortedValues[i];
+			int j=i-1;
+			for(; j>=0 && sortedKeys[j]>h; j--){
+				sortedKeys[j+1]=sortedKeys[j];
+				sortedValues[j+1]=sortedValues[j];
+			}
+			sortedKeys[j+1]=h;
+			sortedValues[j+1]=v;
+		}
+
+		//Place each hash at its ideal cell, or just after its predecessor
+		int last=-1;
+		for(int i=0; i<n; i++){last=Tools.max(idealCell(sortedKeys[i]), last+1);}
+		final int length=Tools.max(cells, last+1)+PAD;//Trailing EMPTY cells stop every scan
+		array=new long[length];
+		Arrays.fill(array, EMPTY);
+		final boolean small=(minValue>=0 && maxValue<=Character.MAX_VALUE);
+		values=(small ? null : new int[length]);
+		smallValues=(small ? new char[length] : null);
+		last=-1;
+		for(int i=0; i<n; i++){
+			last=Tools.max(idealCell(sortedKeys[i]), last+1);
+			array[last]=sortedKeys[i];
+			if(small){smallValues[last]=(char)sortedValues[i];}
+			else{values[last]=sortedValues[i];}
+		}
+		this.size=n;
+		sortedKeys=null;
+		sortedValues=null;
+	}
+
+	/** True if this table type can be frozen */
+	public static boolean supported(final AbstractKmerTable table){
+		return table instanceof HashArray1D || table instanceof HashArrayOffHeap || table instanceof HashForest;
+	}
+
+	/**
+	 * Replaces each supported table in the array with a frozen copy, using multiple threads.
+	 * Off-heap tables are freed once copied.
+	 * Concurrency is capped so that the intermediate arrays of the largest table,
+	 * times the number of threads, fit in the available memory.
+	 * @return Number of tables frozen.
+	 */
+	public static int freeze(final AbstractKmerTable[] tables, final int threads){
+		long maxSize=0;
+		for(AbstractKmerTable table : tables){
+			if(supported(table)){maxSize=Tools.max(maxSize, table.size());}
+		}
+		//Raw and sorted key/value arrays plus the counts array, while the source is still counted
+		final long bytesPerTable=Tools.max(1, (long)(maxSize*(24+4/LOAD_FACTOR)));
+		final int maxThreads=(int)Tools.mid(1, Shared.memAvailable()/bytesPerTable, threads);
+		final AtomicInteger next=new AtomicInteger(0), frozen=new AtomicInteger(0);
+		final ArrayList<FreezeThread> list=new ArrayList<FreezeThread>();
+		for(int i=0; i<Tools.mid(1, maxThreads, tables.length); i++){
+			list.add(new FreezeThread(tables, next, frozen));
+		}
+		for(FreezeThread ft : list){ft.start();}
+		for(FreezeThread ft : list){
+			while(ft.getState()!=Thread.State.TERMINATED){
+				try {
+					ft.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return frozen.get();
+	}
+
+	private static class FreezeThread extends Thread {
+
+		FreezeThread(AbstractKmerTable[] tables_, AtomicInteger next_, AtomicInteger frozen_){
+			tables=tables_;
+			next=next_;
+			frozen=frozen_;
+		}
+
+		@Override
+		public void run(){
+			for(int i=next.getAndIncrement(); i<tables.length; i=next.getAndIncrement()){
+				if(supported(tables[i])){
+					tables[i]=new FrozenKmerTable(tables, i);
+					frozen.incrementAndGet();
+				}
+			}
+		}
+
+		private final AbstractKmerTable[] tables;
+		private final AtomicInteger next, frozen;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Public Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public int getValue(final long kmer){
+		return getValue(kmer, startCell(kmer));
+	}
+
+	@Override
+	public int getValue(final long kmer, final int startCell){
+		final long h=hash(kmer);
+		int i=startCell;
+		//Branch-free count over the first 4 cells, since most scans end there
+		i+=(array[i]<h ? 1 : 0)+(array[i+1]<h ? 1 : 0)+(array[i+2]<h ? 1 : 0)+(array[i+3]<h ? 1 : 0);
+		while(array[i]<h){i++;}
+		return array[i]!=h ? NOT_PRESENT : smallValues!=null ? smallValues[i] : values[i];
+	}
+
+	@Override
+	public int[] getValues(long kmer, int[] singleton){
+		singleton[0]=getValue(kmer);
+		return singleton;
+	}
+
+	@Override
+	public boolean contains(long kmer){
+		return getValue(kmer)!=NOT_PRESENT;
+	}
+
+	/** Approximate heap usage of this table, in bytes. */
+	public long bytesUsed(){
+		return array.length*(smallValues!=null ? 10L : 12L);
+	}
+
+	@Override
+	public int startCell(final long kmer){
+		return idealCell(hash(kmer));
+	}
+
+	/** Cell where this hash would be placed with no collisions. */
+	private int idealCell(final long h){
+		return (int)((((h^Long.MIN_VALUE)>>>32)*cells)>>>32);
+	}
+
+	/** Bijective mix, so the hash can be stored instead of the kmer.  Only -1 maps to EMPTY. */
+	private static long hash(final long kmer){
+		return ((kmer^(kmer>>>29))*HASH_MULT)^HASH_XOR;
+	}
+
+	private static long unhash(final long h){
+		final long x=(h^HASH_XOR)*HASH_MULT_INVERSE;
+		return x^(x>>>29)^(x>>>58);
+	}
+
+	private int valueAt(final int i){
+		return smallValues!=null ? smallValues[i] : values[i];
+	}
+
+	/** Multiplicative inverse of an odd number, modulo 2^64, by Newton's method. */
+	private static long inverse(final long odd){
+		long x=odd;
+		for(int i=0; i<5; i++){x*=2-odd*x;}
+		assert(x*odd==1);
+		return x;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------       Unsupported Ops        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public int increment(long kmer, int incr){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public int incrementAndReturnNumCreated(long kmer, int incr){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public int set(long kmer, int value){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public int set(long kmer, int[] vals, int vlen){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public int setIfNotPresent(long kmer, int value){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public int setOwner(long kmer, int newOwner){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public boolean clearOwner(long kmer, int owner){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public int getOwner(long kmer){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public void initializeOwnership(){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public void clearOwnership(){}
+
+	@Override
+	Object get(long kmer){throw new RuntimeException("Unimplemented.");}
+
+	@Override
+	void resize(){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	boolean canResize(){return false;}
+
+	@Override
+	public boolean canRebalance(){return false;}
+
+	@Override
+	public void rebalance(){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	long regenerate(int limit){throw new RuntimeException(READ_ONLY);}
+
+	@Override
+	public long size(){return size;}
+
+	@Override
+	public int arrayLength(){return array.length;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Info Dumping         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public boolean dumpKmersAsText(TextStreamWriter tsw, int k, int mincount, int maxcount){
+		for(int i=0; i<array.length; i++){
+			if(array[i]!=EMPTY && (mincount<2 || valueAt(i)>=mincount)){
+				tsw.print(toText(unhash(array[i]), valueAt(i), k).append('\n'));
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean dumpKmersAsBytes(ByteStreamWriter bsw, int k, int mincount, int maxcount, AtomicLong remaining){
+		for(int i=0; i<array.length; i++){
+			if(array[i]!=EMPTY && (mincount<2 || valueAt(i)>=mincount)){
+				if(remaining!=null && remaining.decrementAndGet()<0){return true;}
+				bsw.printlnKmer(unhash(array[i]), valueAt(i), k);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean dumpKmersAsBytes_MT(final ByteStreamWriter bsw, final ByteBuilder bb, final int k, final int mincount, int maxcount, AtomicLong remaining){
+		for(int i=0; i<array.length; i++){
+			if(array[i]!=EMPTY && (mincount<2 || valueAt(i)>=mincount)){
+				if(remaining!=null && remaining.decrementAndGet()<0){return true;}
+				toBytes(unhash(array[i]), valueAt(i), k, bb);
+				bb.nl();
+				if(bb.length()>=16000){
+					ByteBuilder bb2=new ByteBuilder(bb);
+					synchronized(bsw){bsw.addJob(bb2);}
+					bb.clear();
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void fillHistogram(long[] ca, int max){
+		for(int i=0; i<array.length; i++){
+			if(array[i]!=EMPTY){ca[Tools.min(valueAt(i), max)]++;}
+		}
+	}
+
+	@Override
+	public void fillHistogram(SuperLongList sll){
+		for(int i=0; i<array.length; i++){
+			if(array[i]!=EMPTY){sll.add(valueAt(i));}
+		}
+	}
+
+	@Override
+	public void countGC(long[] gcCounts, int max){
+		for(int i=0; i<array.length; i++){
+			if(array[i]!=EMPTY){gcCounts[Tools.min(valueAt(i), max)]+=gc(unhash(array[i]));}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Hashed kmers in increasing order, or EMPTY */
+	private final long[] array;
+	/** Values, when some do not fit in a char */
+	private final int[] values;
+	/** Values, when all fit in a char */
+	private final char[] smallValues;
+	/** Number of ideal cells; the array extends past this to hold overflow */
+	private final int cells;
+	private final long size;
+
+	/** Fraction of ideal cells that are used; lower is faster but larger */
+	public static float LOAD_FACTOR=0.7f;
+	private static final long EMPTY=Long.MAX_VALUE;
+	/** Empty cells after the last used cell */
+	private static final int PAD=4;
+	private static final long HASH_MULT=0x9E3779B97F4A7C15L;
+	private static final long HASH_XOR=((-1L^(-1L>>>29))*HASH_MULT)^EMPTY;
+	private static final long HASH_MULT_INVERSE=inverse(HASH_MULT);
+	private static final String READ_ONLY="Frozen kmer tables are read-only.";
+
+}
@@ -225,6 +225,12 @@ public abstract class HashArray extends AbstractKmerTable {
 		return readCellValue(cell);
 	}
 	
+	@Override
+	public final int startCell(long kmer){
+		return kmerToCell(kmer);
+	}
+	
+	@Override
 	public final int getValue(long kmer, int startCell){
 		int cell=findKmer(kmer, startCell);
 		if(cell==NOT_PRESENT){return NOT_PRESENT;}
@@ -549,6 +555,8 @@ public abstract class HashArray extends AbstractKmerTable {
 	
 	public long[] array(){return array;}
 	
+	long coreMask(){return coreMask;}
+	
 	public AtomicIntegerArray owners() {return owners;}
 	@Override
 	final Lock getLock(){return lock;}
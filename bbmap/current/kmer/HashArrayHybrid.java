@@ -375,4 +375,7 @@ public final class HashArrayHybrid extends HashArray {
 	private int[] values;
 	private IntList2 setList;
 	
+	public int[] values(){return values;}
+	IntList2 setList(){return setList;}
+	
 }
@@ -0,0 +1,508 @@
+package kmer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import fileIO.ByteStreamWriter;
+import fileIO.TextStreamWriter;
+import shared.KillSwitch;
+import shared.Tools;
+import structures.ByteBuilder;
+import structures.SuperLongList;
+
+/**
+ * Stores kmers in an AtomicLongArray and counts in an AtomicIntegerArray, with a victim cache.
+ * Kmers claim empty cells with compareAndSet and counts are added atomically,
+ * so loading threads never wait on each other, and HashBuffer writes through to it
+ * without buffering or locking.
+ * Probing is bounded by the same limit as HashArray; overflow goes to a synchronized HashForest.
+ * The table never resizes, since blocking operations during a resize would need a lock on every call;
+ * it is allocated at the final size of its schedule, as with prealloc.
+ * Uses the same cell layout as HashArray1D, so it can be converted to one after loading.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class HashArrayLockFree extends AbstractKmerTable {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public HashArrayLockFree(int[] schedule_, long coreMask_){
+		schedule=schedule_;
+		schedulePos=schedule.length-1;
+		prime=schedule[schedulePos];
+		coreMask=coreMask_;
+		keys=allocKeys(prime+extra);
+		values=allocAtomicInt(prime+extra);
+		victims=new HashForest(Tools.max(10, prime/HashArray.victimRatio), true, false);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Public Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public int increment(final long kmer, final int incr){
+		return add(kmer, incr, false);
+	}
+
+	@Override
+	public int incrementAndReturnNumCreated(final long kmer, final int incr){
+		return add(kmer, incr, true);
+	}
+
+	@Override
+	public int set(long kmer, int value){
+		return put(kmer, value, true);
+	}
+
+	@Override
+	public int set(long kmer, int[] vals, int vlen){
+		assert(vals.length==1);
+		return set(kmer, vals[0]);
+	}
+
+	@Override
+	public int setIfNotPresent(long kmer, int value){
+		return put(kmer, value, false);
+	}
+
+	@Override
+	public int getValue(long kmer){
+		return get0(kmer);
+	}
+
+	@Override
+	public int[] getValues(long kmer, int[] singleton){
+		singleton[0]=getValue(kmer);
+		return singleton;
+	}
+
+	@Override
+	public boolean contains(long kmer){
+		return getValue(kmer)!=NOT_PRESENT;
+	}
+
+	public int kmerToCell(long kmer){
+		return (int)((kmer&coreMask)%prime);
+	}
+
+	/**
+	 * Copies the contents into a HashArray1D with the same size and remaining schedule.
+	 * Both tables probe the same way, so each kmer keeps its cell, and threads copy disjoint cell ranges.
+	 * Call after loading is finished.
+	 * @param threads Number of threads copying cells
+	 */
+	public HashArray1D toHashArray1D(final int threads){
+		final HashArray1D ha=new HashArray1D(Arrays.copyOfRange(schedule, schedulePos, schedule.length), coreMask);
+		assert(ha.prime==prime && ha.array.length==keys.length()) : ha.prime+", "+prime;
+		final int len=keys.length(), t=Tools.mid(1, threads, len/MIN_CELLS_PER_THREAD);
+		final ArrayList<CopyThread> list=new ArrayList<CopyThread>(t);
+		for(int i=0; i<t; i++){list.add(new CopyThread(ha.array, ha.values(), (int)(i*(long)len/t), (int)((i+1)*(long)len/t)));}
+		if(t==1){
+			list.get(0).run();
+		}else{
+			for(CopyThread ct : list){ct.start();}
+			for(CopyThread ct : list){
+				while(ct.getState()!=Thread.State.TERMINATED){
+					try {
+						ct.join();
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}
+		long copied=0;
+		for(CopyThread ct : list){copied+=ct.copied;}
+		ha.size=copied;
+		for(KmerNode n : victims.toList()){
+			if(n.pivot>NOT_PRESENT){ha.set(n.pivot, n.value());}
+		}
+		assert(ha.size()+ha.victims.size==size()) : ha.size()+", "+ha.victims.size+", "+size();
+		return ha;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------          Ownership           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void initializeOwnership(){
+		assert(owners==null);
+		owners=allocAtomicInt(keys.length());
+		for(int i=0; i<keys.length(); i++){
+			owners.set(i, NO_OWNER);
+		}
+		synchronized(victims){victims.initializeOwnership();}
+	}
+
+	@Override
+	public void clearOwnership(){
+		owners=null;
+		synchronized(victims){victims.clearOwnership();}
+	}
+
+	@Override
+	public int setOwner(final long kmer, final int newOwner){
+		final int cell=findKmer(kmer);
+		assert(cell!=NOT_PRESENT);
+		if(cell==HASH_COLLISION){
+			synchronized(victims){return victims.setOwner(kmer, newOwner);}
+		}
+		int current=owners.get(cell);
+		while(current<newOwner){
+			if(owners.compareAndSet(cell, current, newOwner)){current=newOwner;}
+			else{current=owners.get(cell);}
+		}
+		return current;
+	}
+
+	@Override
+	public boolean clearOwner(final long kmer, final int owner){
+		final int cell=findKmer(kmer);
+		assert(cell!=NOT_PRESENT);
+		if(cell==HASH_COLLISION){
+			synchronized(victims){return victims.clearOwner(kmer, owner);}
+		}
+		return owners.compareAndSet(cell, owner, NO_OWNER);
+	}
+
+	@Override
+	public int getOwner(final long kmer){
+		final int cell=findKmer(kmer);
+		assert(cell!=NOT_PRESENT);
+		if(cell==HASH_COLLISION){
+			synchronized(victims){return victims.getOwner(kmer);}
+		}
+		return owners.get(cell);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------      Nonpublic Methods       ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Adds incr to the kmer's count, inserting it if needed.
+	 * @return Number of entries created if returnCreated, otherwise the new count
+	 */
+	private int add(final long kmer, final int incr, final boolean returnCreated){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			long n=keys.get(cell);
+			if(n==NOT_PRESENT){
+				if(keys.compareAndSet(cell, NOT_PRESENT, kmer)){
+					final int v=addValue(cell, incr);
+					addSize();
+					return returnCreated ? 1 : v;
+				}
+				n=keys.get(cell);//Another thread claimed the cell; it may have been for this kmer
+			}
+			if(n==kmer){
+				final int v=addValue(cell, incr);
+				return returnCreated ? 0 : v;
+			}
+		}
+		synchronized(victims){
+			final long oldSize=victims.size;
+			final int x=(returnCreated ? victims.incrementAndReturnNumCreated(kmer, incr) : victims.increment(kmer, incr));
+			if(victims.size>oldSize){addSize();}
+			return x;
+		}
+	}
+
+	private int addValue(final int cell, final int incr){
+		final int v=values.addAndGet(cell, incr);
+		if(v>=0){return v;}
+		values.set(cell, Integer.MAX_VALUE);
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Sets the kmer's value.
+	 * A new kmer's value is added to its empty cell, so an increment that races with the insert is kept.
+	 * @param overwrite False to leave existing values unchanged
+	 * @return Number of entries created
+	 */
+	private int put(final long kmer, final int value, final boolean overwrite){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			long n=keys.get(cell);
+			if(n==NOT_PRESENT){
+				if(keys.compareAndSet(cell, NOT_PRESENT, kmer)){
+					//Empty cells hold 0, and a racing increment may already have seen the key, so add rather than set
+					addValue(cell, value);
+					addSize();
+					return 1;
+				}
+				n=keys.get(cell);
+			}
+			if(n==kmer){
+				if(overwrite){values.set(cell, value);}
+				return 0;
+			}
+		}
+		synchronized(victims){
+			final int x=(overwrite ? victims.set(kmer, value) : victims.setIfNotPresent(kmer, value));
+			if(x>0){addSize();}
+			return x;
+		}
+	}
+
+	private int get0(final long kmer){
+		final int cell=findKmer(kmer);
+		if(cell==NOT_PRESENT){return NOT_PRESENT;}
+		if(cell==HASH_COLLISION){
+			synchronized(victims){return victims.getValue(kmer);}
+		}
+		return values.get(cell);
+	}
+
+	private int findKmer(final long kmer){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			final long n=keys.get(cell);
+			if(n==kmer){return cell;}
+			else if(n==NOT_PRESENT){return NOT_PRESENT;}
+		}
+		return HASH_COLLISION;
+	}
+
+	/** Counts a new entry in this thread's stripe. */
+	private void addSize(){
+		final int stripe=(int)(Thread.currentThread().getId()&(STRIPES-1))*PAD;
+		sizeStripes.incrementAndGet(stripe);
+	}
+
+	@Override
+	Object get(long kmer){
+		throw new RuntimeException("Unimplemented.");
+	}
+
+	private static AtomicLongArray allocKeys(int len){
+		AtomicLongArray ala=null;
+		try {
+			ala=new AtomicLongArray(len);
+		} catch (OutOfMemoryError e) {
+			KillSwitch.memKill(e);
+		}
+		for(int i=0; i<len; i++){ala.set(i, NOT_PRESENT);}
+		return ala;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------   Resizing and Rebalancing   ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	boolean canResize(){return false;}
+
+	@Override
+	public boolean canRebalance(){return false;}
+
+	@Deprecated
+	@Override
+	public void rebalance(){
+		throw new RuntimeException("Unimplemented.");
+	}
+
+	@Override
+	public long size(){
+		long sum=0;
+		for(int i=0; i<STRIPES; i++){sum+=sizeStripes.get(i*PAD);}
+		return sum;
+	}
+
+	@Override
+	public int arrayLength(){return keys.length();}
+
+	@Override
+	void resize(){
+		throw new RuntimeException("Lock-free tables have a fixed size.");
+	}
+	
+	@Override
+	long regenerate(final int limit){
+		assert(owners==null) : "Clear ownership before regeneration.";
+		long sum=0;
+		for(int pos=0; pos<keys.length(); pos++){
+			final long key=keys.get(pos);
+			if(key>=0){
+				final int value=values.get(pos);
+				values.set(pos, 0);//Empty cells must hold 0 for put and add
+				keys.set(pos, NOT_PRESENT);
+				if(value>limit){
+					put(key, value, true);
+				}else{
+					sum++;
+				}
+			}
+		}
+
+		final ArrayList<KmerNode> nodes=victims.toList();
+		victims.clear();
+		for(KmerNode node : nodes){
+			if(node.value()<=limit){
+				sum++;
+			}else{
+				put(node.pivot, node.value(), true);
+			}
+		}
+
+		//Survivors were counted again when reinserted, so recount from scratch
+		long count=victims.size;
+		for(int pos=0; pos<keys.length(); pos++){
+			if(keys.get(pos)!=NOT_PRESENT){count++;}
+		}
+		for(int i=0; i<STRIPES; i++){sizeStripes.set(i*PAD, 0);}
+		sizeStripes.set(0, count);
+		return sum;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Info Dumping         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public boolean dumpKmersAsText(TextStreamWriter tsw, int k, int mincount, int maxcount){
+		for(int i=0; i<keys.length(); i++){
+			final long kmer=keys.get(i);
+			if(kmer!=NOT_PRESENT && (mincount<2 || values.get(i)>=mincount)){
+				tsw.print(toText(kmer, values.get(i), k).append('\n'));
+			}
+		}
+		victims.dumpKmersAsText(tsw, k, mincount, maxcount);
+		return true;
+	}
+
+	@Override
+	public boolean dumpKmersAsBytes(ByteStreamWriter bsw, int k, int mincount, int maxcount, AtomicLong remaining){
+		for(int i=0; i<keys.length(); i++){
+			final long kmer=keys.get(i);
+			if(kmer!=NOT_PRESENT && (mincount<2 || values.get(i)>=mincount)){
+				if(remaining!=null && remaining.decrementAndGet()<0){return true;}
+				bsw.printlnKmer(kmer, values.get(i), k);
+			}
+		}
+		victims.dumpKmersAsBytes(bsw, k, mincount, maxcount, remaining);
+		return true;
+	}
+
+	@Override
+	public boolean dumpKmersAsBytes_MT(final ByteStreamWriter bsw, final ByteBuilder bb, final int k, final int mincount, int maxcount, AtomicLong remaining){
+		for(int i=0; i<keys.length(); i++){
+			final long kmer=keys.get(i);
+			if(kmer!=NOT_PRESENT && (mincount<2 || values.get(i)>=mincount)){
+				if(remaining!=null && remaining.decrementAndGet()<0){return true;}
+				toBytes(kmer, values.get(i), k, bb);
+				bb.nl();
+				if(bb.length()>=16000){
+					ByteBuilder bb2=new ByteBuilder(bb);
+					synchronized(bsw){bsw.addJob(bb2);}
+					bb.clear();
+				}
+			}
+		}
+		victims.dumpKmersAsBytes_MT(bsw, bb, k, mincount, maxcount, remaining);
+		return true;
+	}
+
+	@Override
+	public void fillHistogram(long[] ca, int max){
+		for(int i=0; i<keys.length(); i++){
+			if(keys.get(i)!=NOT_PRESENT){
+				ca[Tools.min(values.get(i), max)]++;
+			}
+		}
+		victims.fillHistogram(ca, max);
+	}
+
+	@Override
+	public void fillHistogram(SuperLongList sll){
+		for(int i=0; i<keys.length(); i++){
+			if(keys.get(i)!=NOT_PRESENT){sll.add(values.get(i));}
+		}
+		victims.fillHistogram(sll);
+	}
+
+	@Override
+	public void countGC(long[] gcCounts, int max){
+		for(int i=0; i<keys.length(); i++){
+			final long kmer=keys.get(i);
+			if(kmer!=NOT_PRESENT){
+				gcCounts[Tools.min(values.get(i), max)]+=gc(kmer);
+			}
+		}
+		victims.countGC(gcCounts, max);
+	}
+
+	/** Operations are safe without external locking. */
+	@Override
+	boolean lockFree(){return true;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Copies keys and values in [from, to) to the same cells of plain arrays. */
+	private class CopyThread extends Thread {
+
+		CopyThread(long[] array_, int[] vals_, int from_, int to_){
+			array=array_;
+			vals=vals_;
+			from=from_;
+			to=to_;
+		}
+
+		@Override
+		public void run(){
+			for(int cell=from; cell<to; cell++){
+				final long kmer=keys.get(cell);
+				array[cell]=kmer;
+				if(kmer!=NOT_PRESENT){
+					vals[cell]=values.get(cell);
+					copied++;
+				}
+			}
+		}
+
+		private final long[] array;
+		private final int[] vals;
+		private final int from, to;
+		long copied=0;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final AtomicLongArray keys;
+	private final AtomicIntegerArray values;
+	private AtomicIntegerArray owners;
+	private final HashForest victims;
+
+	private final int prime;
+	private final long coreMask;
+
+	private final int[] schedule;
+	private final int schedulePos;
+
+	/** Entry counts, striped by thread and padded to separate cache lines */
+	private final AtomicLongArray sizeStripes=new AtomicLongArray(STRIPES*PAD);
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private static final int extra=HashArray.extra;
+	private static final int STRIPES=64;
+	/** Smaller tables are converted by one thread */
+	private static final int MIN_CELLS_PER_THREAD=1<<20;
+	private static final int PAD=8;
+
+}
@@ -0,0 +1,520 @@
+package kmer;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fileIO.ByteStreamWriter;
+import fileIO.TextStreamWriter;
+import shared.KillSwitch;
+import shared.Tools;
+import structures.ByteBuilder;
+import structures.SuperLongList;
+
+/**
+ * Stores kmers and counts in native memory outside the Java heap, with an on-heap victim cache.
+ * Same layout and behavior as HashArray1D, but the arrays are not limited by -Xmx
+ * and are never scanned or moved by the garbage collector.
+ * Native memory is released by free(), or when the table is garbage-collected.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class HashArrayOffHeap extends AbstractKmerTable {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public HashArrayOffHeap(int[] schedule_, long coreMask_){
+		schedule=schedule_;
+		autoResize=schedule.length>1;
+		prime=schedule[0];
+		coreMask=coreMask_;
+		sizeLimit=(long)((autoResize ? HashArray.maxLoadFactor : HashArray.maxLoadFactorFinal)*prime);
+		cells=prime+extra;
+		keys=allocate(cells*8L, (byte)-1);
+		values=allocate(cells*4L, (byte)0);
+		victims=new HashForest(Tools.max(10, prime/HashArray.victimRatio), autoResize, false);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Public Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public int increment(final long kmer, final int incr){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			final long n=readKey(cell);
+			if(n==kmer){
+				int v=readCellValue(cell)+incr;
+				if(v<0){v=Integer.MAX_VALUE;}
+				writeValue(cell, v);
+				return v;
+			}else if(n==NOT_PRESENT){
+				writeKey(cell, kmer);
+				writeValue(cell, incr);
+				size++;
+				if(autoResize && size+victims.size>sizeLimit){resize();}
+				return incr;
+			}
+		}
+		final int x=victims.increment(kmer, incr);
+		if(autoResize && size+victims.size>sizeLimit){resize();}
+		return x;
+	}
+
+	@Override
+	public int incrementAndReturnNumCreated(final long kmer, final int incr){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			final long n=readKey(cell);
+			if(n==kmer){
+				int v=readCellValue(cell)+incr;
+				if(v<0){v=Integer.MAX_VALUE;}
+				writeValue(cell, v);
+				return 0;
+			}else if(n==NOT_PRESENT){
+				writeKey(cell, kmer);
+				writeValue(cell, incr);
+				size++;
+				if(autoResize && size+victims.size>sizeLimit){resize();}
+				return 1;
+			}
+		}
+		final int x=victims.incrementAndReturnNumCreated(kmer, incr);
+		if(autoResize && size+victims.size>sizeLimit){resize();}
+		return x;
+	}
+
+	@Override
+	public int set(final long kmer, final int v){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			final long n=readKey(cell);
+			if(n==kmer){
+				writeValue(cell, v);
+				return 0;
+			}else if(n==NOT_PRESENT){
+				writeKey(cell, kmer);
+				writeValue(cell, v);
+				size++;
+				if(autoResize && size+victims.size>sizeLimit){resize();}
+				return 1;
+			}
+		}
+		final int x=victims.set(kmer, v);
+		if(autoResize && size+victims.size>sizeLimit){resize();}
+		return x;
+	}
+
+	@Override
+	public int set(long kmer, int[] vals, int vlen){
+		assert(vals.length==1);
+		return set(kmer, vals[0]);
+	}
+
+	@Override
+	public int setIfNotPresent(long kmer, int v){
+		int cell=kmerToCell(kmer);
+		for(final int max=cell+extra; cell<max; cell++){
+			final long n=readKey(cell);
+			if(n==kmer){
+				return 0;
+			}else if(n==NOT_PRESENT){
+				writeKey(cell, kmer);
+				writeValue(cell, v);
+				size++;
+				if(autoResize && size+victims.size>sizeLimit){resize();}
+				return 1;
+			}
+		}
+		final int x=victims.setIfNotPresent(kmer, v);
+		if(autoResize && size+victims.size>sizeLimit){resize();}
+		return x;
+	}
+
+	@Override
+	public int getValue(long kmer){
+		return getValue(kmer, kmerToCell(kmer));
+	}
+
+	@Override
+	public int getValue(long kmer, int startCell){
+		final int cell=findKmer(kmer, startCell);
+		if(cell==NOT_PRESENT){return NOT_PRESENT;}
+		if(cell==HASH_COLLISION){return victims.getValue(kmer);}
+		return readCellValue(cell);
+	}
+
+	@Override
+	public int startCell(long kmer){
+		return kmerToCell(kmer);
+	}
+
+	@Override
+	public int[] getValues(long kmer, int[] singleton){
+		singleton[0]=getValue(kmer);
+		return singleton;
+	}
+
+	@Override
+	public boolean contains(long kmer){
+		final int cell=findKmer(kmer);
+		if(cell==NOT_PRESENT){return false;}
+		if(cell==HASH_COLLISION){return victims.contains(kmer);}
+		return true;
+	}
+
+	public int kmerToCell(long kmer){
+		return (int)((kmer&coreMask)%prime);
+	}
+
+	public long getKmer(int cell){
+		return readKey(cell);
+	}
+
+	public int readCellValue(int cell){
+		return U.getInt(values+(((long)cell)<<2));
+	}
+
+	/** Releases the native memory.  The table may not be used afterward. */
+	public synchronized void free(){
+		if(keys!=0){release(keys, cells*8L);}
+		if(values!=0){release(values, cells*4L);}
+		if(owners!=0){release(owners, cells*4L);}
+		keys=values=owners=0;
+	}
+
+	/** Native memory currently allocated by all off-heap tables, in bytes */
+	public static long bytesAllocated(){return bytesAllocated.get();}
+
+	/*--------------------------------------------------------------*/
+	/*----------------          Ownership           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void initializeOwnership(){
+		assert(owners==0);
+		owners=allocate(cells*4L, (byte)-1);
+		victims.initializeOwnership();
+	}
+
+	@Override
+	public void clearOwnership(){
+		if(owners!=0){release(owners, cells*4L);}
+		owners=0;
+		victims.clearOwnership();
+	}
+
+	@Override
+	public int setOwner(final long kmer, final int newOwner){
+		final int cell=findKmer(kmer);
+		assert(cell!=NOT_PRESENT);
+		if(cell==HASH_COLLISION){return victims.setOwner(kmer, newOwner);}
+		final long address=owners+(((long)cell)<<2);
+		int current=U.getIntVolatile(null, address);
+		while(current<newOwner){
+			if(U.compareAndSwapInt(null, address, current, newOwner)){current=newOwner;}
+			else{current=U.getIntVolatile(null, address);}
+		}
+		return current;
+	}
+
+	@Override
+	public boolean clearOwner(final long kmer, final int owner){
+		final int cell=findKmer(kmer);
+		assert(cell!=NOT_PRESENT);
+		if(cell==HASH_COLLISION){return victims.clearOwner(kmer, owner);}
+		return U.compareAndSwapInt(null, owners+(((long)cell)<<2), owner, NO_OWNER);
+	}
+
+	@Override
+	public int getOwner(final long kmer){
+		final int cell=findKmer(kmer);
+		assert(cell!=NOT_PRESENT);
+		if(cell==HASH_COLLISION){return victims.getOwner(kmer);}
+		return U.getIntVolatile(null, owners+(((long)cell)<<2));
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------      Nonpublic Methods       ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private long readKey(int cell){
+		return U.getLong(keys+(((long)cell)<<3));
+	}
+
+	private void writeKey(int cell, long kmer){
+		U.putLong(keys+(((long)cell)<<3), kmer);
+	}
+
+	private void writeValue(int cell, int v){
+		U.putInt(values+(((long)cell)<<2), v);
+	}
+
+	private int findKmer(final long kmer){
+		return findKmer(kmer, kmerToCell(kmer));
+	}
+
+	private int findKmer(final long kmer, int cell){
+		for(final int max=cell+extra; cell<max; cell++){
+			final long n=readKey(cell);
+			if(n==kmer){return cell;}
+			else if(n==NOT_PRESENT){return NOT_PRESENT;}
+		}
+		return HASH_COLLISION;
+	}
+
+	@Override
+	Object get(long kmer){
+		throw new RuntimeException("Unimplemented.");
+	}
+
+	/** Allocates native memory with every byte set to fill. */
+	private static long allocate(long bytes, byte fill){
+		long address=0;
+		try {
+			address=U.allocateMemory(bytes);
+		} catch (OutOfMemoryError e) {
+			KillSwitch.memKill(e);
+		}
+		U.setMemory(address, bytes, fill);
+		bytesAllocated.addAndGet(bytes);
+		return address;
+	}
+
+	private static void release(long address, long bytes){
+		U.freeMemory(address);
+		bytesAllocated.addAndGet(-bytes);
+	}
+
+	@Override
+	protected void finalize() throws Throwable {
+		try {
+			free();
+		} finally {
+			super.finalize();
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------   Resizing and Rebalancing   ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	boolean canResize(){return true;}
+
+	@Override
+	public boolean canRebalance(){return false;}
+
+	@Deprecated
+	@Override
+	public void rebalance(){
+		throw new RuntimeException("Unimplemented.");
+	}
+
+	@Override
+	public long size(){return size;}
+
+	@Override
+	public int arrayLength(){return cells;}
+
+	@Override
+	synchronized void resize(){
+		assert(owners==0) : "Resizing with ownership initialized.";
+		final long oldSize=size, oldVSize=victims.size;
+		final int oldPrime=prime;
+		prime=nextScheduleSize();
+		if(prime<=oldPrime){KillSwitch.memKill(new OutOfMemoryError());}
+		sizeLimit=(long)((atMaxSize() ? HashArray.maxLoadFactorFinal : HashArray.maxLoadFactor)*prime);
+
+		final long oldKeys=keys, oldValues=values;
+		final int oldCells=cells;
+		final ArrayList<KmerNode> list=victims.toList();
+		cells=prime+extra;
+		keys=allocate(cells*8L, (byte)-1);
+		values=allocate(cells*4L, (byte)0);
+		victims.clear();
+		size=0;
+
+		for(int i=0; i<oldCells; i++){
+			final long kmer=U.getLong(oldKeys+(((long)i)<<3));
+			if(kmer>NOT_PRESENT){set(kmer, U.getInt(oldValues+(((long)i)<<2)));}
+		}
+		for(KmerNode n : list){
+			if(n.pivot>NOT_PRESENT){set(n.pivot, n.value());}
+		}
+		release(oldKeys, oldCells*8L);
+		release(oldValues, oldCells*4L);
+
+		assert(oldSize+oldVSize==size+victims.size) : oldSize+", "+oldVSize+" -> "+size+", "+victims.size;
+	}
+
+	@Override
+	long regenerate(final int limit){
+		assert(owners==0) : "Clear ownership before regeneration.";
+		long sum=0;
+		for(int pos=0; pos<cells; pos++){
+			final long key=readKey(pos);
+			if(key>=0){
+				final int value=readCellValue(pos);
+				writeValue(pos, 0);
+				writeKey(pos, NOT_PRESENT);
+				size--;
+				if(value>limit){
+					set(key, value);
+				}else{
+					sum++;
+				}
+			}
+		}
+
+		final ArrayList<KmerNode> nodes=victims.toList();
+		victims.clear();
+		for(KmerNode node : nodes){
+			if(node.value()<=limit){
+				sum++;
+			}else{
+				set(node.pivot, node.value());
+			}
+		}
+		return sum;
+	}
+
+	private int nextScheduleSize(){
+		if(schedulePos<schedule.length-1){schedulePos++;}
+		return schedule[schedulePos];
+	}
+
+	private boolean atMaxSize(){
+		return schedulePos>=schedule.length-1;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Info Dumping         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public boolean dumpKmersAsText(TextStreamWriter tsw, int k, int mincount, int maxcount){
+		for(int i=0; i<cells; i++){
+			final long kmer=readKey(i);
+			if(kmer!=NOT_PRESENT && (mincount<2 || readCellValue(i)>=mincount)){
+				tsw.print(toText(kmer, readCellValue(i), k).append('\n'));
+			}
+		}
+		victims.dumpKmersAsText(tsw, k, mincount, maxcount);
+		return true;
+	}
+
+	@Override
+	public boolean dumpKmersAsBytes(ByteStreamWriter bsw, int k, int mincount, int maxcount, AtomicLong remaining){
+		for(int i=0; i<cells; i++){
+			final long kmer=readKey(i);
+			if(kmer!=NOT_PRESENT && (mincount<2 || readCellValue(i)>=mincount)){
+				if(remaining!=null && remaining.decrementAndGet()<0){return true;}
+				bsw.printlnKmer(kmer, readCellValue(i), k);
+			}
+		}
+		victims.dumpKmersAsBytes(bsw, k, mincount, maxcount, remaining);
+		return true;
+	}
+
+	@Override
+	public boolean dumpKmersAsBytes_MT(final ByteStreamWriter bsw, final ByteBuilder bb, final int k, final int mincount, int maxcount, AtomicLong remaining){
+		for(int i=0; i<cells; i++){
+			final long kmer=readKey(i);
+			if(kmer!=NOT_PRESENT && (mincount<2 || readCellValue(i)>=mincount)){
+				if(remaining!=null && remaining.decrementAndGet()<0){return true;}
+				toBytes(kmer, readCellValue(i), k, bb);
+				bb.nl();
+				if(bb.length()>=16000){
+					ByteBuilder bb2=new ByteBuilder(bb);
+					synchronized(bsw){bsw.addJob(bb2);}
+					bb.clear();
+				}
+			}
+		}
+		victims.dumpKmersAsBytes_MT(bsw, bb, k, mincount, maxcount, remaining);
+		return true;
+	}
+
+	@Override
+	public void fillHistogram(long[] ca, int max){
+		for(int i=0; i<cells; i++){
+			if(readKey(i)!=NOT_PRESENT){
+				ca[Tools.min(readCellValue(i), max)]++;
+			}
+		}
+		victims.fillHistogram(ca, max);
+	}
+
+	@Override
+	public void fillHistogram(SuperLongList sll){
+		for(int i=0; i<cells; i++){
+			if(readKey(i)!=NOT_PRESENT){sll.add(readCellValue(i));}
+		}
+		victims.fillHistogram(sll);
+	}
+
+	@Override
+	public void countGC(long[] gcCounts, int max){
+		for(int i=0; i<cells; i++){
+			final long kmer=readKey(i);
+			if(kmer!=NOT_PRESENT){
+				gcCounts[Tools.min(readCellValue(i), max)]+=gc(kmer);
+			}
+		}
+		victims.countGC(gcCounts, max);
+	}
+
+	public HashForest victims(){
+		return victims;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Native addresses; 0 when not allocated */
+	private long keys, values, owners=0;
+	/** Length of each native array, in elements */
+	private int cells;
+	private final HashForest victims;
+
+	private int prime;
+	private long size=0;
+	private long sizeLimit;
+	private final boolean autoResize;
+	private final long coreMask;
+	private final Lock lock=new ReentrantLock();
+
+	private final int[] schedule;
+	private int schedulePos=0;
+
+	@Override
+	final Lock getLock(){return lock;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private static final int extra=HashArray.extra;
+	private static final AtomicLong bytesAllocated=new AtomicLong(0);
+
+	private static final sun.misc.Unsafe U=fetchUnsafe();
+
+	private static sun.misc.Unsafe fetchUnsafe(){
+		try {
+			Field f=sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			return (sun.misc.Unsafe)f.get(null);
+		} catch (Exception e) {
+			throw new RuntimeException("Off-heap kmer tables are not supported by this JVM.", e);
+		}
+	}
+
+}
@@ -27,8 +27,11 @@ public class HashBuffer extends AbstractKmerTable {
 		setIfNotPresent=setIfNotPresent_;
 		useValues=initValues;
 		coreMask=(AbstractKmerTableSet.MASK_CORE ? ~(((-1L)<<(2*(k_-1)))|3) : -1L);
+		boolean lf=true;
+		for(AbstractKmerTable t : tables){lf=lf&&t.lockFree();}
+		direct=lf;
 		for(int i=0; i<ways; i++){
-			buffers[i]=new KmerBuffer(buflen, k_, useValues);
+			buffers[i]=(direct ? null : new KmerBuffer(buflen, k_, useValues));
 		}
 	}
 	
@@ -45,6 +48,11 @@ public class HashBuffer extends AbstractKmerTable {
 	public int incrementAndReturnNumCreated(final long kmer, final int incr) {
 		assert(incr==1); //I could just add the kmer multiple times if not true, with addMulti
 		final int way=kmerToWay(kmer);
+		if(direct){
+			final int added=tables[way].incrementAndReturnNumCreated(kmer, incr);
+			uniqueAdded+=added;
+			return added;
+		}
 		KmerBuffer buffer=buffers[way];
 //		final int size=buffer.addMulti(kmer, incr);
 		final int size=buffer.add(kmer);
@@ -56,6 +64,7 @@ public class HashBuffer extends AbstractKmerTable {
 	
 	@Override
 	public final long flush(){
+		if(direct){return 0;}
 		long added=0;
 		for(int i=0; i<ways; i++){added+=dumpBuffer(i, true);}
 		return added;
@@ -64,6 +73,11 @@ public class HashBuffer extends AbstractKmerTable {
 	@Override
 	public int set(long kmer, int value) {
 		final int way=kmerToWay(kmer);
+		if(direct){
+			final int added=(setIfNotPresent ? tables[way].setIfNotPresent(kmer, value) : tables[way].set(kmer, value));
+			uniqueAdded+=added;
+			return added;
+		}
 		KmerBuffer buffer=buffers[way];
 		final int size=buffer.add(kmer, value);
 		if(size>=halflen && (size>=buflen || (size&SIZEMASK)==0)){
@@ -329,6 +343,8 @@ public class HashBuffer extends AbstractKmerTable {
 	private final boolean useValues;
 	private final KmerBuffer[] buffers;
 	private final long coreMask;
+	/** True if every table is lock-free, so kmers are added immediately rather than buffered */
+	private final boolean direct;
 	public long uniqueAdded=0;
 	
 	private static final int SIZEMASK=15;
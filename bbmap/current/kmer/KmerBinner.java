@@ -0,0 +1,410 @@
+package kmer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dna.AminoAcid;
+import shared.Primes;
+import shared.Tools;
+import structures.IntList;
+import structures.LongList;
+
+/**
+ * Counts kmers in two phases, for when the table does not fit in memory.
+ * Load threads split reads into super-kmers - runs of kmers sharing a minimizer -
+ * and append them to on-disk bins, so every copy of a kmer lands in the same bin.
+ * Each bin is then counted alone in a small HashArray1D, and kmers at or above
+ * the minimum count are added to the set's tables.
+ * Peak memory while counting is the largest bin times the number of counting threads.
+ * While loading, each load thread buffers up to about WRITER_MEMORY across all bins.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class KmerBinner {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param set_ Tables that will receive the counts
+	 * @param bins_ Number of bin files
+	 * @param mlen_ Minimizer length; capped at k
+	 * @param minCount_ Discard kmers seen fewer times than this
+	 * @param tmpdir Directory for bin files; null uses the system default
+	 */
+	public KmerBinner(KmerTableSet set_, int bins_, int mlen_, int minCount_, String tmpdir){
+		set=set_;
+		bins=bins_;
+		k=set.k;
+		mlen=Tools.mid(1, mlen_, k);
+		minCount=Tools.max(1, minCount_);
+		assert(bins>0) : bins;
+		bufLen=(int)Tools.mid(MIN_BUFLEN, BUFLEN, WRITER_MEMORY/bins);
+
+		files=new File[bins];
+		channels=new FileChannel[bins];
+		binKmers=new long[bins];
+		binBytes=new long[bins];
+		final File dir=(tmpdir==null ? null : new File(tmpdir));
+		if(dir!=null && !dir.exists()){dir.mkdirs();}
+		try {
+			for(int i=0; i<bins; i++){
+				files[i]=File.createTempFile("kmerbin_"+i+"_", ".bin", dir);
+				files[i].deleteOnExit();
+				channels[i]=FileChannel.open(files[i].toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** Each load thread needs its own Writer. */
+	public Writer makeWriter(){return new Writer();}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Closes the bins, counts each one, and adds surviving kmers to the set's tables.
+	 * All Writers must have been flushed.  Bin files are deleted afterward.
+	 * @return Number of kmers added to the tables
+	 */
+	public long count(int threads){
+		try {
+			for(FileChannel fc : channels){fc.close();}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		threads=Tools.mid(1, threads, bins);
+		final AtomicInteger nextBin=new AtomicInteger(0);
+		final ArrayList<CountThread> list=new ArrayList<CountThread>(threads);
+		for(int i=0; i<threads; i++){list.add(new CountThread(nextBin));}
+		for(CountThread ct : list){ct.start();}
+
+		long added=0;
+		boolean success=true;
+		for(CountThread ct : list){
+			while(ct.getState()!=Thread.State.TERMINATED){
+				try {
+					ct.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			added+=ct.added;
+			kmersKept+=ct.keptT;
+			kmersDiscarded+=ct.discardedT;
+			success&=ct.success;
+		}
+
+		for(File f : files){f.delete();}
+		if(!success){throw new RuntimeException("Failed to count kmer bins.");}
+		return added;
+	}
+
+	/** Kmers (with multiplicity) in the largest bin */
+	public long largestBin(){
+		long max=0;
+		for(long x : binKmers){max=Tools.max(max, x);}
+		return max;
+	}
+
+	/** Total bytes written to all bins */
+	public long bytesWritten(){
+		long sum=0;
+		for(long x : binBytes){sum+=x;}
+		return sum;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Mixes the bits of a canonical minimizer, so bins get similar amounts of sequence. */
+	private static long hash(long x){
+		x^=(x>>>33);
+		x*=0xff51afd7ed558ccdL;
+		x^=(x>>>33);
+		x*=0xc4ceb9fe1a85ec53L;
+		x^=(x>>>33);
+		return x&Long.MAX_VALUE;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Buffers super-kmers per bin, and appends full buffers to the bin files.
+	 * Record format: a 4-byte base count, then the bases packed 4 per byte.
+	 */
+	public class Writer {
+
+		Writer(){
+			buffers=new ByteBuffer[bins];
+			pending=new long[bins];
+		}
+
+		/**
+		 * Splits the kmers in bases[start, stop) into super-kmers and buffers them.
+		 * Every base in the range must be defined, and every kmer is counted.
+		 */
+		public void add(final byte[] bases, final int start, final int stop){
+			final int len=stop-start;
+			assert(len>=k) : len+", "+k;
+			final int mshift=2*mlen;
+			final int mshift2=mshift-2;
+			final long mmask=(mshift>63 ? -1L : ~((-1L)<<mshift));
+			if(hashes.length<len){hashes=new long[Tools.max(len, hashes.length*2)];}
+
+			/* Hash the canonical mmer ending at each position */
+			long mmer=0, rmmer=0;
+			for(int i=0; i<len; i++){
+				final byte b=bases[start+i];
+				final long x=AminoAcid.baseToNumber[b];
+				final long x2=AminoAcid.baseToComplementNumber[b];
+				assert(x>=0) : "Undefined base "+(char)b;
+				mmer=((mmer<<2)|x)&mmask;
+				rmmer=(rmmer>>>2)|(x2<<mshift2);
+				hashes[i]=hash(Tools.max(mmer, rmmer));
+			}
+
+			/* The kmer ending at i has mmers ending in [i-k+mlen, i] */
+			int minPos=-1;
+			int bin=-1;
+			int first=k-1;//End of the first kmer in the current super-kmer
+			for(int i=k-1; i<len; i++){
+				final int low=i-k+mlen;
+				if(minPos<low){
+					minPos=low;
+					for(int j=low+1; j<=i; j++){
+						if(hashes[j]<hashes[minPos]){minPos=j;}
+					}
+				}else if(hashes[i]<hashes[minPos]){
+					minPos=i;
+				}
+				final int b=(int)(hashes[minPos]%bins);
+				if(b!=bin){
+					if(bin>=0){write(bin, bases, start+first-k+1, start+i);}
+					bin=b;
+					first=i;
+				}
+			}
+			write(bin, bases, start+first-k+1, stop);
+		}
+
+		/** Writes all buffered super-kmers.  Must be called before count(). */
+		public void flush(){
+			for(int bin=0; bin<bins; bin++){
+				if(buffers[bin]!=null){flush(bin);}
+			}
+		}
+
+		private void write(final int bin, final byte[] bases, final int from, final int to){
+			final int n=to-from;
+			final int bytes=4+((n+3)>>2);
+			ByteBuffer bb=buffers[bin];
+			if(bb==null){bb=buffers[bin]=ByteBuffer.allocate(Tools.max(bufLen, bytes));}
+			if(bb.remaining()<bytes){
+				flush(bin);
+				if(bb.capacity()<bytes){bb=buffers[bin]=ByteBuffer.allocate(bytes);}
+			}
+			bb.putInt(n);
+			for(int i=from; i<to; i+=4){
+				int packed=0;
+				for(int j=i, lim=Tools.min(i+4, to), shift=6; j<lim; j++, shift-=2){
+					packed|=(AminoAcid.baseToNumber[bases[j]]<<shift);
+				}
+				bb.put((byte)packed);
+			}
+			pending[bin]+=n-k+1;
+		}
+
+		private void flush(final int bin){
+			final ByteBuffer bb=buffers[bin];
+			bb.flip();
+			final int bytes=bb.remaining();
+			final FileChannel fc=channels[bin];
+			try {
+				synchronized(fc){
+					while(bb.hasRemaining()){fc.write(bb);}
+					binBytes[bin]+=bytes;
+					binKmers[bin]+=pending[bin];
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			bb.clear();
+			pending[bin]=0;
+		}
+
+		private final ByteBuffer[] buffers;
+		/** Kmers in each buffer */
+		private final long[] pending;
+		private long[] hashes=new long[256];
+	}
+
+	/** Counts whole bins, one at a time. */
+	private class CountThread extends Thread {
+
+		CountThread(AtomicInteger nextBin_){
+			nextBin=nextBin_;
+			final int ways=set.ways();
+			keys=new LongList[ways];
+			counts=new IntList[ways];
+			for(int i=0; i<ways; i++){
+				keys[i]=new LongList();
+				counts[i]=new IntList();
+			}
+		}
+
+		@Override
+		public void run(){
+			try {
+				for(int bin=nextBin.getAndIncrement(); bin<bins; bin=nextBin.getAndIncrement()){
+					added+=countBin(bin);
+				}
+				success=true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		private long countBin(final int bin) throws IOException{
+			final long kmers=binKmers[bin];
+			if(kmers<1){return 0;}
+			final int initialSize=(int)Primes.primeAtLeast(Tools.mid(1000, kmers/4, MAX_INITIAL_SIZE));
+			final HashArray1D local=new HashArray1D(initialSize, set.coreMask, true);
+
+			try(FileChannel fc=FileChannel.open(files[bin].toPath(), StandardOpenOption.READ)){
+				buffer.clear();
+				while(true){
+					final boolean eof=(fc.read(buffer)<0);
+					buffer.flip();
+					while(buffer.remaining()>=4){
+						final int n=buffer.getInt(buffer.position());
+						if(buffer.remaining()<4+((n+3)>>2)){break;}
+						buffer.getInt();
+						decode(buffer, n, local);
+					}
+					if(eof){
+						if(buffer.hasRemaining()){throw new RuntimeException("Truncated bin file "+files[bin]);}
+						break;
+					}
+					buffer.compact();
+					if(!buffer.hasRemaining()){//Record is longer than the buffer
+						final ByteBuffer bb=ByteBuffer.allocate(buffer.capacity()*2);
+						buffer.flip();
+						bb.put(buffer);
+						buffer=bb;
+					}
+				}
+			}
+
+			/* Gather surviving kmers by way, then add each way under its lock */
+			final long[] array=local.array();
+			final int[] values=local.values();
+			for(int cell=0; cell<array.length; cell++){
+				if(array[cell]!=AbstractKmerTable.NOT_PRESENT){keep(array[cell], values[cell]);}
+			}
+			for(KmerNode node : local.victims().toList()){keep(node.pivot, node.value());}
+
+			final AbstractKmerTable[] tables=set.tables();
+			long created=0;
+			for(int way=0; way<keys.length; way++){
+				final LongList kl=keys[way];
+				if(kl.size()<1){continue;}
+				final IntList cl=counts[way];
+				final AbstractKmerTable table=tables[way];
+				synchronized(table){
+					for(int i=0; i<kl.size(); i++){
+						created+=table.incrementAndReturnNumCreated(kl.get(i), cl.get(i));
+					}
+				}
+				kl.clear();
+				cl.clear();
+			}
+			return created;
+		}
+
+		private void decode(final ByteBuffer bb, final int n, final HashArray1D local){
+			final int shift=2*k;
+			final int shift2=shift-2;
+			final long mask=(shift>63 ? -1L : ~((-1L)<<shift));
+			long kmer=0, rkmer=0;
+			int len=0;
+			for(int i=0; i<n; i+=4){
+				final int packed=bb.get();
+				for(int j=0, lim=Tools.min(4, n-i), bshift=6; j<lim; j++, bshift-=2){
+					final long x=(packed>>bshift)&3;
+					kmer=((kmer<<2)|x)&mask;
+					rkmer=(rkmer>>>2)|((3-x)<<shift2);
+					len++;
+					if(len>=k){local.increment(set.toValue(kmer, rkmer), 1);}
+				}
+			}
+		}
+
+		private void keep(final long key, final int count){
+			if(count<minCount){
+				discardedT++;
+				return;
+			}
+			final int way=set.kmerToWay(key);
+			keys[way].add(key);
+			counts[way].add(count);
+			keptT++;
+		}
+
+		private final AtomicInteger nextBin;
+		private final LongList[] keys;
+		private final IntList[] counts;
+		private ByteBuffer buffer=ByteBuffer.allocate(READLEN);
+
+		long added=0;
+		long keptT=0;
+		long discardedT=0;
+		boolean success=false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final KmerTableSet set;
+	private final int k;
+	/** Minimizer length */
+	private final int mlen;
+	private final int bins;
+	/** Kmers seen fewer times are not added to the tables */
+	private final int minCount;
+	/** Per-bin write buffer length, scaled down so each Writer stays near WRITER_MEMORY */
+	private final int bufLen;
+
+	private final File[] files;
+	private final FileChannel[] channels;
+	/** Written under the bin's channel lock */
+	private final long[] binKmers, binBytes;
+
+	/** Distinct kmers added to the tables, and distinct kmers below minCount */
+	public long kmersKept=0, kmersDiscarded=0;
+
+	/** Maximum per-bin write buffer length for each load thread */
+	public static int BUFLEN=1<<15;
+	/** Minimum per-bin write buffer length, regardless of bin count */
+	public static int MIN_BUFLEN=1<<12;
+	/** Target buffer memory per Writer, across all bins */
+	public static long WRITER_MEMORY=1<<23;
+	private static final int READLEN=1<<20;
+	private static final long MAX_INITIAL_SIZE=1<<26;
+
+}
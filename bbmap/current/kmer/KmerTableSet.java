@@ -206,6 +206,25 @@ public class KmerTableSet extends AbstractKmerTableSet {
 				rcomp_=Tools.parseBoolean(b);
 			}else if(a.equals("tabletype")){
 				tableType_=Integer.parseInt(b);
+			}else if(a.equals("lockfree")){
+				if(Tools.parseBoolean(b)){tableType_=AbstractKmerTable.ARRAYLF;}
+			}else if(a.equals("offheap")){
+				if(Tools.parseBoolean(b)){tableType_=AbstractKmerTable.ARRAYOH;}
+			}else if(a.equals("offheapmem") || a.equals("offheapmemory")){
+				offHeapMemory=Tools.parseKMG(b);
+				if(offHeapMemory>0){tableType_=AbstractKmerTable.ARRAYOH;}
+			}else if(a.equals("tablein")){
+				tableIn=b;
+			}else if(a.equals("tableout")){
+				tableOut=b;
+			}else if(a.equals("diskbins")){
+				diskBins=Tools.parseIntKMG(b);
+			}else if(a.equals("bintemp")){
+				binTemp=b;
+			}else if(a.equals("binmincount")){
+				binMinCount=Tools.parseIntKMG(b);
+			}else if(a.equals("binmlen")){
+				binMlen=Tools.parseIntKMG(b);
 			}
 			
 			else if(a.equalsIgnoreCase("filterMemoryOverride") || a.equalsIgnoreCase("filterMemory") || 
@@ -234,6 +253,11 @@ public class KmerTableSet extends AbstractKmerTableSet {
 			if(amino){k_=Tools.min(k_, 12);}
 		}
 		
+		if(tableIn!=null){
+			prefilter=false;//Counts are already final
+			ways_=KmerTableSnapshot.readHeader(tableIn)[1];
+		}
+		
 		if(prepasses==0 || !prefilter){
 			prepasses=0;
 			prefilter=false;
@@ -262,11 +286,23 @@ public class KmerTableSet extends AbstractKmerTableSet {
 					filterMemory1=(long)(usableMemory*low);
 				}
 			}
-			tableMemory=(long)(usableMemory*.95-filterMemory0);
+			if(tableType_==AbstractKmerTable.ARRAYOH && offHeapMemory>0){
+				tableMemory=offHeapMemory;
+			}else{
+				tableMemory=(long)(usableMemory*.95-filterMemory0);
+			}
 		}
 
+		if(diskBins>0 && (amino || onePass || tableIn!=null)){
+			outstream.println("Disk bins are not supported with amino acids, onepass, or tablein; ignoring diskbins.");
+			diskBins=0;
+		}
+		if(diskBins>0 && binMinCount<2){
+			outstream.println("Warning: binmincount="+binMinCount+" keeps every error kmer, so the final table is as large as without diskbins.");
+		}
+		
 		tableType=tableType_;
-		prealloc=prealloc_;
+		prealloc=prealloc_ && diskBins<1;//Bins need the memory while counting
 		bytesPerKmer=bytesPerKmer_;
 		if(ways_<1){
 			long maxKmers=(2*tableMemory)/bytesPerKmer;
@@ -366,6 +402,11 @@ public class KmerTableSet extends AbstractKmerTableSet {
 	
 	@Override
 	public void clear(){
+		if(tables!=null && tableType==AbstractKmerTable.ARRAYOH){
+			for(AbstractKmerTable akt : tables){
+				if(akt instanceof HashArrayOffHeap){((HashArrayOffHeap)akt).free();}
+			}
+		}
 		tables=null;
 	}
 	
@@ -379,9 +420,16 @@ public class KmerTableSet extends AbstractKmerTableSet {
 		tables=null;
 		final long coreMask=(MASK_CORE ? ~(((-1L)<<(2*(k-1)))|3) : -1L);
 		
-		ScheduleMaker scheduleMaker=new ScheduleMaker(ways, bytesPerKmer, prealloc, 
-				(prealloc ? preallocFraction : 1.0), -1, (prefilter ? prepasses : 0), prefilterFraction, filterMemoryOverride);
-		int[] schedule=scheduleMaker.makeSchedule();
+		final int[] schedule;
+		if(tableType==AbstractKmerTable.ARRAYOH && offHeapMemory>0){
+			//Native memory is outside the heap, so it gets a single fixed size rather than a heap-based schedule
+			final long cells=Tools.max(1000, offHeapMemory/((long)bytesPerKmer*ways));
+			schedule=new int[] {(int)Primes.primeAtMost(Tools.min(cells, HashArray.maxPrime))};
+		}else{
+			ScheduleMaker scheduleMaker=new ScheduleMaker(ways, bytesPerKmer, prealloc, 
+					(prealloc ? preallocFraction : 1.0), -1, (prefilter ? prepasses : 0), prefilterFraction, filterMemoryOverride);
+			schedule=scheduleMaker.makeSchedule();
+		}
 		tables=AbstractKmerTable.preallocate(ways, tableType, schedule, coreMask);
 		
 //		tables=AbstractKmerTable.preallocate(ways, tableType, initialSize, coreMask, (!prealloc || preallocFraction<1));
@@ -424,6 +472,10 @@ public class KmerTableSet extends AbstractKmerTableSet {
 //			}
 //		}
 		
+		if(diskBins>0 && binner==null){
+			binner=new KmerBinner(this, diskBins, binMlen, binMinCount, binTemp!=null ? binTemp : Shared.tmpdir());
+		}
+		
 		/* Create ProcessThreads */
 		ArrayList<LoadThread> alpt=new ArrayList<LoadThread>(THREADS);
 		for(int i=0; i<THREADS; i++){alpt.add(new LoadThread(cris));}
@@ -457,10 +509,67 @@ public class KmerTableSet extends AbstractKmerTableSet {
 		return added;
 	}
 	
+	/**
+	 * Counts the disk bins filled by loadKmers, one bin per thread at a time,
+	 * and adds kmers seen at least binMinCount times to the tables.
+	 */
+	@Override
+	protected long countBins(){
+		if(binner==null){return 0;}
+		Timer t=new Timer();
+		final long added=binner.count(THREADS);
+		t.stop();
+		if(DISPLAY_PROGRESS){
+			outstream.println("Bin bytes written:   \t"+binner.bytesWritten());
+			outstream.println("Largest bin kmers:   \t"+binner.largestBin());
+			outstream.println("Kmers below mincount:\t"+binner.kmersDiscarded);
+			outstream.println("Bin count time:      \t"+t);
+		}
+		binner=null;
+		return added;
+	}
+	
+	/**
+	 * Converts lock-free tables to HashArray1D, which the assembly and correction code expects.
+	 * Ways are converted one at a time, with all threads copying that way's cells,
+	 * and each source is released before the next starts, so the extra memory is a single way.
+	 */
+	@Override
+	protected void finishLoading(){
+		if(tableType!=AbstractKmerTable.ARRAYLF){return;}
+		for(int i=0; i<tables.length; i++){
+			final AbstractKmerTable akt=tables[i];
+			if(akt.getClass()==HashArrayLockFree.class){
+				tables[i]=null;
+				tables[i]=((HashArrayLockFree)akt).toHashArray1D(THREADS);
+			}
+		}
+	}
+	
+	@Override
+	protected long loadSnapshot(String fname){
+		assert(tables==null);
+		final long coreMask=(MASK_CORE ? ~(((-1L)<<(2*(k-1)))|3) : -1L);
+		final HashArray[] loaded=KmerTableSnapshot.read(fname, k, rcomp, coreMask, THREADS);
+		assert(loaded.length==ways) : loaded.length+", "+ways;
+		long added=0;
+		for(HashArray ha : loaded){added+=ha.size()+ha.victims().size;}
+		tables=loaded;
+		return added;
+	}
+	
+	@Override
+	protected void writeSnapshot(String fname){
+		Timer t=new Timer();
+		KmerTableSnapshot.write(tables, k, rcomp, fname);
+		t.stop();
+		if(DISPLAY_PROGRESS){outstream.println("Snapshot time: \t"+t);}
+	}
+	
 	/*--------------------------------------------------------------*/
 	/*----------------         Inner Classes        ----------------*/
 	/*--------------------------------------------------------------*/
-
+	
 	/**
 	 * Loads kmers.
 	 */
@@ -473,6 +582,7 @@ public class KmerTableSet extends AbstractKmerTableSet {
 		public LoadThread(ConcurrentReadInputStream cris_){
 			cris=cris_;
 			table=new HashBuffer(tables, buflen, k, false, true);
+			writer=(binner==null ? null : binner.makeWriter());
 		}
 		
 		@Override
@@ -541,7 +651,7 @@ public class KmerTableSet extends AbstractKmerTableSet {
 							lowqBasesT+=r1.length();
 							lowqReadsT++;
 						}else{
-							long temp=addKmersToTable(r1);
+							long temp=(writer==null ? addKmersToTable(r1) : addKmersToBins(r1));
 							added+=temp;
 							if(verbose){System.err.println("A: Added "+temp);}
 						}
@@ -551,7 +661,7 @@ public class KmerTableSet extends AbstractKmerTableSet {
 							lowqBasesT+=r2.length();
 							lowqReadsT++;
 						}else{
-							long temp=addKmersToTable(r2);
+							long temp=(writer==null ? addKmersToTable(r2) : addKmersToBins(r2));
 							added+=temp;
 							if(verbose){System.err.println("B: Added "+temp);}
 						}
@@ -564,6 +674,7 @@ public class KmerTableSet extends AbstractKmerTableSet {
 				reads=(ln!=null ? ln.list : null);
 			}
 			cris.returnList(ln);
+			if(writer!=null){writer.flush();}
 			long temp=table.flush();
 			if(verbose){System.err.println("Flush: Added "+temp);}
 			added+=temp;
@@ -680,6 +791,66 @@ public class KmerTableSet extends AbstractKmerTableSet {
 		}
 		
 		
+		/**
+		 * Sends each run of consecutive accepted kmers to the disk bins.
+		 * Kmers are accepted by the same rules as addKmersToTable; none are counted until countBins.
+		 */
+		private final int addKmersToBins(final Read r){
+			if(r==null || r.bases==null){return 0;}
+			final float minProb2=(minProbMain ? minProb : 0);
+			final byte[] bases=r.bases;
+			final byte[] quals=r.quality;
+			final int shift=2*k;
+			final int shift2=shift-2;
+			final long mask=(shift>63 ? -1L : ~((-1L)<<shift));
+			long kmer=0;
+			long rkmer=0;
+			int len=0;
+			int runStart=-1, runStop=-1;//Base range covered by the current run of accepted kmers
+			
+			if(bases==null || bases.length<k){return -1;}
+			
+			float prob=1;
+			for(int i=0; i<bases.length; i++){
+				final byte b=bases[i];
+				final long x=AminoAcid.baseToNumber[b];
+				final long x2=AminoAcid.baseToComplementNumber[b];
+
+				//Update kmers
+				kmer=((kmer<<2)|x)&mask;
+				rkmer=(rkmer>>>2)|(x2<<shift2);
+
+				if(minProb2>0 && quals!=null){//Update probability
+					prob=prob*PROB_CORRECT[quals[i]];
+					if(len>k){
+						byte oldq=quals[i-k];
+						prob=prob*PROB_CORRECT_INVERSE[oldq];
+					}
+				}
+
+				//Handle Ns
+				if(x<0){
+					len=0;
+					kmer=rkmer=0;
+					prob=1;
+				}else{len++;}
+
+				if(len>=k && prob>=minProb2){
+					kmersInT++;
+					final long key=toValue(kmer, rkmer);
+					if(!prefilter || prefilterArray.read(key)>filterMax2){
+						if(runStop!=i){
+							if(runStart>=0){writer.add(bases, runStart, runStop);}
+							runStart=i-k+1;
+						}
+						runStop=i+1;
+					}
+				}
+			}
+			if(runStart>=0){writer.add(bases, runStart, runStop);}
+			return 0;
+		}
+		
 		private final int addKmersToTable_onePass(final Read r){
 			assert(prefilter);
 			if(r==null || r.bases==null){return 0;}
@@ -741,6 +912,8 @@ public class KmerTableSet extends AbstractKmerTableSet {
 		private final ConcurrentReadInputStream cris;
 		
 		private final HashBuffer table;
+		/** Non-null when counting through disk bins */
+		private final KmerBinner.Writer writer;
 		
 		public long added=0;
 		
@@ -1331,7 +1504,7 @@ public class KmerTableSet extends AbstractKmerTableSet {
 	/*--------------------------------------------------------------*/
 	
 	public int fillRightCounts(long kmer, long rkmer, int[] counts, long mask, int shift2){
-		if(FAST_FILL && MASK_CORE && k>2/*((k&1)==1)*/){
+		if(FAST_FILL && MASK_CORE && k>2/*((k&1)==1)*/ && tableType!=AbstractKmerTable.ARRAYOH){
 			return fillRightCounts_fast(kmer, rkmer, counts, mask, shift2);
 		}else{
 			return fillRightCounts_safe(kmer, rkmer, counts, mask, shift2);
@@ -1451,7 +1624,7 @@ public class KmerTableSet extends AbstractKmerTableSet {
 	}
 	
 	public int fillLeftCounts(long kmer, long rkmer, int[] counts, long mask, int shift2){
-		if(FAST_FILL && MASK_CORE && k>2/*((k&1)==1)*/){
+		if(FAST_FILL && MASK_CORE && k>2/*((k&1)==1)*/ && tableType!=AbstractKmerTable.ARRAYOH){
 			return fillLeftCounts_fast(kmer, rkmer, counts, mask, shift2);
 		}else{
 			return fillLeftCounts_safe(kmer, rkmer, counts, mask, shift2);
@@ -1654,6 +1827,19 @@ public class KmerTableSet extends AbstractKmerTableSet {
 	public AbstractKmerTable[] tables(){return tables;}
 	
 	public long filterMemoryOverride=0;
+	/** Native memory for off-heap tables; if 0, they are sized as if on the heap */
+	public long offHeapMemory=0;
+	
+	/** If positive, count kmers through this many disk bins */
+	public int diskBins=0;
+	/** Directory for bin files; defaults to Shared.tmpdir() */
+	public String binTemp=null;
+	/** Kmers seen fewer times than this in disk bin mode are discarded */
+	public int binMinCount=2;
+	/** Minimizer length for assigning super-kmers to bins */
+	public int binMlen=13;
+	/** Holds the bins while loading */
+	private KmerBinner binner;
 	
 	public final int tableType; //AbstractKmerTable.ARRAY1D;
 	
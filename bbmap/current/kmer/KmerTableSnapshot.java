@@ -0,0 +1,371 @@
+package kmer;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import shared.Tools;
+import structures.IntList2;
+
+/**
+ * Saves a set of HashArray1D or HashArrayHybrid tables to a binary snapshot, and loads them back.
+ * The snapshot holds the raw key and value arrays of each way, plus its victims,
+ * so reloading is a memory-mapped bulk copy rather than a counting pass.
+ * Layout (little-endian): magic, version, k, ways, table type, rcomp, core mask;
+ * the file offset of each way; then per way: prime, size, keys, values, victim count, victims.
+ * Hybrid ways also store their value sets after the values, and each victim's value list.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class KmerTableSnapshot {
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Writing            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Writes the tables to a snapshot file.
+	 * @param tables Tables to write; must all be HashArray1D, or all HashArrayHybrid
+	 */
+	public static void write(final AbstractKmerTable[] tables, final int k, final boolean rcomp, final String fname){
+		final int ways=tables.length;
+		final int type=tableType(tables[0]);
+		final ByteBuffer bb=ByteBuffer.allocate(BUFLEN).order(ByteOrder.LITTLE_ENDIAN);
+		try(FileOutputStream fos=new FileOutputStream(fname)){
+			final FileChannel fc=fos.getChannel();
+			bb.putLong(MAGIC).putInt(VERSION).putInt(k).putInt(ways);
+			bb.putInt(type).putInt(rcomp ? 1 : 0).putLong(((HashArray)tables[0]).coreMask());
+			final long offsetsPos=bb.position();
+			for(int i=0; i<ways; i++){bb.putLong(0);}//Filled in at the end
+			final long[] offsets=new long[ways];
+			long pos=offsetsPos+8L*ways;
+			flush(bb, fc);
+
+			for(int i=0; i<ways; i++){
+				if(tableType(tables[i])!=type){throw new RuntimeException("Snapshot tables must all be the same type.");}
+				offsets[i]=pos;
+				if(type==AbstractKmerTable.ARRAY1D){
+					pos+=writeTable((HashArray1D)tables[i], bb, fc);
+				}else{
+					pos+=writeTable((HashArrayHybrid)tables[i], bb, fc);
+				}
+			}
+
+			bb.clear();
+			for(long x : offsets){bb.putLong(x);}
+			bb.flip();
+			for(long p=offsetsPos; bb.hasRemaining(); ){p+=fc.write(bb, p);}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed writing table snapshot "+fname, e);
+		}
+	}
+
+	/** Returns ARRAY1D or ARRAYH, or throws an exception for unsupported tables. */
+	private static int tableType(final AbstractKmerTable table){
+		if(table instanceof HashArray1D){return AbstractKmerTable.ARRAY1D;}
+		if(table instanceof HashArrayHybrid){return AbstractKmerTable.ARRAYH;}
+		throw new RuntimeException("Snapshots require HashArray1D or HashArrayHybrid tables, not "+table.getClass().getSimpleName());
+	}
+
+	/** Writes one way.  Returns the number of bytes written. */
+	private static long writeTable(final HashArray1D table, final ByteBuffer bb, final FileChannel fc) throws IOException {
+		final ArrayList<KmerNode> victims=table.victims().toList();
+		long written=writeArrays(table, table.values(), bb, fc);
+		if(bb.remaining()<8){written+=flush(bb, fc);}
+		bb.putLong(victims.size());
+		for(KmerNode n : victims){
+			if(bb.remaining()<12){written+=flush(bb, fc);}
+			bb.putLong(n.pivot).putInt(n.value());
+		}
+		written+=flush(bb, fc);
+		return written;
+	}
+
+	/** Writes one hybrid way, including its value sets.  Returns the number of bytes written. */
+	private static long writeTable(final HashArrayHybrid table, final ByteBuffer bb, final FileChannel fc) throws IOException {
+		final ArrayList<KmerNode> victims=table.victims().toList();
+		final IntList2 sets=table.setList();
+		long written=writeArrays(table, table.values(), bb, fc);
+
+		if(bb.remaining()<4){written+=flush(bb, fc);}
+		bb.putInt(sets.size);
+		for(int i=0; i<sets.size; i++){
+			written+=writeSet(sets.get(i), bb, fc);
+		}
+
+		if(bb.remaining()<8){written+=flush(bb, fc);}
+		bb.putLong(victims.size());
+		final int[] singleton=new int[1];
+		for(KmerNode n : victims){
+			if(bb.remaining()<8){written+=flush(bb, fc);}
+			bb.putLong(n.pivot);
+			written+=writeSet(n.values(singleton), bb, fc);
+		}
+		written+=flush(bb, fc);
+		return written;
+	}
+
+	/** Writes prime, size, keys and values.  Returns the number of bytes flushed. */
+	private static long writeArrays(final HashArray table, final int[] values, final ByteBuffer bb, final FileChannel fc) throws IOException {
+		final long[] keys=table.array();
+		long written=0;
+		if(bb.remaining()<12){written+=flush(bb, fc);}
+		bb.putInt(table.prime).putLong(table.size);
+		for(int pos=0; pos<keys.length; ){
+			if(bb.remaining()<8){written+=flush(bb, fc);}
+			final int len=Tools.min(keys.length-pos, bb.remaining()/8);
+			bb.asLongBuffer().put(keys, pos, len);
+			bb.position(bb.position()+len*8);
+			pos+=len;
+		}
+		for(int pos=0; pos<values.length; ){
+			if(bb.remaining()<4){written+=flush(bb, fc);}
+			final int len=Tools.min(values.length-pos, bb.remaining()/4);
+			bb.asIntBuffer().put(values, pos, len);
+			bb.position(bb.position()+len*4);
+			pos+=len;
+		}
+		return written;
+	}
+
+	/** Writes the number of valid values in a set, then the values.  Returns the number of bytes flushed. */
+	private static long writeSet(final int[] set, final ByteBuffer bb, final FileChannel fc) throws IOException {
+		int len=0;
+		if(set!=null){
+			while(len<set.length && set[len]!=IntList2.INVALID){len++;}
+		}
+		long written=0;
+		if(bb.remaining()<4){written+=flush(bb, fc);}
+		bb.putInt(len);
+		for(int i=0; i<len; i++){
+			if(bb.remaining()<4){written+=flush(bb, fc);}
+			bb.putInt(set[i]);
+		}
+		return written;
+	}
+
+	/** Writes buffered data to the channel.  Returns the number of bytes written. */
+	private static long flush(final ByteBuffer bb, final FileChannel fc) throws IOException {
+		bb.flip();
+		final long len=bb.remaining();
+		while(bb.hasRemaining()){fc.write(bb);}
+		bb.clear();
+		return len;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Reading            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Reads and validates the header.
+	 * @return {k, ways, table type, rcomp}
+	 */
+	public static int[] readHeader(final String fname){
+		final ByteBuffer bb=headerBuffer(fname);
+		return new int[] {bb.getInt(), bb.getInt(), bb.getInt(), bb.getInt()};
+	}
+
+	/** Returns the header, positioned after the version. */
+	private static ByteBuffer headerBuffer(final String fname){
+		try(FileInputStream fis=new FileInputStream(fname)){
+			final FileChannel fc=fis.getChannel();
+			final ByteBuffer bb=ByteBuffer.allocate(HEADER_LEN).order(ByteOrder.LITTLE_ENDIAN);
+			while(bb.hasRemaining() && fc.read(bb)>=0){}
+			if(bb.hasRemaining()){throw new RuntimeException(fname+" is not a kmer table snapshot.");}
+			bb.flip();
+			if(bb.getLong()!=MAGIC){throw new RuntimeException(fname+" is not a kmer table snapshot.");}
+			final int version=bb.getInt();
+			if(version!=VERSION){throw new RuntimeException("Unsupported snapshot version "+version+" in "+fname);}
+			return bb;
+		} catch (IOException e) {
+			throw new RuntimeException("Failed reading table snapshot "+fname, e);
+		}
+	}
+
+	/**
+	 * Loads all tables from a snapshot using memory-mapped reads, one way per thread at a time.
+	 * @param coreMask Core mask for the new tables; must match the snapshot's
+	 * @return HashArray1D or HashArrayHybrid tables, depending on what was saved
+	 */
+	public static HashArray[] read(final String fname, final int k, final boolean rcomp, final long coreMask, final int threads){
+		final ByteBuffer header=headerBuffer(fname);
+		final int k2=header.getInt(), ways=header.getInt(), type=header.getInt(), rcomp2=header.getInt();
+		final long coreMask2=header.getLong();
+		if(k2!=k){throw new RuntimeException("Snapshot "+fname+" has k="+k2+", but k="+k+" was requested.");}
+		if(coreMask2!=coreMask || rcomp2!=(rcomp ? 1 : 0)){
+			throw new RuntimeException("Snapshot "+fname+" was made with different maskcore or rcomp settings.");
+		}
+		final HashArray[] tables=new HashArray[ways];
+		try(RandomAccessFile raf=new RandomAccessFile(fname, "r")){
+			final FileChannel fc=raf.getChannel();
+			final long[] offsets=new long[ways+1];
+			map(fc, HEADER_LEN, 8L*ways).asLongBuffer().get(offsets, 0, ways);
+			offsets[ways]=fc.size();
+
+			final AtomicInteger next=new AtomicInteger(0);
+			final ArrayList<ReadThread> list=new ArrayList<ReadThread>();
+			for(int i=0, t=Tools.mid(1, threads, ways); i<t; i++){list.add(new ReadThread(fc, offsets, tables, type, coreMask, next));}
+			for(ReadThread rt : list){rt.start();}
+			boolean success=true;
+			for(ReadThread rt : list){
+				while(rt.getState()!=Thread.State.TERMINATED){
+					try {
+						rt.join();
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+					}
+				}
+				success&=rt.success;
+			}
+			if(!success){throw new RuntimeException("Failed reading table snapshot "+fname);}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed reading table snapshot "+fname, e);
+		}
+		return tables;
+	}
+
+	/** Reads one way, occupying the file from pos to end. */
+	private static HashArray readTable(final FileChannel fc, long pos, final long end, final int type, final long coreMask) throws IOException {
+		ByteBuffer bb=map(fc, pos, 12);
+		final int prime=bb.getInt();
+		final long size=bb.getLong();
+		pos+=12;
+
+		final HashArray table;
+		final int[] values;
+		if(type==AbstractKmerTable.ARRAY1D){
+			HashArray1D ha=new HashArray1D(new int[] {prime}, coreMask);
+			values=ha.values();
+			table=ha;
+		}else if(type==AbstractKmerTable.ARRAYH){
+			HashArrayHybrid ha=new HashArrayHybrid(new int[] {prime}, coreMask);
+			values=ha.values();
+			table=ha;
+		}else{
+			throw new RuntimeException("Unknown snapshot table type "+type);
+		}
+		final long[] keys=table.array();
+		for(int i=0; i<keys.length; ){
+			final int len=Tools.min(keys.length-i, MAP_LEN/8);
+			map(fc, pos, len*8L).asLongBuffer().get(keys, i, len);
+			pos+=len*8L;
+			i+=len;
+		}
+		for(int i=0; i<values.length; ){
+			final int len=Tools.min(values.length-i, MAP_LEN/4);
+			map(fc, pos, len*4L).asIntBuffer().get(values, i, len);
+			pos+=len*4L;
+			i+=len;
+		}
+		table.size=size;
+
+		if(type==AbstractKmerTable.ARRAY1D){
+			bb=map(fc, pos, 8);
+			final long victims=bb.getLong();
+			pos+=8;
+			for(long i=0; i<victims; ){
+				final int len=(int)Tools.min(victims-i, MAP_LEN/12);
+				bb=map(fc, pos, len*12L);
+				for(int j=0; j<len; j++){
+					table.victims.set(bb.getLong(), bb.getInt());
+				}
+				pos+=len*12L;
+				i+=len;
+			}
+		}else{
+			if(end-pos>Integer.MAX_VALUE){throw new RuntimeException("Value sets of one way exceed 2GB.");}
+			bb=map(fc, pos, end-pos);
+			final IntList2 sets=((HashArrayHybrid)table).setList();
+			final int numSets=bb.getInt();
+			sets.size=0;
+			for(int i=0; i<numSets; i++){
+				final int[] set=readSet(bb);
+				sets.add(set, set==null ? 0 : set.length);
+			}
+			final long victims=bb.getLong();
+			for(long i=0; i<victims; i++){
+				final long kmer=bb.getLong();
+				final int[] set=readSet(bb);
+				if(set!=null){table.victims.set(kmer, set, set.length);}
+			}
+		}
+		return table;
+	}
+
+	/** Reads a set written by writeSet; returns null for an empty set. */
+	private static int[] readSet(final ByteBuffer bb){
+		final int len=bb.getInt();
+		if(len==0){return null;}
+		final int[] set=new int[len];
+		bb.asIntBuffer().get(set);
+		bb.position(bb.position()+4*len);
+		return set;
+	}
+
+	private static MappedByteBuffer map(FileChannel fc, long pos, long len) throws IOException {
+		final MappedByteBuffer mbb=fc.map(FileChannel.MapMode.READ_ONLY, pos, len);
+		mbb.order(ByteOrder.LITTLE_ENDIAN);
+		return mbb;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private static class ReadThread extends Thread {
+
+		ReadThread(FileChannel fc_, long[] offsets_, HashArray[] tables_, int type_, long coreMask_, AtomicInteger next_){
+			fc=fc_;
+			offsets=offsets_;
+			tables=tables_;
+			type=type_;
+			coreMask=coreMask_;
+			next=next_;
+		}
+
+		@Override
+		public void run(){
+			try {
+				for(int i=next.getAndIncrement(); i<tables.length; i=next.getAndIncrement()){
+					final HashArray table=readTable(fc, offsets[i], offsets[i+1], type, coreMask);
+					synchronized(tables){tables[i]=table;}
+				}
+				success=true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		private final FileChannel fc;
+		private final long[] offsets;
+		private final HashArray[] tables;
+		private final int type;
+		private final long coreMask;
+		private final AtomicInteger next;
+		boolean success=false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** "BBKTSNAP" */
+	private static final long MAGIC=0x50414E53544B4242L;
+	private static final int VERSION=2;
+	/** Magic, version, k, ways, table type, rcomp, core mask */
+	private static final int HEADER_LEN=8+4*5+8;
+	/** Write buffer size */
+	private static final int BUFLEN=1<<20;
+	/** Maximum bytes mapped at once */
+	private static final int MAP_LEN=1<<28;
+
+}
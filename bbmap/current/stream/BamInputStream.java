@@ -0,0 +1,100 @@
+package stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import structures.ByteBuilder;
+
+/**
+ * Presents a BAM file as sam text, like "samtools view -h", without a subprocess.
+ * Used by ReadWrite for programs that read sam lines from a byte stream;
+ * SamStreamer decodes BAM records directly instead.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BamInputStream extends InputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param raw Compressed BAM data
+	 * @param threads Inflation threads
+	 * @param ignoreFlag Skip records with any of these flag bits set
+	 */
+	public BamInputStream(InputStream raw, int threads, int ignoreFlag){
+		reader=new BamReader(raw, threads, ignoreFlag);
+		for(byte[] line : reader.headerLines()){bb.append(line).append('\n');}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public int read() throws IOException {
+		if(!fill()){return -1;}
+		final int b=bb.array[bbPos]&0xFF;
+		bbPos++;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len<1){return 0;}
+		if(!fill()){return -1;}
+		final int x=Math.min(len, bb.length()-bbPos);
+		System.arraycopy(bb.array, bbPos, b, off, x);
+		bbPos+=x;
+		return x;
+	}
+
+	@Override
+	public int available(){
+		return bb.length()-bbPos;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed){return;}
+		closed=true;
+		reader.close();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Converts more records if the buffer is empty; returns false at end of file. */
+	private boolean fill(){
+		if(bbPos<bb.length()){return true;}
+		if(finished){return false;}
+		bb.clear();
+		bbPos=0;
+		while(bb.length()<TARGET_LEN){
+			final byte[] rec=reader.nextRecord();
+			if(rec==null){
+				finished=true;
+				break;
+			}
+			reader.appendSam(rec, bb);
+		}
+		return bb.length()>0;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final BamReader reader;
+	/** Sam text not yet read */
+	private final ByteBuilder bb=new ByteBuilder(TARGET_LEN+4096);
+	private int bbPos=0;
+	private boolean finished=false;
+	private boolean closed=false;
+
+	private static final int TARGET_LEN=1<<16;
+
+}
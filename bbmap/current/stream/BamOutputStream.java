@@ -0,0 +1,391 @@
+package stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import fileIO.BgzfOutputStream;
+import shared.Tools;
+import structures.ByteBuilder;
+
+/**
+ * Converts sam text written to it into BAM, without samtools.
+ * Header lines are buffered until the first alignment, then the reference list is
+ * built from the @SQ lines.  Records are encoded as they arrive, and compressed
+ * into BGZF blocks in parallel by BgzfOutputStream.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BamOutputStream extends OutputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param raw Destination for the compressed data
+	 * @param level Compression level
+	 * @param threads Compression threads
+	 */
+	public BamOutputStream(OutputStream raw, int level, int threads){
+		out=new BgzfOutputStream(raw, level, threads);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte)b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		final int stop=off+len;
+		for(int i=off; i<stop; i++){
+			if(b[i]=='\n'){
+				if(line.length()>0){
+					line.append(b, off, i-off);
+					processLine(line.array, line.length());
+					line.clear();
+				}else{
+					processLine(b, off, i);
+				}
+				off=i+1;
+			}
+		}
+		if(off<stop){line.append(b, off, stop-off);}
+		if(rec.length()>=FLUSH_LEN){flushRecords();}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushRecords();
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed){return;}
+		closed=true;
+		if(line.length()>0){
+			processLine(line.array, line.length());
+			line.clear();
+		}
+		if(header!=null){writeHeader();}
+		flushRecords();
+		out.close();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private void processLine(byte[] s, int stop) throws IOException {
+		processLine(s, 0, stop);
+	}
+
+	private void processLine(byte[] s, int a, int stop) throws IOException {
+		if(stop>a && s[stop-1]=='\r'){stop--;}
+		if(stop<=a){return;}
+		if(header!=null){
+			if(s[a]=='@'){
+				header.append(s, a, stop-a).append('\n');
+				if(stop-a>3 && s[a+1]=='S' && s[a+2]=='Q'){addReference(s, a, stop);}
+				return;
+			}
+			writeHeader();
+		}
+		encode(s, a, stop);
+	}
+
+	/** Adds the reference from an @SQ line. */
+	private void addReference(final byte[] s, final int start, final int stop){
+		String name=null;
+		int len=0;
+		for(int a=start, b=start; b<=stop; b++){
+			if(b==stop || s[b]=='\t'){
+				if(b-a>3 && s[a]=='S' && s[a+1]=='N' && s[a+2]==':'){
+					name=new String(s, a+3, b-a-3);
+				}else if(b-a>3 && s[a]=='L' && s[a+1]=='N' && s[a+2]==':'){
+					len=Tools.parseInt(s, a+3, b);
+				}
+				a=b+1;
+			}
+		}
+		if(name==null){throw new RuntimeException("@SQ line without SN field: "+new String(s, start, stop-start));}
+		refMap.put(name, refNames.size());
+		refNames.add(name);
+		refLengths.add(len);
+	}
+
+	private void writeHeader() throws IOException {
+		final ByteBuilder bb=new ByteBuilder(header.length()+refNames.size()*32+16);
+		appendInt(BamReader.MAGIC, bb);
+		appendInt(header.length(), bb);
+		bb.append(header.array, 0, header.length());
+		appendInt(refNames.size(), bb);
+		for(int i=0; i<refNames.size(); i++){
+			final byte[] name=refNames.get(i).getBytes();
+			appendInt(name.length+1, bb);
+			bb.append(name).append((byte)0);
+			appendInt(refLengths.get(i), bb);
+		}
+		out.write(bb.array, 0, bb.length());
+		header=null;
+	}
+
+	/** Encodes one sam line as a BAM record. */
+	private void encode(final byte[] s, int a, final int stop){
+		final ByteBuilder bb=rec;
+		final int start=bb.length();
+		appendInt(0, bb);//Block size, filled in later
+		for(int i=0; i<32; i++){bb.append((byte)0);}
+		final int fixed=start+4;
+
+		int b=nextTab(s, a, stop);
+		final int nameLen=b-a;
+		bb.append(s, a, nameLen).append((byte)0);
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int flag=Tools.parseInt(s, a, b);
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int refID=refID(s, a, b, -1);
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int pos=Tools.parseInt(s, a, b)-1;
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int mapq=Tools.parseInt(s, a, b);
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		int cigarOps=0, refLen=0;
+		if(!(b==a+1 && s[a]=='*')){
+			for(int x=0; a<b; a++){
+				final byte c=s[a];
+				if(c>='0' && c<='9'){
+					x=x*10+(c-'0');
+				}else{
+					final int op=(c<0 ? -1 : CIGAR_CODES[c]);
+					if(op<0){throw new RuntimeException("Bad cigar symbol '"+(char)c+"' in "+new String(s, 0, stop));}
+					appendInt((x<<4)|op, bb);
+					if(op==0 || op==2 || op==3 || op==7 || op==8){refLen+=x;}
+					cigarOps++;
+					x=0;
+				}
+			}
+		}
+		assert(cigarOps<=0xFFFF) : "Too many cigar operations: "+cigarOps;
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int nextID=(b==a+1 && s[a]=='=' ? refID : refID(s, a, b, -1));
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int pnext=Tools.parseInt(s, a, b)-1;
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int tlen=Tools.parseInt(s, a, b);
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		final int seqLen=(b==a+1 && s[a]=='*' ? 0 : b-a);
+		for(int i=0; i<seqLen; i+=2){
+			final int hi=SEQ_CODES[s[a+i]&0x7F], lo=(i+1<seqLen ? SEQ_CODES[s[a+i+1]&0x7F] : 0);
+			bb.append((byte)((hi<<4)|lo));
+		}
+		a=b+1;
+
+		b=nextTab(s, a, stop);
+		if(seqLen>0){
+			if(b==a+1 && s[a]=='*'){
+				for(int i=0; i<seqLen; i++){bb.append((byte)0xFF);}
+			}else{
+				assert(b-a==seqLen) : "Quality and bases lengths differ: "+new String(s, 0, stop);
+				for(int i=0; i<seqLen; i++){bb.append((byte)(s[a+i]-33));}
+			}
+		}
+		a=b+1;
+
+		while(a<stop){
+			b=nextTab(s, a, stop);
+			if(b>a){encodeTag(s, a, b, bb);}
+			a=b+1;
+		}
+
+		final int end=(refLen>0 ? pos+refLen : pos+1);
+		final byte[] array=bb.array;
+		writeInt(array, start, bb.length()-start-4);
+		writeInt(array, fixed, refID);
+		writeInt(array, fixed+4, pos);
+		array[fixed+8]=(byte)(nameLen+1);
+		array[fixed+9]=(byte)mapq;
+		writeShort(array, fixed+10, reg2bin(pos, end));
+		writeShort(array, fixed+12, cigarOps);
+		writeShort(array, fixed+14, flag);
+		writeInt(array, fixed+16, seqLen);
+		writeInt(array, fixed+20, nextID);
+		writeInt(array, fixed+24, pnext);
+		writeInt(array, fixed+28, tlen);
+	}
+
+	/** Encodes an optional field such as NM:i:2, using the smallest integer type that fits. */
+	private static void encodeTag(final byte[] s, final int a, final int b, final ByteBuilder bb){
+		if(b-a<5 || s[a+2]!=':' || s[a+4]!=':'){throw new RuntimeException("Bad optional field: "+new String(s, a, b-a));}
+		bb.append(s[a]).append(s[a+1]);
+		final byte type=s[a+3];
+		final int v=a+5;
+		if(type=='A'){
+			bb.append(type).append(s[v]);
+		}else if(type=='i'){
+			final long x=Tools.parseLong(s, v, b);
+			appendInteger(x, bb);
+		}else if(type=='f'){
+			bb.append(type);
+			appendInt(Float.floatToIntBits(Float.parseFloat(new String(s, v, b-v))), bb);
+		}else if(type=='Z' || type=='H'){
+			bb.append(type).append(s, v, b-v).append((byte)0);
+		}else if(type=='B'){
+			final byte sub=s[v];
+			bb.append(type).append(sub);
+			final int countPos=bb.length();
+			appendInt(0, bb);
+			int count=0;
+			for(int x=v+2, y=x; y<=b; y++){
+				if(y==b || s[y]==','){
+					if(y>x){
+						if(sub=='f'){
+							appendInt(Float.floatToIntBits(Float.parseFloat(new String(s, x, y-x))), bb);
+						}else{
+							final long n=Tools.parseLong(s, x, y);
+							if(sub=='c' || sub=='C'){bb.append((byte)n);}
+							else if(sub=='s' || sub=='S'){bb.append((byte)n).append((byte)(n>>8));}
+							else{appendInt((int)n, bb);}
+						}
+						count++;
+					}
+					x=y+1;
+				}
+			}
+			writeInt(bb.array, countPos, count);
+		}else{
+			throw new RuntimeException("Unknown optional field type: "+new String(s, a, b-a));
+		}
+	}
+
+	private static void appendInteger(final long x, final ByteBuilder bb){
+		if(x<0){
+			if(x>=Byte.MIN_VALUE){bb.append('c').append((byte)x);}
+			else if(x>=Short.MIN_VALUE){bb.append('s').append((byte)x).append((byte)(x>>8));}
+			else{
+				bb.append('i');
+				appendInt((int)x, bb);
+			}
+		}else{
+			if(x<=0xFF){bb.append('C').append((byte)x);}
+			else if(x<=0xFFFF){bb.append('S').append((byte)x).append((byte)(x>>8));}
+			else{
+				bb.append(x<=Integer.MAX_VALUE ? 'i' : 'I');
+				appendInt((int)x, bb);
+			}
+		}
+	}
+
+	private int refID(final byte[] s, final int a, final int b, final int missing){
+		if(b==a+1 && s[a]=='*'){return missing;}
+		final String name=new String(s, a, b-a);
+		final Integer id=refMap.get(name);
+		if(id==null){throw new RuntimeException("Reference '"+name+"' is not in the sam header.");}
+		return id;
+	}
+
+	private void flushRecords() throws IOException {
+		if(rec.length()>0){
+			out.write(rec.array, 0, rec.length());
+			rec.clear();
+		}
+	}
+
+	private static int nextTab(final byte[] s, int a, final int stop){
+		while(a<stop && s[a]!='\t'){a++;}
+		return a;
+	}
+
+	private static void appendInt(final int x, final ByteBuilder bb){
+		bb.append((byte)x).append((byte)(x>>8)).append((byte)(x>>16)).append((byte)(x>>24));
+	}
+
+	private static void writeInt(final byte[] array, final int p, final int x){
+		array[p]=(byte)x;
+		array[p+1]=(byte)(x>>8);
+		array[p+2]=(byte)(x>>16);
+		array[p+3]=(byte)(x>>24);
+	}
+
+	private static void writeShort(final byte[] array, final int p, final int x){
+		array[p]=(byte)x;
+		array[p+1]=(byte)(x>>8);
+	}
+
+	/** Standard BAM binning scheme, for the 0-based half-open interval [beg, end). */
+	static int reg2bin(final int beg, int end){
+		end--;
+		if(beg>>14==end>>14){return ((1<<15)-1)/7+(beg>>14);}
+		if(beg>>17==end>>17){return ((1<<12)-1)/7+(beg>>17);}
+		if(beg>>20==end>>20){return ((1<<9)-1)/7+(beg>>20);}
+		if(beg>>23==end>>23){return ((1<<6)-1)/7+(beg>>23);}
+		if(beg>>26==end>>26){return ((1<<3)-1)/7+(beg>>26);}
+		return 0;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final BgzfOutputStream out;
+	/** Partial line carried between writes */
+	private final ByteBuilder line=new ByteBuilder(1024);
+	/** Encoded records awaiting compression */
+	private final ByteBuilder rec=new ByteBuilder(FLUSH_LEN+4096);
+	/** Header text; null once written */
+	private ByteBuilder header=new ByteBuilder(4096);
+
+	private final HashMap<String, Integer> refMap=new HashMap<String, Integer>();
+	private final ArrayList<String> refNames=new ArrayList<String>();
+	private final ArrayList<Integer> refLengths=new ArrayList<Integer>();
+	private boolean closed=false;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private static final int FLUSH_LEN=1<<18;
+
+	/** Maps cigar symbols to BAM operation codes */
+	private static final byte[] CIGAR_CODES=new byte[128];
+	/** Maps base symbols to 4-bit BAM codes */
+	private static final byte[] SEQ_CODES=new byte[128];
+
+	static{
+		Arrays.fill(CIGAR_CODES, (byte)-1);
+		for(int i=0; i<9; i++){CIGAR_CODES[BamReader.CIGAR_OPS[i]]=(byte)i;}
+		Arrays.fill(SEQ_CODES, (byte)15);
+		for(int i=0; i<16; i++){
+			final byte c=BamReader.SEQ_CODES[i];
+			SEQ_CODES[c]=SEQ_CODES[Tools.toLowerCase(c)]=(byte)i;
+		}
+	}
+
+}
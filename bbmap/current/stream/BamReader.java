@@ -0,0 +1,324 @@
+package stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import fileIO.BgzfInputStream;
+import fileIO.ReadWrite;
+import shared.Tools;
+import structures.ByteBuilder;
+
+/**
+ * Reads BAM files in-process, without samtools or sambamba.
+ * BGZF blocks are inflated in parallel by BgzfInputStream.  Records are returned
+ * as raw binary, so worker threads can decode them directly into SamLines
+ * with SamLine(byte[], BamReader), or they can be converted to sam text.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BamReader {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param fname BAM file
+	 * @param threads Inflation threads
+	 * @param ignoreFlag_ Skip records with any of these flag bits set
+	 */
+	public BamReader(String fname, int threads, int ignoreFlag_){
+		this(ReadWrite.getRawInputStream(fname, false), threads, ignoreFlag_);
+	}
+
+	public BamReader(InputStream raw, int threads, int ignoreFlag_){
+		in=new BgzfInputStream(raw, threads);
+		ignoreFlag=ignoreFlag_;
+		try {
+			require(8);
+			if(readInt(buf, pos)!=MAGIC){throw new RuntimeException("Not a BAM file: bad magic number.");}
+			final int textLen=readInt(buf, pos+4);
+			pos+=8;
+			require(textLen);
+			int textStop=pos+textLen;
+			while(textStop>pos && buf[textStop-1]==0){textStop--;}
+			headerText=Arrays.copyOfRange(buf, pos, textStop);
+			pos+=textLen;
+
+			require(4);
+			final int refs=readInt(buf, pos);
+			pos+=4;
+			refNames=new byte[refs][];
+			refNamesS=new String[refs];
+			refLengths=new int[refs];
+			for(int i=0; i<refs; i++){
+				require(4);
+				final int nameLen=readInt(buf, pos);
+				pos+=4;
+				require(nameLen+4);
+				refNames[i]=Arrays.copyOfRange(buf, pos, pos+nameLen-1);
+				refNamesS[i]=new String(refNames[i]);
+				pos+=nameLen;
+				refLengths[i]=readInt(buf, pos);
+				pos+=4;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Returns the next record that passes the flag filter, without its length prefix,
+	 * or null at end of file.
+	 */
+	public byte[] nextRecord(){
+		try {
+			while(fill(4)){
+				final int len=readInt(buf, pos);
+				require(len+4);
+				final int start=pos+4;
+				pos=start+len;
+				if(ignoreFlag==0 || (readShort(buf, start+14)&ignoreFlag)==0){
+					return Arrays.copyOfRange(buf, start, start+len);
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return null;
+	}
+
+	/** Header text split into lines.  @SQ lines are generated from the reference list if the text has none. */
+	public ArrayList<byte[]> headerLines(){
+		final ArrayList<byte[]> list=new ArrayList<byte[]>();
+		boolean sq=false;
+		for(int a=0, b=0; b<=headerText.length; b++){
+			if(b==headerText.length || headerText[b]=='\n'){
+				final int stop=(b>a && headerText[b-1]=='\r' ? b-1 : b);
+				if(stop>a){
+					final byte[] line=Arrays.copyOfRange(headerText, a, stop);
+					sq|=(line.length>3 && line[1]=='S' && line[2]=='Q');
+					list.add(line);
+				}
+				a=b+1;
+			}
+		}
+		if(!sq){
+			for(int i=0; i<refNames.length; i++){
+				list.add(("@SQ\tSN:"+refNamesS[i]+"\tLN:"+refLengths[i]).getBytes());
+			}
+		}
+		return list;
+	}
+
+	/** Appends a record as a line of sam text, including the newline. */
+	public void appendSam(final byte[] rec, final ByteBuilder bb){
+		final int refID=readInt(rec, 0);
+		final int nameLen=rec[8]&0xFF;
+		final int cigarOps=readShort(rec, 12);
+		final int seqLen=readInt(rec, 16);
+		final int nextID=readInt(rec, 20);
+		int p=32;
+
+		bb.append(rec, p, nameLen-1).append('\t');
+		p+=nameLen;
+		bb.append(readShort(rec, 14)).append('\t');
+		if(refID<0){bb.append('*');}
+		else{bb.append(refNames[refID]);}
+		bb.append('\t').append(readInt(rec, 4)+1).append('\t').append(rec[9]&0xFF).append('\t');
+		if(cigarOps==0){bb.append('*');}
+		else{
+			for(int i=0; i<cigarOps; i++, p+=4){
+				final int x=readInt(rec, p);
+				bb.append(x>>>4).append(CIGAR_OPS[x&0xF]);
+			}
+		}
+		bb.append('\t');
+		if(nextID<0){bb.append('*');}
+		else if(nextID==refID){bb.append('=');}
+		else{bb.append(refNames[nextID]);}
+		bb.append('\t').append(readInt(rec, 24)+1).append('\t').append(readInt(rec, 28)).append('\t');
+
+		if(seqLen==0){bb.append('*');}
+		else{
+			for(int i=0; i<seqLen; i++){bb.append(SEQ_CODES[(rec[p+(i>>1)]>>((~i&1)<<2))&0xF]);}
+		}
+		p+=(seqLen+1)/2;
+		bb.append('\t');
+		if(seqLen==0 || rec[p]==(byte)0xFF){bb.append('*');}
+		else{
+			for(int i=0; i<seqLen; i++){bb.append((byte)(rec[p+i]+33));}
+		}
+		p+=seqLen;
+
+		while(p<rec.length){
+			bb.append('\t');
+			p=appendTag(rec, p, bb);
+		}
+		bb.append('\n');
+	}
+
+	public void close(){
+		try {
+			in.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Decodes 4-bit packed bases. */
+	static byte[] decodeSeq(final byte[] rec, final int p, final int seqLen){
+		final byte[] seq=new byte[seqLen];
+		for(int i=0; i<seqLen; i++){seq[i]=SEQ_CODES[(rec[p+(i>>1)]>>((~i&1)<<2))&0xF];}
+		return seq;
+	}
+
+	static String cigarString(final byte[] rec, int p, final int cigarOps){
+		final StringBuilder sb=new StringBuilder(cigarOps*4);
+		for(int i=0; i<cigarOps; i++, p+=4){
+			final int x=readInt(rec, p);
+			sb.append(x>>>4).append((char)CIGAR_OPS[x&0xF]);
+		}
+		return sb.toString();
+	}
+
+	/** Appends an optional field as text, such as NM:i:2; returns the position of the next field. */
+	static int appendTag(final byte[] rec, int p, final ByteBuilder bb){
+		bb.append(rec[p]).append(rec[p+1]).append(':');
+		final byte type=rec[p+2];
+		p+=3;
+		if(type=='A'){
+			bb.append('A').append(':').append(rec[p]);
+			return p+1;
+		}else if(type=='Z' || type=='H'){
+			bb.append(type).append(':');
+			for(; rec[p]!=0; p++){bb.append(rec[p]);}
+			return p+1;
+		}else if(type=='B'){
+			final byte sub=rec[p];
+			final int count=readInt(rec, p+1);
+			final int size=typeSize(sub);
+			p+=5;
+			bb.append('B').append(':').append(sub);
+			for(int i=0; i<count; i++, p+=size){
+				bb.append(',');
+				appendNumber(rec, p, sub, bb);
+			}
+			return p;
+		}
+		bb.append(type=='f' ? 'f' : 'i').append(':');
+		appendNumber(rec, p, type, bb);
+		return p+typeSize(type);
+	}
+
+	/** Returns the position of the next optional field. */
+	static int skipTag(final byte[] rec, int p){
+		final byte type=rec[p+2];
+		p+=3;
+		if(type=='Z' || type=='H'){
+			while(rec[p]!=0){p++;}
+			return p+1;
+		}else if(type=='B'){
+			return p+5+readInt(rec, p+1)*typeSize(rec[p]);
+		}
+		return p+typeSize(type);
+	}
+
+	private static void appendNumber(final byte[] rec, final int p, final byte type, final ByteBuilder bb){
+		switch(type){
+			case 'c': bb.append((int)rec[p]); break;
+			case 'C': bb.append(rec[p]&0xFF); break;
+			case 's': bb.append((int)(short)readShort(rec, p)); break;
+			case 'S': bb.append(readShort(rec, p)); break;
+			case 'i': bb.append(readInt(rec, p)); break;
+			case 'I': bb.append(readInt(rec, p)&0xFFFFFFFFL); break;
+			case 'f': bb.append(Float.toString(Float.intBitsToFloat(readInt(rec, p)))); break;
+			default: throw new RuntimeException("Unknown BAM tag type '"+(char)type+"'");
+		}
+	}
+
+	private static int typeSize(final byte type){
+		switch(type){
+			case 'A': case 'c': case 'C': return 1;
+			case 's': case 'S': return 2;
+			case 'i': case 'I': case 'f': return 4;
+			default: throw new RuntimeException("Unknown BAM tag type '"+(char)type+"'");
+		}
+	}
+
+	/** Reads a little-endian int. */
+	static int readInt(final byte[] array, final int p){
+		return (array[p]&0xFF)|((array[p+1]&0xFF)<<8)|((array[p+2]&0xFF)<<16)|((array[p+3]&0xFF)<<24);
+	}
+
+	/** Reads an unsigned little-endian short. */
+	static int readShort(final byte[] array, final int p){
+		return (array[p]&0xFF)|((array[p+1]&0xFF)<<8);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Ensures len unread bytes are buffered; returns false at a clean end of file. */
+	private boolean fill(final int len) throws IOException {
+		if(lim-pos>=len){return true;}
+		if(pos>0){
+			System.arraycopy(buf, pos, buf, 0, lim-pos);
+			lim-=pos;
+			pos=0;
+		}
+		if(buf.length<len){buf=Arrays.copyOf(buf, Tools.max(len, 2*buf.length));}
+		while(lim<len){
+			final int r=in.read(buf, lim, buf.length-lim);
+			if(r<0){
+				if(lim==0){return false;}
+				throw new RuntimeException("Truncated BAM file.");
+			}
+			lim+=r;
+		}
+		return true;
+	}
+
+	private void require(final int len) throws IOException {
+		if(!fill(len)){throw new RuntimeException("Truncated BAM file.");}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final BgzfInputStream in;
+	private byte[] buf=new byte[1<<17];
+	private int pos=0, lim=0;
+
+	private final int ignoreFlag;
+
+	/** Sam header text */
+	public final byte[] headerText;
+	/** Reference names, indexed by refID */
+	public final byte[][] refNames;
+	public final String[] refNamesS;
+	public final int[] refLengths;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** "BAM\1" */
+	static final int MAGIC=0x014D4142;
+	static final byte[] CIGAR_OPS="MIDNSHP=X???????".getBytes();
+	static final byte[] SEQ_CODES="=ACMGRSVTWYHKDBN".getBytes();
+
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.lang.Thread.State;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fileIO.FileFormat;
 
@@ -198,13 +199,14 @@ public final class ConcurrentGenericReadOutputStream extends ConcurrentReadOutpu
 	}
 	
 	private synchronized void write(ArrayList<Read> list){
+		final AtomicInteger writers=(ReadPool.RECYCLE ? new AtomicInteger(readstream2==null ? 1 : 2) : null);
 		if(readstream1!=null){
 			if(readstream1.getState()==State.TERMINATED){throw new RuntimeException("Writing to a terminated thread.");}
-			readstream1.addList(list);
+			readstream1.addList(list, writers);
 		}
 		if(readstream2!=null){
 			if(readstream1.getState()==State.TERMINATED){throw new RuntimeException("Writing to a terminated thread.");}
-			readstream2.addList(list);
+			readstream2.addList(list, writers);
 		}
 	}
 	
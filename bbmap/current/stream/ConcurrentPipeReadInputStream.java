@@ -0,0 +1,137 @@
+package stream;
+
+import java.util.ArrayList;
+
+import structures.ListNum;
+
+/**
+ * Input end of an in-memory read pipe.
+ * Serves the lists added to a ConcurrentPipeReadOutputStream,
+ * renumbered sequentially so downstream ordered output still works.
+ * Any number of consumer threads may call nextList(); all of them
+ * receive an empty list once the producer closes the pipe.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class ConcurrentPipeReadInputStream extends ConcurrentReadInputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public ConcurrentPipeReadInputStream(ConcurrentPipeReadOutputStream source_){
+		source=source_;
+	}
+
+	/** Connects a new pipe and returns its input end; the output end is available through source. */
+	public static ConcurrentPipeReadInputStream makePipe(int capacity, boolean ordered){
+		return new ConcurrentPipeReadInputStream(new ConcurrentPipeReadOutputStream(capacity, ordered));
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Outer Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void start(){
+		started=true;
+	}
+
+	@Override
+	public synchronized ListNum<Read> nextList(){
+		ArrayList<Read> list=head;
+		head=null;
+		if(list==null){
+			list=(finished ? ConcurrentPipeReadOutputStream.POISON : source.take());
+		}
+		if(list==ConcurrentPipeReadOutputStream.POISON){
+			finished=true;
+			return new ListNum<Read>(new ArrayList<Read>(0), listnum++);
+		}
+
+		for(Read r : list){
+			readsIn+=r.pairCount();
+			basesIn+=r.pairLength();
+		}
+		if(verbose){System.err.println("crisP: returning list "+listnum+" of size "+list.size());}
+		return new ListNum<Read>(list, listnum++);
+	}
+
+	/** Lists are not recycled; they move on to the next stage with their reads. */
+	@Override
+	public void returnList(long listNumber, boolean poison){}
+
+	@Override
+	public void run(){}
+
+	@Override
+	public void shutdown(){
+		finished=true;
+	}
+
+	@Override
+	public synchronized void restart(){
+		throw new RuntimeException("A pipe can't be restarted.");
+	}
+
+	@Override
+	public void close(){
+		shutdown();
+	}
+
+	/** Peeks at the first list, blocking until it arrives, since pairing can't be known earlier. */
+	@Override
+	public synchronized boolean paired(){
+		if(paired==null){
+			if(head==null && !finished){head=source.take();}
+			if(head==null || head==ConcurrentPipeReadOutputStream.POISON){
+				if(head==ConcurrentPipeReadOutputStream.POISON){finished=true;}
+				head=null;
+				paired=Boolean.FALSE;
+			}else{
+				paired=(head.get(0).mate!=null);
+			}
+		}
+		return paired.booleanValue();
+	}
+
+	@Override
+	public Object[] producers(){return new Object[] {source};}
+
+	@Override
+	public boolean errorState(){return source.errorState();}
+
+	@Override
+	public void setSampleRate(float rate, long seed){
+		assert(rate>=1) : "Sampling is not supported by pipes.";
+	}
+
+	@Override
+	public long basesIn(){return basesIn;}
+
+	@Override
+	public long readsIn(){return readsIn;}
+
+	@Override
+	public boolean verbose(){return verbose;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** The producer end of this pipe */
+	public final ConcurrentPipeReadOutputStream source;
+
+	/** A list taken early by paired() */
+	private ArrayList<Read> head=null;
+	private Boolean paired=null;
+	private boolean finished=false;
+
+	private long listnum=0;
+	private long readsIn=0;
+	private long basesIn=0;
+
+	public static boolean verbose=false;
+
+}
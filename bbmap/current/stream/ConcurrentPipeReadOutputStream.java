@@ -0,0 +1,190 @@
+package stream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Output end of an in-memory read pipe.
+ * Lists added here are handed directly to a ConcurrentPipeReadInputStream
+ * in the same JVM, with no formatting, compression, or file I/O.
+ * The queue is bounded, so a fast producer blocks until the consumer catches up.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class ConcurrentPipeReadOutputStream extends ConcurrentReadOutputStream {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * @param capacity Maximum number of lists buffered in the pipe
+	 * @param ordered_ Release lists to the consumer in listnum order
+	 */
+	public ConcurrentPipeReadOutputStream(int capacity, boolean ordered_){
+		super(null, null);
+		queue=new ArrayBlockingQueue<ArrayList<Read>>(Math.max(2, capacity)+1);
+		pipeOrdered=ordered_;
+		pending=(pipeOrdered ? new HashMap<Long, ArrayList<Read>>() : null);
+	}
+
+	@Override
+	public synchronized void start(){
+		started=true;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Outer Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Blocking on a full pipe happens outside this object's lock, so other producers can still add.
+	 * In ordered mode, one thread at a time sends the lists that are ready, in order;
+	 * a thread that finds another one sending leaves its list for that thread.
+	 */
+	@Override
+	public void add(ArrayList<Read> list, long listnum){
+		assert(started) : "Pipe was not started.";
+		assert(!closed) : "Pipe was already closed.";
+		if(!pipeOrdered){
+			if(count(list)){put(list);}
+			return;
+		}
+		synchronized(this){
+			assert(listnum>=nextListID && !pending.containsKey(listnum)) : listnum+", "+nextListID;
+			pending.put(listnum, list);
+		}
+		do{
+			if(!sendLock.tryLock()){return;}
+			try {
+				for(ArrayList<Read> next=nextReady(); next!=null; next=nextReady()){
+					if(count(next)){put(next);}
+				}
+			} finally {
+				sendLock.unlock();
+			}
+		}while(ready());
+	}
+
+	/** Removes and returns the next list in order, or null if it has not arrived. */
+	private synchronized ArrayList<Read> nextReady(){
+		ArrayList<Read> next=pending.remove(nextListID);
+		if(next!=null){nextListID++;}
+		return next;
+	}
+
+	private synchronized boolean ready(){
+		return pending.containsKey(nextListID);
+	}
+
+	/**
+	 * Counts a list's reads and bases.
+	 * Returns false for empty lists, which are dropped since they would look like poison.
+	 */
+	private synchronized boolean count(ArrayList<Read> list){
+		if(list==null || list.isEmpty()){return false;}
+		for(Read r : list){
+			if(r!=null){
+				readsWritten+=1+r.mateCount();
+				basesWritten+=r.length()+r.mateLength();
+			}
+		}
+		return true;
+	}
+
+	private void put(ArrayList<Read> list){
+		while(true){
+			try {
+				queue.put(list);
+				return;
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/** Called once all producers have finished adding. */
+	@Override
+	public void close(){
+		synchronized(this){
+			if(closed){return;}
+			if(pipeOrdered && !pending.isEmpty()){
+				System.err.println("Warning: Pipe closed with "+pending.size()+" lists still waiting for list "+nextListID+".");
+				errorState=true;
+			}
+			closed=true;
+			finishedSuccessfully=!errorState;
+		}
+		put(POISON);
+	}
+
+	@Override
+	public void join(){}
+
+	@Override
+	public synchronized void resetNextListID(){
+		assert(pending==null || pending.isEmpty());
+		nextListID=0;
+	}
+
+	@Override
+	public String fname(){return "pipe";}
+
+	@Override
+	public boolean errorState(){return errorState;}
+
+	@Override
+	public boolean finishedSuccessfully(){return finishedSuccessfully;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Getters            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public long basesWritten(){return basesWritten;}
+
+	@Override
+	public long readsWritten(){return readsWritten;}
+
+	@Override
+	public ReadStreamWriter getRS1(){return null;}
+
+	@Override
+	public ReadStreamWriter getRS2(){return null;}
+
+	/** Blocks until the next list is available.  Returns POISON at end of stream. */
+	ArrayList<Read> take(){
+		ArrayList<Read> list=null;
+		while(list==null){
+			try {
+				list=queue.take();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		if(list==POISON){put(POISON);} //Leave it for any other consumer threads
+		return list;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------             Fields           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final ArrayBlockingQueue<ArrayList<Read>> queue;
+	private final boolean pipeOrdered;
+	private final HashMap<Long, ArrayList<Read>> pending;
+	/** Held by the thread sending ordered lists */
+	private final ReentrantLock sendLock=new ReentrantLock();
+	private long nextListID=0;
+	private volatile boolean closed=false;
+
+	private long readsWritten=0;
+	private long basesWritten=0;
+
+	/** Marks the end of the stream; compared by identity. */
+	static final ArrayList<Read> POISON=new ArrayList<Read>(0);
+
+}
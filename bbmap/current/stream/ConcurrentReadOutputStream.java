@@ -58,7 +58,7 @@ public abstract class ConcurrentReadOutputStream {
 	/*----------------        Initialization        ----------------*/
 	/*--------------------------------------------------------------*/
 	
-	ConcurrentReadOutputStream(FileFormat ff1_, FileFormat ff2_){
+	protected ConcurrentReadOutputStream(FileFormat ff1_, FileFormat ff2_){
 		ff1=ff1_;
 		ff2=ff2_;
 		ordered=(ff1==null ? true : ff1.ordered());
@@ -124,9 +124,9 @@ public abstract class ConcurrentReadOutputStream {
 	public final FileFormat ff1, ff2;
 	public final boolean ordered;
 	
-	boolean errorState=false;
-	boolean finishedSuccessfully=false;
-	boolean started=false;
+	protected boolean errorState=false;
+	protected boolean finishedSuccessfully=false;
+	protected boolean started=false;
 	
 	/*--------------------------------------------------------------*/
 	/*----------------        Static Fields         ----------------*/
@@ -623,6 +623,7 @@ public class FASTQ {
 				if(cntr==4){
 					cntr=0;
 					final Read r=quadToRead_slow(quad, false, bf, numericID, flag);
+					if(ReadPool.RECYCLE){recycleHeaders(quad);}
 					
 					if(prev==null){prev=r;}
 					else{
@@ -644,6 +645,7 @@ public class FASTQ {
 				if(cntr==4){
 					cntr=0;
 					final Read r=quadToRead_slow(quad, false, bf, numericID, flag);
+					if(ReadPool.RECYCLE){recycleHeaders(quad);}
 					
 					list.add(r);
 					added++;
@@ -656,6 +658,13 @@ public class FASTQ {
 		return list;
 	}
 	
+	/** Returns the header and plus lines of a parsed quad to the ReadPool; the read does not reference them. */
+	private static void recycleHeaders(final byte[][] quad){
+		ReadPool.recycle(quad[0]);
+		ReadPool.recycle(quad[2]);
+		quad[0]=quad[2]=null;
+	}
+	
 	public static byte[][] scarfToQuad(final byte[] scarf, byte[][] quad){
 		
 		int a=-1, b=-1;
@@ -0,0 +1,120 @@
+package stream;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bucketed pool of byte arrays for read bases, qualities and input lines.
+ * When RECYCLE is enabled, ByteFile draws line arrays from here, and output streams
+ * return the arrays of written reads once every writer has finished with them.
+ * Arrays are bucketed by exact length, so fixed-length reads are refilled in place.
+ * Buckets are unbounded linked queues, created on first use; only MAX_BYTES limits the total.
+ * Only safe for programs that do not keep reads after sending them to an output stream.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class ReadPool {
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Returns a pooled array of exactly this length, or null if none is available. */
+	public static byte[] take(final int len){
+		if(len<1 || len>MAX_LEN){return null;}
+		final ConcurrentLinkedQueue<byte[]> q=buckets.get(len);
+		final byte[] array=(q==null ? null : q.poll());
+		if(array!=null){addPooled(-len);}
+		if(verbose){(array==null ? misses : hits).incrementAndGet();}
+		return array;
+	}
+
+	/** Allocates an array, reusing a pooled one if possible. */
+	public static byte[] get(final int len){
+		final byte[] array=take(len);
+		return array==null ? new byte[len] : array;
+	}
+
+	/** Offers an array to the pool.  It must not be referenced elsewhere. */
+	public static void recycle(final byte[] array){
+		if(array==null){return;}
+		final int len=array.length;
+		if(len<1 || len>MAX_LEN || pooledBytes()+len>MAX_BYTES){return;}
+		ConcurrentLinkedQueue<byte[]> q=buckets.get(len);
+		if(q==null){
+			buckets.compareAndSet(len, null, new ConcurrentLinkedQueue<byte[]>());
+			q=buckets.get(len);
+		}
+		q.add(array);
+		addPooled(len);
+	}
+
+	/** Recycles the bases and qualities of each read and its mate. */
+	public static void recycle(final ArrayList<Read> list){
+		if(list==null){return;}
+		for(Read r : list){
+			if(r!=null){
+				recycle(r);
+				if(r.mate!=null){recycle(r.mate);}
+			}
+		}
+	}
+
+	/** Gives a shallow clone its own arrays, so it can be recycled independently of the original. */
+	public static void detach(final Read r){
+		if(r.bases!=null){r.bases=r.bases.clone();}
+		if(r.quality!=null){r.quality=r.quality.clone();}
+	}
+
+	/** Adds to this thread's stripe of the pooled byte count. */
+	private static void addPooled(final long x){
+		pooled.addAndGet((int)(Thread.currentThread().getId()&(STRIPES-1))*STRIDE, x);
+	}
+
+	/** Bytes currently held; approximate while other threads are adding. */
+	private static long pooledBytes(){
+		long sum=0;
+		for(int i=0; i<STRIPES*STRIDE; i+=STRIDE){sum+=pooled.get(i);}
+		return sum;
+	}
+
+	private static void recycle(final Read r){
+		final byte[] bases=r.bases, quals=r.quality;
+		r.bases=null;
+		r.quality=null;
+		recycle(bases);
+		if(quals!=bases){recycle(quals);}
+	}
+
+	/** Reuse rate; only counted when verbose is set */
+	public static String stats(){
+		final long h=hits.get(), m=misses.get();
+		return "Pooled array reuse: "+h+"/"+(h+m)+" ("+String.format(java.util.Locale.ROOT, "%.2f", 100.0*h/Math.max(1, h+m))+"%)";
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Enables recycling of read arrays through this pool */
+	public static boolean RECYCLE=false;
+	/** Longer arrays are not pooled */
+	public static final int MAX_LEN=2000;
+	/** Maximum total bytes held by the pool */
+	public static long MAX_BYTES=128000000L;
+
+	private static final AtomicReferenceArray<ConcurrentLinkedQueue<byte[]>> buckets=new AtomicReferenceArray<ConcurrentLinkedQueue<byte[]>>(MAX_LEN+1);
+	private static final int STRIPES=16;
+	/** Stripes are 64 bytes apart so they don't share a cache line */
+	private static final int STRIDE=8;
+	/** Pooled byte count, striped by thread so threads returning arrays don't contend on one counter */
+	private static final AtomicLongArray pooled=new AtomicLongArray(STRIPES*STRIDE);
+	private static final AtomicLong hits=new AtomicLong(), misses=new AtomicLong();
+	/** Count hits and misses for stats() */
+	public static boolean verbose=false;
+
+}
@@ -109,6 +109,7 @@ public class ReadStreamByteWriter extends ReadStreamWriter {
 					writeBread(job, bb, os);
 				}
 			}
+			finishJob(job);
 			if(job.close){
 				if(bb.length>0){
 					os.write(bb.array, 0, bb.length);
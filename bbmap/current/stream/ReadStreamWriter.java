@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import dna.Data;
 import fileIO.FileFormat;
@@ -67,7 +68,7 @@ public abstract class ReadStreamWriter extends Thread {
 			myWriter=null;
 		}else{
 			if(OUTPUT_STANDARD_OUT){myOutstream=System.out;}
-			else if(!OUTPUT_BAM || !(Data.SAMTOOLS() /*|| Data.SAMBAMBA()*/) /*|| !Data.SH()*/){
+			else if(!OUTPUT_BAM || ReadWrite.PREFER_NATIVE_BAM || !(Data.SAMTOOLS() /*|| Data.SAMBAMBA()*/) /*|| !Data.SH()*/){
 				myOutstream=ReadWrite.getOutputStream(ff, buffered);
 			}else{
 				if(!allowSubprocess){System.err.println("Warning! Spawning a samtools process when allowSubprocess="+allowSubprocess);}
@@ -213,6 +214,11 @@ public abstract class ReadStreamWriter extends Thread {
 		addJob(j);
 	}
 	
+	/** Adds a list whose read arrays go to the ReadPool once every writer sharing it has decremented writers. */
+	public final synchronized void addList(ArrayList<Read> list, AtomicInteger writers){
+		addJob(new Job(list, myWriter, myOutstream, false, false, writers));
+	}
+	
 	public final synchronized void addJob(Job j){
 //		System.err.println("Got job "+(j.list==null ? "null" : j.list.size()));
 		boolean success=false;
@@ -233,6 +239,13 @@ public abstract class ReadStreamWriter extends Thread {
 	/*----------------         Inner Methods        ----------------*/
 	/*--------------------------------------------------------------*/
 	
+	/** Called once a job's reads have been formatted; the last writer of a shared list recycles its arrays. */
+	protected static final void finishJob(final Job job){
+		if(job.writers!=null && job.writers.decrementAndGet()==0){
+			ReadPool.recycle(job.list);
+		}
+	}
+	
 	protected static final ByteBuilder toQualityB(final byte[] quals, final int len, final int wrap, final ByteBuilder bb){
 		if(quals==null){return fakeQualityB(30, len, wrap, bb);}
 		assert(quals.length==len);
@@ -357,11 +370,16 @@ public abstract class ReadStreamWriter extends Thread {
 		
 		public Job(ArrayList<Read> list_, PrintWriter writer_, OutputStream outstream_, boolean closeWhenDone_,
 				boolean shutdownThread_){
+			this(list_, writer_, outstream_, closeWhenDone_, shutdownThread_, null);
+		}
+		public Job(ArrayList<Read> list_, PrintWriter writer_, OutputStream outstream_, boolean closeWhenDone_,
+				boolean shutdownThread_, AtomicInteger writers_){
 			list=list_;
 			writer=writer_;
 			outstream=outstream_;
 			close=closeWhenDone_;
 			poison=shutdownThread_;
+			writers=writers_;
 		}
 		public Job(ArrayList<Read> list_, PrintWriter writer_){
 			this(list_, writer_, null, false, false);
@@ -375,6 +393,8 @@ public abstract class ReadStreamWriter extends Thread {
 		public final OutputStream outstream;
 		public final boolean close;
 		public final boolean poison;
+		/** Number of writers still holding this list, for ReadPool recycling; may be null */
+		public final AtomicInteger writers;
 		
 	}
 	
@@ -605,6 +605,71 @@ public class SamLine implements Serializable {
 		trimNames();
 	}
 	
+	/**
+	 * Parses a binary BAM record without its length prefix, as returned by BamReader.nextRecord().
+	 * Produces the same fields as the text constructor.
+	 */
+	public SamLine(byte[] rec, BamReader bam){
+		final int refID=BamReader.readInt(rec, 0);
+		final int nameLen=rec[8]&0xFF;
+		final int cigarOps=BamReader.readShort(rec, 12);
+		final int seqLen=BamReader.readInt(rec, 16);
+		final int nextID=BamReader.readInt(rec, 20);
+		pos=BamReader.readInt(rec, 4)+1;
+		mapq=rec[9]&0xFF;
+		flag=BamReader.readShort(rec, 14);
+		if(PARSE_7){pnext=BamReader.readInt(rec, 24)+1;}
+		if(PARSE_8){tlen=BamReader.readInt(rec, 28);}
+		int p=32;
+		
+		if(PARSE_0 && !(nameLen==2 && rec[p]=='*')){qname=new String(rec, p, nameLen-1);}
+		p+=nameLen;
+		
+		if(PARSE_2 && refID>=0){
+			if(RNAME_AS_BYTES){rname=bam.refNames[refID];}
+			else{rnameS=bam.refNamesS[refID];}
+		}
+		
+		if(PARSE_5 && cigarOps>0){cigar=BamReader.cigarString(rec, p, cigarOps);}
+		p+=4*cigarOps;
+		
+		if(PARSE_6 && nextID>=0){rnext=(nextID==refID ? byteequals : bam.refNames[nextID]);}
+		
+		if(seqLen>0){seq=BamReader.decodeSeq(rec, p, seqLen);}
+		p+=(seqLen+1)/2;
+		
+		if(PARSE_10 && seqLen>0 && rec[p]!=(byte)0xFF){qual=KillSwitch.copyOfRange(rec, p, p+seqLen);}
+		p+=seqLen;
+		
+		if(mapped() && strand()==Shared.MINUS){
+			if(seq!=null){AminoAcid.reverseComplementBasesInPlace(seq);}
+			if(qual!=null){Tools.reverseInPlace(qual);}
+		}
+		
+		if(PARSE_OPTIONAL && p<rec.length){
+			if(PARSE_OPTIONAL_MD_ONLY){
+				optional=new ArrayList<String>(1);
+				for(; p<rec.length && optional.isEmpty(); p=BamReader.skipTag(rec, p)){
+					if(rec[p]=='M' && rec[p+1]=='D'){
+						ByteBuilder bb=new ByteBuilder(rec.length-p);
+						BamReader.appendTag(rec, p, bb);
+						optional.add(bb.toString());
+					}
+				}
+			}else{
+				optional=new ArrayList<String>(4);
+				ByteBuilder bb=new ByteBuilder(64);
+				while(p<rec.length){
+					bb.clear();
+					p=BamReader.appendTag(rec, p, bb);
+					optional.add(bb.toString());
+				}
+			}
+		}
+		
+		trimNames();
+	}
+	
 	public void trimNames(){
 //		System.err.println();
 //		System.err.println("rname= "+new String(rname));
@@ -196,13 +196,14 @@ public class SamLineStreamer extends SamStreamer {
 			if(verbose){outstream.println("tid "+tid+" started makeReads.");}
 			
 			ListNum<byte[]> list=takeBytes();
+			final BamReader bam=bamReader;
 			while(list!=POISON_BYTES){
 				ListNum<SamLine> reads=new ListNum<SamLine>(new ArrayList<SamLine>(list.size()), list.id);
 				for(byte[] line : list){
-					if(line[0]=='@'){
+					if(bam==null && line[0]=='@'){
 						//ignore;
 					}else{
-						SamLine sl=new SamLine(line);
+						SamLine sl=(bam==null ? new SamLine(line) : new SamLine(line, bam));
 						reads.add(sl);
 						
 						readsProcessedT++;
@@ -0,0 +1,304 @@
+package stream;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import dna.AminoAcid;
+import shared.Shared;
+import shared.Tools;
+import var2.ScafMap;
+
+/**
+ * Allocation-light view of a sam line, for streaming consumers such as pileup
+ * that need only a few fields per line.
+ * Only the field boundaries, flag, pos, mapq and scaffold number are parsed up front;
+ * everything else is decoded from the original line on demand.
+ * A single instance may be reused with set().
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class SamLineView implements Serializable {
+
+	private static final long serialVersionUID = -2914783522136460128L;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public SamLineView(){}
+
+	/**
+	 * @param line_ A sam line, not a header
+	 * @param cache_ Maps reference names to scaffold numbers; may be null
+	 */
+	public SamLineView(byte[] line_, ScafCache cache_){
+		set(line_, cache_);
+	}
+
+	public SamLineView set(byte[] line_){return set(line_, null);}
+
+	/** Points this view at a new line. */
+	public SamLineView set(byte[] line_, ScafCache cache){
+		line=line_;
+		assert(line[0]!='@') : "Tried to make a SamLineView from a header: "+new String(line);
+		final int len=line.length;
+		int f=0, b=0;
+		for(; f<10 && b<len; b++){
+			if(line[b]=='\t'){
+				ends[f]=b;
+				f++;
+			}
+		}
+		for(; f<10; f++){ends[f]=len;}
+
+		//Quals are the same length as bases, or '*', so they don't need to be scanned
+		final int qstart=Tools.min(ends[9]+1, len);
+		final int seqLen=ends[9]-ends[8]-1;
+		if(qstart+seqLen<=len && (qstart+seqLen==len || line[qstart+seqLen]=='\t')){ends[10]=qstart+seqLen;}
+		else if(qstart<len && line[qstart]=='*' && (qstart+1==len || line[qstart+1]=='\t')){ends[10]=qstart+1;}
+		else{
+			for(b=qstart; b<len && line[b]!='\t'; b++){}
+			ends[10]=b;
+		}
+
+		flag=Tools.parseInt(line, ends[0]+1, ends[1]);
+		pos=Tools.parseInt(line, ends[2]+1, ends[3]);
+		mapq=Tools.parseInt(line, ends[3]+1, ends[4]);
+		scafnum=(cache==null ? -1 : cache.get(line, ends[1]+1, ends[2]));
+		return this;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Field Accessors       ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** The original line */
+	public byte[] line(){return line;}
+
+	private int fieldStart(int field){return field==0 ? 0 : ends[field-1]+1;}
+
+	private boolean isStar(int field){
+		final int a=fieldStart(field);
+		return ends[field]==a+1 && line[a]=='*';
+	}
+
+	private String fieldString(int field){
+		if(isStar(field)){return null;}
+		final int a=fieldStart(field);
+		return new String(line, a, ends[field]-a);
+	}
+
+	public String qname(){return fieldString(0);}
+	public String rnameS(){return fieldString(2);}
+	public String cigar(){return fieldString(5);}
+	public int pnext(){return isStar(7) ? 0 : Tools.parseInt(line, fieldStart(7), ends[7]);}
+	public int tlen(){return Tools.parseInt(line, fieldStart(8), ends[8]);}
+
+	/** True if the reference name matches these bytes. */
+	public boolean rnameEquals(byte[] name){
+		final int a=fieldStart(2);
+		if(name==null || ends[2]-a!=name.length){return false;}
+		for(int i=0; i<name.length; i++){
+			if(line[a+i]!=name[i]){return false;}
+		}
+		return true;
+	}
+
+	/** Number of bases, or 0 if the sequence is '*' */
+	public int seqLength(){return isStar(9) ? 0 : ends[9]-fieldStart(9);}
+
+	/** Bases in read orientation, as in SamLine, or null. */
+	public byte[] seq(){
+		if(isStar(9)){return null;}
+		final byte[] seq=Arrays.copyOfRange(line, fieldStart(9), ends[9]);
+		if(mapped() && strand()==Shared.MINUS){AminoAcid.reverseComplementBasesInPlace(seq);}
+		return seq;
+	}
+
+	/** Phred scores in read orientation, as in SamLine, or null. */
+	public byte[] qual(){
+		if(isStar(10)){return null;}
+		final byte[] qual=Arrays.copyOfRange(line, fieldStart(10), ends[10]);
+		for(int i=0; i<qual.length; i++){qual[i]-=33;}
+		if(mapped() && strand()==Shared.MINUS){Tools.reverseInPlace(qual);}
+		return qual;
+	}
+
+	/** Returns the position of optional field XX, such as NM, or -1. */
+	public int tagStart(String tag){
+		final byte x=(byte)tag.charAt(0), y=(byte)tag.charAt(1);
+		for(int a=ends[10]+1; a<line.length; ){
+			if(a+2<line.length && line[a]==x && line[a+1]==y && line[a+2]==':'){return a;}
+			while(a<line.length && line[a]!='\t'){a++;}
+			a++;
+		}
+		return -1;
+	}
+
+	/** Returns optional field XX in full, such as "NM:i:2", or null. */
+	public String tag(String tag){
+		final int a=tagStart(tag);
+		if(a<0){return null;}
+		int b=a;
+		while(b<line.length && line[b]!='\t'){b++;}
+		return new String(line, a, b-a);
+	}
+
+	/** Returns the value of integer field XX, or missing if absent. */
+	public int intTag(String tag, int missing){
+		final int a=tagStart(tag);
+		if(a<0){return missing;}
+		int b=a+5;
+		while(b<line.length && line[b]!='\t'){b++;}
+		return Tools.parseInt(line, a+5, b);
+	}
+
+	/** Fully parses the line. */
+	public SamLine toSamLine(){return new SamLine(line);}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Cigar Methods         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Length of read bases, as in SamLine.length() */
+	public int length(){
+		assert(!isStar(9) || !isStar(5)) : "This program requires bases or a cigar string for every sam line.  Problem line:\n"+new String(line)+"\n";
+		return isStar(9) ? cigarLength(false, true, false) : seqLength();
+	}
+
+	/** Returns the zero-based starting location of this read on the sequence. */
+	public int start(boolean includeSoftClip, boolean includeHardClip){
+		return pos-1-countLeadingClip(includeSoftClip, includeHardClip);
+	}
+
+	/** Returns the zero-based stop location of this read on the sequence. */
+	public int stop(int start, boolean includeSoftClip, boolean includeHardClip){
+		if(!mapped() || isStar(5)){return start+Tools.max(0, seqLength()-1);}
+		return start+cigarLength(true, includeSoftClip, includeHardClip)-1;
+	}
+
+	/**
+	 * Sums cigar operations without allocating.
+	 * @param ref True for reference length, as in SamLine.calcCigarLength; false for bases, as in calcCigarBases
+	 */
+	private int cigarLength(final boolean ref, final boolean includeSoftClip, final boolean includeHardClip){
+		if(isStar(5)){return 0;}
+		int len=0, current=0;
+		for(int i=fieldStart(5), max=ends[5]; i<max; i++){
+			final byte c=line[i];
+			if(c>='0' && c<='9'){
+				current=(current*10)+(c-'0');
+			}else{
+				if(c=='M' || c=='=' || c=='X'){len+=current;}
+				else if(c=='D' || c=='N'){if(ref){len+=current;}}
+				else if(c=='I'){if(!ref){len+=current;}}
+				else if(c=='S'){if(includeSoftClip){len+=current;}}
+				else if(c=='H'){if(includeHardClip){len+=current;}}
+				else{throw new RuntimeException("Unhandled cigar symbol: "+(char)c+"\n"+cigar()+"\n");}
+				current=0;
+			}
+		}
+		return len;
+	}
+
+	private int countLeadingClip(final boolean includeSoftClip, final boolean includeHardClip){
+		if(isStar(5) || (!includeSoftClip && !includeHardClip)){return 0;}
+		int len=0, current=0;
+		for(int i=fieldStart(5), max=ends[5]; i<max; i++){
+			final byte c=line[i];
+			if(c>='0' && c<='9'){
+				current=(current*10)+(c-'0');
+			}else{
+				if(c=='H'){if(includeHardClip){len+=current;}}
+				else if(c=='S'){if(includeSoftClip){len+=current;}}
+				else{break;}
+				current=0;
+			}
+		}
+		return len;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------          Flag Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public boolean hasMate(){return (flag&0x1)==0x1;}
+	public boolean properPair(){return (flag&0x2)==0x2;}
+	public boolean mapped(){return (flag&0x4)!=0x4;}
+	public boolean nextMapped(){return (flag&0x8)!=0x8;}
+	public byte strand(){return ((flag&0x10)==0x10 ? (byte)1 : (byte)0);}
+	public int pairnum(){return (flag&0x40)==0x40 ? 0 : (flag&0x80)==0x80 ? 1 : 0;}
+	public boolean primary(){return (flag&0x100)==0;}
+	public boolean duplicate(){return (flag&0x400)==0x400;}
+	public boolean supplementary(){return (flag&0x800)==0x800;}
+
+	@Override
+	public String toString(){return new String(line);}
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Inner Classes        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Maps reference names to scaffold numbers, straight from line bytes.
+	 * Not thread-safe; use one per thread.
+	 */
+	public static final class ScafCache {
+
+		public ScafCache(ScafMap map_){
+			map=map_;
+			final int size=Tools.max(16, Integer.highestOneBit(Tools.max(1, map.size())*2)*2);
+			keys=new byte[size][];
+			values=new int[size];
+		}
+
+		/** Returns the number of the scaffold named by line[a, b), or -1 for '*' or unknown names. */
+		public int get(final byte[] line, final int a, final int b){
+			if(b==a+1 && line[a]=='*'){return -1;}
+			int h=0;
+			for(int i=a; i<b; i++){h=h*31+line[i];}
+			final int mask=keys.length-1;
+			for(int cell=(h^(h>>>16))&mask; ; cell=(cell+1)&mask){
+				final byte[] key=keys[cell];
+				if(key==null){
+					final int number=map.getNumber(new String(line, a, b-a));
+					if(count*2>=keys.length){return number;}//Full; don't cache
+					keys[cell]=Arrays.copyOfRange(line, a, b);
+					values[cell]=number;
+					count++;
+					return number;
+				}
+				if(matches(key, line, a, b)){return values[cell];}
+			}
+		}
+
+		private static boolean matches(final byte[] key, final byte[] line, final int a, final int b){
+			if(key.length!=b-a){return false;}
+			for(int i=0; i<key.length; i++){
+				if(key[i]!=line[a+i]){return false;}
+			}
+			return true;
+		}
+
+		private final ScafMap map;
+		private final byte[][] keys;
+		private final int[] values;
+		private int count=0;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private byte[] line;
+	/** ends[i] is the index of the tab after field i */
+	private final int[] ends=new int[11];
+
+	public int flag;
+	public int pos;
+	public int mapq;
+	/** Scaffold number from the ScafMap, or -1 */
+	public int scafnum;
+
+}
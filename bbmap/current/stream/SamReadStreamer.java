@@ -196,13 +196,14 @@ public class SamReadStreamer extends SamStreamer {
 			if(verbose){outstream.println("tid "+tid+" started makeReads.");}
 			
 			ListNum<byte[]> list=takeBytes();
+			final BamReader bam=bamReader;
 			while(list!=POISON_BYTES){
 				ListNum<Read> reads=new ListNum<Read>(new ArrayList<Read>(list.size()), list.id);
 				for(byte[] line : list){
-					if(line[0]=='@'){
+					if(bam==null && line[0]=='@'){
 						//ignore;
 					}else{
-						SamLine sl=new SamLine(line);
+						SamLine sl=(bam==null ? new SamLine(line) : new SamLine(line, bam));
 						Read r=sl.toRead(false);
 //						assert(!r.mapped()) : sl+"\n"+r;
 						if(!r.validated()){r.validate(true);}
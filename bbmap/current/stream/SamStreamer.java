@@ -6,6 +6,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 
 import fileIO.ByteFile;
 import fileIO.FileFormat;
+import fileIO.ReadWrite;
 import shared.Shared;
 import shared.Timer;
 import structures.ListNum;
@@ -105,6 +106,10 @@ public abstract class SamStreamer {
 	
 	public final void processBytes0(int tid){
 		if(verbose){outstream.println("tid "+tid+" started processBytes.");}
+		if(ffin.bam() && ReadWrite.nativeBamInput()){
+			processBam(tid);
+			return;
+		}
 
 //		ByteFile.FORCE_MODE_BF1=true;
 		ByteFile.FORCE_MODE_BF2=true;
@@ -150,6 +155,40 @@ public abstract class SamStreamer {
 		if(verbose || verbose2){outstream.println("tid "+tid+" closed stream.");}
 	}
 	
+	/** Reads raw BAM records in-process; the other threads decode them directly to SamLines. */
+	final void processBam(int tid){
+		final BamReader br=new BamReader(fname, ReadWrite.javaZipThreads(), ReadWrite.SAMTOOLS_IGNORE_FLAG);
+		if(header!=null){
+			for(byte[] line : br.headerLines()){
+				if(Shared.TRIM_RNAME){line=SamReadInputStream.trimHeaderSQ(line);}
+				header.add(line);
+			}
+			SamReadInputStream.setSharedHeader(header);
+			header=null;
+		}
+		bamReader=br;
+		
+		long number=0;
+		final int limit=LIST_SIZE;
+		ArrayList<byte[]> list=new ArrayList<byte[]>(limit);
+		for(byte[] rec=br.nextRecord(); rec!=null; rec=br.nextRecord()){
+			list.add(rec);
+			if(list.size()>=limit){
+				putBytes(new ListNum<byte[]>(list, number));
+				number++;
+				list=new ArrayList<byte[]>(limit);
+			}
+		}
+		if(list.size()>0){
+			putBytes(new ListNum<byte[]>(list, number));
+			number++;
+			list=null;
+		}
+		if(verbose || verbose2){outstream.println("tid "+tid+" done reading bam records.");}
+		putBytes(POISON_BYTES);
+		br.close();
+	}
+	
 	final void putBytes(ListNum<byte[]> list){
 //		if(verbose){outstream.println("tid "+tid+" putting blist size "+list.size());}
 		while(list!=null){
@@ -214,6 +253,9 @@ public abstract class SamStreamer {
 	
 	ArrayList<byte[]> header;
 	
+	/** Set when reading BAM in-process; lists then hold binary records rather than sam lines */
+	BamReader bamReader;
+	
 	/*--------------------------------------------------------------*/
 	/*----------------        Static Fields         ----------------*/
 	/*--------------------------------------------------------------*/
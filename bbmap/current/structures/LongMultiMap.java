@@ -0,0 +1,383 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+import shared.KillSwitch;
+import shared.Primes;
+import shared.Shared;
+import shared.Timer;
+import shared.Tools;
+
+/**
+ * Maps primitive long keys to lists of values, without boxing.
+ * Keys are stored in an open-addressed table; each key points to a chain
+ * of entries in a flat value array, linked by int indices.
+ * Costs 12 bytes per key cell and 8 per value slot, and both grow by 1.5x.
+ * With one value per key that is 28 to 31 bytes per value at the default load factor,
+ * versus over 100 for a HashMap&lt;Long, ArrayList&lt;T&gt;&gt;.  Run main() to measure.
+ * Not thread-safe; concurrent readers are fine if there are no writers.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class LongMultiMap<T>{
+
+	/** Benchmarks memory per value against HashMap&lt;Long, ArrayList&gt;.  Args: count, loadFactor. */
+	public static void main(String[] args){
+		final int count=(args.length>0 ? Integer.parseInt(args[0]) : 4000000);
+		final float loadFactor=(args.length>1 ? Float.parseFloat(args[1]) : 0.75f);
+		final Random randy2=new Random(1);
+		final long[] keys=new long[count];
+		for(int i=0; i<count; i++){keys[i]=randy2.nextLong();}
+		final Object[] values=new Object[count];
+		for(int i=0; i<count; i++){values[i]=new Object();}
+
+		{
+			LongMultiMap<Object> map=new LongMultiMap<Object>(256);
+			for(int i=0; i<count; i++){
+				map.add(keys[i], values[i]);
+				assert(map.value(map.first(keys[i]))==values[i]);
+			}
+			for(int i=0; i+1<count; i+=2){map.add(keys[i], values[i+1]);}
+			for(int i=0; i+1<count; i+=2){
+				assert(map.count(keys[i])==2);
+				assert(map.value(map.first(keys[i]))==values[i+1]);
+				map.clearValue(map.first(keys[i]));
+				assert(map.compact(keys[i])==1);
+			}
+			for(int i=0; i<count; i++){
+				assert(map.count(keys[i])==1);
+				map.clearValue(map.first(keys[i]));
+				map.compact(keys[i]);
+				assert(!map.containsKey(keys[i]));
+			}
+			assert(map.isEmpty());
+		}
+
+		Timer t=new Timer();
+		long before=usedMemory();
+		LongMultiMap<Object> map=new LongMultiMap<Object>(256, loadFactor);
+		for(int i=0; i<count; i++){map.add(keys[i], values[i]);}
+		long after=usedMemory();
+		t.stop();
+		System.err.println("LongMultiMap: \t"+t+"\t"+String.format(Locale.ROOT, "%.1f", (after-before)/(double)count)+" bytes per value");
+		map=null;
+
+		t.start();
+		before=usedMemory();
+		HashMap<Long, ArrayList<Object>> map2=new HashMap<Long, ArrayList<Object>>(256);
+		for(int i=0; i<count; i++){
+			ArrayList<Object> list=new ArrayList<Object>(1);
+			list.add(values[i]);
+			map2.put(keys[i], list);
+		}
+		after=usedMemory();
+		t.stop();
+		System.err.println("HashMap:      \t"+t+"\t"+String.format(Locale.ROOT, "%.1f", (after-before)/(double)count)+" bytes per value");
+		map2=null;
+		Shared.printMemory();
+	}
+
+	private static long usedMemory(){
+		final Runtime rt=Runtime.getRuntime();
+		for(int i=0; i<4; i++){System.gc();}
+		return rt.totalMemory()-rt.freeMemory();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public LongMultiMap(){
+		this(256);
+	}
+
+	public LongMultiMap(int initialSize){
+		this(initialSize, 0.75f);
+	}
+
+	/**
+	 * @param initialSize Expected number of keys
+	 * @param loadFactor_ Maximum fraction of key cells used before resizing
+	 */
+	public LongMultiMap(int initialSize, float loadFactor_){
+		invalid=randy.nextLong()|MINMASK;
+		assert(invalid<0);
+		assert(initialSize>0) : "Attempting to initialize a "+getClass().getSimpleName()+" of size<1.";
+		assert(loadFactor_>0 && loadFactor_<1) : "Attempting to initialize a "+getClass().getSimpleName()+" with invalid load factor: "+loadFactor_;
+		loadFactor=Tools.mid(0.25f, loadFactor_, 0.90f);
+		resize(initialSize);
+		values=new Object[Tools.max(16, initialSize)];
+		next=KillSwitch.allocInt1D(values.length);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Public Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public void clear(){
+		if(numKeys<1 && limit<1){return;}
+		Arrays.fill(keys, invalid);
+		Arrays.fill(values, 0, limit, null);
+		numKeys=0;
+		numValues=0;
+		limit=0;
+	}
+
+	public boolean containsKey(long key){
+		return findCell(key)>=0;
+	}
+
+	/** Index of the most recently added value for this key, or -1 if absent. */
+	public int first(long key){
+		final int cell=findCell(key);
+		return cell<0 ? -1 : heads[cell];
+	}
+
+	/** Index of the next value with the same key, or -1. */
+	public int next(int entry){
+		return next[entry];
+	}
+
+	/** Value at this index; null if cleared. */
+	@SuppressWarnings("unchecked")
+	public T value(int entry){
+		return (T)values[entry];
+	}
+
+	/** Number of values stored for this key; walks the chain. */
+	public int count(long key){
+		int count=0;
+		for(int e=first(key); e>=0; e=next[e]){count++;}
+		return count;
+	}
+
+	/**
+	 * Adds a value for this key.
+	 * @return Index of the new value, which is now first(key)
+	 */
+	public int add(long key, T value){
+		if(key==invalid){resetInvalid();}
+		if(limit>=values.length){
+			final int len=(int)Tools.min(Shared.MAX_ARRAY_LEN, values.length+(values.length>>1)+1L);
+			assert(len>limit) : "Too many values: "+limit;
+			values=Arrays.copyOf(values, len);
+			next=KillSwitch.copyOf(next, len);
+		}
+		int cell=findCellOrEmpty(key);
+		if(keys[cell]==invalid){
+			keys[cell]=key;
+			heads[cell]=-1;
+			numKeys++;
+			if(numKeys>sizeLimit){
+				resize();
+				cell=findCell(key);
+			}
+		}
+		final int entry=limit;
+		limit++;
+		values[entry]=value;
+		next[entry]=heads[cell];
+		heads[cell]=entry;
+		numValues++;
+		return entry;
+	}
+
+	/** Clears the value at this index; call compact() on its key afterward. */
+	public void clearValue(int entry){
+		values[entry]=null;
+	}
+
+	/**
+	 * Unlinks cleared values from this key's chain, and removes the key if no values remain.
+	 * The space used by cleared values is not reclaimed until clear().
+	 * @return Number of values unlinked
+	 */
+	public int compact(long key){
+		final int cell=findCell(key);
+		if(cell<0){return 0;}
+		int removed=0;
+		for(int prev=-1, e=heads[cell]; e>=0; e=next[e]){
+			if(values[e]==null){
+				if(prev<0){heads[cell]=next[e];}
+				else{next[prev]=next[e];}
+				removed++;
+			}else{
+				prev=e;
+			}
+		}
+		numValues-=removed;
+		if(heads[cell]<0){
+			keys[cell]=invalid;
+			numKeys--;
+			rehashFrom(cell);
+		}
+		return removed;
+	}
+
+	/** Number of values */
+	public int size(){return numValues;}
+
+	/** Number of distinct keys */
+	public int keyCount(){return numKeys;}
+
+	public boolean isEmpty(){return numValues==0;}
+
+	/**
+	 * Upper bound of value indices, for iterating over all values in insertion order:
+	 * for(int i=0; i<limit(); i++){if(value(i)!=null){...}}
+	 */
+	public int limit(){return limit;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        String Methods        ----------------*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public String toString(){
+		return "LongMultiMap(keys="+numKeys+", values="+numValues+")";
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Private Methods       ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private void rehashFrom(int initial){
+		if(numKeys<1){return;}
+		final int lim=keys.length;
+		for(int cell=initial+1; cell<lim; cell++){
+			final long x=keys[cell];
+			if(x==invalid){return;}
+			rehashCell(cell);
+		}
+		for(int cell=0; cell<initial; cell++){
+			final long x=keys[cell];
+			if(x==invalid){return;}
+			rehashCell(cell);
+		}
+	}
+
+	private boolean rehashCell(final int cell){
+		final long key=keys[cell];
+		assert(key!=invalid);
+		final int dest=findCellOrEmpty(key);
+		if(cell==dest){return false;}
+		assert(keys[dest]==invalid);
+		keys[cell]=invalid;
+		keys[dest]=key;
+		heads[dest]=heads[cell];
+		return true;
+	}
+
+	private void resetInvalid(){
+		final long old=invalid;
+		long x=invalid;
+		while(x==old || containsKey(x)){x=randy.nextLong()|MINMASK;}
+		assert(x<0);
+		invalid=x;
+		for(int i=0; i<keys.length; i++){
+			if(keys[i]==old){keys[i]=invalid;}
+		}
+	}
+
+	private int findCell(final long key){
+		if(key==invalid){return -1;}
+
+		final int lim=keys.length, initial=(int)((key&MASK)%modulus);
+		for(int cell=initial; cell<lim; cell++){
+			final long x=keys[cell];
+			if(x==key){return cell;}
+			if(x==invalid){return -1;}
+		}
+		for(int cell=0; cell<initial; cell++){
+			final long x=keys[cell];
+			if(x==key){return cell;}
+			if(x==invalid){return -1;}
+		}
+		return -1;
+	}
+
+	private int findCellOrEmpty(final long key){
+		assert(key!=invalid) : "Collision - this should have been intercepted.";
+
+		final int lim=keys.length, initial=(int)((key&MASK)%modulus);
+		for(int cell=initial; cell<lim; cell++){
+			final long x=keys[cell];
+			if(x==key || x==invalid){return cell;}
+		}
+		for(int cell=0; cell<initial; cell++){
+			final long x=keys[cell];
+			if(x==key || x==invalid){return cell;}
+		}
+		throw new RuntimeException("No empty cells - size="+numKeys+", limit="+lim);
+	}
+
+	private final void resize(){
+		assert(numKeys>=sizeLimit);
+		resize(keys.length+(keys.length>>1)+1L);
+	}
+
+	private final void resize(final long size2){
+		assert(size2>numKeys) : numKeys+", "+size2;
+		long newPrime=Primes.primeAtLeast(size2);
+		if(newPrime+extra>Integer.MAX_VALUE){
+			newPrime=Primes.primeAtMost(Integer.MAX_VALUE-extra);
+		}
+		assert(newPrime>modulus) : "Overflow: "+numKeys+", "+size2+", "+modulus+", "+newPrime;
+		modulus=(int)newPrime;
+
+		final int size3=(int)(newPrime+extra);
+		sizeLimit=(int)(modulus*loadFactor);
+		final long[] oldKeys=keys;
+		final int[] oldHeads=heads;
+		keys=KillSwitch.allocLong1D(size3);
+		heads=KillSwitch.allocInt1D(size3);
+		Arrays.fill(keys, invalid);
+
+		if(numKeys<1){return;}
+
+		for(int i=0; i<oldKeys.length; i++){
+			final long key=oldKeys[i];
+			if(key!=invalid){
+				final int cell=findCellOrEmpty(key);
+				keys[cell]=key;
+				heads[cell]=oldHeads[i];
+			}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Key table */
+	private long[] keys;
+	/** Index of the first value of each key's chain */
+	private int[] heads;
+
+	/** Flat value storage */
+	private Object[] values;
+	/** Index of the next value with the same key, or -1 */
+	private int[] next;
+	/** Number of value slots used, including cleared ones */
+	private int limit=0;
+
+	private int numKeys=0;
+	private int numValues=0;
+	/** Value for empty cells */
+	private long invalid;
+	private int modulus;
+	private int sizeLimit;
+	private final float loadFactor;
+
+	private static final Random randy=new Random(1);
+	private static final long MASK=Long.MAX_VALUE;
+	private static final long MINMASK=Long.MIN_VALUE;
+
+	private static final int extra=10;
+
+}
@@ -0,0 +1,357 @@
+package tax;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import fileIO.ByteFile;
+import fileIO.FileFormat;
+import fileIO.RawArrays;
+import shared.Parser;
+import shared.PreParser;
+import shared.Timer;
+import shared.Tools;
+import structures.IntList;
+import structures.LongList;
+
+/**
+ * Compact accession-to-taxid index, built once from accession2taxid files
+ * and memory-mapped at load time.
+ * Accessions (up to the first '.') are packed 6 bits per symbol into two longs,
+ * so up to 20 symbols are supported.  Keys are sorted, with a bucket table on the
+ * first 3 symbols, and stored with a parallel taxid column.
+ * Lookups are a binary search within one bucket, and do not allocate.
+ * The mapped file is shared between processes through the OS page cache.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class AccessionIndex {
+
+	/*--------------------------------------------------------------*/
+	/*----------------         Build Step           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Builds an index: in=<accession2taxid files> out=<file.accidx> [tree=<file>] */
+	public static void main(String[] args){
+		Timer t=new Timer();
+		PrintStream outstream=System.err;
+		{//Preparse block for help, config files, and outstream
+			PreParser pp=new PreParser(args, new Object() { }.getClass().getEnclosingClass(), false);
+			args=pp.args;
+			outstream=pp.outstream;
+		}
+
+		ArrayList<String> in=new ArrayList<String>();
+		String out=null, treeFile=null;
+		Parser parser=new Parser();
+		for(int i=0; i<args.length; i++){
+			String arg=args[i];
+			String[] split=arg.split("=");
+			String a=split[0].toLowerCase();
+			String b=split.length>1 ? split[1] : null;
+
+			if(a.equals("in")){
+				assert(b!=null) : "Bad parameter: "+arg;
+				if("auto".equalsIgnoreCase(b)){b=TaxTree.defaultAccessionTextFile();}
+				for(String s : b.split(",")){in.add(s);}
+			}else if(a.equals("out")){
+				out=("auto".equalsIgnoreCase(b) ? TaxTree.defaultAccessionIndex() : b);
+			}else if(a.equals("tree") || a.equals("taxtree")){
+				treeFile=("auto".equalsIgnoreCase(b) ? TaxTree.defaultTreeFile() : b);
+			}else if(parser.parse(arg, a, b)){
+				//do nothing
+			}else if(b==null && new File(arg).exists()){
+				in.add(arg);
+			}else{
+				throw new RuntimeException("Unknown parameter "+args[i]);
+			}
+		}
+		if(in.isEmpty()){throw new RuntimeException("Error - at least one input file is required.");}
+		if(out==null){throw new RuntimeException("Error - an output file is required.");}
+		if(!Tools.canWrite(out, parser.overwrite)){throw new RuntimeException("Output file "+out+" already exists, and overwrite="+parser.overwrite);}
+
+		TaxTree tree=(treeFile==null ? null : TaxTree.loadTaxTree(treeFile, outstream, false, false));
+		build(in, out, tree, outstream);
+		t.stop();
+		outstream.println("Time: \t"+t);
+	}
+
+	/**
+	 * Reads accession2taxid files and writes a sorted, packed index.
+	 * @param tree If not null, discard entries the same way AccessionToTaxid does
+	 */
+	public static void build(ArrayList<String> in, String out, TaxTree tree, PrintStream outstream){
+		final LongList his=new LongList(1<<20), los=new LongList(1<<20);
+		final IntList tids=new IntList(1<<20);
+		long lines=0, tooLong=0, invalid=0;
+		for(String fname : in){
+			outstream.println("Loading "+fname);
+			ByteFile bf=ByteFile.makeByteFile(FileFormat.testInput(fname, FileFormat.TXT, null, true, false));
+			for(byte[] line=bf.nextLine(); line!=null; line=bf.nextLine()){
+				if(line.length<1 || Tools.startsWith(line, "accession")){continue;}
+				lines++;
+				int len=0;
+				while(len<line.length && line[len]!='\t' && line[len]!='.'){len++;}
+				if(len>MAX_LEN){tooLong++; continue;}
+				final long hi=encode(line, 0, Tools.min(len, 10)), lo=encode(line, 10, len);
+				final int tid=AccessionToTaxid.parseLineToTaxid(line, (byte)'\t');
+				if(hi<0 || lo<0 || len<1 || !accept(tid, tree)){invalid++; continue;}
+				his.add(hi);
+				los.add(lo);
+				tids.add(tid);
+			}
+			bf.close();
+		}
+		outstream.println("Lines:     \t"+lines);
+		outstream.println("Too long:  \t"+tooLong);
+		outstream.println("Invalid:   \t"+invalid);
+
+		final long[] hi=his.array, lo=los.array;
+		final int[] tid=tids.array;
+		int size=his.size;
+		sort(hi, lo, tid, 0, size-1);
+
+		//Remove duplicate accessions
+		int unique=0;
+		for(int i=0; i<size; i++){
+			if(unique>0 && hi[i]==hi[unique-1] && lo[i]==lo[unique-1]){continue;}
+			hi[unique]=hi[i];
+			lo[unique]=lo[i];
+			tid[unique]=tid[i];
+			unique++;
+		}
+		size=unique;
+		outstream.println("Indexed:   \t"+size);
+
+		final int[] buckets=new int[BUCKETS+1];
+		for(int i=0; i<size; i++){buckets[bucket(hi[i])+1]++;}
+		for(int i=1; i<buckets.length; i++){buckets[i]+=buckets[i-1];}
+
+		final String tmp=out+".tmp";
+		FileChannel fc=RawArrays.openWrite(tmp);
+		RawArrays.writeInts(fc, new int[] {MAGIC, VERSION, size, BUCKET_BITS});
+		RawArrays.writeInts(fc, buckets);
+		RawArrays.writeLongs(fc, hi, 0, size);
+		RawArrays.writeLongs(fc, lo, 0, size);
+		RawArrays.writeInts(fc, tid, 0, size);
+		RawArrays.close(fc, tmp, out);
+	}
+
+	/** Same filter as AccessionToTaxid.HashThread.parseLine2 */
+	private static boolean accept(int tid, TaxTree tree){
+		if(tid<1){return false;}
+		if(tree==null){return true;}
+		if(tid>=tree.nodes.length){return false;}
+		TaxNode tn=tree.getNode(tid);
+		if(tn==null || tn.levelExtended==TaxTree.LIFE_E || tn.levelExtended==TaxTree.DOMAIN_E){return false;}
+		return tn.pid<tree.nodes.length;
+	}
+
+	/** Sorts by key, moving taxids along with keys. */
+	private static void sort(long[] hi, long[] lo, int[] tid, int a, int b){
+		while(b-a>16){
+			final int mid=a+(b-a)/2;
+			final long phi=hi[mid], plo=lo[mid];
+			int i=a, j=b;
+			while(i<=j){
+				while(compare(hi[i], lo[i], phi, plo)<0){i++;}
+				while(compare(hi[j], lo[j], phi, plo)>0){j--;}
+				if(i<=j){
+					swap(hi, lo, tid, i, j);
+					i++;
+					j--;
+				}
+			}
+			//Recur on the smaller side to bound stack depth
+			if(j-a<b-i){
+				sort(hi, lo, tid, a, j);
+				a=i;
+			}else{
+				sort(hi, lo, tid, i, b);
+				b=j;
+			}
+		}
+		for(int i=a+1; i<=b; i++){
+			for(int j=i; j>a && compare(hi[j], lo[j], hi[j-1], lo[j-1])<0; j--){swap(hi, lo, tid, j, j-1);}
+		}
+	}
+
+	private static int compare(long hi1, long lo1, long hi2, long lo2){
+		return hi1!=hi2 ? (hi1<hi2 ? -1 : 1) : lo1!=lo2 ? (lo1<lo2 ? -1 : 1) : 0;
+	}
+
+	private static void swap(long[] hi, long[] lo, int[] tid, int i, int j){
+		final long h=hi[i], l=lo[i];
+		final int t=tid[i];
+		hi[i]=hi[j]; lo[i]=lo[j]; tid[i]=tid[j];
+		hi[j]=h; lo[j]=l; tid[j]=t;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Loading            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** True if this looks like an index rather than accession2taxid text. */
+	public static boolean isIndex(String fname){
+		return fname!=null && fname.indexOf(',')<0 && fname.endsWith(EXTENSION);
+	}
+
+	/** Maps an index file.  The bucket table is copied to the heap; the keys and taxids stay mapped. */
+	public AccessionIndex(String fname){
+		FileChannel fc=RawArrays.openRead(fname);
+		final int[] header=new int[4];
+		long pos=RawArrays.readInts(fc, 0, header);
+		if(header[0]!=MAGIC || header[1]!=VERSION || header[3]!=BUCKET_BITS){
+			RawArrays.close(fc);
+			throw new RuntimeException("Unrecognized accession index "+fname+"; please rebuild it with accessionindex.sh.");
+		}
+		size=header[2];
+		buckets=new int[BUCKETS+1];
+		pos=RawArrays.readInts(fc, pos, buckets);
+		his=map(fc, pos, size, 8);
+		pos+=size*8L;
+		los=map(fc, pos, size, 8);
+		pos+=size*8L;
+		tids=map(fc, pos, size, 4);
+		RawArrays.close(fc);
+	}
+
+	/** Maps a column in segments, since a MappedByteBuffer is limited to 2GB. */
+	private static MappedByteBuffer[] map(FileChannel fc, long pos, int count, int width){
+		final MappedByteBuffer[] segs=new MappedByteBuffer[(int)((count+SEG_LEN-1)/SEG_LEN)];
+		try {
+			for(int i=0; i<segs.length; i++){
+				final long len=Tools.min(SEG_LEN, count-i*SEG_LEN)*width;
+				segs[i]=fc.map(FileChannel.MapMode.READ_ONLY, pos+i*SEG_LEN*width, len);
+				segs[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return segs;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Lookups            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/** Returns the taxid of this accession, ignoring any version suffix, or -1. */
+	public int get(String accession){
+		if(accession==null){return -1;}
+		long hi=0, lo=0;
+		int len=0;
+		for(int i=0, max=accession.length(); i<max; i++){
+			final char c=accession.charAt(i);
+			if(c=='.'){break;}
+			final int x=(c<128 ? CODES[c] : -1);
+			if(x<0 || len>=MAX_LEN){return -1;}
+			if(len<10){hi|=((long)x)<<(6*(9-len));}
+			else{lo|=((long)x)<<(6*(19-len));}
+			len++;
+		}
+		return len<1 ? -1 : find(hi, lo);
+	}
+
+	/** Returns the taxid of the accession in line[a, b), ignoring any version suffix, or -1. */
+	public int get(byte[] line, int a, int b){
+		int stop=a;
+		while(stop<b && line[stop]!='.'){stop++;}
+		if(stop==a || stop-a>MAX_LEN){return -1;}
+		final long hi=encode(line, a, Tools.min(stop, a+10)), lo=encode(line, a+10, stop);
+		return (hi<0 || lo<0) ? -1 : find(hi, lo);
+	}
+
+	private int find(final long hi, final long lo){
+		final int bucket=bucket(hi);
+		int a=buckets[bucket], b=buckets[bucket+1]-1;
+		while(a<=b){
+			final int mid=(a+b)>>>1;
+			final int x=compare(getLong(his, mid), getLong(los, mid), hi, lo);
+			if(x<0){a=mid+1;}
+			else if(x>0){b=mid-1;}
+			else{return tids[mid>>>SEG_BITS].getInt((mid&SEG_MASK)<<2);}
+		}
+		return -1;
+	}
+
+	private static long getLong(MappedByteBuffer[] segs, int i){
+		return segs[i>>>SEG_BITS].getLong((i&SEG_MASK)<<3);
+	}
+
+	public int size(){return size;}
+
+	/*--------------------------------------------------------------*/
+	/*----------------           Encoding           ----------------*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * Packs line[a, b) left-aligned into a long, 6 bits per symbol, for up to 10 symbols.
+	 * @return The packed value, or -1 if a symbol is not allowed
+	 */
+	private static long encode(byte[] line, int a, int b){
+		long x=0;
+		for(int i=a, shift=54; i<b; i++, shift-=6){
+			final int c=line[i];
+			final int code=(c>=0 ? CODES[c] : -1);
+			if(code<0){return -1;}
+			x|=((long)code)<<shift;
+		}
+		return x;
+	}
+
+	private static int bucket(long hi){
+		return (int)(hi>>>(60-BUCKET_BITS));
+	}
+
+	/**
+	 * Digits are 1-10, uppercase 11-36, lowercase 37-62, and '_' and '-' share 63; 0 is padding.
+	 * Case is kept because some accessions differ only by case.  '_' and '-' collide,
+	 * as in AccessionToTaxid.hash, since 6 bits have no room for both.
+	 */
+	private static byte[] makeCodes(){
+		final byte[] codes=new byte[128];
+		Arrays.fill(codes, (byte)-1);
+		for(int i='0'; i<='9'; i++){codes[i]=(byte)(i-'0'+1);}
+		for(int i='A'; i<='Z'; i++){codes[i]=(byte)(i-'A'+11);}
+		for(int i='a'; i<='z'; i++){codes[i]=(byte)(i-'a'+37);}
+		codes['_']=codes['-']=63;
+		return codes;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+
+	private final int size;
+	/** buckets[b] is the first index whose first 3 symbols give bucket b */
+	private final int[] buckets;
+	private final MappedByteBuffer[] his, los, tids;
+
+	/*--------------------------------------------------------------*/
+	/*----------------        Static Fields         ----------------*/
+	/*--------------------------------------------------------------*/
+
+	public static final String EXTENSION=".accidx";
+	/** Longest supported accession, excluding the version */
+	public static final int MAX_LEN=20;
+	private static final byte[] CODES=makeCodes();
+
+	/** "ACX1" */
+	private static final int MAGIC=0x31584341;
+	/** Version 2 keeps case; version 1 indexes folded lowercase to uppercase */
+	private static final int VERSION=2;
+	private static final int BUCKET_BITS=18;
+	private static final int BUCKETS=1<<BUCKET_BITS;
+
+	/** Elements per mapped segment */
+	private static final int SEG_BITS=27;
+	private static final long SEG_LEN=1L<<SEG_BITS;
+	private static final int SEG_MASK=(1<<SEG_BITS)-1;
+
+}
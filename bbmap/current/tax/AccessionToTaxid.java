@@ -32,6 +32,12 @@ import structures.StringNum;
 public class AccessionToTaxid {
 	
 	public static void load(String files){
+		if(AccessionIndex.isIndex(files)){
+			System.err.println("Mapping "+files);
+			index=new AccessionIndex(files);
+			LOADED=true;
+			return;
+		}
 		final boolean oldBf2=ByteFile.FORCE_MODE_BF2;
 		final boolean oldBf1=ByteFile.FORCE_MODE_BF1;
 		final boolean oldUnpigz=ReadWrite.USE_UNPIGZ;
@@ -330,6 +336,7 @@ public class AccessionToTaxid {
 	
 	public static int get(String accession){
 		if(accession==null){return -1;}
+		if(index!=null){return index.get(accession);}
 //		if(STRIP_UNDERSCORE){
 //			accession=accession.replaceAll("[_-]", "");
 //		}
@@ -784,6 +791,8 @@ public class AccessionToTaxid {
 	
 	private static boolean LOADED=false;
 	private static HashMap<String, Integer>[] maps=null;
+	/** Memory-mapped index, used instead of maps and tables when loaded from an AccessionIndex file */
+	private static AccessionIndex index=null;
 	private static KmerTableSet tables;
 	public static TaxTree tree=null;
 //	public static final boolean USE_MAPS=true;
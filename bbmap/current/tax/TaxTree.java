@@ -1,5 +1,6 @@
 package tax;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -1920,7 +1921,13 @@ public class TaxTree implements Serializable{
 
 	public static final String defaultTableFile(){return defaultTableFile.replaceAll("TAX_PATH", TAX_PATH);}
 	public static final String defaultTreeFile(){return defaultTreeFile.replaceAll("TAX_PATH", TAX_PATH);}
-	public static final String defaultAccessionFile(){return defaultAccessionFile.replaceAll("TAX_PATH", TAX_PATH);}
+	/** Returns the mapped accession index if present, otherwise the accession2taxid text files. */
+	public static final String defaultAccessionFile(){
+		final String index=defaultAccessionIndex();
+		return new File(index).exists() ? index : defaultAccessionTextFile();
+	}
+	public static final String defaultAccessionTextFile(){return defaultAccessionFile.replaceAll("TAX_PATH", TAX_PATH);}
+	public static final String defaultAccessionIndex(){return defaultAccessionIndex.replaceAll("TAX_PATH", TAX_PATH);}
 	public static final String defaultPatternFile(){return defaultPatternFile.replaceAll("TAX_PATH", TAX_PATH);}
 	public static final String defaultImgFile(){return defaultImgFile.replaceAll("TAX_PATH", TAX_PATH);}
 	public static final String defaultSizeFile(){return defaultSizeFile.replaceAll("TAX_PATH", TAX_PATH);} 
@@ -1931,6 +1938,8 @@ public class TaxTree implements Serializable{
 	private static final String defaultTreeFile="TAX_PATH/tree.taxtree.gz";
 	private static final String defaultPatternFile="TAX_PATH/patterns.txt";
 	private static final String defaultSizeFile="TAX_PATH/taxsize.tsv.gz";
+	/** Used by accession=auto instead of defaultAccessionFile, if present */
+	private static final String defaultAccessionIndex="TAX_PATH/accession"+AccessionIndex.EXTENSION;
 //	private static final String defaultAccessionFile2="TAX_PATH/shrunk.dead_nucl.accession2taxid.gz,"
 //			+ "TAX_PATH/shrunk.dead_prot.accession2taxid.gz,TAX_PATH/shrunk.dead_wgs.accession2taxid.gz,"
 //			+ "TAX_PATH/shrunk.nucl_est.accession2taxid.gz,TAX_PATH/shrunk.nucl_gb.accession2taxid.gz,"
@@ -475,7 +475,7 @@ public abstract class AbstractKmerTableU {
 				if(type==FOREST1D){
 					akt=new HashForestU(size, k, growable, false);
 				}else if(type==ARRAY1D){
-					akt=new HashArrayU1D(schedule, k, kbig);
+					akt=(PAIR_TABLES && kbig==2*k && HashArrayU1D2.fits(schedule) ? new HashArrayU1D2(schedule, k, kbig) : new HashArrayU1D(schedule, k, kbig));
 //					akt=new HashArrayU1D(size, k, kbig, growable);
 				}else if(type==NODE1D){
 					throw new RuntimeException("Must use forest, table, or array data structure. Type="+type);
@@ -519,6 +519,8 @@ public abstract class AbstractKmerTableU {
 	
 	public static boolean FASTA_DUMP=true;
 	public static boolean NUMERIC_DUMP=false;
+	/** Use HashArrayU1D2 for two-word kmers */
+	public static boolean PAIR_TABLES=true;
 	
 	public static final boolean verbose=false; //slow
 	public static final boolean TESTMODE=false; //slow
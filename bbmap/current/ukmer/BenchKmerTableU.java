@@ -0,0 +1,108 @@
+package ukmer;
+
+import java.util.Locale;
+import java.util.Random;
+
+import dna.AminoAcid;
+import shared.Primes;
+import shared.Timer;
+import shared.Tools;
+
+/**
+ * Compares the generic HashArrayU1D with the interleaved HashArrayU1D2 on kmers from the same random sequence.
+ * Tables are made by AbstractKmerTableU.preallocate and kmers are routed with Kmer.mod(ways),
+ * as in KmerTableSetU, so this measures the tables KmerTableSetU would use with pairtables=f and t.
+ * Reports single-threaded increment and lookup speed, and checks that both agree.
+ * Usage: java ukmer.BenchKmerTableU k=45,62 bases=20m ways=31 rounds=2
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public class BenchKmerTableU {
+
+	public static void main(String[] args){
+		String klist="45,62";
+		long bases=20000000;
+		int ways=31;
+		int rounds=2;
+
+		for(String arg : args){
+			String[] split=arg.split("=");
+			String a=split[0].toLowerCase();
+			String b=split.length>1 ? split[1] : null;
+
+			if(a.equals("k")){
+				klist=b;
+			}else if(a.equals("bases")){
+				bases=Tools.parseKMG(b);
+			}else if(a.equals("ways")){
+				ways=Integer.parseInt(b);
+			}else if(a.equals("rounds")){
+				rounds=Integer.parseInt(b);
+			}else{
+				throw new RuntimeException("Unknown parameter "+arg);
+			}
+		}
+		assert(bases<Integer.MAX_VALUE) : bases;
+
+		final byte[] seq=new byte[(int)bases];
+		final Random randy=new Random(1);
+		for(int i=0; i<seq.length; i++){seq[i]=AminoAcid.numberToBase[randy.nextInt(4)];}
+		//Repeat part of the sequence so some kmers have higher counts
+		System.arraycopy(seq, 0, seq, seq.length/2, seq.length/4);
+
+		final int[] schedule=new int[] {(int)Primes.primeAtLeast((long)(seq.length*1.4/ways))};
+		final boolean pairTables=AbstractKmerTableU.PAIR_TABLES;
+		for(String s : klist.split(",")){
+			final int kbig0=Integer.parseInt(s);
+			final int k=Kmer.getK(kbig0);
+			final int mult=Kmer.getMult(kbig0);
+			final int kbig=k*mult;
+			assert(mult==2) : "Only two-word kmers use HashArrayU1D2; k="+kbig;
+			System.err.println("k="+kbig0+(kbig==kbig0 ? "" : " (used as "+kbig+")")+", bases="+bases+", ways="+ways+", cells="+schedule[0]+" per way");
+			for(int r=0; r<rounds; r++){
+				AbstractKmerTableU.PAIR_TABLES=false;
+				final long sum1=run(AbstractKmerTableU.preallocate(ways, AbstractKmerTableU.ARRAY1D, schedule, k, kbig), seq, k, mult);
+				AbstractKmerTableU.PAIR_TABLES=true;
+				final long sum2=run(AbstractKmerTableU.preallocate(ways, AbstractKmerTableU.ARRAY1D, schedule, k, kbig), seq, k, mult);
+				assert(sum1==sum2) : sum1+", "+sum2;
+			}
+		}
+		AbstractKmerTableU.PAIR_TABLES=pairTables;
+	}
+
+	/** Returns the sum of counts read back, for comparing tables. */
+	private static long run(AbstractKmerTableU[] tables, byte[] seq, int k, int mult){
+		System.gc();
+		final Kmer kmer=new Kmer(k, mult);
+		final int kbig=k*mult;
+		final int ways=tables.length;
+
+		Timer t=new Timer();
+		kmer.clear();
+		for(int i=0; i<seq.length; i++){
+			kmer.addRight(seq[i]);
+			if(kmer.len>=kbig){tables[kmer.mod(ways)].increment(kmer);}
+		}
+		t.stop();
+		final long incrementTime=t.elapsed;
+
+		t.start();
+		long sum=0;
+		kmer.clear();
+		for(int i=0; i<seq.length; i++){
+			kmer.addRight(seq[i]);
+			if(kmer.len>=kbig){sum+=tables[kmer.mod(ways)].getValue(kmer);}
+		}
+		t.stop();
+		final long readTime=t.elapsed;
+
+		long size=0;
+		for(AbstractKmerTableU table : tables){size+=table.size();}
+		final long kmers=seq.length-kbig+1;
+		System.err.println(String.format(Locale.ROOT, "%-14s increment %8.2f Mkmers/s\tread %8.2f Mkmers/s\tsize %d\tsum %d",
+				tables[0].getClass().getSimpleName(), kmers*1000.0/incrementTime, kmers*1000.0/readTime, size, sum));
+		return sum;
+	}
+
+}
@@ -26,6 +26,14 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	/*--------------------------------------------------------------*/
 	
 	HashArrayU(int[] schedule_, int k_, int kbig_, boolean twod_){
+		this(schedule_, k_, kbig_, twod_, false);
+	}
+	
+	/**
+	 * @param interleaved_ Store two-word keys in one array as {word0, word1} pairs,
+	 * so a probe reads one cache line instead of two
+	 */
+	HashArrayU(int[] schedule_, int k_, int kbig_, boolean twod_, boolean interleaved_){
 		schedule=schedule_;
 		autoResize=schedule.length>1;
 		prime=schedule[0];
@@ -34,15 +42,25 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 		k=k_;
 		kbig=kbig_;
 		mult=kbig/k;
-		arrays=new long[mult][];
-		for(int i=0; i<mult; i++){
-			arrays[i]=allocLong1D(prime+extra);
-			Arrays.fill(arrays[i], NOT_PRESENT);
-		}
+		interleaved=interleaved_;
+		assert(!interleaved || mult==2) : "Only two-word keys can be interleaved: mult="+mult;
+		arrays=allocKeys(prime+extra);
 		victims=new HashForestU(Tools.max(10, prime/victimRatio), k, autoResize, twod_);
 		TWOD=twod_;
 	}
 	
+	/** Allocates empty key storage for this many cells, in this table's layout. */
+	final long[][] allocKeys(int cells){
+		final long[][] matrix;
+		if(interleaved){
+			matrix=new long[][] {allocLong1D(2*cells)};
+		}else{
+			matrix=allocLong2D(mult, cells);
+		}
+		for(long[] array : matrix){Arrays.fill(array, NOT_PRESENT);}
+		return matrix;
+	}
+	
 //	HashArrayU(int initialSize, int k_, int kbig_, boolean autoResize_, boolean twod){
 //		if(initialSize>1){
 //			initialSize=(int)Tools.min(maxPrime, Primes.primeAtLeast(initialSize));
@@ -154,7 +172,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 		
 		assert(cell>=0);
 		
-		final boolean notpresent=(arrays[0][cell]==NOT_PRESENT);
+		final boolean notpresent=(keyWord(0, cell)==NOT_PRESENT);
 		if(notpresent){
 			if(verbose){System.err.println("B2: Setting cell "+cell+" to kmer "+kmer);}
 			setKmer(kmer.key(), cell);
@@ -175,11 +193,31 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	
 	public final void setKmer(long[] key, int cell){
 		if(verbose){System.err.println();}
+		if(interleaved){
+			arrays[0][cell<<1]=key[0];
+			arrays[0][(cell<<1)+1]=key[1];
+			return;
+		}
 		for(int i=0; i<mult; i++){
 			arrays[i][cell]=key[i];
 		}
 	}
 	
+	/** Marks this cell empty. */
+	final void clearKey(int cell){
+		arrays[0][interleaved ? cell<<1 : cell]=NOT_PRESENT;
+	}
+	
+	/** Word w of the key in this cell */
+	final long keyWord(int w, int cell){
+		return keyWord(arrays, w, cell);
+	}
+	
+	/** Word w of the key in this cell of matrix, which must have this table's layout */
+	final long keyWord(long[][] matrix, int w, int cell){
+		return interleaved ? matrix[0][(cell<<1)+w] : matrix[w][cell];
+	}
+	
 	@Override
 	public final int set(final Kmer kmer, final int v){
 		assert(kmer.mult==mult && kmer.len>=kmer.kbig);
@@ -196,7 +234,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 		assert(cell>=0);
 		final long[] key=kmer.key();
 		
-		final boolean notpresent=(arrays[0][cell]==NOT_PRESENT);
+		final boolean notpresent=(keyWord(0, cell)==NOT_PRESENT);
 		if(notpresent){
 			if(verbose){System.err.println("B2: Setting cell "+cell+" to kmer "+kmer);}
 			setKmer(key, cell);
@@ -288,14 +326,14 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	
 	protected final long[] fillKey(int cell, long[] temp, long[][] matrix) {
 		assert(temp.length==mult);
-		if(matrix[0][cell]<0){
+		if(keyWord(matrix, 0, cell)<0){
 //			assert(false) : matrix[0][cell]+"\ngetKmer("+cell+", kmer, matrix)\n"+Arrays.toString(matrix[0]); //123
 			return null;
 		}
 		for(int i=0; i<temp.length; i++){
-			temp[i]=matrix[i][cell];
+			temp[i]=keyWord(matrix, i, cell);
 		}
-		if(verbose){System.err.println("cell="+cell+", matrix[0][cell]="+matrix[0][cell]+", temp="+Arrays.toString(temp)+"\nmatrix[0]="+Arrays.toString(matrix[0]));}
+		if(verbose){System.err.println("cell="+cell+", matrix[0][cell]="+keyWord(matrix, 0, cell)+", temp="+Arrays.toString(temp)+"\nmatrix[0]="+Arrays.toString(matrix[0]));}
 		return temp;
 	}
 	
@@ -325,8 +363,8 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	@Override
 	public final void initializeOwnership(){
 		assert(owners==null);
-		owners=allocAtomicInt(arrays[0].length);
-		for(int i=0; i<arrays[0].length; i++){
+		owners=allocAtomicInt(arrayLength());
+		for(int i=0; i<arrayLength(); i++){
 			owners.set(i, NO_OWNER);
 		}
 		victims.initializeOwnership();
@@ -430,7 +468,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 //		return HASH_COLLISION;
 //	}
 
-	final int findKmer(final long[] key, final int startCell){
+	int findKmer(final long[] key, final int startCell){
 		int cell=startCell;
 		
 		final long[] array0=arrays[0];
@@ -448,7 +486,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 		return HASH_COLLISION;
 	}
 	
-	final int findKmerOrEmpty(Kmer kmer){
+	int findKmerOrEmpty(Kmer kmer){
 		int cell=kmerToCell(kmer);
 		if(verbose){System.err.println("Started at cell "+cell+" for "+kmer);}
 		
@@ -474,7 +512,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 		return HASH_COLLISION;
 	}
 	
-	final boolean matches(long[] key, int cell){
+	boolean matches(long[] key, int cell){
 		assert(cell>=0);
 		for(int i=0; i<mult; i++){
 			if(key[i]!=arrays[i][cell]){return false;}
@@ -493,7 +531,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	final public long size() {return size;}
 	
 	@Override
-	final public int arrayLength() {return arrays[0].length;}
+	final public int arrayLength() {return interleaved ? arrays[0].length>>1 : arrays[0].length;}
 	
 	@Override
 	protected abstract void resize();
@@ -507,7 +545,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	@Override
 	public final boolean dumpKmersAsText(TextStreamWriter tsw, int k, int mincount, int maxcount){
 		final long[] key=new long[mult];
-		final int alen=arrays[0].length;
+		final int alen=arrayLength();
 		if(TWOD){
 			final int[] singleton=new int[1];
 			for(int i=0; i<alen; i++){
@@ -533,7 +571,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	@Override
 	public final boolean dumpKmersAsBytes(ByteStreamWriter bsw, int k, int mincount, int maxcount, AtomicLong remaining){
 		final long[] key=new long[mult];
-		final int alen=arrays[0].length;
+		final int alen=arrayLength();
 		if(TWOD){
 			final int[] singleton=new int[1];
 			for(int i=0; i<alen; i++){
@@ -561,7 +599,7 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	@Override
 	public final boolean dumpKmersAsBytes_MT(final ByteStreamWriter bsw, final ByteBuilder bb, final int k, final int mincount, final int maxcount, AtomicLong remaining){
 		final long[] key=new long[mult];
-		final int alen=arrays[0].length;
+		final int alen=arrayLength();
 		if(TWOD){
 			final int[] singleton=new int[1];
 			for(int i=0; i<alen; i++){
@@ -600,10 +638,9 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	
 	@Override
 	public final void fillHistogram(long[] ca, int max){
-		final int alen=arrays[0].length;
-		final long[] array0=arrays[0];
+		final int alen=arrayLength();
 		for(int i=0; i<alen; i++){
-			long kmer=array0[i];
+			long kmer=keyWord(0, i);
 			if(kmer!=NOT_PRESENT){
 				int count=Tools.min(readCellValue(i), max);
 				ca[count]++;
@@ -616,10 +653,9 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	
 	@Override
 	public void fillHistogram(SuperLongList sll){
-		final int alen=arrays[0].length;
-		final long[] array0=arrays[0];
+		final int alen=arrayLength();
 		for(int i=0; i<alen; i++){
-			long kmer=array0[i];
+			long kmer=keyWord(0, i);
 			if(kmer!=NOT_PRESENT){
 				int count=readCellValue(i);
 				sll.add(count);
@@ -632,14 +668,13 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	
 	@Override
 	public final void countGC(long[] gcCounts, int max){
-		final int alen0=arrays.length;
-		final int alen=arrays[0].length;
+		final int alen=arrayLength();
 		for(int i=0; i<alen; i++){
-			long kmer0=arrays[0][i];
+			long kmer0=keyWord(0, i);
 			if(kmer0!=NOT_PRESENT){
 				int count=Tools.min(readCellValue(i), max);
-				for(int j=0; j<alen0; j++){
-					gcCounts[count]+=gc(arrays[j][i]);
+				for(int j=0; j<mult; j++){
+					gcCounts[count]+=gc(keyWord(j, i));
 				}
 			}
 		}
@@ -666,6 +701,8 @@ public abstract class HashArrayU extends AbstractKmerTableU {
 	final int k;
 	final int kbig;
 	final int mult;//Length of Kmer arrays.
+	/** Keys are stored as pairs in arrays[0] rather than one array per word */
+	final boolean interleaved;
 	public final boolean TWOD;
 	private final Lock lock=new ReentrantLock();
 	
@@ -14,14 +14,18 @@ import structures.SuperLongList;
  * @date Oct 25, 2013
  *
  */
-public final class HashArrayU1D extends HashArrayU {
+public class HashArrayU1D extends HashArrayU {
 	
 	/*--------------------------------------------------------------*/
 	/*----------------        Initialization        ----------------*/
 	/*--------------------------------------------------------------*/
 	
 	public HashArrayU1D(int[] schedule_, int k_, int kbig_){
-		super(schedule_, k_, kbig_, false);
+		this(schedule_, k_, kbig_, false);
+	}
+	
+	HashArrayU1D(int[] schedule_, int k_, int kbig_, boolean interleaved_){
+		super(schedule_, k_, kbig_, false, interleaved_);
 		values=allocInt1D(prime+extra);
 	}
 	
@@ -42,7 +46,7 @@ public final class HashArrayU1D extends HashArrayU {
 			int x=victims.increment(kmer);
 			if(autoResize && size+victims.size>sizeLimit){resize();}
 			return x;
-		}else if(arrays[0][cell]==NOT_PRESENT){
+		}else if(keyWord(0, cell)==NOT_PRESENT){
 			setKmer(kmer.key(), cell);
 			size++;
 			values[cell]=1;
@@ -85,7 +89,7 @@ public final class HashArrayU1D extends HashArrayU {
 				assert(!autoResize || size+victims.size<=sizeLimit+1) : sizeLimit+"<"+(size+victims.size)+", size="+size+", victims="+victims.size+", prime="+prime;
 //			}
 			return x;
-		}else if(arrays[0][cell]==NOT_PRESENT){
+		}else if(keyWord(0, cell)==NOT_PRESENT){
 			setKmer(kmer.key(), cell);
 			size++;
 			values[cell]=1;
@@ -151,7 +155,7 @@ public final class HashArrayU1D extends HashArrayU {
 	@Override
 	protected long[] cellToArray(int cell){
 		long[] r=new long[mult];
-		for(int i=0; i<mult; i++){r[i]=arrays[i][cell];}
+		for(int i=0; i<mult; i++){r[i]=keyWord(i, cell);}
 		return r;
 	}
 	
@@ -254,10 +258,7 @@ public final class HashArrayU1D extends HashArrayU {
 		long[][] oldk=arrays;
 		int[] oldc=values;
 //		KmerNodeU[] oldv=victims.array;
-		arrays=allocLong2D(mult, prime+extra);
-		for(int i=0; i<mult; i++){
-			Arrays.fill(arrays[i], NOT_PRESENT);
-		}
+		arrays=allocKeys(prime+extra);
 		values=allocInt1D(prime+extra);
 		ArrayList<KmerNodeU> list=victims.toList();
 		victims.clear();
@@ -266,9 +267,9 @@ public final class HashArrayU1D extends HashArrayU {
 		final Kmer kmer=new Kmer(kbig);
 //		long kmersProcessed=0; //123
 		{
-			for(int i=0; i<oldk[0].length; i++){
+			for(int i=0; i<oldc.length; i++){
 //				assert(false) : oldk[0][i];
-				if(oldk[0][i]>NOT_PRESENT){
+				if(keyWord(oldk, 0, i)>NOT_PRESENT){
 //					kmersProcessed++;
 //					assert(false) : oldk[0][i];
 					Kmer temp=fillKmer(i, kmer, oldk);
@@ -279,7 +280,7 @@ public final class HashArrayU1D extends HashArrayU {
 						System.err.println(Arrays.toString(oldk[0]));
 						System.err.println(Arrays.toString(arrays[0]));
 					}
-					assert(temp!=null) : i+", "+kmer+", "+oldk[0][i];
+					assert(temp!=null) : i+", "+kmer+", "+keyWord(oldk, 0, i);
 					set(temp, oldc[i]);
 					
 //					assert(getValue(temp)==oldc[i]); //123
@@ -327,7 +328,7 @@ public final class HashArrayU1D extends HashArrayU {
 			if(key!=null){
 				final int value=values[pos];
 				values[pos]=NOT_PRESENT;
-				arrays[0][pos]=NOT_PRESENT;
+				clearKey(pos);
 				size--;
 				if(value>limit){
 					set(key, value);
@@ -0,0 +1,78 @@
+package ukmer;
+
+import shared.Primes;
+
+/**
+ * HashArrayU1D for two-word kmers, as used for k=32-62.
+ * Both key words are interleaved in one long[] of length 2*cells, so a probe
+ * compares two adjacent primitive longs instead of looping over mult columns.
+ * Limited to HashArrayU1D2.maxPrime cells.
+ * @author Brian Bushnell
+ * @date Oct 18, 2026
+ *
+ */
+public final class HashArrayU1D2 extends HashArrayU1D {
+	
+	/*--------------------------------------------------------------*/
+	/*----------------        Initialization        ----------------*/
+	/*--------------------------------------------------------------*/
+	
+	public HashArrayU1D2(int[] schedule_, int k_, int kbig_){
+		super(schedule_, k_, kbig_, true);
+		assert(mult==2) : "HashArrayU1D2 requires two-word kmers: k="+k_+", kbig="+kbig_;
+		assert(schedule_[schedule_.length-1]<=maxPrime) : "Too many cells for an interleaved table: "+schedule_[schedule_.length-1];
+	}
+	
+	/** True if a table with this schedule can be interleaved. */
+	public static boolean fits(int[] schedule){
+		return schedule[schedule.length-1]<=maxPrime;
+	}
+	
+	/*--------------------------------------------------------------*/
+	/*----------------      Nonpublic Methods       ----------------*/
+	/*--------------------------------------------------------------*/
+	
+	@Override
+	final int findKmer(final long[] key, final int startCell){
+		final long[] array=arrays[0];
+		final long key0=key[0], key1=key[1];
+		for(int cell=startCell, max=startCell+extra; cell<max; cell++){
+			final long n=array[cell<<1];
+			if(n==key0){
+				if(array[(cell<<1)+1]==key1){return cell;}
+			}else if(n==NOT_PRESENT){return NOT_PRESENT;}
+		}
+		return HASH_COLLISION;
+	}
+	
+	@Override
+	final int findKmerOrEmpty(Kmer kmer){
+		final long[] key=kmer.key();
+		final long[] array=arrays[0];
+		final long key0=key[0], key1=key[1];
+		final int start=kmerToCell(kmer);
+		for(int cell=start, max=start+extra; cell<max; cell++){
+			final long n=array[cell<<1];
+			if(n==NOT_PRESENT){
+				return cell;
+			}else if(n==key0 && array[(cell<<1)+1]==key1){
+				return cell;
+			}
+		}
+		return HASH_COLLISION;
+	}
+	
+	@Override
+	final boolean matches(long[] key, int cell){
+		assert(cell>=0);
+		return key[0]==arrays[0][cell<<1] && key[1]==arrays[0][(cell<<1)+1];
+	}
+	
+	/*--------------------------------------------------------------*/
+	/*----------------            Fields            ----------------*/
+	/*--------------------------------------------------------------*/
+	
+	/** Largest cell count whose interleaved key array fits in one Java array */
+	final static int maxPrime=Primes.primeAtMost((Integer.MAX_VALUE>>1)-extra-20);
+	
+}
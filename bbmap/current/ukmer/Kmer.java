@@ -185,6 +185,7 @@ public class Kmer implements Cloneable {
 			x2=AminoAcid.numberToComplement[(int)x];
 			len++;
 		}
+		if(mult==2){return addRight2(x, x2);}
 		
 		for(int i=maxindex, j=0; j<mult; j++, i--){
 			
@@ -208,6 +209,7 @@ public class Kmer implements Cloneable {
 		
 		assert(x>=0);
 		assert(len>=kbig);
+		if(mult==2){return addLeft2(x, x2);}
 		
 		for(int i=0, j=maxindex; i<mult; i++, j--){
 
@@ -225,6 +227,28 @@ public class Kmer implements Cloneable {
 		return x;
 	}
 	
+	/** addRightNumeric unrolled for two words, as for k=32-62 */
+	private long addRight2(final long x, final long x2){
+		final long a0=array1[0], a1=array1[1], b0=array2[0], b1=array2[1];
+		array1[1]=((a1<<2)|x)&mask;
+		array2[0]=(b0>>>2)|(x2<<shift2);
+		array1[0]=((a0<<2)|((a1>>>shift2)&3L))&mask;
+		array2[1]=(b1>>>2)|((b0&3L)<<shift2);
+		incarnation++;
+		return (a0>>>shift2)&3L;
+	}
+	
+	/** addLeftNumeric unrolled for two words */
+	private long addLeft2(final long x, final long x2){
+		final long a0=array1[0], a1=array1[1], b0=array2[0], b1=array2[1];
+		array1[0]=(a0>>>2)|(x<<shift2);
+		array2[1]=((b1<<2)|x2)&mask;
+		array1[1]=(a1>>>2)|((a0&3L)<<shift2);
+		array2[0]=((b0<<2)|((b1>>>shift2)&3L))&mask;
+		incarnation++;
+		return a1&3L;
+	}
+	
 	public void fillArray2() {
 		for(int i=maxindex, j=0; j<mult; j++, i--){
 			array2[j]=AminoAcid.reverseComplementBinaryFast(array1[i], k);
@@ -299,6 +323,21 @@ public class Kmer implements Cloneable {
 	private void setKey0(){
 		corePalindrome=false;
 		key=array1;
+		if(mult==2){
+			final long a0=array1[0]&coreMask, b0=array2[0]&coreMask;
+			if(a0!=b0){
+				if(a0<b0){key=array2;}
+				return;
+			}
+			final long a1=array1[1]&coreMask, b1=array2[1]&coreMask;
+			if(a1!=b1){
+				if(a1<b1){key=array2;}
+				return;
+			}
+			corePalindrome=true;
+			setKey0safe();
+			return;
+		}
 		for(int i=0; i<mult; i++){
 			final long a=array1[i]&coreMask, b=array2[i]&coreMask;
 			if(a>b){return;}
@@ -324,6 +363,7 @@ public class Kmer implements Cloneable {
 	}
 	
 	public static long xor(long[] key, long coreMask){
+		if(key.length==2){return xor(key[0], key[1], coreMask);}
 		long xor=key[0]&coreMask;
 		for(int i=1; i<key.length; i++){
 			xor=(Long.rotateLeft(xor, 25))^(key[i]&coreMask);
@@ -331,6 +371,11 @@ public class Kmer implements Cloneable {
 		return xor&mask63;
 	}
 	
+	/** xor() of a two-word key */
+	public static long xor(long key0, long key1, long coreMask){
+		return ((Long.rotateLeft(key0&coreMask, 25))^(key1&coreMask))&mask63;
+	}
+	
 	/** WARNING!
 	 * Do not confuse this with key()! */
 	public long xor(){
@@ -207,6 +207,8 @@ public class KmerTableSetU extends AbstractKmerTableSet {
 				onePass=(passes<2);
 			}else if(a.equals("rcomp")){
 				rcomp_=Tools.parseBoolean(b);
+			}else if(a.equals("pairtables")){
+				AbstractKmerTableU.PAIR_TABLES=Tools.parseBoolean(b);
 			}
 			
 			else if(a.equalsIgnoreCase("filterMemoryOverride") || a.equalsIgnoreCase("filterMemory") || 
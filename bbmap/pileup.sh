@@ -68,6 +68,8 @@ delcoverage=t       (delcov) Count bases covered by deletions or introns as cove
                     True is faster than false.
 dupecoverage=t      (dupes) Include reads flagged as duplicates in coverage.
 samstreamer=t       (ss) Load reads multithreaded to increase speed.
+lazy=t              Parse only the needed sam fields, when the other flags allow.
+                    Reduces garbage and speeds up large sam files.
 
 Output format (tab-delimited):
 ID, Avg_fold, Length, Ref_GC, Covered_percent, Covered_bases, Plus_reads, Minus_reads, Read_GC, Median_fold, Std_Dev
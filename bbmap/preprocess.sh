@@ -0,0 +1,97 @@
+#!/bin/bash
+
+usage(){
+echo "
+Written by Brian Bushnell
+Last modified October 18, 2026
+
+Description:  Runs adapter trimming, artifact/phiX filtering, and read merging
+(BBDuk, BBDuk, BBMerge) in a single JVM.  Reads are passed between stages
+in memory rather than through intermediate files.  Optionally finishes with
+Tadpole error-correction, which reads one uncompressed temp file since it
+needs several passes over the data.
+
+Usage:  preprocess.sh in=<reads> out=<processed reads>
+
+Input may be fasta or fastq, compressed or uncompressed.
+
+Standard parameters:
+in=<file>           Primary input.  in2 may be used for a second paired file.
+out=<file>          Primary output.  out2 may be used for a second paired file.
+overwrite=t         (ow) Set to false to force the program to abort rather than
+                    overwrite an existing file.
+ordered=f           Keep reads in input order.
+
+Processing parameters:
+adapters=<file>     Adapter reference for ktrim.  Default is the bundled adapters.
+artifacts=<file>    Artifact reference for filtering.  Default is the bundled
+                    artifacts and phiX.
+k=23                Kmer length for trimming and filtering.
+mink=7              Minimum kmer length at read ends for trimming.
+hdist=1             Hamming distance for kmer matches.
+trimq=10            Quality-trim the right end to this quality.
+merge=t             Merge-correct paired reads with BBMerge (ecco mix).
+ecc=f               Error-correct the output with Tadpole.
+tmpdir=             Directory for the Tadpole temp file.
+pipelen=            Lists buffered between adjacent stages.
+
+Any parameter for an individual stage may be passed with a prefix:
+trim.<arg>, filter.<arg>, merge.<arg>, or ecc.<arg>; e.g. merge.strict=t
+
+Java Parameters:
+-Xmx                This will set Java's memory usage, overriding automatic
+                    memory detection. -Xmx20g will specify 20 gigs of RAM,
+                    and -Xmx200m will specify 200 megs.
+                    The max is typically 85% of physical memory.
+-eoom               This flag will cause the process to exit if an
+                    out-of-memory exception occurs.  Requires Java 8u92+.
+-da                 Disable assertions.
+
+Please contact Brian Bushnell at bbushnell@lbl.gov if you encounter any problems.
+"
+}
+
+#This block allows symlinked shellscripts to correctly set classpath.
+pushd . > /dev/null
+DIR="${BASH_SOURCE[0]}"
+while [ -h "$DIR" ]; do
+  cd "$(dirname "$DIR")"
+  DIR="$(readlink "$(basename "$DIR")")"
+done
+cd "$(dirname "$DIR")"
+DIR="$(pwd)/"
+popd > /dev/null
+
+#DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )/"
+CP="$DIR""current/"
+
+z="-Xmx1g"
+z2="-Xms1g"
+EA="-ea"
+EOOM=""
+set=0
+
+if [ -z "$1" ] || [[ $1 == -h ]] || [[ $1 == --help ]]; then
+	usage
+	exit
+fi
+
+calcXmx () {
+	source "$DIR""/calcmem.sh"
+	parseXmx "$@"
+	if [[ $set == 1 ]]; then
+		return
+	fi
+	freeRam 15000m 84
+	z="-Xmx${RAM}m"
+	z2="-Xms${RAM}m"
+}
+calcXmx "$@"
+
+preprocess() {
+	local CMD="java $EA $EOOM $z $z2 -cp $CP jgi.PreprocessPipeline $@"
+	echo $CMD >&2
+	eval $CMD
+}
+
+preprocess "$@"
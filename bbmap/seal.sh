@@ -130,6 +130,9 @@ prealloc=f          Preallocate memory in table.  Allows faster table loading
 monitor=f           Kill this process if CPU usage drops to zero for a long
                     time.  monitor=600,0.01 would kill after 600 seconds 
                     under 1% usage.
+refcache=<dir>      Cache reference kmer tables in this directory, keyed by
+                    reference checksums and settings, and reload them on
+                    later runs instead of rehashing the reference.
 rskip=1             Skip reference kmers to reduce memory usage.
                     1 means use all, 2 means use every other kmer, etc.
 qskip=1             Skip query kmers to increase speed.  1 means use all.
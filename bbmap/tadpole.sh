@@ -59,6 +59,8 @@ onepass=f           If true, prefilter will be generated in same pass as kmer
                     prefilter's depth limit.
 filtermem=0         Allows manually specifying prefilter memory in bytes, for
                     deterministic runs.  0 will set it automatically.
+blockedbloom=f      Place all of a kmer's prefilter cells in one cache line.
+                    Faster, with a slightly higher false-positive rate.
 
 Hashing parameters:
 k=31                Kmer length (1 to infinity).  Memory use increases with K.
@@ -69,8 +71,32 @@ minprob=0.5         Ignore kmers with overall probability of correctness below t
 minprobmain=t       (mpm) Use minprob for the primary kmer counts.
 threads=X           Spawn X hashing threads (default is number of logical processors).
 rcomp=t             Store and count each kmer together and its reverse-complement.
+pairtables=t        Use a specialized table for k=32-62, comparing kmers as
+                    two primitive longs.
 coremask=t          All kmer extensions share the same hashcode.
 fillfast=t          Speed up kmer extension lookups.
+workunit=64k        Table cells per work unit when building contigs or
+                    exploring dead ends; idle threads steal units from busy ones.
+tableout=<file>     Save the kmer count table to a binary snapshot after counting.
+tablein=<file>      Load kmer counts from a snapshot instead of counting the
+                    input; in= still supplies the reads to correct or extend.
+                    k, rcomp, and coremask must match the snapshot.
+lockfree=f          Count kmers in lock-free tables, then convert them for use.
+                    Lock-free tables do not resize; they are allocated at
+                    full size, as with prealloc.
+offheap=f           Store kmer counts outside the Java heap.  Only for
+                    mode=correct or mode=discard without shave or rinse;
+                    other modes exit with an error.
+offheapmem=0        Native memory for offheap tables, independent of -Xmx.
+diskbins=0          If positive, count kmers in two passes through this many
+                    temp files, for when the table would not fit in memory.
+                    Reads are split into minimizer-keyed super-kmers on disk,
+                    then each bin is counted alone.  Only for k<=31.
+bintemp=            Directory for bin files; defaults to $TMPDIR.
+binmincount=2       In diskbins mode, discard kmers seen fewer times than this.
+                    This removes most error kmers and shrinks the final table;
+                    at 1, peak memory is no lower than without diskbins.
+binmlen=13          Minimizer length for assigning super-kmers to bins.
 
 Assembly parameters:
 mincountseed=3      (mcs) Minimum kmer count to seed a new contig or begin extension.